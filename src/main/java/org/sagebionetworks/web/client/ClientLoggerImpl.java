@@ -1,24 +1,45 @@
 package org.sagebionetworks.web.client;
 
-import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sagebionetworks.web.client.utils.Callback;
+import org.sagebionetworks.web.shared.ClientLogEntry;
+import org.sagebionetworks.web.shared.ClientLogEntry.Level;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.inject.Inject;
 
 /**
  * Provides logging for client-side code.
- * The log message is sent to the server, where it is logged with Log4J.
+ * The log messages are sent to the server in batches, where they are logged with Log4J.
+ * 
+ * A message logged again before its batch is sent is only counted. A batch is
+ * sent at most every {@link #FLUSH_DELAY_MS}, one at a time, and holds at most
+ * {@link #MAX_BATCH_ENTRIES} distinct messages; the rest are counted as dropped.
  * 
  * @author jmhill
  *
  */
 public class ClientLoggerImpl implements ClientLogger{
+	public static final int FLUSH_DELAY_MS = 5000;
+	public static final int MAX_BATCH_ENTRIES = 50;
+	public static final int MAX_MESSAGE_LENGTH = 5000;
 	
 	private SynapseClientAsync synapseClient;
+	private GWTWrapper gwt;
+	
+	private Map<String, ClientLogEntry> pending = new LinkedHashMap<String, ClientLogEntry>();
+	private int droppedCount = 0;
+	private boolean flushScheduled = false;
+	private boolean sending = false;
 	
 	@Inject
-	public ClientLoggerImpl(SynapseClientAsync synapseClient){
+	public ClientLoggerImpl(SynapseClientAsync synapseClient, GWTWrapper gwt){
 		this.synapseClient = synapseClient;
+		this.gwt = gwt;
 	}
 	
 	/**
@@ -26,18 +47,7 @@ public class ClientLoggerImpl implements ClientLogger{
 	 * @param message
 	 */
 	public void debug(String message){
-		this.synapseClient.logDebug(message, new AsyncCallback<Void>() {
-			
-			@Override
-			public void onSuccess(Void result) {
-				// Nothing to do here.
-			}
-			
-			@Override
-			public void onFailure(Throwable caught) {
-				// Nothing to do here.
-			}
-		});
+		add(Level.DEBUG, message);
 	}
 	
 	/**
@@ -45,18 +55,7 @@ public class ClientLoggerImpl implements ClientLogger{
 	 * @param message
 	 */
 	public void info(String message){
-		this.synapseClient.logInfo(message, new AsyncCallback<Void>() {
-			
-			@Override
-			public void onSuccess(Void result) {
-				// Nothing to do here.
-			}
-			
-			@Override
-			public void onFailure(Throwable caught) {
-				// Nothing to do here.
-			}
-		});
+		add(Level.INFO, message);
 	}
 	
 	/**
@@ -64,18 +63,7 @@ public class ClientLoggerImpl implements ClientLogger{
 	 * @param message
 	 */
 	public void error(String message){
-		this.synapseClient.logError(message, new AsyncCallback<Void>() {
-			
-			@Override
-			public void onSuccess(Void result) {
-				// Nothing to do here.
-			}
-			
-			@Override
-			public void onFailure(Throwable caught) {
-				// Nothing to do here.
-			}
-		});
+		add(Level.ERROR, message);
 	}
 	
 	/**
@@ -100,18 +88,70 @@ public class ClientLoggerImpl implements ClientLogger{
 		builder.append(":");
 		builder.append(lineNumber);
 		builder.append(")\n");
-		this.synapseClient.logError(builder.toString(), new AsyncCallback<Void>() {
-			
+		error(builder.toString());
+	}
+	
+	/**
+	 * Send the pending messages now, unless a batch is already on its way.
+	 */
+	public void flush() {
+		if (sending || (pending.isEmpty() && droppedCount == 0))
+			return;
+		List<ClientLogEntry> entries = new ArrayList<ClientLogEntry>(pending.values());
+		if (droppedCount > 0)
+			entries.add(new ClientLogEntry(Level.INFO, droppedCount + " other client log messages were dropped"));
+		pending.clear();
+		droppedCount = 0;
+		sending = true;
+		synapseClient.logBatch(entries, new AsyncCallback<Void>() {
 			@Override
 			public void onSuccess(Void result) {
-				// Nothing to do here.
+				sent();
 			}
 			
 			@Override
 			public void onFailure(Throwable caught) {
-				// Nothing to do here.
+				// the batch is lost, which is fine
+				sent();
 			}
 		});
 	}
+	
+	private void sent() {
+		sending = false;
+		if (!pending.isEmpty() || droppedCount > 0)
+			scheduleFlush();
+	}
+	
+	private void add(Level level, String message) {
+		if (message == null)
+			message = "null";
+		if (message.length() > MAX_MESSAGE_LENGTH)
+			message = message.substring(0, MAX_MESSAGE_LENGTH) + "...";
+		String key = level.name() + ":" + message;
+		ClientLogEntry entry = pending.get(key);
+		if (entry != null)
+			entry.incrementCount();
+		else if (pending.size() >= MAX_BATCH_ENTRIES)
+			droppedCount++;
+		else
+			pending.put(key, new ClientLogEntry(level, message));
+		// while a batch is on its way, its answer schedules the next one
+		if (!sending)
+			scheduleFlush();
+	}
+	
+	private void scheduleFlush() {
+		if (flushScheduled)
+			return;
+		flushScheduled = true;
+		gwt.scheduleExecution(new Callback() {
+			@Override
+			public void invoke() {
+				flushScheduled = false;
+				flush();
+			}
+		}, FLUSH_DELAY_MS);
+	}
 
 }
@@ -58,6 +58,7 @@ public class ClientProperties {
 	public static final String PYTHON_CLIENT_DOWNLOAD_CODE = "# From Terminal Prompt:<br/>pip install synapseclient<br/><br/># or<br/>easy_install synapseclient";
 	public static final String FILE_UPLOADER_SERVLET_PATH = "fileUploaderJnlp";
 	public static final String PROFILE_ATTACHMENT_SERVLET_PATH = "profileAttachment";
+	public static final String TELEMETRY_SERVLET_PATH = "telemetry";
 
 	
 	public static final String ERROR_OBJ_REASON_KEY = "reason";
@@ -0,0 +1,46 @@
+package org.sagebionetworks.web.client;
+
+import com.google.gwt.place.shared.Place;
+
+/**
+ * Performance measurements taken in the browser (navigation to render time
+ * per place, RPC latency and payload sizes, widget configure times), batched
+ * and sent to the telemetry servlet, where they are aggregated.
+ */
+public interface ClientTelemetry {
+
+	/**
+	 * A navigation to the place has started. It is taken as rendered once no
+	 * RPC has been running for a short while.
+	 * @param place
+	 */
+	void startNavigation(Place place);
+
+	/**
+	 * An RPC request is being sent.
+	 * @return the id to pass to {@link #rpcFinished(int, String, int, int)}
+	 */
+	int rpcStarted();
+
+	/**
+	 * The response to an RPC has been received (or the request failed).
+	 * @param rpcId
+	 * @param method the RPC method, or null if unknown
+	 * @param requestBytes
+	 * @param responseBytes
+	 */
+	void rpcFinished(int rpcId, String method, int requestBytes, int responseBytes);
+
+	/**
+	 * @param contentType the widget type
+	 * @param millis time spent in the configure call of the widget, rendering
+	 *        that the widget finishes asynchronously is not included
+	 */
+	void recordWidgetConfigure(String contentType, int millis);
+
+	/**
+	 * Send the batched measurements now.
+	 * @param unloading true if the page is going away
+	 */
+	void flush(boolean unloading);
+}
@@ -0,0 +1,219 @@
+package org.sagebionetworks.web.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sagebionetworks.web.client.utils.Callback;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.place.shared.Place;
+import com.google.inject.Inject;
+
+/**
+ * Keeps the measurements in memory, by name, and posts them to the telemetry
+ * servlet every minute (when there are any), or with a beacon when the page
+ * is unloaded.
+ *
+ * A navigation is taken as rendered when the last RPC that was running
+ * finished, once no other RPC has started for {@link #QUIET_MS}. Places that
+ * make no RPC (static pages, which are quick) are not measured: without one
+ * the end of loading the code of the place cannot be told from a render.
+ */
+public class ClientTelemetryImpl implements ClientTelemetry {
+	public static final int FLUSH_INTERVAL_MS = 60000;
+	public static final int QUIET_MS = 300;
+	// navigations (and RPCs) running longer are given up on
+	public static final int MAX_NAVIGATION_MS = 60000;
+	public static final int MAX_VALUES = 1000;
+
+	private GWTWrapper gwt;
+	private RequestBuilderWrapper requestBuilder;
+	private SynapseJSNIUtils synapseJSNIUtils;
+
+	private Map<String, List<Integer>> values = new LinkedHashMap<String, List<Integer>>();
+	private int valueCount = 0;
+	private int droppedCount = 0;
+	private boolean flushScheduled = false;
+
+	private Map<Integer, Long> runningRpcs = new HashMap<Integer, Long>();
+	private int nextRpcId = 0;
+	private String navigationPlace;
+	private long navigationStart;
+	private long idleSince;
+	private boolean navigationRpcStarted;
+	private int navigationId = 0;
+
+	@Inject
+	public ClientTelemetryImpl(GWTWrapper gwt, RequestBuilderWrapper requestBuilder, SynapseJSNIUtils synapseJSNIUtils) {
+		this.gwt = gwt;
+		this.requestBuilder = requestBuilder;
+		this.synapseJSNIUtils = synapseJSNIUtils;
+	}
+
+	@Override
+	public void startNavigation(Place place) {
+		String className = place.getClass().getName();
+		navigationPlace = className.substring(className.lastIndexOf('.') + 1);
+		navigationStart = currentTimeMillis();
+		idleSince = navigationStart;
+		navigationRpcStarted = false;
+		navigationId++;
+	}
+
+	@Override
+	public int rpcStarted() {
+		int rpcId = nextRpcId++;
+		runningRpcs.put(rpcId, currentTimeMillis());
+		if (navigationPlace != null)
+			navigationRpcStarted = true;
+		return rpcId;
+	}
+
+	@Override
+	public void rpcFinished(int rpcId, String method, int requestBytes, int responseBytes) {
+		Long start = runningRpcs.remove(rpcId);
+		if (start == null)
+			return;
+		long now = currentTimeMillis();
+		String name = "rpc." + (method == null ? "unknown" : method);
+		add(name + ".ms", (int) (now - start));
+		add(name + ".requestBytes", requestBytes);
+		add(name + ".responseBytes", responseBytes);
+		if (navigationPlace != null && navigationRpcStarted && !isRpcRunning(now)) {
+			idleSince = now;
+			scheduleRenderCheck();
+		}
+	}
+
+	@Override
+	public void recordWidgetConfigure(String contentType, int millis) {
+		add("widget." + contentType + ".configure.ms", millis);
+	}
+
+	@Override
+	public void flush(boolean unloading) {
+		if (valueCount == 0 && droppedCount == 0)
+			return;
+		String url = gwt.getModuleBaseURL() + ClientProperties.TELEMETRY_SERVLET_PATH;
+		String body = toJson();
+		values.clear();
+		valueCount = 0;
+		droppedCount = 0;
+		// a request started while the page unloads may be cancelled, a beacon is not
+		if (unloading && synapseJSNIUtils.sendBeacon(url, body))
+			return;
+		requestBuilder.configure(RequestBuilder.POST, url);
+		requestBuilder.setHeader("Content-Type", "application/json; charset=utf-8");
+		try {
+			requestBuilder.sendRequest(body, new RequestCallback() {
+				@Override
+				public void onResponseReceived(Request request, Response response) {
+					// Nothing to do here.
+				}
+				@Override
+				public void onError(Request request, Throwable exception) {
+					// Nothing to do here.
+				}
+			});
+		} catch (RequestException e) {
+			// the measurements are lost, which is fine
+		}
+	}
+
+	/**
+	 * @return the batched measurements: {"values":{"name":[value,...],...},"dropped":count}
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\"values\":{");
+		boolean first = true;
+		for (Map.Entry<String, List<Integer>> entry : values.entrySet()) {
+			if (!first)
+				json.append(',');
+			first = false;
+			json.append('"').append(entry.getKey()).append("\":[");
+			List<Integer> list = entry.getValue();
+			for (int i = 0; i < list.size(); i++) {
+				if (i > 0)
+					json.append(',');
+				json.append(list.get(i));
+			}
+			json.append(']');
+		}
+		json.append("},\"dropped\":").append(droppedCount).append('}');
+		return json.toString();
+	}
+
+	private void add(String name, int value) {
+		if (valueCount >= MAX_VALUES) {
+			droppedCount++;
+			return;
+		}
+		// names are written to json as is
+		name = name.replaceAll("[^A-Za-z0-9_.:-]", "_");
+		List<Integer> list = values.get(name);
+		if (list == null) {
+			list = new ArrayList<Integer>();
+			values.put(name, list);
+		}
+		list.add(value);
+		valueCount++;
+		if (!flushScheduled) {
+			flushScheduled = true;
+			gwt.scheduleExecution(new Callback() {
+				@Override
+				public void invoke() {
+					flushScheduled = false;
+					flush(false);
+				}
+			}, FLUSH_INTERVAL_MS);
+		}
+	}
+
+	private void scheduleRenderCheck() {
+		final int checkedNavigationId = navigationId;
+		final long checkedIdleSince = idleSince;
+		gwt.scheduleExecution(new Callback() {
+			@Override
+			public void invoke() {
+				checkRendered(checkedNavigationId, checkedIdleSince);
+			}
+		}, QUIET_MS);
+	}
+
+	private void checkRendered(int checkedNavigationId, long checkedIdleSince) {
+		if (navigationPlace == null || checkedNavigationId != navigationId)
+			// done, or a newer navigation started
+			return;
+		long now = currentTimeMillis();
+		if (now - navigationStart > MAX_NAVIGATION_MS) {
+			navigationPlace = null;
+			return;
+		}
+		// when an RPC is still running, or has run since, its end schedules another check
+		if (checkedIdleSince != idleSince || isRpcRunning(now))
+			return;
+		add("place." + navigationPlace + ".ms", (int) (idleSince - navigationStart));
+		navigationPlace = null;
+	}
+
+	private boolean isRpcRunning(long now) {
+		for (Iterator<Long> it = runningRpcs.values().iterator(); it.hasNext();) {
+			// cancelled requests never finish
+			if (now - it.next() > MAX_NAVIGATION_MS)
+				it.remove();
+		}
+		return !runningRpcs.isEmpty();
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+}
@@ -389,6 +389,7 @@ public class DisplayConstants {
 	public static final String ERROR_PROVENANCE_RELOAD = "Loading Error. Reload.";
 	public static final String ENTITY = "Entity";
 	public static final String LOADING = "Loading";
+	public static final String LOAD_MORE = "Load more";
 	public static final String ACTIVITY = "Activity";
 	public static final String ERROR_NAME_PATTERN_MISMATCH = "Names may only contain letters, numbers, spaces, underscores, hypens, periods, plus signs, and parentheses.";
 	public static final String ERROR_WIDGET_NAME_PATTERN_MISMATCH = "Names may only contain letters, numbers, spaces, hypens, periods, plus signs, and parentheses.";
@@ -751,6 +752,8 @@ public class DisplayConstants {
 	public static final String MAX_STRING_LENGTH = "Maximum String Length";
 	public static final String MAX_LENGTH_REASON = "The smaller the maximum length, the more columns you can include in your table.";
 	public static final String BACK_TO_TABLE = "Back to Table";
+	public static final String SCROLL_VIEW = "Scroll View";
+	public static final String PAGED_VIEW = "Paged View";
 	public static final String ROW_IS_EMPTY = "Row is empty";
 	public static final String ROW = "Row";
 	public static final String COLUMN = "Column";
@@ -758,6 +761,16 @@ public class DisplayConstants {
 	public static final String DELETE_SELECTED = "Delete Selected";
 	public static final String ERROR_DELETE_ROWS = "Error deleting rows";
 	public static final String ROWS_DELETED = "Rows Deleted";
+	public static final String SAVE_CHANGES = "Save Changes";
+	public static final String DISCARD_CHANGES = "Discard Changes";
+	public static final String CHANGES_SAVED = "Changes Saved";
+	public static final String ROWS_NOT_SAVED = "rows could not be saved:";
+	public static final String NEW_ROW = "New row";
+	public static final String IMPORT_CSV = "Import CSV";
+	public static final String IMPORTING_CSV = "Importing CSV:";
+	public static final String ROWS_IMPORTED = "rows imported";
+	public static final String CSV_IMPORTED = "CSV Imported";
+	public static final String CSV_IMPORT_FAILED = "The CSV import failed.";
 	public static final String VIEW_ROW = "View Row";
 	public static final String CONFIRM_DELETE_SELECTED = "Are you sure you want to delete the selected rows?";
 	public static final String DOWNLOAD = "Download";
@@ -7,6 +7,8 @@ import com.google.gwt.activity.shared.ActivityManager;
 import com.google.gwt.core.client.EntryPoint;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.RunAsyncCallback;
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
 import com.google.gwt.event.shared.EventBus;
 import com.google.gwt.place.shared.PlaceController;
 import com.google.gwt.place.shared.PlaceHistoryHandler;
@@ -78,6 +80,7 @@ public class Portal implements EntryPoint {
 						
 						//listen for window close (or navigating away)
 						registerWindowClosingHandler(globalApplicationState);
+						registerTelemetryCloseHandler(ginjector.getClientTelemetry());
 						
 						// start version timer
 						ginjector.getVersionTimer().start();
@@ -110,6 +113,16 @@ public class Portal implements EntryPoint {
 		}
 	}
 	
+	private void registerTelemetryCloseHandler(final ClientTelemetry clientTelemetry) {
+		Window.addCloseHandler(new CloseHandler<Window>() {
+			@Override
+			public void onClose(CloseEvent<Window> event) {
+				// send what is left
+				clientTelemetry.flush(true);
+			}
+		});
+	}
+	
 	private void registerWindowClosingHandler(final GlobalApplicationState globalApplicationState) {
 		Window.addWindowClosingHandler(new Window.ClosingHandler() {
 		      public void onWindowClosing(Window.ClosingEvent closingEvent) {
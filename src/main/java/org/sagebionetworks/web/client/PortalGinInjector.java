@@ -199,6 +199,7 @@ public interface PortalGinInjector extends Ginjector {
 	public UserBadge getUserBadgeWidget();
 	public BigUserBadge getBigUserBadgeWidget();
 	public VersionTimer getVersionTimer();
+	public ClientTelemetry getClientTelemetry();
 	public Md5Link getMd5Link();
 	
 	public UserTeamBadge getUserTeamBadgeWidget();
@@ -8,8 +8,14 @@ import org.sagebionetworks.schema.adapter.JSONArrayAdapter;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
 import org.sagebionetworks.web.client.cache.ClientCache;
 import org.sagebionetworks.web.client.cache.ClientCacheImpl;
+import org.sagebionetworks.web.client.cache.SearchResultsCache;
+import org.sagebionetworks.web.client.cache.SearchResultsCacheImpl;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCache;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCacheImpl;
 import org.sagebionetworks.web.client.cache.StorageImpl;
 import org.sagebionetworks.web.client.cache.StorageWrapper;
+import org.sagebionetworks.web.client.cache.TableDataCache;
+import org.sagebionetworks.web.client.cache.TableDataCacheImpl;
 import org.sagebionetworks.web.client.cookie.CookieProvider;
 import org.sagebionetworks.web.client.cookie.GWTCookieImpl;
 import org.sagebionetworks.web.client.factory.EditorFactory;
@@ -341,6 +347,11 @@ public class PortalGinModule extends AbstractGinModule {
 		// the logger
 		bind(ClientLoggerImpl.class).in(Singleton.class);
 		bind(ClientLogger.class).to(ClientLoggerImpl.class);
+		
+		// browser side performance measurements, and the RPCs timed for them
+		bind(ClientTelemetryImpl.class).in(Singleton.class);
+		bind(ClientTelemetry.class).to(ClientTelemetryImpl.class);
+		bind(SynapseClientAsync.class).toProvider(SynapseClientAsyncProvider.class);
 
 		// the Entity edit view
 		bind(EntityPropertyFormViewImpl.class).in(Singleton.class);
@@ -366,6 +377,18 @@ public class PortalGinModule extends AbstractGinModule {
 		// ClientCache
 		bind(ClientCacheImpl.class).in(Singleton.class);
 		bind(ClientCache.class).to(ClientCacheImpl.class);
+		
+		// Wiki header tree, retained while browsing a wiki
+		bind(WikiHeaderTreeCacheImpl.class).in(Singleton.class);
+		bind(WikiHeaderTreeCache.class).to(WikiHeaderTreeCacheImpl.class);
+		
+		// Recent search results, reused when going back
+		bind(SearchResultsCacheImpl.class).in(Singleton.class);
+		bind(SearchResultsCache.class).to(SearchResultsCacheImpl.class);
+		
+		// Table columns and file handles, reused across pages and tables
+		bind(TableDataCacheImpl.class).in(Singleton.class);
+		bind(TableDataCache.class).to(TableDataCacheImpl.class);
 
 		// Storage wrapper
 		bind(StorageImpl.class).in(Singleton.class);
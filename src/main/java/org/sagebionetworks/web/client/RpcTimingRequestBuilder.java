@@ -0,0 +1,46 @@
+package org.sagebionetworks.web.client;
+
+import org.sagebionetworks.web.shared.RpcPayloadUtils;
+
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.rpc.RpcRequestBuilder;
+
+/**
+ * Reports the latency and payload sizes of each RPC to the
+ * {@link ClientTelemetry}, as seen by the browser (from sending the request
+ * to receiving the response).
+ */
+public class RpcTimingRequestBuilder extends RpcRequestBuilder {
+
+	private ClientTelemetry clientTelemetry;
+
+	public RpcTimingRequestBuilder(ClientTelemetry clientTelemetry) {
+		this.clientTelemetry = clientTelemetry;
+	}
+
+	@Override
+	protected void doFinish(RequestBuilder rb) {
+		super.doFinish(rb);
+		final RequestCallback callback = rb.getCallback();
+		String requestData = rb.getRequestData();
+		final String method = RpcPayloadUtils.getMethodName(requestData);
+		final int requestBytes = requestData == null ? 0 : requestData.length();
+		final int rpcId = clientTelemetry.rpcStarted();
+		rb.setCallback(new RequestCallback() {
+			@Override
+			public void onResponseReceived(Request request, Response response) {
+				String text = response.getText();
+				clientTelemetry.rpcFinished(rpcId, method, requestBytes, text == null ? 0 : text.length());
+				callback.onResponseReceived(request, response);
+			}
+			@Override
+			public void onError(Request request, Throwable exception) {
+				clientTelemetry.rpcFinished(rpcId, method, requestBytes, 0);
+				callback.onError(request, exception);
+			}
+		});
+	}
+}
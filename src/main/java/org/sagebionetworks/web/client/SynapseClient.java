@@ -11,7 +11,10 @@ import java.util.Set;
 import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.repo.model.table.RowReferenceSet;
 import org.sagebionetworks.web.shared.AccessRequirementsTransport;
+import org.sagebionetworks.web.shared.ClientLogEntry;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
 import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.MembershipInvitationBundle;
 import org.sagebionetworks.web.shared.MembershipRequestBundle;
@@ -19,8 +22,11 @@ import org.sagebionetworks.web.shared.SerializableWhitelist;
 import org.sagebionetworks.web.shared.TeamBundle;
 import org.sagebionetworks.web.shared.WikiPageKey;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
 
 import com.google.gwt.user.client.rpc.RemoteService;
 import com.google.gwt.user.client.rpc.RemoteServiceRelativePath;
@@ -44,12 +50,34 @@ public interface SynapseClient extends RemoteService {
 	
 	public EntityWrapper search(String searchQueryJson) throws RestServiceException; 
 	
+	/**
+	 * Entity headers (JSON) of the caller's favorites and public projects with a
+	 * name (or a word of the name) starting with the given prefix.
+	 */
+	public ArrayList<String> getEntitySuggestions(String prefix, int limit) throws RestServiceException;
+	
+	/**
+	 * One page of the children of a container (tables excluded).
+	 * @param parentId
+	 * @param sortByName
+	 * @param pageToken null for the first page, otherwise the next page token of the previous page
+	 */
+	public EntityChildrenPage getChildrenHeaders(String parentId, boolean sortByName, String pageToken) throws RestServiceException;
+	
 	public String getEntityTypeBatch(List<String> entityIds) throws RestServiceException;
 	
 	public String getEntityHeaderBatch(String referenceList) throws RestServiceException;
 	
 	public List<String> getEntityHeaderBatch(List<String> entityIds) throws RestServiceException;
 	
+	/**
+	 * Load the rows of an entity list (entity and plain text description) in a single call.
+	 * @param referenceList JSON ReferenceList of the listed entities
+	 * @return one bundle per reference, in order. Rows that could not be loaded carry their exception.
+	 * @throws RestServiceException
+	 */
+	public List<EntityListRowBundle> getEntityListRows(String referenceList) throws RestServiceException;
+	
 	public SerializableWhitelist junk(SerializableWhitelist l);
 	
 	/**
@@ -81,23 +109,10 @@ public interface SynapseClient extends RemoteService {
 	public String getEntityReferencedBy(String entityId) throws RestServiceException;
 	
 	/**
-	 * Log a debug message in the server-side log.
-	 * @param message
-	 */
-	public void logDebug(String message);
-	
-	/**
-	 * Log an error message in the server-side log.
-	 * @param message
+	 * Write the messages logged in the browser to the server-side log.
+	 * @param entries
 	 */
-	public void logError(String message);
-	
-
-	/**
-	 * Log an info message in the server-side log.
-	 * @param message
-	 */
-	public void logInfo(String message);
+	public void logBatch(List<ClientLogEntry> entries);
 	
 	/**
 	 * Get the repository service URL
@@ -334,6 +349,11 @@ public interface SynapseClient extends RemoteService {
 	
 	public List<String> getColumnModelsForTableEntity(String tableEntityId) throws RestServiceException;
 	
+	/**
+	 * Same as getColumnModelsForTableEntity, cached for the given etag of the table
+	 */
+	public List<String> getColumnModelsForTableEntity(String tableEntityId, String tableEtag) throws RestServiceException;
+	
 	public String createColumnModel(String columnModelJson) throws RestServiceException;
 
 	public String sendMessage(Set<String> recipients, String subject, String message) throws RestServiceException;
@@ -350,5 +370,16 @@ public interface SynapseClient extends RemoteService {
 	
 	public String deleteRowsFromTable(String toDelete) throws RestServiceException;
 	
+	/**
+	 * Same as executeTableQuery, with the rows in compact form (see {@link CompactRowSet})
+	 */
+	public QueryResult executeCompactTableQuery(String query, QueryDetails modifyingQueryDetails, boolean includeTotalRowCount) throws RestServiceException;
+	
+	public TableChangeResult applyTableChanges(String rowSet, String toDelete) throws RestServiceException;
+	
+	public String startTableImport(String tableId, String fileEntityId) throws RestServiceException;
+	
+	public TableImportStatus getTableImportStatus(String jobId) throws RestServiceException;
+	
 	public String getTableFileHandle(String fileHandlesToFindRowReferenceSet) throws RestServiceException;
 }
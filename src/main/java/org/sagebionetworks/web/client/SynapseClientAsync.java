@@ -8,7 +8,10 @@ import java.util.Set;
 
 import org.sagebionetworks.repo.model.table.RowReferenceSet;
 import org.sagebionetworks.web.shared.AccessRequirementsTransport;
+import org.sagebionetworks.web.shared.ClientLogEntry;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
 import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.MembershipInvitationBundle;
 import org.sagebionetworks.web.shared.MembershipRequestBundle;
@@ -18,6 +21,8 @@ import org.sagebionetworks.web.shared.WikiPageKey;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
 	
@@ -39,16 +44,16 @@ public interface SynapseClientAsync {
 
 	void search(String searchQueryJson, AsyncCallback<EntityWrapper> callback);
 
+	void getEntitySuggestions(String prefix, int limit, AsyncCallback<ArrayList<String>> callback);
+
+	void getChildrenHeaders(String parentId, boolean sortByName, String pageToken, AsyncCallback<EntityChildrenPage> callback);
+
 	void junk(SerializableWhitelist l,
 			AsyncCallback<SerializableWhitelist> callback);
 
 	void getEntityReferencedBy(String entityId, AsyncCallback<String> callback);
 
-	void logDebug(String message, AsyncCallback<Void> callback);
-
-	void logError(String message, AsyncCallback<Void> callback);
-
-	void logInfo(String message, AsyncCallback<Void> callback);
+	void logBatch(List<ClientLogEntry> entries, AsyncCallback<Void> callback);
 
 	void getRepositoryServiceUrl(AsyncCallback<String> callback);
 
@@ -62,6 +67,8 @@ public interface SynapseClientAsync {
 
 	void getEntityHeaderBatch(List<String> entityIds, AsyncCallback<List<String>> callback);
 	
+	void getEntityListRows(String referenceList, AsyncCallback<List<EntityListRowBundle>> callback);
+	
 	void deleteEntityById(String entityId, AsyncCallback<Void> callback);
 	
 	void deleteEntityById(String entityId, Boolean skipTrashCan, AsyncCallback<Void> callback);
@@ -279,6 +286,8 @@ public interface SynapseClientAsync {
 
 	void getColumnModelsForTableEntity(String tableEntityId, AsyncCallback<List<String>> asyncCallback);
 
+	void getColumnModelsForTableEntity(String tableEntityId, String tableEtag, AsyncCallback<List<String>> asyncCallback);
+
 	void createColumnModel(String columnModelJson, AsyncCallback<String> callback);
 	
 	void sendMessage(Set<String> recipients, String subject, String message, AsyncCallback<String> callback);
@@ -295,6 +304,14 @@ public interface SynapseClientAsync {
 
 	void deleteRowsFromTable(String toDelete, AsyncCallback<String> callback);
 
+	void executeCompactTableQuery(String query, QueryDetails modifyingQueryDetails, boolean includeTotalRowCount, AsyncCallback<QueryResult> callback);
+
+	void applyTableChanges(String rowSet, String toDelete, AsyncCallback<TableChangeResult> callback);
+
+	void startTableImport(String tableId, String fileEntityId, AsyncCallback<String> callback);
+
+	void getTableImportStatus(String jobId, AsyncCallback<TableImportStatus> callback);
+
 	void getTableFileHandle(String fileHandlesToFindRowReferenceSet, AsyncCallback<String> callback);
 
 }
@@ -0,0 +1,27 @@
+package org.sagebionetworks.web.client;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.rpc.ServiceDefTarget;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Creates the SynapseClient proxies, with their RPCs timed for the
+ * {@link ClientTelemetry}.
+ */
+public class SynapseClientAsyncProvider implements Provider<SynapseClientAsync> {
+
+	private RpcTimingRequestBuilder rpcRequestBuilder;
+
+	@Inject
+	public SynapseClientAsyncProvider(ClientTelemetry clientTelemetry) {
+		this.rpcRequestBuilder = new RpcTimingRequestBuilder(clientTelemetry);
+	}
+
+	@Override
+	public SynapseClientAsync get() {
+		SynapseClientAsync synapseClient = GWT.create(SynapseClient.class);
+		((ServiceDefTarget) synapseClient).setRpcRequestBuilder(rpcRequestBuilder);
+		return synapseClient;
+	}
+}
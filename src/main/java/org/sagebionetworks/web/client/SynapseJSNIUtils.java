@@ -62,4 +62,12 @@ public interface SynapseJSNIUtils {
 	public void processWithMathJax(Element element);	
 
 	public void loadCss(String url, Callback<Void, Exception> callback);
+
+	/**
+	 * Send the data with navigator.sendBeacon(), which the browser completes even when the page is unloading.
+	 * @param url
+	 * @param data
+	 * @return false if the browser has no beacons, or did not queue it
+	 */
+	public boolean sendBeacon(String url, String data);
 }
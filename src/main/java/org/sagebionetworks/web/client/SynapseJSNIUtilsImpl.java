@@ -356,6 +356,17 @@ public class SynapseJSNIUtilsImpl implements SynapseJSNIUtils {
 		console.error(message);
 	}-*/;
 	
+	@Override
+	public boolean sendBeacon(String url, String data) {
+		return _sendBeacon(url, data);
+	}
+
+	private final static native boolean _sendBeacon(String url, String data) /*-{
+		if (!$wnd.navigator.sendBeacon)
+			return false;
+		return $wnd.navigator.sendBeacon(url, data);
+	}-*/;
+	
 	@Override
 	public void processWithMathJax(Element element) {
 		_processWithMathJax(element);		
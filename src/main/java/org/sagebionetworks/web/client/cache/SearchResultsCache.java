@@ -0,0 +1,23 @@
+package org.sagebionetworks.web.client.cache;
+
+/**
+ * In-memory holder for recently shown search result pages (JSON), so that
+ * going Back through facet and page changes does not search again.
+ */
+public interface SearchResultsCache {
+	/**
+	 * Returns the results of the given query, iff they were put for the current
+	 * session and have not expired.
+	 * @param searchQueryJson
+	 * @return
+	 */
+	String get(String searchQueryJson);
+	
+	/**
+	 * Retain the results of the given query, evicting the least recently used
+	 * query when full.
+	 * @param searchQueryJson
+	 * @param searchResultsJson
+	 */
+	void put(String searchQueryJson, String searchResultsJson);
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.web.client.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sagebionetworks.web.client.security.AuthenticationController;
+
+import com.google.inject.Inject;
+
+public class SearchResultsCacheImpl implements SearchResultsCache {
+	//newly indexed entities show up after a few minutes at most
+	public static final Long CACHE_TIME_MS = 1000L*60L*5L;
+	public static final int MAX_ENTRIES = 20;
+	
+	private AuthenticationController authenticationController;
+	private String sessionToken;
+	private Map<String, CachedResults> results = new LinkedHashMap<String, CachedResults>(MAX_ENTRIES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	
+	@Inject
+	public SearchResultsCacheImpl(AuthenticationController authenticationController) {
+		this.authenticationController = authenticationController;
+	}
+	
+	@Override
+	public String get(String searchQueryJson) {
+		if (!isCurrentSession(sessionToken)) {
+			//a different user, clean up
+			results.clear();
+			return null;
+		}
+		CachedResults cached = results.get(searchQueryJson);
+		if (cached == null)
+			return null;
+		if (System.currentTimeMillis() >= cached.expireTime) {
+			results.remove(searchQueryJson);
+			return null;
+		}
+		return cached.searchResultsJson;
+	}
+	
+	@Override
+	public void put(String searchQueryJson, String searchResultsJson) {
+		if (!isCurrentSession(sessionToken)) {
+			results.clear();
+			sessionToken = authenticationController.getCurrentUserSessionToken();
+		}
+		results.put(searchQueryJson, new CachedResults(searchResultsJson, System.currentTimeMillis() + CACHE_TIME_MS));
+	}
+	
+	private boolean isCurrentSession(String token) {
+		String currentToken = authenticationController.getCurrentUserSessionToken();
+		return token == null ? currentToken == null : token.equals(currentToken);
+	}
+	
+	private static class CachedResults {
+		String searchResultsJson;
+		long expireTime;
+		CachedResults(String searchResultsJson, long expireTime) {
+			this.searchResultsJson = searchResultsJson;
+			this.expireTime = expireTime;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.web.client.cache;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.file.FileHandle;
+
+/**
+ * In-memory holder for table data that does not change with the rows shown:
+ * the column models of a table (JSON, per table etag) and the file handles
+ * referenced by file cells.
+ */
+public interface TableDataCache {
+	/**
+	 * Returns the column models (JSON) of the given table, iff they were put
+	 * for the same etag in the current session.
+	 * @param tableId
+	 * @param tableEtag
+	 * @return
+	 */
+	List<String> getColumns(String tableId, String tableEtag);
+
+	/**
+	 * Retain the column models (JSON) of the given table version.
+	 * @param tableId
+	 * @param tableEtag
+	 * @param columnsJson
+	 */
+	void putColumns(String tableId, String tableEtag, List<String> columnsJson);
+
+	/**
+	 * @param fileHandleId
+	 * @return the file handle, or null if it was not put in the current session
+	 */
+	FileHandle getFileHandle(String fileHandleId);
+
+	/**
+	 * Retain the given file handle, evicting the least recently used file
+	 * handle when full. The file handle is no longer pending.
+	 * @param fileHandle
+	 */
+	void putFileHandle(FileHandle fileHandle);
+
+	/**
+	 * Mark the file handle as requested, so it is not requested again while
+	 * the request is outstanding.
+	 * @param fileHandleId
+	 */
+	void setFileHandlePending(String fileHandleId);
+
+	/**
+	 * The request for the file handle is done (or failed).
+	 * @param fileHandleId
+	 */
+	void clearFileHandlePending(String fileHandleId);
+
+	/**
+	 * The lookup did not return the file handle, so it is not requested again
+	 * in the current session. The file handle is no longer pending.
+	 * @param fileHandleId
+	 */
+	void setFileHandleMissing(String fileHandleId);
+
+	/**
+	 * @param fileHandleId
+	 * @return true if the file handle is cached, pending or missing
+	 */
+	boolean isFileHandleKnown(String fileHandleId);
+}
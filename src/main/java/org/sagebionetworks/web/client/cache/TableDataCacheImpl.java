@@ -0,0 +1,120 @@
+package org.sagebionetworks.web.client.cache;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sagebionetworks.repo.model.file.FileHandle;
+import org.sagebionetworks.web.client.security.AuthenticationController;
+
+import com.google.inject.Inject;
+
+public class TableDataCacheImpl implements TableDataCache {
+	public static final int MAX_TABLES = 20;
+	public static final int MAX_FILE_HANDLES = 1000;
+
+	private AuthenticationController authenticationController;
+	private String sessionToken;
+	private Map<String, List<String>> columns = new LinkedHashMap<String, List<String>>(MAX_TABLES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+			return size() > MAX_TABLES;
+		}
+	};
+	private Map<String, FileHandle> fileHandles = new LinkedHashMap<String, FileHandle>(MAX_FILE_HANDLES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FileHandle> eldest) {
+			return size() > MAX_FILE_HANDLES;
+		}
+	};
+	private Map<String, Boolean> missingFileHandleIds = new LinkedHashMap<String, Boolean>(MAX_FILE_HANDLES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_FILE_HANDLES;
+		}
+	};
+	private Set<String> pendingFileHandleIds = new HashSet<String>();
+
+	@Inject
+	public TableDataCacheImpl(AuthenticationController authenticationController) {
+		this.authenticationController = authenticationController;
+	}
+
+	@Override
+	public List<String> getColumns(String tableId, String tableEtag) {
+		if (tableEtag == null || !checkSession())
+			return null;
+		return columns.get(getColumnsKey(tableId, tableEtag));
+	}
+
+	@Override
+	public void putColumns(String tableId, String tableEtag, List<String> columnsJson) {
+		if (tableEtag == null)
+			return;
+		checkSession();
+		columns.put(getColumnsKey(tableId, tableEtag), columnsJson);
+	}
+
+	@Override
+	public FileHandle getFileHandle(String fileHandleId) {
+		if (fileHandleId == null || !checkSession())
+			return null;
+		return fileHandles.get(fileHandleId);
+	}
+
+	@Override
+	public void putFileHandle(FileHandle fileHandle) {
+		checkSession();
+		pendingFileHandleIds.remove(fileHandle.getId());
+		missingFileHandleIds.remove(fileHandle.getId());
+		fileHandles.put(fileHandle.getId(), fileHandle);
+	}
+
+	@Override
+	public void setFileHandlePending(String fileHandleId) {
+		checkSession();
+		pendingFileHandleIds.add(fileHandleId);
+	}
+
+	@Override
+	public void clearFileHandlePending(String fileHandleId) {
+		pendingFileHandleIds.remove(fileHandleId);
+	}
+
+	@Override
+	public void setFileHandleMissing(String fileHandleId) {
+		checkSession();
+		pendingFileHandleIds.remove(fileHandleId);
+		missingFileHandleIds.put(fileHandleId, Boolean.TRUE);
+	}
+
+	@Override
+	public boolean isFileHandleKnown(String fileHandleId) {
+		if (!checkSession())
+			return false;
+		return pendingFileHandleIds.contains(fileHandleId) || fileHandles.containsKey(fileHandleId)
+				|| missingFileHandleIds.containsKey(fileHandleId);
+	}
+
+	/**
+	 * Entries are only kept for one user. For a different user, clean up.
+	 * @return true if the cache was already for the current user
+	 */
+	private boolean checkSession() {
+		String currentToken = authenticationController.getCurrentUserSessionToken();
+		if (sessionToken == null ? currentToken == null : sessionToken.equals(currentToken))
+			return true;
+		columns.clear();
+		fileHandles.clear();
+		pendingFileHandleIds.clear();
+		missingFileHandleIds.clear();
+		sessionToken = currentToken;
+		return false;
+	}
+
+	private String getColumnsKey(String tableId, String tableEtag) {
+		return tableId + "@" + tableEtag;
+	}
+}
@@ -0,0 +1,32 @@
+package org.sagebionetworks.web.client.cache;
+
+/**
+ * In-memory holder for the wiki header tree (JSON) of the wiki being browsed,
+ * so that navigating between the subpages of one wiki does not fetch the whole
+ * tree again for every page.
+ */
+public interface WikiHeaderTreeCache {
+	/**
+	 * Returns the header tree of the given owner, iff it was put for the current
+	 * session and has not expired.
+	 * @param ownerId
+	 * @param ownerType
+	 * @return
+	 */
+	String get(String ownerId, String ownerType);
+	
+	/**
+	 * Retain the header tree of the given owner, replacing any tree of another owner.
+	 * @param ownerId
+	 * @param ownerType
+	 * @param headerTreeJson
+	 */
+	void put(String ownerId, String ownerType, String headerTreeJson);
+	
+	/**
+	 * Forget the header tree of the given owner (call after a wiki page of the owner changes).
+	 * @param ownerId
+	 * @param ownerType
+	 */
+	void remove(String ownerId, String ownerType);
+}
@@ -0,0 +1,65 @@
+package org.sagebionetworks.web.client.cache;
+
+import org.sagebionetworks.web.client.security.AuthenticationController;
+
+import com.google.inject.Inject;
+
+public class WikiHeaderTreeCacheImpl implements WikiHeaderTreeCache {
+	//changes made by other users show up after a few minutes at most
+	public static final Long CACHE_TIME_MS = 1000L*60L*5L;
+	
+	private AuthenticationController authenticationController;
+	private String ownerKey;
+	private String sessionToken;
+	private String headerTreeJson;
+	private Long expireTime;
+	
+	@Inject
+	public WikiHeaderTreeCacheImpl(AuthenticationController authenticationController) {
+		this.authenticationController = authenticationController;
+	}
+	
+	@Override
+	public String get(String ownerId, String ownerType) {
+		if (headerTreeJson != null && getOwnerKey(ownerId, ownerType).equals(ownerKey)) {
+			if (System.currentTimeMillis() < expireTime && isCurrentSession(sessionToken)) {
+				return headerTreeJson;
+			} else {
+				//expired or a different user, clean up
+				clear();
+			}
+		}
+		return null;
+	}
+	
+	@Override
+	public void put(String ownerId, String ownerType, String headerTreeJson) {
+		this.ownerKey = getOwnerKey(ownerId, ownerType);
+		this.sessionToken = authenticationController.getCurrentUserSessionToken();
+		this.headerTreeJson = headerTreeJson;
+		this.expireTime = System.currentTimeMillis() + CACHE_TIME_MS;
+	}
+	
+	@Override
+	public void remove(String ownerId, String ownerType) {
+		if (getOwnerKey(ownerId, ownerType).equals(ownerKey)) {
+			clear();
+		}
+	}
+	
+	private void clear() {
+		ownerKey = null;
+		sessionToken = null;
+		headerTreeJson = null;
+		expireTime = null;
+	}
+	
+	private boolean isCurrentSession(String token) {
+		String currentToken = authenticationController.getCurrentUserSessionToken();
+		return token == null ? currentToken == null : token.equals(currentToken);
+	}
+	
+	private String getOwnerKey(String ownerId, String ownerType) {
+		return ownerType + "/" + ownerId;
+	}
+}
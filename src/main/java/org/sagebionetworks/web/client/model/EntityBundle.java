@@ -102,22 +102,22 @@ public class EntityBundle {
 		int result = 1;
 		result = prime
 				* result
-				+ ((accessRequirements == null) ? 0 : accessRequirements
+				+ ((getAccessRequirements() == null) ? 0 : getAccessRequirements()
 						.hashCode());
 		result = prime * result
-				+ ((annotations == null) ? 0 : annotations.hashCode());
-		result = prime * result + ((entity == null) ? 0 : entity.hashCode());
+				+ ((getAnnotations() == null) ? 0 : getAnnotations().hashCode());
+		result = prime * result + ((getEntity() == null) ? 0 : getEntity().hashCode());
 		result = prime * result
-				+ ((fileHandles == null) ? 0 : fileHandles.hashCode());
+				+ ((getFileHandles() == null) ? 0 : getFileHandles().hashCode());
 		result = prime * result
-				+ ((hasChildren == null) ? 0 : hasChildren.hashCode());
-		result = prime * result + ((path == null) ? 0 : path.hashCode());
+				+ ((getHasChildren() == null) ? 0 : getHasChildren().hashCode());
+		result = prime * result + ((getPath() == null) ? 0 : getPath().hashCode());
 		result = prime * result
-				+ ((permissions == null) ? 0 : permissions.hashCode());
+				+ ((getPermissions() == null) ? 0 : getPermissions().hashCode());
 		result = prime
 				* result
-				+ ((unmetAccessRequirements == null) ? 0
-						: unmetAccessRequirements.hashCode());
+				+ ((getUnmetAccessRequirements() == null) ? 0
+						: getUnmetAccessRequirements().hashCode());
 		return result;
 	}
 	@Override
@@ -126,59 +126,60 @@ public class EntityBundle {
 			return true;
 		if (obj == null)
 			return false;
-		if (getClass() != obj.getClass())
+		// a lazily parsed bundle equals the same bundle parsed up front
+		if (!(obj instanceof EntityBundle))
 			return false;
 		EntityBundle other = (EntityBundle) obj;
-		if (accessRequirements == null) {
-			if (other.accessRequirements != null)
+		if (getAccessRequirements() == null) {
+			if (other.getAccessRequirements() != null)
 				return false;
-		} else if (!accessRequirements.equals(other.accessRequirements))
+		} else if (!getAccessRequirements().equals(other.getAccessRequirements()))
 			return false;
-		if (annotations == null) {
-			if (other.annotations != null)
+		if (getAnnotations() == null) {
+			if (other.getAnnotations() != null)
 				return false;
-		} else if (!annotations.equals(other.annotations))
+		} else if (!getAnnotations().equals(other.getAnnotations()))
 			return false;
-		if (entity == null) {
-			if (other.entity != null)
+		if (getEntity() == null) {
+			if (other.getEntity() != null)
 				return false;
-		} else if (!entity.equals(other.entity))
+		} else if (!getEntity().equals(other.getEntity()))
 			return false;
-		if (fileHandles == null) {
-			if (other.fileHandles != null)
+		if (getFileHandles() == null) {
+			if (other.getFileHandles() != null)
 				return false;
-		} else if (!fileHandles.equals(other.fileHandles))
+		} else if (!getFileHandles().equals(other.getFileHandles()))
 			return false;
-		if (hasChildren == null) {
-			if (other.hasChildren != null)
+		if (getHasChildren() == null) {
+			if (other.getHasChildren() != null)
 				return false;
-		} else if (!hasChildren.equals(other.hasChildren))
+		} else if (!getHasChildren().equals(other.getHasChildren()))
 			return false;
-		if (path == null) {
-			if (other.path != null)
+		if (getPath() == null) {
+			if (other.getPath() != null)
 				return false;
-		} else if (!path.equals(other.path))
+		} else if (!getPath().equals(other.getPath()))
 			return false;
-		if (permissions == null) {
-			if (other.permissions != null)
+		if (getPermissions() == null) {
+			if (other.getPermissions() != null)
 				return false;
-		} else if (!permissions.equals(other.permissions))
+		} else if (!getPermissions().equals(other.getPermissions()))
 			return false;
-		if (unmetAccessRequirements == null) {
-			if (other.unmetAccessRequirements != null)
+		if (getUnmetAccessRequirements() == null) {
+			if (other.getUnmetAccessRequirements() != null)
 				return false;
-		} else if (!unmetAccessRequirements
-				.equals(other.unmetAccessRequirements))
+		} else if (!getUnmetAccessRequirements()
+				.equals(other.getUnmetAccessRequirements()))
 			return false;
 		return true;
 	}
 	@Override
 	public String toString() {
-		return "EntityBundle [entity=" + entity + ", annotations="
-				+ annotations + ", permissions=" + permissions + ", path="
-				+ path + ", accessRequirements=" + accessRequirements
-				+ ", unmetAccessRequirements=" + unmetAccessRequirements
-				+ ", hasChildren=" + hasChildren + ", fileHandles=" + fileHandles
+		return "EntityBundle [entity=" + getEntity() + ", annotations="
+				+ getAnnotations() + ", permissions=" + getPermissions() + ", path="
+				+ getPath() + ", accessRequirements=" + getAccessRequirements()
+				+ ", unmetAccessRequirements=" + getUnmetAccessRequirements()
+				+ ", hasChildren=" + getHasChildren() + ", fileHandles=" + getFileHandles()
 				+ "]";
 	}
 	
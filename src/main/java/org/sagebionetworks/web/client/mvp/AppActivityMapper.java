@@ -114,6 +114,7 @@ public class AppActivityMapper implements ActivityMapper {
 		
 		isFirstTime = false;
 		globalApplicationState.setCurrentPlace(place);
+		ginjector.getClientTelemetry().startNavigation(place);
 				
 		// If the user is not logged in then we redirect them to the login screen
 		// except for the fully public places
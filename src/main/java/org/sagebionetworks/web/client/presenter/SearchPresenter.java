@@ -19,6 +19,7 @@ import org.sagebionetworks.web.client.EntityTypeProvider;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.IconsImageBundle;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.SearchResultsCache;
 import org.sagebionetworks.web.client.place.Search;
 import org.sagebionetworks.web.client.security.AuthenticationController;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
@@ -57,6 +58,10 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 	private boolean newQuery = false;
 	private Map<String,String> timeValueToDisplay = new HashMap<String, String>();
 	private Date searchStartTime;
+	private SearchResultsCache searchResultsCache;
+	
+	//a new presenter is created for every search place, so the sequence is shared to recognize responses to superseded searches
+	private static int latestSearchRequest = 0;
 	
 	
 	@Inject
@@ -66,7 +71,8 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 			SynapseClientAsync synapseClient, NodeModelCreator nodeModelCreator,
 			JSONObjectAdapter jsonObjectAdapter,
 			EntityTypeProvider entityTypeProvider,
-			IconsImageBundle iconsImageBundle) {
+			IconsImageBundle iconsImageBundle,
+			SearchResultsCache searchResultsCache) {
 		this.view = view;
 		this.globalApplicationState = globalApplicationState;
 		this.authenticationController = authenticationController;
@@ -75,6 +81,7 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 		this.jsonObjectAdapter = jsonObjectAdapter;
 		this.entityTypeProvider = entityTypeProvider;
 		this.iconsImageBundle = iconsImageBundle;
+		this.searchResultsCache = searchResultsCache;
 		
 		currentSearch = getBaseSearchQuery();
 		
@@ -287,6 +294,8 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 	
 	private void executeSearch() { 						
 		view.showLoading();
+		//any response to an earlier search is now stale
+		final int searchRequest = ++latestSearchRequest;
 		// Is there a search defined? If not, display empty result.
 		if (isEmptyQuery()) {
 			currentResult = new SearchResults();
@@ -299,21 +308,25 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 		JSONObjectAdapter adapter = jsonObjectAdapter.createNew();
 		try {
 			currentSearch.writeToJSONObject(adapter);
-			synapseClient.search(adapter.toJSONString(), new AsyncCallback<EntityWrapper>() {			
+			final String searchQueryJson = adapter.toJSONString();
+			String cachedResultsJson = searchResultsCache.get(searchQueryJson);
+			if (cachedResultsJson != null) {
+				showSearchResults(cachedResultsJson);
+				return;
+			}
+			synapseClient.search(searchQueryJson, new AsyncCallback<EntityWrapper>() {			
 				@Override
 				public void onSuccess(EntityWrapper result) {
-					currentResult = new SearchResults();		
-					try {
-						currentResult = nodeModelCreator.createJSONEntity(result.getEntityJson(), SearchResults.class);
-					} catch (JSONObjectAdapterException e) {
-						onFailure(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION));
-					}									
-					view.setSearchResults(currentResult, join(currentSearch.getQueryTerm(), " "), newQuery);
-					newQuery = false;
+					if (searchRequest != latestSearchRequest)
+						return;
+					if (showSearchResults(result.getEntityJson()))
+						searchResultsCache.put(searchQueryJson, result.getEntityJson());
 				}
 				
 				@Override
 				public void onFailure(Throwable caught) {
+					if (searchRequest != latestSearchRequest)
+						return;
 					if(!DisplayUtils.handleServiceException(caught, globalApplicationState, authenticationController.isLoggedIn(), view)) {
 						view.showErrorMessage(DisplayConstants.ERROR_GENERIC_RELOAD);
 					}
@@ -323,6 +336,21 @@ public class SearchPresenter extends AbstractActivity implements SearchView.Pres
 			view.showErrorMessage(DisplayConstants.ERROR_GENERIC);
 		}
 	}
+	
+	/**
+	 * @return false if the results could not be parsed
+	 */
+	private boolean showSearchResults(String searchResultsJson) {
+		try {
+			currentResult = nodeModelCreator.createJSONEntity(searchResultsJson, SearchResults.class);
+		} catch (JSONObjectAdapterException e) {
+			view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
+			return false;
+		}
+		view.setSearchResults(currentResult, join(currentSearch.getQueryTerm(), " "), newQuery);
+		newQuery = false;
+		return true;
+	}
 
 	private boolean isEmptyQuery() {
 		return (currentSearch.getQueryTerm() == null || currentSearch.getQueryTerm().size() == 0 
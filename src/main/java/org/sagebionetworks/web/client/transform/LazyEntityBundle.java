@@ -0,0 +1,94 @@
+package org.sagebionetworks.web.client.transform;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.AccessRequirement;
+import org.sagebionetworks.repo.model.Annotations;
+import org.sagebionetworks.repo.model.Entity;
+import org.sagebionetworks.repo.model.EntityPath;
+import org.sagebionetworks.repo.model.auth.UserEntityPermissions;
+import org.sagebionetworks.repo.model.file.FileHandle;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.web.client.model.EntityBundle;
+
+/**
+ * An EntityBundle that keeps the JSON of its access requirements and file
+ * handles and parses it the first time they are requested, since these lists
+ * can be long and most views do not use them. A part that does not parse
+ * fails its getter with an IllegalStateException. Parsed parts are memoized,
+ * and a setter call replaces the part without ever parsing it.
+ */
+class LazyEntityBundle extends EntityBundle {
+
+	private NodeModelCreatorImpl creator;
+	private String accessRequirementsJson;
+	private String unmetAccessRequirementsJson;
+	private String fileHandlesJson;
+
+	LazyEntityBundle(Entity entity, Annotations annotations, UserEntityPermissions permissions, EntityPath path,
+			String accessRequirementsJson, String unmetAccessRequirementsJson,
+			String fileHandlesJson, NodeModelCreatorImpl creator) {
+		super(entity, annotations, permissions, path, null, null, null);
+		this.accessRequirementsJson = accessRequirementsJson;
+		this.unmetAccessRequirementsJson = unmetAccessRequirementsJson;
+		this.fileHandlesJson = fileHandlesJson;
+		this.creator = creator;
+	}
+
+	@Override
+	public List<AccessRequirement> getAccessRequirements() {
+		if (accessRequirementsJson != null) {
+			super.setAccessRequirements(createAccessRequirements(accessRequirementsJson));
+			accessRequirementsJson = null;
+		}
+		return super.getAccessRequirements();
+	}
+
+	@Override
+	public void setAccessRequirements(List<AccessRequirement> accessRequirements) {
+		accessRequirementsJson = null;
+		super.setAccessRequirements(accessRequirements);
+	}
+
+	@Override
+	public List<AccessRequirement> getUnmetAccessRequirements() {
+		if (unmetAccessRequirementsJson != null) {
+			super.setUnmetAccessRequirements(createAccessRequirements(unmetAccessRequirementsJson));
+			unmetAccessRequirementsJson = null;
+		}
+		return super.getUnmetAccessRequirements();
+	}
+
+	@Override
+	public void setUnmetAccessRequirements(List<AccessRequirement> unmetAccessRequirements) {
+		unmetAccessRequirementsJson = null;
+		super.setUnmetAccessRequirements(unmetAccessRequirements);
+	}
+
+	@Override
+	public List<FileHandle> getFileHandles() {
+		if (fileHandlesJson != null) {
+			try {
+				super.setFileHandles(creator.createFileHandles(fileHandlesJson));
+			} catch (JSONObjectAdapterException e) {
+				throw new IllegalStateException("The file handles of the entity bundle could not be parsed", e);
+			}
+			fileHandlesJson = null;
+		}
+		return super.getFileHandles();
+	}
+
+	@Override
+	public void setFileHandles(List<FileHandle> fileHandles) {
+		fileHandlesJson = null;
+		super.setFileHandles(fileHandles);
+	}
+
+	private List<AccessRequirement> createAccessRequirements(String json) {
+		try {
+			return creator.createAccessRequirements(json);
+		} catch (JSONObjectAdapterException e) {
+			throw new IllegalStateException("The access requirements of the entity bundle could not be parsed", e);
+		}
+	}
+}
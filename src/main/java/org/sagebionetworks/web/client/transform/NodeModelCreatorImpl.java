@@ -90,16 +90,18 @@ public class NodeModelCreatorImpl implements NodeModelCreator {
 	}
 
 
+	/**
+	 * Parse failures of the entity, annotations, permissions and path are
+	 * reported here. The access requirements and file handles can be long and
+	 * most views do not use them, so they are only parsed on first access by
+	 * the returned bundle, and their parse failures are reported there.
+	 */
 	@Override
 	public EntityBundle createEntityBundle(EntityBundleTransport transport) throws JSONObjectAdapterException {
 		Entity entity = null;
 		Annotations annotations = null;
 		UserEntityPermissions permissions = null;
 		EntityPath path = null;
-		List<AccessRequirement> accessRequirements = null;
-		List<AccessRequirement> unmetAccessRequirements = null;
-		List<FileHandle> fileHandles = null;
-		Long version = null;
 		// entity?
 		if(transport.getEntityJson() != null){
 			entity = factory.createEntity(transport.getEntityJson());
@@ -116,38 +118,11 @@ public class NodeModelCreatorImpl implements NodeModelCreator {
 		if(transport.getEntityPathJson() != null){
 			path =  factory.createEntity(transport.getEntityPathJson() , EntityPath.class);
 		}
-		// accessRequirements?
-		if(transport.getAccessRequirementsJson() != null){
-			accessRequirements =  new ArrayList<AccessRequirement>();
-			JSONArrayAdapter aa = jsonObjectAdapter.createNewArray(transport.getAccessRequirementsJson());
-			for (int i=0; i<aa.length(); i++) {
-				JSONObjectAdapter joa = aa.getJSONObject(i);
-				accessRequirements.add((AccessRequirement)EntityClassHelper.deserialize(joa));
-			}
-		}			
-		// unmetAccessRequirements?
-		if(transport.getUnmetAccessRequirementsJson() != null){
-			unmetAccessRequirements =  new ArrayList<AccessRequirement>();
-			JSONArrayAdapter aa = jsonObjectAdapter.createNewArray(transport.getUnmetAccessRequirementsJson());
-			for (int i=0; i<aa.length(); i++) {
-				JSONObjectAdapter joa = aa.getJSONObject(i);
-				unmetAccessRequirements.add((AccessRequirement)EntityClassHelper.deserialize(joa));
-			}
-		}
-		// file handles?
-		if(transport.getFileHandlesJson() != null){
-			fileHandles =  new ArrayList<FileHandle>();
-			JSONArrayAdapter aa = jsonObjectAdapter.createNewArray(transport.getFileHandlesJson());
-			for (int i=0; i<aa.length(); i++) {
-				JSONObjectAdapter joa = aa.getJSONObject(i);
-				String concreteClassName = (String)joa.get(FILE_HANDLE_TYPE_FIELD_NAME);
-				fileHandles.add((FileHandle)factory.createEntity(joa.toJSONString(), concreteClassName));
-			}
-		}
-		
-		// put it all together.
-		EntityBundle eb = new EntityBundle(entity, annotations, permissions,
-				path, accessRequirements, unmetAccessRequirements, fileHandles);
+		// lists are parsed by the bundle when first used
+		EntityBundle eb = new LazyEntityBundle(entity, annotations, permissions, path,
+				transport.getAccessRequirementsJson(),
+				transport.getUnmetAccessRequirementsJson(),
+				transport.getFileHandlesJson(), this);
 		// Set the child count when there.
 		if(transport.getHasChildren() != null){
 			eb.setChildCount(transport.getHasChildren());
@@ -156,6 +131,27 @@ public class NodeModelCreatorImpl implements NodeModelCreator {
 		return eb;
 	}
 
+	List<AccessRequirement> createAccessRequirements(String json) throws JSONObjectAdapterException {
+		JSONArrayAdapter aa = jsonObjectAdapter.createNewArray(json);
+		List<AccessRequirement> accessRequirements = new ArrayList<AccessRequirement>();
+		for (int i=0; i<aa.length(); i++) {
+			JSONObjectAdapter joa = aa.getJSONObject(i);
+			accessRequirements.add((AccessRequirement)EntityClassHelper.deserialize(joa));
+		}
+		return accessRequirements;
+	}
+
+	List<FileHandle> createFileHandles(String json) throws JSONObjectAdapterException {
+		JSONArrayAdapter aa = jsonObjectAdapter.createNewArray(json);
+		List<FileHandle> fileHandles = new ArrayList<FileHandle>();
+		for (int i=0; i<aa.length(); i++) {
+			JSONObjectAdapter joa = aa.getJSONObject(i);
+			String concreteClassName = (String)joa.get(FILE_HANDLE_TYPE_FIELD_NAME);
+			fileHandles.add((FileHandle)factory.createEntity(joa.toJSONString(), concreteClassName));
+		}
+		return fileHandles;
+	}
+
 	@Override
 	public JSONEntity newInstance(String className) {
 		return factory.newInstance(className);
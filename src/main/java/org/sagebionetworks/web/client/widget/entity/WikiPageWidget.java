@@ -18,6 +18,7 @@ import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCache;
 import org.sagebionetworks.web.client.place.Synapse;
 import org.sagebionetworks.web.client.security.AuthenticationController;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
@@ -52,6 +53,7 @@ SynapseWidgetPresenter {
 	private AdapterFactory adapterFactory;
 	private WikiPageWidgetView view; 
 	AuthenticationController authenticationController;
+	private WikiHeaderTreeCache wikiHeaderTreeCache;
 	boolean isDescription = false;
 	private boolean isCurrentVersion;
 	private Long versionInView;
@@ -71,7 +73,8 @@ SynapseWidgetPresenter {
 			NodeModelCreator nodeModelCreator,
 			JSONObjectAdapter jsonObjectAdapter, AdapterFactory adapterFactory,
 			GlobalApplicationState globalApplicationState,
-			AuthenticationController authenticationController) {
+			AuthenticationController authenticationController,
+			WikiHeaderTreeCache wikiHeaderTreeCache) {
 		super();
 		this.view = view;
 		this.synapseClient = synapseClient;
@@ -80,6 +83,7 @@ SynapseWidgetPresenter {
 		this.adapterFactory = adapterFactory;
 		this.globalApplicationState = globalApplicationState;
 		this.authenticationController = authenticationController;
+		this.wikiHeaderTreeCache = wikiHeaderTreeCache;
 		view.setPresenter(this);
 	}
 	
@@ -206,6 +210,8 @@ SynapseWidgetPresenter {
 			synapseClient.updateV2WikiPageWithV1(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType(), json.toJSONString(), new AsyncCallback<String>() {
 				@Override
 				public void onSuccess(String result) {
+					//the title may have changed
+					clearWikiHeaderTree();
 					//we have successfully saved, so we are no longer editing
 					setIsEditing(false);
 					//now refresh the page
@@ -228,6 +234,7 @@ SynapseWidgetPresenter {
 			
 			@Override
 			public void onSuccess(Void result) {
+				clearWikiHeaderTree();
 				setIsEditing(false);
 				//clear the now invalid page id from the wiki key
 				wikiKey.setWikiPageId(null);
@@ -277,6 +284,7 @@ SynapseWidgetPresenter {
             synapseClient.createV2WikiPageWithV1(wikiKey.getOwnerObjectId(),  wikiKey.getOwnerObjectType(), wikiPageJson, new AsyncCallback<String>() {
                 @Override
                 public void onSuccess(String result) {
+                	clearWikiHeaderTree();
                 	if (isCreatingWiki) {
                         String type = isDescription ? DisplayConstants.DESCRIPTION : DisplayConstants.WIKI;
                         view.showInfo( type + " Created", "");
@@ -381,6 +389,7 @@ SynapseWidgetPresenter {
 		synapseClient.restoreV2WikiPage(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType(), wikiKey.getWikiPageId(), wikiVersion, new AsyncCallback<String>() {
 			@Override
 			public void onSuccess(String result) {
+				clearWikiHeaderTree();
 				refresh();
 			}
 			@Override
@@ -390,4 +399,11 @@ SynapseWidgetPresenter {
 			}
 		});
 	}
+	
+	/**
+	 * The subpages widget retains the header tree while browsing the wiki, so drop it after a change to the wiki.
+	 */
+	private void clearWikiHeaderTree() {
+		wikiHeaderTreeCache.remove(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType());
+	}
 }
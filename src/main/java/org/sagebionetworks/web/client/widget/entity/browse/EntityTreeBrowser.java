@@ -1,7 +1,6 @@
 package org.sagebionetworks.web.client.widget.entity.browse;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.EntityHeader;
@@ -13,7 +12,6 @@ import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.EntityTypeProvider;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.IconsImageBundle;
-import org.sagebionetworks.web.client.SearchServiceAsync;
 import org.sagebionetworks.web.client.SynapseClientAsync;
 import org.sagebionetworks.web.client.events.EntitySelectedEvent;
 import org.sagebionetworks.web.client.events.EntitySelectedHandler;
@@ -21,10 +19,8 @@ import org.sagebionetworks.web.client.events.EntityUpdatedEvent;
 import org.sagebionetworks.web.client.events.EntityUpdatedHandler;
 import org.sagebionetworks.web.client.security.AuthenticationController;
 import org.sagebionetworks.web.client.widget.SynapseWidgetPresenter;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
 import org.sagebionetworks.web.shared.EntityType;
-import org.sagebionetworks.web.shared.QueryConstants.WhereOperator;
-import org.sagebionetworks.web.shared.WebConstants;
-import org.sagebionetworks.web.shared.WhereCondition;
 import org.sagebionetworks.web.shared.exceptions.UnknownErrorException;
 
 import com.google.gwt.event.shared.HandlerManager;
@@ -36,7 +32,6 @@ import com.google.inject.Inject;
 public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, SynapseWidgetPresenter {
 	
 	private EntityTreeBrowserView view;
-	private SearchServiceAsync searchService;
 	private AuthenticationController authenticationController;
 	private GlobalApplicationState globalApplicationState;
 	private HandlerManager handlerManager = new HandlerManager(this);
@@ -47,11 +42,8 @@ public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, Synap
 	
 	private String currentSelection;
 	
-	private final int MAX_FOLDER_LIMIT = 500;
-	
 	@Inject
 	public EntityTreeBrowser(EntityTreeBrowserView view,
-			SearchServiceAsync searchService,
 			AuthenticationController authenticationController,
 			EntityTypeProvider entityTypeProvider,
 			GlobalApplicationState globalApplicationState,
@@ -60,7 +52,6 @@ public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, Synap
 			IconsImageBundle iconsImageBundle,
 			AdapterFactory adapterFactory) {
 		this.view = view;		
-		this.searchService = searchService;
 		this.entityTypeProvider = entityTypeProvider;
 		this.authenticationController = authenticationController;
 		this.globalApplicationState = globalApplicationState;
@@ -86,12 +77,12 @@ public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, Synap
 	 * Configure tree view with given entityId's children as start set
 	 * @param entityId
 	 */
-	public void configure(String entityId, final boolean sort) {
+	public void configure(final String entityId, final boolean sort) {
 		view.clear();
-		getFolderChildren(entityId, new AsyncCallback<List<EntityHeader>>() {
+		getFolderChildren(entityId, null, new AsyncCallback<FolderChildren>() {
 			@Override
-			public void onSuccess(List<EntityHeader> result) {
-				view.setRootEntities(result, sort);
+			public void onSuccess(FolderChildren result) {
+				view.setRootEntities(entityId, result, sort);
 			}
 			@Override
 			public void onFailure(Throwable caught) {
@@ -120,30 +111,21 @@ public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, Synap
 	}
 	
 	@Override
-	public void getFolderChildren(String entityId, final AsyncCallback<List<EntityHeader>> asyncCallback) {
-		List<EntityHeader> headers = new ArrayList<EntityHeader>();		
-		
-		// NOTE: this is fragile, but there doesn't seem to be a way around querying by nodeType. 
-		// a query on concreteType!=org...TableEntity eliminates nodes who do not have concreteType defined
-		final String TABLE_ENTITY_NODE_TYPE_ID = "17"; 
-		
-		searchService.searchEntities("entity", Arrays
-				.asList(new WhereCondition[] { 
-						new WhereCondition("parentId", WhereOperator.EQUALS, entityId),
-						new WhereCondition(WebConstants.NODE_TYPE_KEY, WhereOperator.NOT_EQUALS, TABLE_ENTITY_NODE_TYPE_ID)
-						}), 1, MAX_FOLDER_LIMIT, null,
-				false, new AsyncCallback<List<String>>() {
+	public void getFolderChildren(String entityId, String pageToken, final AsyncCallback<FolderChildren> asyncCallback) {
+		// children come back a page at a time, sorted by name so later pages can be appended
+		synapseClient.getChildrenHeaders(entityId, true, pageToken, new AsyncCallback<EntityChildrenPage>() {
 				@Override
-				public void onSuccess(List<String> result) {
+				public void onSuccess(EntityChildrenPage result) {
 					List<EntityHeader> headers = new ArrayList<EntityHeader>();
-					for(String entityHeaderJson : result) {
+					for(String entityHeaderJson : result.getChildrenJson()) {
 						try {
 							headers.add(new EntityHeader(adapterFactory.createNew(entityHeaderJson)));
 						} catch (JSONObjectAdapterException e) {
 							onFailure(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION));
+							return;
 						}
 					}
-					asyncCallback.onSuccess(headers);
+					asyncCallback.onSuccess(new FolderChildren(headers, result.getNextPageToken()));
 				}
 				@Override
 				public void onFailure(Throwable caught) {
@@ -183,11 +165,6 @@ public class EntityTreeBrowser implements EntityTreeBrowserView.Presenter, Synap
 		handlerManager.removeHandler(EntityUpdatedEvent.getType(), handler);
 	}
 	
-	@Override
-	public int getMaxLimit() {
-		return MAX_FOLDER_LIMIT;
-	}
-
 	/**
 	 * Show links if true
 	 * @param makeLinks Make the labels entity links if true 
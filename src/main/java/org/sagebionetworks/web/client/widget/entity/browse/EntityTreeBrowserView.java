@@ -23,11 +23,18 @@ public interface EntityTreeBrowserView extends IsWidget, SynapseView {
 	 */
 	public void setRootEntities(List<EntityHeader> rootEntities, boolean sort);
 	
+	/**
+	 * 
+	 * @param parentId the entity whose children are shown as root level nodes
+	 * @param rootChildren the first page of children, followed by a "load more" node if there are more pages
+	 */
+	public void setRootEntities(String parentId, FolderChildren rootChildren, boolean sort);
+	
 	/**
 	 * Remove an entity from the view identified by entityId
-	 * @param entityModel
+	 * @param entityId
 	 */
-	public void removeEntity(EntityTreeModel entityModel);
+	public void removeEntity(String entityId);
 
 	/**
 	 * Show links if true
@@ -45,12 +52,15 @@ public interface EntityTreeBrowserView extends IsWidget, SynapseView {
 	 */
 	public interface Presenter {
 
-		void getFolderChildren(String entityId, AsyncCallback<List<EntityHeader>> asyncCallback);
+		/**
+		 * @param entityId
+		 * @param pageToken null for the first page
+		 * @param asyncCallback
+		 */
+		void getFolderChildren(String entityId, String pageToken, AsyncCallback<FolderChildren> asyncCallback);
 
 		void setSelection(String id);
 
-		int getMaxLimit();
-
 		ImageResource getIconForType(String type);
 
 	}
@@ -3,147 +3,112 @@ package org.sagebionetworks.web.client.widget.entity.browse;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.IconsImageBundle;
 import org.sagebionetworks.web.client.SageImageBundle;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Kind;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Row;
 
-import com.extjs.gxt.ui.client.Style.Scroll;
-import com.extjs.gxt.ui.client.Style.SelectionMode;
-import com.extjs.gxt.ui.client.Style.SortDir;
-import com.extjs.gxt.ui.client.data.BaseTreeLoader;
-import com.extjs.gxt.ui.client.data.ModelIconProvider;
-import com.extjs.gxt.ui.client.data.ModelKeyProvider;
-import com.extjs.gxt.ui.client.data.RpcProxy;
-import com.extjs.gxt.ui.client.data.TreeLoader;
-import com.extjs.gxt.ui.client.event.Listener;
-import com.extjs.gxt.ui.client.event.MenuEvent;
-import com.extjs.gxt.ui.client.event.MessageBoxEvent;
-import com.extjs.gxt.ui.client.event.SelectionChangedEvent;
-import com.extjs.gxt.ui.client.event.SelectionChangedListener;
-import com.extjs.gxt.ui.client.event.SelectionListener;
-import com.extjs.gxt.ui.client.store.Store;
-import com.extjs.gxt.ui.client.store.StoreSorter;
-import com.extjs.gxt.ui.client.store.TreeStore;
-import com.extjs.gxt.ui.client.widget.ContentPanel;
-import com.extjs.gxt.ui.client.widget.Dialog;
 import com.extjs.gxt.ui.client.widget.LayoutContainer;
-import com.extjs.gxt.ui.client.widget.MessageBox;
-import com.extjs.gxt.ui.client.widget.button.Button;
 import com.extjs.gxt.ui.client.widget.layout.FitLayout;
-import com.extjs.gxt.ui.client.widget.menu.Menu;
-import com.extjs.gxt.ui.client.widget.menu.MenuItem;
-import com.extjs.gxt.ui.client.widget.treepanel.TreePanel;
-import com.extjs.gxt.ui.client.widget.treepanel.TreePanelSelectionModel;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.resources.client.ImageResource;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.AbstractImagePrototype;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 
+/**
+ * Shows the entity tree in a scrolling viewport. Only the rows in (and just
+ * around) the viewport are rendered, as one block of html positioned inside a
+ * canvas that is as tall as all visible rows together.
+ */
 public class EntityTreeBrowserViewImpl extends LayoutContainer implements EntityTreeBrowserView {
 
-	private static final String PLACEHOLDER_ID = "-1";
-	private static final String PLACEHOLDER_TYPE = "-1";
-	public static final String PLACEHOLDER_NAME_PREFIX = "&#8212";
+	// rows are rendered as escaped text, so the placeholder prefix is the character itself
+	private static final String ROW_PLACEHOLDER_PREFIX = "\u2014 ";
+	private static final String LOAD_MORE_NAME = ROW_PLACEHOLDER_PREFIX + DisplayConstants.LOAD_MORE;
+	// rows rendered above and below the viewport, so short scrolls do not re-render
+	public static final int OVERSCAN_ROWS = 20;
+	// without an explicit height the viewport grows with the rows, up to this height
+	public static final int MAX_AUTO_HEIGHT_PX = 500;
+	private static final EntityTreeRowRenderer.Templates TEMPLATES = GWT.create(EntityTreeRowRenderer.Templates.class);
+
 	private Presenter presenter;
-	private SageImageBundle sageImageBundle;
-	private IconsImageBundle iconsImageBundle;
-		
-	private TreeLoader<EntityTreeModel> loader;  
-	private TreePanel<EntityTreeModel> tree;  
-	private ContentPanel cp;
-	private TreeStore<EntityTreeModel> store;
-	private HashMap<String, ImageResource> typeToIcon = new HashMap<String, ImageResource>();
-	private boolean makeLinks = true;
-	private Integer height = null; 
-	
-	@Override
-	protected void onRender(com.google.gwt.user.client.Element parent, int index) {
-		super.onRender(parent, index);		
-		
-		if(store == null) createStore();
-		
-	    tree = new TreePanel<EntityTreeModel>(store);  
-	    tree.setStateful(true);  
-	    tree.setDisplayProperty(EntityTreeModel.KEY_LINK); 
-	    tree.setBorders(false);
-	    
-	    // statefull components need a defined id  
-	    tree.setId("statefullasyncentitytree_" + (Math.random()*100));  
-		tree.setIconProvider(new ModelIconProvider<EntityTreeModel>() {
-			public AbstractImagePrototype getIcon(EntityTreeModel model) {
-				String type = model.getType();
-				ImageResource icon;
-				if(typeToIcon.containsKey(type)) {
-					icon = typeToIcon.get(type);
-				} else {
-					icon = presenter.getIconForType(type);
+	private EntityTreeRows rows = new EntityTreeRows();
+	private EntityTreeRowRenderer renderer;
+	private Map<String, SafeHtml> typeToIcon = new HashMap<String, SafeHtml>();
+	private ScrollPanel viewport;
+	private FlowPanel canvas;
+	private HTML rowsHtml;
+	private Integer height = null;
+	private int viewportHeight;
+	private int renderedFrom, renderedTo;
+	private String selectedId;
+
+	@Inject
+	public EntityTreeBrowserViewImpl(SageImageBundle sageImageBundle, IconsImageBundle iconsImageBundle) {
+		this.setLayout(new FitLayout());
+		renderer = new EntityTreeRowRenderer(TEMPLATES, new EntityTreeRowRenderer.IconProvider() {
+			@Override
+			public SafeHtml getIcon(String type) {
+				SafeHtml icon = typeToIcon.get(type);
+				if (icon == null) {
+					ImageResource image = presenter.getIconForType(type);
+					icon = image == null ? SafeHtmlUtils.EMPTY_SAFE_HTML : AbstractImagePrototype.create(image).getSafeHtml();
 					typeToIcon.put(type, icon);
-				}				
-				if(icon == null) {
-					return null;
 				}
-				return AbstractImagePrototype.create(icon);
+				return icon;
 			}
-		});		
-		
-		TreePanelSelectionModel<EntityTreeModel> sm = tree.getSelectionModel();
-		sm.setSelectionMode(SelectionMode.SINGLE);
-		sm.addSelectionChangedListener(new SelectionChangedListener<EntityTreeModel>() {			
+		});
+
+		rowsHtml = new HTML();
+		rowsHtml.addStyleName("entityTreeRows");
+		rowsHtml.addClickHandler(new ClickHandler() {
 			@Override
-			public void selectionChanged(SelectionChangedEvent<EntityTreeModel> se) {
-				setSelection(se.getSelectedItem());
+			public void onClick(ClickEvent event) {
+				onRowsClicked(Element.as(event.getNativeEvent().getEventTarget()));
 			}
 		});
-		tree.setAutoHeight(true);
-		tree.setAutoWidth(true);
-				
-		cp = new ContentPanel();  
-	    cp.setHeaderVisible(false);  
-	    cp.setLayout(new FitLayout());  
-	    cp.add(tree);  
-	    determineHeight();	    
-	    cp.setAutoWidth(true);
-	    cp.setBorders(false);
-	    add(cp);  		
-	};
-		
-	private void determineHeight() {
-		if(cp != null) {
-			if(height == null) {
-				cp.setAutoHeight(true);
-				cp.setScrollMode(Scroll.NONE);
-			} else {
-				if(isRendered()) {
-					cp.setAutoHeight(false);
-					cp.setHeight(height);
-					cp.setScrollMode(Scroll.AUTO);
-				}
+		canvas = new FlowPanel();
+		canvas.addStyleName("entityTreeCanvas");
+		canvas.add(rowsHtml);
+		viewport = new ScrollPanel(canvas);
+		viewport.addScrollHandler(new ScrollHandler() {
+			@Override
+			public void onScroll(ScrollEvent event) {
+				renderVisibleRows(false);
 			}
-		}
-	}
-
-	@Inject
-	public EntityTreeBrowserViewImpl(SageImageBundle sageImageBundle, IconsImageBundle iconsImageBundle) {
-		this.sageImageBundle = sageImageBundle;
-		this.iconsImageBundle = iconsImageBundle;
-
-		this.setLayout(new FitLayout());
+		});
+		add(viewport);
+		refresh();
 	}
 
 	@Override
 	public Widget asWidget() {
 		return this;
-	}	
+	}
 
-	@Override 
+	@Override
 	public void setPresenter(Presenter presenter) {
 		this.presenter = presenter;
 	}
-		
+
 	@Override
 	public void showErrorMessage(String message) {
 		DisplayUtils.showErrorMessage(message);
@@ -160,129 +125,152 @@ public class EntityTreeBrowserViewImpl extends LayoutContainer implements Entity
 
 	@Override
 	public void clear() {
-		if(store == null) createStore();
-		store.removeAll();
+		rows.clear();
+		selectedId = null;
+		refresh();
 	}
 
 	@Override
 	public void setRootEntities(List<EntityHeader> rootEntities, boolean sort) {
-		clear();
-		
 		if(rootEntities == null) rootEntities = new ArrayList<EntityHeader>();
-		if(rootEntities.size() == 0) {
-			EntityHeader eh = new EntityHeader();
-			eh.setId(PLACEHOLDER_ID);
-			eh.setName(PLACEHOLDER_NAME_PREFIX + " " + DisplayConstants.EMPTY);
-			eh.setType(PLACEHOLDER_TYPE);
-			rootEntities.add(eh);
-		}
-		store.add(convertEntityHeaderToModel(rootEntities), false);
-		if (sort) store.sort(EntityTreeModel.KEY_NAME, SortDir.ASC);
+		setRoots(null, new FolderChildren(rootEntities, null), sort);
 	}
-	
+
+	@Override
+	public void setRootEntities(String parentId, FolderChildren rootChildren, boolean sort) {
+		setRoots(parentId, rootChildren, sort);
+	}
+
 	@Override
 	public void setMakeLinks(boolean makeLinks) {
-		this.makeLinks = makeLinks;
+		renderer.setMakeLinks(makeLinks);
+		renderVisibleRows(true);
 	}
-	
+
+	@Override
+	public void removeEntity(String entityId) {
+		rows.removeEntity(entityId);
+		refresh();
+	}
+
+	@Override
+	public void setWidgetHeight(int height) {
+		this.height = height;
+		refresh();
+	}
+
 	/*
 	 * Private Methods
 	 */
 
-	private List<EntityTreeModel> convertEntityHeaderToModel(List<EntityHeader> headers) {
-		
-		List<EntityTreeModel> models = new ArrayList<EntityTreeModel>();
-		int maxlimit = presenter.getMaxLimit();
-		
-		for(int i=0; i<headers.size() && i<maxlimit; i++) {
-			EntityHeader header = headers.get(i);
-			String link;
-			String name = header.getName();
-			if(makeLinks && !PLACEHOLDER_ID.equals(header.getId())) {
-				link = "<a href=\"" + DisplayUtils.getSynapseHistoryToken(header.getId()) + "\">" + name + "</a>";
-			} else {
-				link = name;
-			}
-			models.add(new EntityTreeModel(header.getId(), name, link, header.getType()));
-		}
-		if(headers.size() >= maxlimit) {
-			models.add(new EntityTreeModel(PLACEHOLDER_ID, PLACEHOLDER_ID, PLACEHOLDER_NAME_PREFIX + " Limited to " + maxlimit + " results" , PLACEHOLDER_TYPE));
+	private void setRoots(String parentId, FolderChildren rootChildren, boolean sort) {
+		selectedId = null;
+		rows.setRoots(parentId, rootChildren.getChildren(), rootChildren.getNextPageToken(), LOAD_MORE_NAME, sort);
+		if(rows.size() == 0) {
+			rows.addPlaceholder(ROW_PLACEHOLDER_PREFIX + DisplayConstants.EMPTY);
 		}
-		return models;
+		viewport.scrollToTop();
+		refresh();
 	}
 
-	private void createStore() {
-	    // data proxy  
-	    RpcProxy<List<EntityTreeModel>> proxy = new RpcProxy<List<EntityTreeModel>>() {  
-			@Override
-			protected void load(Object loadConfig, final AsyncCallback<List<EntityTreeModel>> callback) {
-				if(loadConfig != null) {
-					String entityId = ((EntityTreeModel) loadConfig).getId();
-					getFolderChildren(callback, entityId);
-				} else {
-					callback.onFailure(null);
-				}
+	/**
+	 * The visible rows changed, resize the canvas (and viewport) and render again.
+	 */
+	private void refresh() {
+		int canvasHeight = rows.size() * EntityTreeRowRenderer.ROW_HEIGHT_PX;
+		viewportHeight = height == null ? Math.min(canvasHeight, MAX_AUTO_HEIGHT_PX) : height;
+		canvas.setHeight(canvasHeight + "px");
+		viewport.setHeight(viewportHeight + "px");
+		renderVisibleRows(true);
+	}
+
+	/**
+	 * Render the rows around the viewport, unless the rows that are already
+	 * rendered cover it (and force is false).
+	 */
+	private void renderVisibleRows(boolean force) {
+		int rowHeight = EntityTreeRowRenderer.ROW_HEIGHT_PX;
+		int firstVisible = viewport.getVerticalScrollPosition() / rowHeight;
+		int lastVisible = Math.min(rows.size(), firstVisible + viewportHeight / rowHeight + 1);
+		if (!force && renderedFrom <= firstVisible && lastVisible <= renderedTo)
+			return;
+		renderedFrom = Math.max(0, firstVisible - OVERSCAN_ROWS);
+		renderedTo = Math.min(rows.size(), lastVisible + OVERSCAN_ROWS);
+		rowsHtml.getElement().getStyle().setTop(renderedFrom * rowHeight, Unit.PX);
+		rowsHtml.setHTML(renderer.render(rows, renderedFrom, renderedTo, selectedId));
+	}
+
+	private void onRowsClicked(Element target) {
+		boolean isToggle = false;
+		while (target != null && !target.hasAttribute(EntityTreeRowRenderer.ROW_INDEX_ATTRIBUTE)) {
+			if (EntityTreeRowRenderer.TOGGLE_STYLE.equals(target.getClassName()))
+				isToggle = true;
+			target = target.getParentElement();
+		}
+		if (target == null) return;
+		int index = Integer.parseInt(target.getAttribute(EntityTreeRowRenderer.ROW_INDEX_ATTRIBUTE));
+		if (index >= rows.size()) return;
+		Row row = rows.getRow(index);
+		if (row.getKind() == Kind.LOAD_MORE) {
+			loadMore(row);
+		} else if (row.getKind() == Kind.ENTITY) {
+			if (isToggle) {
+				toggle(index);
+			} else {
+				selectedId = row.getId();
+				renderVisibleRows(true);
+				presenter.setSelection(selectedId);
 			}
-		};
-	  
-	    // tree loader  
-	    loader = new BaseTreeLoader<EntityTreeModel>(proxy) {  
-	      @Override  
-	      public boolean hasChildren(EntityTreeModel parent) {
-	    	if(PLACEHOLDER_ID.equals(parent.getId())) return false; // non-entity node 	    	
-	        return true; // all entities could have children. Don't lookup just to answer this correctly  
-	      }  
-	    };  
-	  
-	    // trees store  
-	    store = new TreeStore<EntityTreeModel>(loader);  
-	    store.setKeyProvider(new ModelKeyProvider<EntityTreeModel>() {  
-	      public String getKey(EntityTreeModel model) {  
-	        return model.getKey();  
-	      }  
-	    });  
-	    store.setStoreSorter(new StoreSorter<EntityTreeModel>() {  	  
-	      @Override  
-	      public int compare(Store<EntityTreeModel> store, EntityTreeModel m1, EntityTreeModel m2, String property) {
-	    	// put placeholders at end
-	    	  if(m1.getName().startsWith(PLACEHOLDER_NAME_PREFIX)) return 1;
-	    	  if(m2.getName().startsWith(PLACEHOLDER_NAME_PREFIX)) return -1;
-	        return m1.getName().compareToIgnoreCase(m2.getName());  
-	      }  
-	    });  		   
+		}
 	}
 
-	private void setSelection(EntityTreeModel selectedItem) {
-		if(selectedItem != null && !PLACEHOLDER_ID.equals(selectedItem.getId())) {
-			presenter.setSelection(selectedItem.getId());
+	private void toggle(int index) {
+		Row row = rows.getRow(index);
+		if (row.isExpanded()) {
+			rows.collapse(index);
+		} else if (rows.expand(index)) {
+			loadChildren(row);
 		}
+		refresh();
 	}
 
-	private void getFolderChildren(final AsyncCallback<List<EntityTreeModel>> callback, String entityId) {
-		presenter.getFolderChildren(entityId, new AsyncCallback<List<EntityHeader>>() {
+	private void loadChildren(final Row row) {
+		presenter.getFolderChildren(row.getId(), null, new AsyncCallback<FolderChildren>() {
 			@Override
-			public void onSuccess(List<EntityHeader> result) {
-				// convert to model data
-				List<EntityTreeModel> models = convertEntityHeaderToModel(result);
-				callback.onSuccess(models);
+			public void onSuccess(FolderChildren result) {
+				rows.setChildren(row, result.getChildren(), result.getNextPageToken(), LOAD_MORE_NAME);
+				refresh();
 			}
 
 			@Override
 			public void onFailure(Throwable caught) {
-				callback.onFailure(caught);
+				rows.setChildrenFailed(row);
+				refresh();
 			}
 		});
 	}
 
-	@Override
-	public void removeEntity(EntityTreeModel entityModel) {
-		store.remove(entityModel);
-	}
+	/**
+	 * Replace the "load more" row with the next page of children (and a new
+	 * "load more" row if there are still more).
+	 */
+	private void loadMore(final Row loadMoreRow) {
+		if (loadMoreRow.isLoading()) return;
+		rows.setLoading(loadMoreRow, true);
+		renderVisibleRows(true);
+		presenter.getFolderChildren(rows.getLoadMoreParentId(loadMoreRow), loadMoreRow.getPageToken(), new AsyncCallback<FolderChildren>() {
+			@Override
+			public void onSuccess(FolderChildren result) {
+				rows.appendPage(loadMoreRow, result.getChildren(), result.getNextPageToken(), LOAD_MORE_NAME);
+				refresh();
+			}
 
-	@Override
-	public void setWidgetHeight(int height) {
-		this.height = height;
-		determineHeight();		
+			@Override
+			public void onFailure(Throwable caught) {
+				// let the user try again
+				rows.setLoading(loadMoreRow, false);
+				renderVisibleRows(true);
+			}
+		});
 	}
-	
 }
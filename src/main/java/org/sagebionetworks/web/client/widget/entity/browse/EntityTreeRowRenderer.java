@@ -0,0 +1,103 @@
+package org.sagebionetworks.web.client.widget.entity.browse;
+
+import org.sagebionetworks.web.client.DisplayUtils;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Kind;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Row;
+
+import com.google.gwt.safecss.shared.SafeStyles;
+import com.google.gwt.safecss.shared.SafeStylesUtils;
+import com.google.gwt.safehtml.client.SafeHtmlTemplates;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.safehtml.shared.SafeHtmlUtils;
+import com.google.gwt.safehtml.shared.SafeUri;
+import com.google.gwt.safehtml.shared.UriUtils;
+
+/**
+ * Renders a window of entity tree rows as a single block of html, so the
+ * browser only has to parse one string (and no widgets are created) per
+ * scroll or expand.
+ */
+public class EntityTreeRowRenderer {
+	public static final int ROW_HEIGHT_PX = 22;
+	public static final int INDENT_PX = 18;
+	public static final String ROW_INDEX_ATTRIBUTE = "data-row";
+	public static final String TOGGLE_STYLE = "entityTreeToggle";
+	public static final String SELECTED_STYLE = "entityTreeRowSelected";
+	public static final String EXPANDED_TOGGLE = "\u25BE";
+	public static final String COLLAPSED_TOGGLE = "\u25B8";
+	public static final String LOADING_TOGGLE = "\u2026";
+
+	public interface Templates extends SafeHtmlTemplates {
+		@Template("<div class=\"entityTreeRow {0}\" data-row=\"{1}\" style=\"{2}\"><span class=\"entityTreeToggle\">{3}</span>{4}{5}</div>")
+		SafeHtml row(String styleNames, int rowIndex, SafeStyles indent, String toggle, SafeHtml icon, SafeHtml label);
+
+		@Template("<a href=\"{0}\">{1}</a>")
+		SafeHtml link(SafeUri href, String name);
+
+		@Template("<a class=\"link\">{0}</a>")
+		SafeHtml action(String name);
+
+		@Template("<span>{0}</span>")
+		SafeHtml text(String name);
+	}
+
+	public interface IconProvider {
+		/**
+		 * @return the icon html for the entity type (never null)
+		 */
+		SafeHtml getIcon(String type);
+	}
+
+	private Templates templates;
+	private IconProvider iconProvider;
+	private boolean makeLinks = true;
+
+	public EntityTreeRowRenderer(Templates templates, IconProvider iconProvider) {
+		this.templates = templates;
+		this.iconProvider = iconProvider;
+	}
+
+	public void setMakeLinks(boolean makeLinks) {
+		this.makeLinks = makeLinks;
+	}
+
+	/**
+	 * @param rows
+	 * @param from index of the first visible row to render
+	 * @param to index just past the last visible row to render
+	 * @param selectedId
+	 * @return
+	 */
+	public SafeHtml render(EntityTreeRows rows, int from, int to, String selectedId) {
+		SafeHtmlBuilder sb = new SafeHtmlBuilder();
+		for (int i = from; i < to; i++) {
+			sb.append(renderRow(rows.getRow(i), i, selectedId));
+		}
+		return sb.toSafeHtml();
+	}
+
+	private SafeHtml renderRow(Row row, int index, String selectedId) {
+		String toggle = "";
+		SafeHtml icon = SafeHtmlUtils.EMPTY_SAFE_HTML;
+		SafeHtml label;
+		if (row.getKind() == Kind.ENTITY) {
+			if (row.isLoading())
+				toggle = LOADING_TOGGLE;
+			else if (row.isExpandable())
+				toggle = row.isExpanded() ? EXPANDED_TOGGLE : COLLAPSED_TOGGLE;
+			icon = iconProvider.getIcon(row.getType());
+			if (makeLinks)
+				label = templates.link(UriUtils.fromTrustedString(DisplayUtils.getSynapseHistoryToken(row.getId())), row.getName());
+			else
+				label = templates.text(row.getName());
+		} else if (row.getKind() == Kind.LOAD_MORE && !row.isLoading()) {
+			label = templates.action(row.getName());
+		} else {
+			label = templates.text(row.isLoading() ? LOADING_TOGGLE : row.getName());
+		}
+		String styleNames = row.getId() != null && row.getId().equals(selectedId) ? SELECTED_STYLE : "";
+		SafeStyles indent = SafeStylesUtils.fromTrustedString("padding-left:" + row.getDepth() * INDENT_PX + "px;");
+		return templates.row(styleNames, index, indent, toggle, icon, label);
+	}
+}
@@ -0,0 +1,295 @@
+package org.sagebionetworks.web.client.widget.entity.browse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
+
+/**
+ * The rows of the entity tree browser. Loaded children are kept in a plain
+ * tree of rows (with their expansion state), and the rows currently shown
+ * (every row whose ancestors are all expanded) are kept flattened in display
+ * order, so the view can render any window of the visible rows directly.
+ */
+public class EntityTreeRows {
+
+	public enum Kind {
+		ENTITY,
+		PLACEHOLDER,
+		LOAD_MORE
+	}
+
+	public static class Row {
+		private final Kind kind;
+		private final String id;
+		private final String name;
+		private final String type;
+		private final Row parent;
+		private final int depth;
+		// for "load more" rows, the token of the next page of the parent's children
+		private String pageToken;
+		private boolean expanded;
+		private boolean loading;
+		// null until loaded
+		private List<Row> children;
+
+		private Row(Kind kind, String id, String name, String type, Row parent) {
+			this.kind = kind;
+			this.id = id;
+			this.name = name;
+			this.type = type;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+		public String getId() {
+			return id;
+		}
+		public String getName() {
+			return name;
+		}
+		public String getType() {
+			return type;
+		}
+		public int getDepth() {
+			return depth;
+		}
+		public String getPageToken() {
+			return pageToken;
+		}
+		public boolean isExpanded() {
+			return expanded;
+		}
+		public boolean isLoading() {
+			return loading;
+		}
+		/**
+		 * @return the entity whose children this row belongs to (null for root rows given as a list)
+		 */
+		public String getParentEntityId() {
+			return parent == null ? null : parent.id;
+		}
+		/**
+		 * @return true if the row is an entity that has (or might have) children
+		 */
+		public boolean isExpandable() {
+			return kind == Kind.ENTITY && (children == null || !children.isEmpty());
+		}
+	}
+
+	private static final Comparator<Row> NAME_COMPARATOR = new Comparator<Row>() {
+		@Override
+		public int compare(Row r1, Row r2) {
+			// entities first, then placeholders
+			if (r1.kind != r2.kind)
+				return r1.kind.compareTo(r2.kind);
+			if (r1.name == null)
+				return r2.name == null ? 0 : -1;
+			if (r2.name == null)
+				return 1;
+			return r1.name.compareToIgnoreCase(r2.name);
+		}
+	};
+
+	private List<Row> roots = new ArrayList<Row>();
+	private String rootParentId;
+	private ArrayList<Row> visibleRows = new ArrayList<Row>();
+
+	public void clear() {
+		roots = new ArrayList<Row>();
+		rootParentId = null;
+		visibleRows = new ArrayList<Row>();
+	}
+
+	/**
+	 * Replace all rows.
+	 * @param parentId the entity the root rows are the children of (null if the roots are just a list of entities)
+	 * @param headers
+	 * @param nextPageToken if not null, a "load more" row is added
+	 * @param loadMoreName
+	 * @param sort sort the roots by name
+	 */
+	public void setRoots(String parentId, List<EntityHeader> headers, String nextPageToken, String loadMoreName, boolean sort) {
+		clear();
+		rootParentId = parentId;
+		roots = createRows(null, headers, nextPageToken, loadMoreName);
+		if (sort)
+			Collections.sort(roots, NAME_COMPARATOR);
+		visibleRows.addAll(roots);
+	}
+
+	/**
+	 * Add a row that does not stand for an entity (a message like "Empty") to the end of the roots.
+	 */
+	public void addPlaceholder(String name) {
+		Row placeholder = new Row(Kind.PLACEHOLDER, null, name, null, null);
+		roots.add(placeholder);
+		visibleRows.add(placeholder);
+	}
+
+	public int size() {
+		return visibleRows.size();
+	}
+
+	/**
+	 * @param index index of a visible row
+	 */
+	public Row getRow(int index) {
+		return visibleRows.get(index);
+	}
+
+	/**
+	 * @return index of the visible row for the given entity, or -1
+	 */
+	public int indexOf(String entityId) {
+		for (int i = 0; i < visibleRows.size(); i++) {
+			if (entityId.equals(visibleRows.get(i).id))
+				return i;
+		}
+		return -1;
+	}
+
+	public int indexOf(Row row) {
+		return visibleRows.indexOf(row);
+	}
+
+	/**
+	 * @return the entity that the "load more" row loads more children of
+	 */
+	public String getLoadMoreParentId(Row loadMoreRow) {
+		return loadMoreRow.parent == null ? rootParentId : loadMoreRow.parent.id;
+	}
+
+	/**
+	 * Expand the visible row at the given index.
+	 * @return true if the children of the row still have to be loaded (see {@link #setChildren(Row, List, String, String)})
+	 */
+	public boolean expand(int index) {
+		Row row = visibleRows.get(index);
+		if (!row.isExpandable() || row.expanded)
+			return false;
+		row.expanded = true;
+		if (row.children == null) {
+			if (row.loading)
+				return false;
+			row.loading = true;
+			return true;
+		}
+		visibleRows.addAll(index + 1, getVisibleDescendants(row));
+		return false;
+	}
+
+	/**
+	 * Collapse the visible row at the given index. Its loaded children are kept.
+	 */
+	public void collapse(int index) {
+		Row row = visibleRows.get(index);
+		if (!row.expanded)
+			return;
+		row.expanded = false;
+		visibleRows.subList(index + 1, getSubtreeEnd(index)).clear();
+	}
+
+	/**
+	 * Set the loaded children of a row. If the row is (still) expanded and
+	 * visible, the children are shown right away.
+	 */
+	public void setChildren(Row row, List<EntityHeader> headers, String nextPageToken, String loadMoreName) {
+		row.loading = false;
+		row.children = createRows(row, headers, nextPageToken, loadMoreName);
+		int index = visibleRows.indexOf(row);
+		if (row.expanded && index >= 0) {
+			visibleRows.addAll(index + 1, row.children);
+		}
+	}
+
+	/**
+	 * Loading the children of a row failed, collapse it so it can be tried again.
+	 */
+	public void setChildrenFailed(Row row) {
+		row.loading = false;
+		row.expanded = false;
+	}
+
+	/**
+	 * Replace a "load more" row with the next page of children (and a new
+	 * "load more" row if there are still more).
+	 */
+	public void appendPage(Row loadMoreRow, List<EntityHeader> headers, String nextPageToken, String loadMoreName) {
+		List<Row> siblings = loadMoreRow.parent == null ? roots : loadMoreRow.parent.children;
+		if (siblings == null || !siblings.remove(loadMoreRow))
+			return;
+		List<Row> page = createRows(loadMoreRow.parent, headers, nextPageToken, loadMoreName);
+		siblings.addAll(page);
+		int index = visibleRows.indexOf(loadMoreRow);
+		if (index >= 0) {
+			visibleRows.remove(index);
+			visibleRows.addAll(index, page);
+		}
+	}
+
+	public void setLoading(Row row, boolean loading) {
+		row.loading = loading;
+	}
+
+	/**
+	 * Remove the rows for the given entity (and their descendants).
+	 */
+	public void removeEntity(String entityId) {
+		int index;
+		while ((index = indexOf(entityId)) >= 0) {
+			Row row = visibleRows.get(index);
+			visibleRows.subList(index, getSubtreeEnd(index)).clear();
+			List<Row> siblings = row.parent == null ? roots : row.parent.children;
+			siblings.remove(row);
+		}
+	}
+
+	/*
+	 * Private Methods
+	 */
+
+	private List<Row> createRows(Row parent, List<EntityHeader> headers, String nextPageToken, String loadMoreName) {
+		List<Row> rows = new ArrayList<Row>(headers.size() + 1);
+		for (EntityHeader header : headers) {
+			rows.add(new Row(Kind.ENTITY, header.getId(), header.getName(), header.getType(), parent));
+		}
+		if (nextPageToken != null) {
+			Row loadMore = new Row(Kind.LOAD_MORE, null, loadMoreName, null, parent);
+			loadMore.pageToken = nextPageToken;
+			rows.add(loadMore);
+		}
+		return rows;
+	}
+
+	private List<Row> getVisibleDescendants(Row row) {
+		List<Row> descendants = new ArrayList<Row>();
+		addVisibleDescendants(row, descendants);
+		return descendants;
+	}
+
+	private void addVisibleDescendants(Row row, List<Row> descendants) {
+		if (!row.expanded || row.children == null)
+			return;
+		for (Row child : row.children) {
+			descendants.add(child);
+			addVisibleDescendants(child, descendants);
+		}
+	}
+
+	/**
+	 * @return index just past the visible descendants of the row at the given index
+	 */
+	private int getSubtreeEnd(int index) {
+		int depth = visibleRows.get(index).depth;
+		int end = index + 1;
+		while (end < visibleRows.size() && visibleRows.get(end).depth > depth)
+			end++;
+		return end;
+	}
+}
@@ -0,0 +1,27 @@
+package org.sagebionetworks.web.client.widget.entity.browse;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
+
+/**
+ * A page of folder children, and the token for the next page (null when there
+ * are no more children).
+ */
+public class FolderChildren {
+	private List<EntityHeader> children;
+	private String nextPageToken;
+
+	public FolderChildren(List<EntityHeader> children, String nextPageToken) {
+		this.children = children;
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<EntityHeader> getChildren() {
+		return children;
+	}
+
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+}
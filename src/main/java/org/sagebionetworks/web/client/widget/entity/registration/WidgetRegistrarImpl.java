@@ -7,6 +7,7 @@ import java.util.Map;
 import org.sagebionetworks.markdown.constants.WidgetConstants;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.web.client.ClientTelemetry;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
@@ -27,12 +28,14 @@ public class WidgetRegistrarImpl implements WidgetRegistrar {
 	PortalGinInjector ginInjector;
 	NodeModelCreator nodeModelCreator;
 	JSONObjectAdapter adapter;
+	ClientTelemetry clientTelemetry;
 	
 	@Inject
-	public WidgetRegistrarImpl(PortalGinInjector ginInjector, NodeModelCreator nodeModelCreator, JSONObjectAdapter adapter) {
+	public WidgetRegistrarImpl(PortalGinInjector ginInjector, NodeModelCreator nodeModelCreator, JSONObjectAdapter adapter, ClientTelemetry clientTelemetry) {
 		this.ginInjector = ginInjector;
 		this.nodeModelCreator = nodeModelCreator;
 		this.adapter = adapter;
+		this.clientTelemetry = clientTelemetry;
 		initWithKnownWidgets();
 	}
 	
@@ -148,8 +151,11 @@ public class WidgetRegistrarImpl implements WidgetRegistrar {
 			presenter = ginInjector.getVideoWidget();
 		} //TODO: add other widget descriptors to this mapping as they become available
 		
-		if (presenter != null)
+		if (presenter != null) {
+			long start = System.currentTimeMillis();
 			presenter.configure(wikiKey, model, widgetRefreshRequired, wikiVersionInView);
+			clientTelemetry.recordWidgetConfigure(contentTypeKey, (int) (System.currentTimeMillis() - start));
+		}
 		return presenter;
 	}
 	@Override
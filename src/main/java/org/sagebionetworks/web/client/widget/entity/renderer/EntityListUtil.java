@@ -13,6 +13,8 @@ import org.sagebionetworks.repo.model.Locationable;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.Reference;
 import org.sagebionetworks.repo.model.Versionable;
+import org.sagebionetworks.repo.model.request.ReferenceList;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
@@ -23,6 +25,7 @@ import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.widget.entity.EntityGroupRecordDisplay;
 import org.sagebionetworks.web.client.widget.entity.registration.WidgetEncodingUtil;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
 import org.sagebionetworks.web.shared.WikiPageKey;
 import org.sagebionetworks.web.shared.exceptions.ForbiddenException;
 import org.sagebionetworks.web.shared.exceptions.NotFoundException;
@@ -48,6 +51,56 @@ public class EntityListUtil {
 	public interface RowLoadedHandler {
 		public void onLoaded(EntityGroupRecordDisplay entityGroupRecordDisplay);
 	}
+	
+	public interface RowsLoadedHandler {
+		/**
+		 * @param entityGroupRecordDisplays one display per record, in order (null for records without a reference)
+		 */
+		public void onLoaded(List<EntityGroupRecordDisplay> entityGroupRecordDisplays);
+	}
+	
+	/**
+	 * Load the details of all records with a single call.  Rows that fail to load get an error display.
+	 */
+	public static void loadRowDetails(
+			final SynapseClientAsync synapseClient, final SynapseJSNIUtils synapseJSNIUtils,
+			final NodeModelCreator nodeModelCreator, AdapterFactory adapterFactory,
+			final boolean isLoggedIn, final List<EntityGroupRecord> records,
+			final RowsLoadedHandler handler) {
+		List<Reference> refs = new ArrayList<Reference>();
+		for (EntityGroupRecord record : records) {
+			if (record != null && record.getEntityReference() != null)
+				refs.add(record.getEntityReference());
+		}
+		ReferenceList list = new ReferenceList();
+		list.setReferences(refs);
+		String referenceList;
+		try {
+			referenceList = list.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+		} catch (JSONObjectAdapterException e) {
+			handler.onLoaded(createFailureDisplays(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION), records));
+			return;
+		}
+		synapseClient.getEntityListRows(referenceList, new AsyncCallback<List<EntityListRowBundle>>() {
+			@Override
+			public void onSuccess(List<EntityListRowBundle> rows) {
+				List<EntityGroupRecordDisplay> displays = new ArrayList<EntityGroupRecordDisplay>();
+				int rowIndex = 0;
+				for (EntityGroupRecord record : records) {
+					if (record == null || record.getEntityReference() == null) {
+						displays.add(null);
+					} else {
+						displays.add(createRecordDisplay(isLoggedIn, rows.get(rowIndex++), record, nodeModelCreator, synapseJSNIUtils));
+					}
+				}
+				handler.onLoaded(displays);
+			}
+			@Override
+			public void onFailure(Throwable caught) {
+				handler.onLoaded(createFailureDisplays(caught, records));
+			}
+		});
+	}
 
 	public static void loadIndividualRowDetails(
 			final SynapseClientAsync synapseClient, final SynapseJSNIUtils synapseJSNIUtils,
@@ -72,7 +125,7 @@ public class EntityListUtil {
 					// v v v from wiki should be included in this conditional
 					if (bundle.getEntity() instanceof Locationable) {
 						// Locationable is deprecated — use description field
-						handler.onLoaded(createRecordDisplay(isLoggedIn, bundle, record,
+						handler.onLoaded(createRecordDisplay(isLoggedIn, bundle.getEntity(), record,
 										synapseJSNIUtils, bundle.getEntity().getDescription()));
 					} else {
 						// Other entities are not deprecated — get description from wiki
@@ -118,7 +171,7 @@ public class EntityListUtil {
 			@Override
 			public void onSuccess(String resultDesc) {
 				try {
-					handler.onLoaded(createRecordDisplay(isLoggedIn, bundle, record, synapseJSNIUtils, resultDesc));
+					handler.onLoaded(createRecordDisplay(isLoggedIn, bundle.getEntity(), record, synapseJSNIUtils, resultDesc));
 				} catch (JSONObjectAdapterException e) {
 					onFailure(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION));
 				}
@@ -128,7 +181,7 @@ public class EntityListUtil {
 				if (caught instanceof NotFoundException) {
 					// No wiki found. Put in blank description.
 					try {
-						handler.onLoaded(createRecordDisplay(isLoggedIn, bundle, record, synapseJSNIUtils, ""));
+						handler.onLoaded(createRecordDisplay(isLoggedIn, bundle.getEntity(), record, synapseJSNIUtils, ""));
 					} catch (JSONObjectAdapterException e) {
 						onFailure(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION));
 					}
@@ -187,11 +240,25 @@ public class EntityListUtil {
 	 * Private methods
 	 */
 	private static EntityGroupRecordDisplay createRecordDisplay(
-			boolean isLoggedIn, EntityBundle bundle,
+			boolean isLoggedIn, EntityListRowBundle row,
+			EntityGroupRecord record, NodeModelCreator nodeModelCreator,
+			SynapseJSNIUtils synapseJSNIUtils) {
+		Reference ref = record.getEntityReference();
+		if (row.getException() != null)
+			return getFailureDisplay(row.getException(), ref);
+		try {
+			Entity referencedEntity = nodeModelCreator.createEntity(row.getEntityWrapper());
+			return createRecordDisplay(isLoggedIn, referencedEntity, record, synapseJSNIUtils, row.getDescription());
+		} catch (JSONObjectAdapterException e) {
+			return getFailureDisplay(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION), ref);
+		}
+	}
+	
+	private static EntityGroupRecordDisplay createRecordDisplay(
+			boolean isLoggedIn, Entity referencedEntity,
 			EntityGroupRecord record, SynapseJSNIUtils synapseJSNIUtils, 
 			String description)
 			throws JSONObjectAdapterException {
-		Entity referencedEntity = bundle.getEntity();
 
 		String nameLinkUrl;
 		if(referencedEntity instanceof Versionable) {
@@ -203,7 +270,7 @@ public class EntityListUtil {
 		// download
 		String downloadUrl = null;
 		if(!isLoggedIn) {				
-			if(bundle.getEntity() instanceof FileEntity || bundle.getEntity() instanceof Locationable)
+			if(referencedEntity instanceof FileEntity || referencedEntity instanceof Locationable)
 				downloadUrl = "#" + nameLinkUrl;
 		} else if(referencedEntity instanceof Locationable) {
 			List<LocationData> locations = ((Locationable) referencedEntity).getLocations();
@@ -244,6 +311,22 @@ public class EntityListUtil {
 	}
 	
 	private static void createFailureDisplay(Throwable caught, Reference ref, final RowLoadedHandler handler) {
+		handler.onLoaded(getFailureDisplay(caught, ref));
+	}
+	
+	private static List<EntityGroupRecordDisplay> createFailureDisplays(Throwable caught, List<EntityGroupRecord> records) {
+		List<EntityGroupRecordDisplay> displays = new ArrayList<EntityGroupRecordDisplay>();
+		for (EntityGroupRecord record : records) {
+			if (record == null || record.getEntityReference() == null) {
+				displays.add(null);
+			} else {
+				displays.add(getFailureDisplay(caught, record.getEntityReference()));
+			}
+		}
+		return displays;
+	}
+	
+	private static EntityGroupRecordDisplay getFailureDisplay(Throwable caught, Reference ref) {
 		EntityGroupRecordDisplay errorDisplay = getEmptyDisplay();
 		errorDisplay.setEntityId(ref.getTargetId());
 		String versionNumber = ref.getTargetVersionNumber() == null ? "" : ref.getTargetVersionNumber().toString();
@@ -257,7 +340,7 @@ public class EntityListUtil {
 		} else {
 			errorDisplay.setName(SafeHtmlUtils.fromSafeConstant(DisplayConstants.ERROR_LOADING + ": " + msg));
 		}
-		handler.onLoaded(errorDisplay);
+		return errorDisplay;
 	}
 	
 	private static EntityGroupRecordDisplay getEmptyDisplay() {
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.sagebionetworks.markdown.constants.WidgetConstants;
 import org.sagebionetworks.repo.model.EntityGroupRecord;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
 import org.sagebionetworks.web.client.SynapseClientAsync;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
 import org.sagebionetworks.web.client.security.AuthenticationController;
@@ -12,7 +13,7 @@ import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.utils.Callback;
 import org.sagebionetworks.web.client.widget.WidgetRendererPresenter;
 import org.sagebionetworks.web.client.widget.entity.EntityGroupRecordDisplay;
-import org.sagebionetworks.web.client.widget.entity.renderer.EntityListUtil.RowLoadedHandler;
+import org.sagebionetworks.web.client.widget.entity.renderer.EntityListUtil.RowsLoadedHandler;
 import org.sagebionetworks.web.shared.WikiPageKey;
 
 import com.google.gwt.user.client.ui.Widget;
@@ -24,6 +25,7 @@ public class EntityListWidget implements EntityListWidgetView.Presenter, WidgetR
 	private SynapseClientAsync synapseClient;
 	private SynapseJSNIUtils synapseJSNIUtils;
 	private NodeModelCreator nodeModelCreator;
+	private AdapterFactory adapterFactory;
 	private Map<String, String> descriptor;
 	AuthenticationController authenticationController;
 	
@@ -31,12 +33,14 @@ public class EntityListWidget implements EntityListWidgetView.Presenter, WidgetR
 	public EntityListWidget(EntityListWidgetView view,
 			SynapseClientAsync synapseClient,
 			NodeModelCreator nodeModelCreator, SynapseJSNIUtils synapseJSNIUtils,
-			AuthenticationController authenticationController) {
+			AuthenticationController authenticationController,
+			AdapterFactory adapterFactory) {
 		this.view = view;		
 		this.synapseClient = synapseClient;
 		this.synapseJSNIUtils = synapseJSNIUtils;
 		this.nodeModelCreator = nodeModelCreator;
 		this.authenticationController = authenticationController;
+		this.adapterFactory = adapterFactory;
 		view.setPresenter(this);
 	}
 	
@@ -50,16 +54,18 @@ public class EntityListWidget implements EntityListWidgetView.Presenter, WidgetR
 		view.configure();
 
 		List<EntityGroupRecord> records = EntityListUtil.parseRecords(descriptor.get(WidgetConstants.ENTITYLIST_WIDGET_LIST_KEY));
-		if(records != null) {
-			for(int i=0; i<records.size(); i++) {
-				final int rowIndex = i;
-				EntityListUtil.loadIndividualRowDetails(synapseClient, synapseJSNIUtils, nodeModelCreator, isLoggedIn, records, rowIndex, new RowLoadedHandler() {					
-					@Override
-					public void onLoaded(EntityGroupRecordDisplay entityGroupRecordDisplay) {
-						view.setEntityGroupRecordDisplay(rowIndex, entityGroupRecordDisplay, isLoggedIn);
+		if(records != null && !records.isEmpty()) {
+			//load all rows with a single call
+			EntityListUtil.loadRowDetails(synapseClient, synapseJSNIUtils, nodeModelCreator, adapterFactory, isLoggedIn, records, new RowsLoadedHandler() {
+				@Override
+				public void onLoaded(List<EntityGroupRecordDisplay> entityGroupRecordDisplays) {
+					for(int rowIndex=0; rowIndex<entityGroupRecordDisplays.size(); rowIndex++) {
+						EntityGroupRecordDisplay display = entityGroupRecordDisplays.get(rowIndex);
+						if(display != null)
+							view.setEntityGroupRecordDisplay(rowIndex, display, isLoggedIn);
 					}
-				});
-			}			
+				}
+			});
 		}		
 	}
 	
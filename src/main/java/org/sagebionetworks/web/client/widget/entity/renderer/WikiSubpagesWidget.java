@@ -17,6 +17,7 @@ import org.sagebionetworks.schema.adapter.JSONEntity;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCache;
 import org.sagebionetworks.web.client.place.Synapse;
 import org.sagebionetworks.web.client.place.Wiki;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
@@ -40,6 +41,7 @@ public class WikiSubpagesWidget implements WikiSubpagesView.Presenter, WidgetRen
 	private SynapseClientAsync synapseClient;
 	private NodeModelCreator nodeModelCreator;
 	private AdapterFactory adapterFactory;
+	private WikiHeaderTreeCache wikiHeaderTreeCache;
 	private WikiPageKey wikiKey; 
 	private String ownerObjectName;
 	private Place ownerObjectLink;
@@ -50,11 +52,12 @@ public class WikiSubpagesWidget implements WikiSubpagesView.Presenter, WidgetRen
 	private boolean isEmbeddedInOwnerPage;
 	
 	@Inject
-	public WikiSubpagesWidget(WikiSubpagesView view, SynapseClientAsync synapseClient, NodeModelCreator nodeModelCreator, AdapterFactory adapterFactory) {
+	public WikiSubpagesWidget(WikiSubpagesView view, SynapseClientAsync synapseClient, NodeModelCreator nodeModelCreator, AdapterFactory adapterFactory, WikiHeaderTreeCache wikiHeaderTreeCache) {
 		this.view = view;		
 		this.synapseClient = synapseClient;
 		this.nodeModelCreator = nodeModelCreator;
 		this.adapterFactory = adapterFactory;
+		this.wikiHeaderTreeCache = wikiHeaderTreeCache;
 		
 		view.setPresenter(this);
 	}	
@@ -126,47 +129,26 @@ public class WikiSubpagesWidget implements WikiSubpagesView.Presenter, WidgetRen
 	
 	public void refreshTableOfContents() {
 		view.clear();
+		//reuse the tree from the previous page of this wiki, unless it does not know about the current page yet
+		String cachedTree = wikiHeaderTreeCache.get(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType());
+		if (cachedTree != null) {
+			try {
+				PaginatedResults<JSONEntity> wikiHeaders = nodeModelCreator.createPaginatedResults(cachedTree, V2WikiHeader.class);
+				if (containsCurrentPage(wikiHeaders)) {
+					configureTableOfContents(wikiHeaders);
+					return;
+				}
+			} catch (JSONObjectAdapterException e) {
+				//fall through and ask for the tree again
+			}
+		}
 		synapseClient.getV2WikiHeaderTree(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType(), new AsyncCallback<String>() {
 			@Override
 			public void onSuccess(String results) {
 				try {
 					PaginatedResults<JSONEntity> wikiHeaders = nodeModelCreator.createPaginatedResults(results, V2WikiHeader.class);
-					Map<String, TocItem> wikiId2TreeItem = new HashMap<String, TocItem>();
-					
-					//now grab all of the headers associated with this level
-					for (JSONEntity headerEntity : wikiHeaders.getResults()) {
-						V2WikiHeader header = (V2WikiHeader) headerEntity;
-						boolean isCurrentPage = header.getId().equals(wikiKey.getWikiPageId());
-						Place targetPlace;
-						String title;
-						if (header.getParentId() == null) {
-							targetPlace = ownerObjectLink;
-							title = ownerObjectName;
-						}
-						else {
-							targetPlace = getLinkPlace(wikiKey.getOwnerObjectId(), wikiKey.getVersion(), header.getId());
-							title = header.getTitle();
-						}
-						
-						TocItem item = new TocItem(title, targetPlace, isCurrentPage);
-						wikiId2TreeItem.put(header.getId(), item);
-					}
-					//now set up the relationships
-					TocItem root = new TocItem();
-					
-					for (JSONEntity headerEntity : wikiHeaders.getResults()) {
-						V2WikiHeader header = (V2WikiHeader) headerEntity;
-						if (header.getParentId() != null){
-							//add this as a child							
-							TocItem parent = wikiId2TreeItem.get(header.getParentId());
-							TocItem child = wikiId2TreeItem.get(header.getId());
-							parent.add(child);
-						} else {
-							root.add(wikiId2TreeItem.get(header.getId()));
-						}
-					}
-					
-					view.configure(root, wikiSubpagesContainer, wikiPageContainer);
+					wikiHeaderTreeCache.put(wikiKey.getOwnerObjectId(), wikiKey.getOwnerObjectType(), results);
+					configureTableOfContents(wikiHeaders);
 				} catch (JSONObjectAdapterException e) {
 					onFailure(new UnknownErrorException(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION));
 				}
@@ -184,6 +166,55 @@ public class WikiSubpagesWidget implements WikiSubpagesView.Presenter, WidgetRen
 			}
 		});
 	}
+	
+	private boolean containsCurrentPage(PaginatedResults<JSONEntity> wikiHeaders) {
+		if (wikiKey.getWikiPageId() == null)
+			return true;
+		for (JSONEntity headerEntity : wikiHeaders.getResults()) {
+			if (wikiKey.getWikiPageId().equals(((V2WikiHeader) headerEntity).getId()))
+				return true;
+		}
+		return false;
+	}
+	
+	private void configureTableOfContents(PaginatedResults<JSONEntity> wikiHeaders) {
+		Map<String, TocItem> wikiId2TreeItem = new HashMap<String, TocItem>();
+		
+		//now grab all of the headers associated with this level
+		for (JSONEntity headerEntity : wikiHeaders.getResults()) {
+			V2WikiHeader header = (V2WikiHeader) headerEntity;
+			boolean isCurrentPage = header.getId().equals(wikiKey.getWikiPageId());
+			Place targetPlace;
+			String title;
+			if (header.getParentId() == null) {
+				targetPlace = ownerObjectLink;
+				title = ownerObjectName;
+			}
+			else {
+				targetPlace = getLinkPlace(wikiKey.getOwnerObjectId(), wikiKey.getVersion(), header.getId());
+				title = header.getTitle();
+			}
+			
+			TocItem item = new TocItem(title, targetPlace, isCurrentPage);
+			wikiId2TreeItem.put(header.getId(), item);
+		}
+		//now set up the relationships
+		TocItem root = new TocItem();
+		
+		for (JSONEntity headerEntity : wikiHeaders.getResults()) {
+			V2WikiHeader header = (V2WikiHeader) headerEntity;
+			if (header.getParentId() != null){
+				//add this as a child							
+				TocItem parent = wikiId2TreeItem.get(header.getParentId());
+				TocItem child = wikiId2TreeItem.get(header.getId());
+				parent.add(child);
+			} else {
+				root.add(wikiId2TreeItem.get(header.getId()));
+			}
+		}
+		
+		view.configure(root, wikiSubpagesContainer, wikiPageContainer);
+	}
 }
 
 class TocItem extends BaseTreeModel implements Serializable {
@@ -0,0 +1,91 @@
+package org.sagebionetworks.web.client.widget.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.web.client.GWTWrapper;
+import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.transform.NodeModelCreator;
+import org.sagebionetworks.web.client.utils.Callback;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
+
+/**
+ * Asks for entity suggestions while the user types in a search box. Requests
+ * are only sent once typing pauses, and only the response to the latest text
+ * is handed to the view.
+ */
+public class EntitySuggestionLoader {
+	public static final int DEBOUNCE_MS = 200;
+	public static final int MIN_PREFIX_LENGTH = 2;
+	public static final int SUGGESTION_LIMIT = 10;
+
+	public interface SuggestionsHandler {
+		void onSuggestions(List<EntityHeader> suggestions);
+	}
+
+	private SynapseClientAsync synapseClient;
+	private GWTWrapper gwt;
+	private NodeModelCreator nodeModelCreator;
+	private int latestRequest = 0;
+
+	@Inject
+	public EntitySuggestionLoader(SynapseClientAsync synapseClient, GWTWrapper gwt, NodeModelCreator nodeModelCreator) {
+		this.synapseClient = synapseClient;
+		this.gwt = gwt;
+		this.nodeModelCreator = nodeModelCreator;
+	}
+
+	/**
+	 * @param text the current search box text
+	 * @param handler called with the suggestions (empty for short text), unless the text changes again first
+	 */
+	public void onTextChanged(final String text, final SuggestionsHandler handler) {
+		final int request = ++latestRequest;
+		if (text == null || text.trim().length() < MIN_PREFIX_LENGTH) {
+			handler.onSuggestions(new ArrayList<EntityHeader>());
+			return;
+		}
+		gwt.scheduleExecution(new Callback() {
+			@Override
+			public void invoke() {
+				if (request == latestRequest)
+					loadSuggestions(request, text.trim(), handler);
+			}
+		}, DEBOUNCE_MS);
+	}
+
+	/**
+	 * Ignore any suggestions that are still on the way (after a search is submitted, for example).
+	 */
+	public void cancel() {
+		latestRequest++;
+	}
+
+	private void loadSuggestions(final int request, String prefix, final SuggestionsHandler handler) {
+		synapseClient.getEntitySuggestions(prefix, SUGGESTION_LIMIT, new AsyncCallback<ArrayList<String>>() {
+			@Override
+			public void onSuccess(ArrayList<String> result) {
+				if (request != latestRequest)
+					return;
+				List<EntityHeader> suggestions = new ArrayList<EntityHeader>();
+				try {
+					for (String headerJson : result) {
+						suggestions.add(nodeModelCreator.createJSONEntity(headerJson, EntityHeader.class));
+					}
+				} catch (JSONObjectAdapterException e) {
+					//suggestions are optional, keep what was parsed
+				}
+				handler.onSuggestions(suggestions);
+			}
+
+			@Override
+			public void onFailure(Throwable caught) {
+				//suggestions are optional, the user can still submit the search
+			}
+		});
+	}
+}
@@ -0,0 +1,58 @@
+package org.sagebionetworks.web.client.widget.search;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.web.client.DisplayUtils;
+
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.user.client.ui.Anchor;
+import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.PopupPanel;
+import com.google.gwt.user.client.ui.UIObject;
+
+/**
+ * Drop down list of entity suggestions shown under a search box. Each
+ * suggestion links to the entity page.
+ */
+public class EntitySuggestionsPopup {
+	private PopupPanel popup;
+	private FlowPanel list;
+	
+	public EntitySuggestionsPopup() {
+		popup = new PopupPanel(true);
+		popup.setGlassEnabled(false);
+		popup.addStyleName("topLevelZIndex entitySuggestions");
+		list = new FlowPanel();
+		popup.setWidget(list);
+	}
+	
+	/**
+	 * Show the suggestions under the given search box, or hide the list if there are none.
+	 */
+	public void show(UIObject searchBox, List<EntityHeader> suggestions) {
+		list.clear();
+		if (suggestions == null || suggestions.isEmpty()) {
+			popup.hide();
+			return;
+		}
+		for (EntityHeader header : suggestions) {
+			Anchor a = new Anchor(header.getName(), DisplayUtils.getSynapseHistoryToken(header.getId()));
+			a.addStyleName("entitySuggestion");
+			a.addClickHandler(new ClickHandler() {
+				@Override
+				public void onClick(ClickEvent event) {
+					popup.hide();
+				}
+			});
+			list.add(a);
+		}
+		popup.setWidth(searchBox.getOffsetWidth() + "px");
+		popup.showRelativeTo(searchBox);
+	}
+	
+	public void hide() {
+		popup.hide();
+	}
+}
@@ -2,7 +2,9 @@ package org.sagebionetworks.web.client.widget.search;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.repo.model.search.query.KeyValue;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
@@ -25,15 +27,18 @@ public class HomeSearchBox implements HomeSearchBoxView.Presenter, SynapseWidget
 	private JSONObjectAdapter jsonObjectAdapter;
 	private SynapseClientAsync synapseClient;
 	private boolean searchAll = false;
+	private EntitySuggestionLoader suggestionLoader;
 	
 	@Inject
 	public HomeSearchBox(HomeSearchBoxView view, 
 			GlobalApplicationState globalApplicationState,
-			JSONObjectAdapter jsonObjectAdapter, SynapseClientAsync synapseClient) {
+			JSONObjectAdapter jsonObjectAdapter, SynapseClientAsync synapseClient,
+			EntitySuggestionLoader suggestionLoader) {
 		this.view = view;		
 		this.globalApplicationState = globalApplicationState;
 		this.jsonObjectAdapter = jsonObjectAdapter;
 		this.synapseClient = synapseClient;
+		this.suggestionLoader = suggestionLoader;
 		view.setPresenter(this);
 	}	
 	
@@ -50,6 +55,8 @@ public class HomeSearchBox implements HomeSearchBoxView.Presenter, SynapseWidget
     
 	@Override
 	public void search(String value) {
+		suggestionLoader.cancel();
+		view.showSuggestions(new ArrayList<EntityHeader>());
 		if(searchAll) {
 			SearchQuery query = SearchQueryUtils.getAllTypesSearchQuery();
 			query.setQueryTerm(Arrays.asList(value.split(" ")));
@@ -62,6 +69,16 @@ public class HomeSearchBox implements HomeSearchBoxView.Presenter, SynapseWidget
 		SearchUtil.searchForTerm(value, globalApplicationState, synapseClient);
 	}
 	
+	@Override
+	public void onSearchTextChanged(String value) {
+		suggestionLoader.onTextChanged(value, new EntitySuggestionLoader.SuggestionsHandler() {
+			@Override
+			public void onSuggestions(List<EntityHeader> suggestions) {
+				view.showSuggestions(suggestions);
+			}
+		});
+	}
+	
 	@Override
 	public String getSearchAllProjectsLink() {		
 		return DisplayUtils.getSearchHistoryToken(getSearchQueryForType("project"));	
@@ -1,5 +1,8 @@
 package org.sagebionetworks.web.client.widget.search;
 
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.web.client.SynapseView;
 
 import com.google.gwt.user.client.ui.IsWidget;
@@ -16,6 +19,12 @@ public interface HomeSearchBoxView extends IsWidget, SynapseView {
 	 * resets the view to default state
 	 */
 	public void clear();
+	
+	/**
+	 * Show the suggestions for the current text (hidden when empty)
+	 * @param suggestions
+	 */
+	public void showSuggestions(List<EntityHeader> suggestions);
 
 	/**
 	 * Presenter interface
@@ -24,6 +33,8 @@ public interface HomeSearchBoxView extends IsWidget, SynapseView {
 
 		void search(String value);
 		
+		void onSearchTextChanged(String value);
+		
 		String getSearchAllProjectsLink();
 		
 		String getSearchAllDataLink();
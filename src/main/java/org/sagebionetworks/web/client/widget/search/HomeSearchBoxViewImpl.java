@@ -1,5 +1,8 @@
 package org.sagebionetworks.web.client.widget.search;
 
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.widget.sharing.AccessControlListEditor;
@@ -15,6 +18,8 @@ import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
+import com.google.gwt.event.dom.client.KeyUpEvent;
+import com.google.gwt.event.dom.client.KeyUpHandler;
 import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.Widget;
@@ -30,6 +35,7 @@ public class HomeSearchBoxViewImpl extends LayoutContainer implements HomeSearch
 	
 	private Button typeDropdown;
 	private TextBox searchField;
+	private EntitySuggestionsPopup suggestionsPopup = new EntitySuggestionsPopup();
 	
 	@Inject
 	public HomeSearchBoxViewImpl(AccessControlListEditor accessControlListEditor) {			
@@ -90,6 +96,17 @@ public class HomeSearchBoxViewImpl extends LayoutContainer implements HomeSearch
 		            }					
 				}
 			});				
+			searchField.addKeyUpHandler(new KeyUpHandler() {
+				@Override
+				public void onKeyUp(KeyUpEvent event) {
+					int keyCode = event.getNativeKeyCode();
+					if (keyCode == KeyCodes.KEY_ESCAPE) {
+						suggestionsPopup.hide();
+					} else if (keyCode != KeyCodes.KEY_ENTER) {
+						presenter.onSearchTextChanged(searchField.getValue());
+					}
+				}
+			});
 		    SimplePanel container = new SimplePanel(searchField);
 		    container.addStyleName("col-md-8");
 			simplePanel.add(container);
@@ -140,6 +157,11 @@ public class HomeSearchBoxViewImpl extends LayoutContainer implements HomeSearch
 	@Override
 	public void clear() {
 	}
+	
+	@Override
+	public void showSuggestions(List<EntityHeader> suggestions) {
+		suggestionsPopup.show(searchField, suggestions);
+	}
 
 	/*
 	 * Private Methods
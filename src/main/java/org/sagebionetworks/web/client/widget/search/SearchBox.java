@@ -1,8 +1,11 @@
 package org.sagebionetworks.web.client.widget.search;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.sagebionetworks.repo.model.Entity;
+import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
 import org.sagebionetworks.schema.adapter.AdapterFactory;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
@@ -29,6 +32,7 @@ public class SearchBox implements SearchBoxView.Presenter, SynapseWidgetPresente
 	private AdapterFactory adapterFactory;
 	private SynapseClientAsync synapseClient;
 	private boolean searchAll = false;
+	private EntitySuggestionLoader suggestionLoader;
 	
 	@Inject
 	public SearchBox(SearchBoxView view, 
@@ -36,13 +40,15 @@ public class SearchBox implements SearchBoxView.Presenter, SynapseWidgetPresente
 			AuthenticationController authenticationController,
 			GlobalApplicationState globalApplicationState,
 			AdapterFactory adapterFactory,
-			SynapseClientAsync synapseClient) {
+			SynapseClientAsync synapseClient,
+			EntitySuggestionLoader suggestionLoader) {
 		this.view = view;
 		this.nodeModelCreator = nodeModelCreator;
 		this.authenticationController = authenticationController;
 		this.globalApplicationState = globalApplicationState;
 		this.adapterFactory = adapterFactory;
 		this.synapseClient = synapseClient;
+		this.suggestionLoader = suggestionLoader;
 		view.setPresenter(this);
 	}	
 	
@@ -59,6 +65,8 @@ public class SearchBox implements SearchBoxView.Presenter, SynapseWidgetPresente
 
 	@Override
 	public void search(String value) {		
+		suggestionLoader.cancel();
+		view.showSuggestions(new ArrayList<EntityHeader>());
 		if(searchAll) {
 			SearchQuery query = SearchQueryUtils.getAllTypesSearchQuery();
 			query.setQueryTerm(Arrays.asList(value.split(" ")));
@@ -71,6 +79,16 @@ public class SearchBox implements SearchBoxView.Presenter, SynapseWidgetPresente
 		SearchUtil.searchForTerm(value, globalApplicationState, synapseClient);
 	}
 
+	@Override
+	public void onSearchTextChanged(String value) {
+		suggestionLoader.onTextChanged(value, new EntitySuggestionLoader.SuggestionsHandler() {
+			@Override
+			public void onSuggestions(List<EntityHeader> suggestions) {
+				view.showSuggestions(suggestions);
+			}
+		});
+	}
+
 	@Override
 	public void setSearchAll(boolean searchAll) {
 		this.searchAll = searchAll;
@@ -1,5 +1,8 @@
 package org.sagebionetworks.web.client.widget.search;
 
+import java.util.List;
+
+import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.IconsImageBundle;
 import org.sagebionetworks.web.client.SageImageBundle;
@@ -9,6 +12,8 @@ import com.extjs.gxt.ui.client.widget.button.Button;
 import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
+import com.google.gwt.event.dom.client.KeyUpEvent;
+import com.google.gwt.event.dom.client.KeyUpHandler;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.Widget;
@@ -24,6 +29,7 @@ public class SearchBoxViewImpl extends Composite implements SearchBoxView {
 	private TextBox searchField;
 	private Button searchBtn;
 	private Boolean currentIsLarge;
+	private EntitySuggestionsPopup suggestionsPopup = new EntitySuggestionsPopup();
 		
 	private static final String SEARCH_BOX_STYLE_NAME = "smallsearchbox";
 	
@@ -52,6 +58,17 @@ public class SearchBoxViewImpl extends Composite implements SearchBoxView {
 		            }					
 				}
 			});				
+		    searchField.addKeyUpHandler(new KeyUpHandler() {
+				@Override
+				public void onKeyUp(KeyUpEvent event) {
+					int keyCode = event.getNativeKeyCode();
+					if (keyCode == KeyCodes.KEY_ESCAPE) {
+						suggestionsPopup.hide();
+					} else if (keyCode != KeyCodes.KEY_ENTER) {
+						presenter.onSearchTextChanged(searchField.getValue());
+					}
+				}
+			});
 		}	    
 	}
 	
@@ -83,6 +100,11 @@ public class SearchBoxViewImpl extends Composite implements SearchBoxView {
 	public void clear() {
 		//searchField.setText("");		
 	}
+	
+	@Override
+	public void showSuggestions(List<EntityHeader> suggestions) {
+		suggestionsPopup.show(searchField, suggestions);
+	}
 
 	/*
 	 * Private Methods
@@ -0,0 +1,58 @@
+package org.sagebionetworks.web.client.widget.table;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import org.sagebionetworks.web.shared.table.CompactRowSet;
+
+/**
+ * The rows of a {@link CompactRowSet} as table models. A row is only decoded
+ * the first time it is read, so rows that are never shown cost nothing.
+ */
+public class CompactRowSetModels extends AbstractList<TableModel> {
+
+	private CompactRowSet rowSet;
+	private TableModel[] models;
+
+	public CompactRowSetModels(CompactRowSet rowSet) {
+		this.rowSet = rowSet;
+		this.models = new TableModel[rowSet.getRowCount()];
+	}
+
+	@Override
+	public TableModel get(int index) {
+		if (index < 0 || index >= models.length)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + models.length);
+		if (models[index] == null)
+			models[index] = decode(index);
+		return models[index];
+	}
+
+	@Override
+	public int size() {
+		return models.length;
+	}
+
+	/**
+	 * @return number of rows decoded so far
+	 */
+	public int getDecodedCount() {
+		int count = 0;
+		for (TableModel model : models) {
+			if (model != null)
+				count++;
+		}
+		return count;
+	}
+
+	private TableModel decode(int index) {
+		Long rowId = rowSet.getRowId(index);
+		Long versionNumber = rowSet.getVersionNumber(index);
+		TableModel model = new TableModel(rowId == null ? null : rowId.toString(), versionNumber == null ? null : versionNumber.toString());
+		List<String> headers = rowSet.getHeaders();
+		for (int c = 0; c < headers.size(); c++) {
+			model.put(headers.get(c), rowSet.getValue(index, c));
+		}
+		return model;
+	}
+}
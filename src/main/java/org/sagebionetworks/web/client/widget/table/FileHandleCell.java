@@ -5,6 +5,7 @@ import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
+import org.sagebionetworks.web.client.cache.TableDataCache;
 import org.sagebionetworks.web.client.events.CancelEvent;
 import org.sagebionetworks.web.client.events.CancelHandler;
 import org.sagebionetworks.web.client.events.EntityUpdatedEvent;
@@ -35,6 +36,7 @@ public class FileHandleCell extends AbstractCell<TableCellFileHandle> {
 	boolean canEdit = false;
 	SynapseJSNIUtils synapseJSNIUtils;
 	PortalGinInjector ginInjector;
+	TableDataCache tableDataCache;
 	Uploader uploader;
 	
     /**
@@ -43,6 +45,9 @@ public class FileHandleCell extends AbstractCell<TableCellFileHandle> {
     interface Templates extends SafeHtmlTemplates {
     	@SafeHtmlTemplates.Template("<a href=\"{0}\" target=\"_blank\"><img class=\"margin-top-5\" src=\"{1}\"  style=\"max-height:150px; \"/></a><br/><a class=\"btn btn-default btn-sm margin-top-5 margin-right-5\" href=\"{0}\" target=\"_blank\">{2}</a>")
         SafeHtml previewImageLink(SafeUri fullUri, SafeUri previewUri, SafeHtml download); 
+
+    	@SafeHtmlTemplates.Template("<a class=\"btn btn-default btn-sm margin-top-5 margin-right-5\" href=\"{0}\" target=\"_blank\">{1}</a>")
+        SafeHtml downloadLink(SafeUri fullUri, SafeHtml download); 
     }
 
     interface Template extends SafeHtmlTemplates { 
@@ -54,7 +59,7 @@ public class FileHandleCell extends AbstractCell<TableCellFileHandle> {
      */
     private static Templates templates = GWT.create(Templates.class);
 
-	public FileHandleCell(boolean canEdit, SynapseJSNIUtils synapseJSNIUtils, PortalGinInjector ginInjector) {
+	public FileHandleCell(boolean canEdit, SynapseJSNIUtils synapseJSNIUtils, PortalGinInjector ginInjector, TableDataCache tableDataCache) {
       /*
        * Sink the click and keydown events. We handle click events in this
        * class. AbstractCell will handle the keydown event and call
@@ -65,6 +70,7 @@ public class FileHandleCell extends AbstractCell<TableCellFileHandle> {
       this.canEdit = canEdit;
       this.synapseJSNIUtils = synapseJSNIUtils;
       this.ginInjector = ginInjector;
+      this.tableDataCache = tableDataCache;
     }
 
     /**
@@ -97,7 +103,16 @@ public class FileHandleCell extends AbstractCell<TableCellFileHandle> {
     	SafeUri fullUri = UriUtils.fromString(DisplayUtils.createTableCellFileEntityUrl(synapseJSNIUtils.getBaseFileHandleUrl(), value, false, true));
     	SafeHtml filename = SafeHtmlUtils.fromSafeConstant(DisplayConstants.DOWNLOAD);
     	final SafeHtml preview; 
-    	if(value.getFileHandleId() != null) {
+    	// file handles of the rows shown are looked up in one request, and rendered once known
+    	FileHandle fileHandle = tableDataCache == null ? null : tableDataCache.getFileHandle(value.getFileHandleId());
+    	if(fileHandle != null) {
+    		SafeHtml download = fileHandle.getFileName() == null ? filename : SafeHtmlUtils.fromString(fileHandle.getFileName());
+    		if(fileHandle.getContentType() != null && fileHandle.getContentType().startsWith("image/")) {
+    			preview = templates.previewImageLink(fullUri, previewUri, download);
+    		} else {
+    			preview = templates.downloadLink(fullUri, download);
+    		}
+    	} else if(value.getFileHandleId() != null) {
     		SafeHtml download = value.getFileHandleId() == null ? SafeHtmlUtils.EMPTY_SAFE_HTML : SafeHtmlUtils.fromSafeConstant(filename.asString());
     		preview = templates.previewImageLink(fullUri, previewUri, download);	    				
     	} else {
@@ -3,10 +3,13 @@ package org.sagebionetworks.web.client.widget.table;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.sagebionetworks.repo.model.file.FileHandle;
+import org.sagebionetworks.repo.model.file.FileHandleResults;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.ColumnType;
 import org.sagebionetworks.repo.model.table.Row;
@@ -21,8 +24,10 @@ import org.sagebionetworks.schema.adapter.AdapterFactory;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
+import org.sagebionetworks.web.client.GWTWrapper;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.TableDataCache;
 import org.sagebionetworks.web.client.place.Synapse;
 import org.sagebionetworks.web.client.place.Synapse.EntityArea;
 import org.sagebionetworks.web.client.security.AuthenticationController;
@@ -31,9 +36,14 @@ import org.sagebionetworks.web.client.widget.WidgetRendererPresenter;
 import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.WikiPageKey;
 import org.sagebionetworks.web.shared.exceptions.BadRequestException;
+import org.sagebionetworks.web.shared.exceptions.RestServiceException;
 import org.sagebionetworks.web.shared.exceptions.TableUnavilableException;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
+import org.sagebionetworks.web.shared.table.TableImportStatus.State;
 
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -44,6 +54,7 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 	
 	private final static Integer DEFAULT_PAGE_SIZE = 50; 
 	private final static Integer DEFAULT_OFFSET = 0; 
+	public final static int IMPORT_STATUS_POLL_MS = 1000;
 	
 	private SimpleTableWidgetView view;
 	private TableEntity table;
@@ -61,17 +72,23 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 	private boolean isFirstDefault = false;
 	private AuthenticationController authenticationController;
 	private GlobalApplicationState globalApplicationState;
+	private GWTWrapper gwt;
+	private TableDataCache tableDataCache;
+	private TableChangeBuffer changes = new TableChangeBuffer();
 	
 	@Inject
 	public SimpleTableWidget(SimpleTableWidgetView view,
 			SynapseClientAsync synapseClient, AdapterFactory adapterFactory,
 			AuthenticationController authenticationController,
-			GlobalApplicationState globalApplicationState) {
+			GlobalApplicationState globalApplicationState, GWTWrapper gwt,
+			TableDataCache tableDataCache) {
 		this.view = view;
 		this.synapseClient = synapseClient;
 		this.adapterFactory = adapterFactory;
 		this.authenticationController = authenticationController;
 		this.globalApplicationState = globalApplicationState;
+		this.gwt = gwt;
+		this.tableDataCache = tableDataCache;
 		view.setPresenter(this);
 	}	
 	    
@@ -110,10 +127,15 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 	private void configure(final TableEntity table, final boolean canEdit, final String query, final TableRowHeader rowHeader, final QueryChangeHandler queryChangeHandler) {
 		this.table = table;		
 		this.canEdit = canEdit;
-		synapseClient.getColumnModelsForTableEntity(table.getId(), new AsyncCallback<List<String>>() {
+		changes.clear();
+		view.setPendingChangeCount(0);
+		// the columns are part of the table entity, so they are the same for the same etag
+		final String tableEtag = table.getEtag();
+		AsyncCallback<List<String>> columnsCallback = new AsyncCallback<List<String>>() {
 			@Override
 			public void onSuccess(List<String> result) {
 				try {
+					tableDataCache.putColumns(table.getId(), tableEtag, result);
 					tableColumns = new ArrayList<ColumnModel>();
 					for(String colStr : result) {
 						tableColumns.add(new ColumnModel(adapterFactory.createNew(colStr)));
@@ -129,7 +151,10 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 				if(!DisplayUtils.handleServiceException(caught, globalApplicationState, authenticationController.isLoggedIn(), view))
 					view.showErrorMessage(DisplayConstants.ERROR_GENERIC_RELOAD + ": " + caught.getMessage());
 			}
-		});			
+		};
+		List<String> cachedColumns = tableDataCache.getColumns(table.getId(), tableEtag);
+		if(cachedColumns != null) columnsCallback.onSuccess(cachedColumns);
+		else synapseClient.getColumnModelsForTableEntity(table.getId(), tableEtag, columnsCallback);
 	}
 	
 	/**
@@ -172,6 +197,24 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 		executeQuery(currentQuery, alterDetails, callback);
 	}
 
+	@Override
+	public void queryRange(QueryDetails range, final AsyncCallback<List<TableModel>> callback) {
+		// compact rows, decoded as they are shown
+		synapseClient.executeCompactTableQuery(currentQuery, range, false, new AsyncCallback<QueryResult>() {
+			@Override
+			public void onSuccess(QueryResult queryResult) {
+				CompactRowSet rowSet = queryResult.getCompactRowSet();
+				currentEtag = rowSet.getEtag();
+				callback.onSuccess(new CompactRowSetModels(rowSet));
+			}
+
+			@Override
+			public void onFailure(Throwable caught) {
+				callback.onFailure(caught);
+			}
+		});
+	}
+
 	@Override
 	public void query(final String query) {
 		view.showLoading();		
@@ -186,10 +229,128 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 		executeQuery(currentQuery, null, null);
 	}
 
+	/**
+	 * Edits are kept until saved (see {@link #saveChanges()}), so the callback succeeds right away
+	 */
 	@Override
 	public void updateRow(TableModel rowModel, final AsyncCallback<RowReferenceSet> callback) {		
-		Row row = TableUtils.convertModelToRow(currentHeaders, rowModel);		
-		sendRowToTable(row, currentEtag, currentHeaders, callback);
+		changes.update(rowModel);
+		view.setPendingChangeCount(changes.size());
+		callback.onSuccess(null);
+	}
+
+	@Override
+	public List<TableModel> applyPendingChanges(List<TableModel> page, boolean firstPage) {
+		return changes.applyTo(page, firstPage);
+	}
+
+	/**
+	 * Send all added, edited and deleted rows to the table at once
+	 */
+	@Override
+	public void saveChanges() {
+		if(changes.isEmpty()) return;
+		final List<TableModel> changedRows = changes.getChangedRows();
+		try {
+			String rowSetJson = null;
+			if(changedRows.size() > 0) {
+				RowSet rowSet = new RowSet();
+				rowSet.setTableId(tableEntityId);
+				rowSet.setEtag(currentEtag);
+				rowSet.setHeaders(currentHeaders);
+				List<Row> rows = new ArrayList<Row>();
+				for(TableModel model : changedRows) {
+					rows.add(TableUtils.convertModelToRow(currentHeaders, model));
+				}
+				rowSet.setRows(rows);
+				rowSetJson = rowSet.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+			}
+			String toDeleteJson = null;
+			if(changes.getDeletedRowIds().size() > 0) {
+				RowSelection toDeleteSelection = new RowSelection();
+				toDeleteSelection.setTableId(tableEntityId);
+				toDeleteSelection.setEtag(currentEtag);
+				List<Long> rowIds = new ArrayList<Long>();
+				for(String rowId : changes.getDeletedRowIds()) {
+					rowIds.add(Long.parseLong(rowId));
+				}
+				toDeleteSelection.setRowIds(rowIds);
+				toDeleteJson = toDeleteSelection.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+			}
+			
+			synapseClient.applyTableChanges(rowSetJson, toDeleteJson, new AsyncCallback<TableChangeResult>() {
+				@Override
+				public void onSuccess(TableChangeResult result) {
+					if(result.getEtag() != null) currentEtag = result.getEtag();
+					changes.deletesSaved();
+					StringBuilder errors = new StringBuilder();
+					for(int i=0; i<changedRows.size() && i<result.getRowCount(); i++) {
+						TableModel model = changedRows.get(i);
+						if(result.getRowId(i) != null) {
+							changes.rowSaved(model);
+							model.setId(result.getRowId(i).toString());
+							if(result.getVersionNumber(i) != null) model.setVersionNumber(result.getVersionNumber(i).toString());
+						} else if(result.getRowError(i) != null) {
+							String rowName = model.getId() == null ? DisplayConstants.NEW_ROW : DisplayConstants.ROW + " " + model.getId();
+							errors.append((errors.length() > 0 ? "; " : " ") + rowName + ": " + result.getRowError(i));
+						}
+					}
+					view.setPendingChangeCount(changes.size());
+					if(result.getErrorCount() == 0) {
+						view.showInfo(DisplayConstants.CHANGES_SAVED, "");
+						rerunCurrentQuery();
+					} else {
+						// the rows that were not saved are kept, so they can be fixed (or discarded)
+						view.showErrorMessage(result.getErrorCount() + " " + DisplayConstants.ROWS_NOT_SAVED + errors.toString());
+					}
+				}
+				@Override
+				public void onFailure(Throwable caught) {
+					view.showErrorMessage(DisplayConstants.ROW_UPDATE_FAILED + " " + DisplayConstants.REASON + ": " + caught.getMessage());
+				}
+			});
+		} catch (JSONObjectAdapterException e) {
+			view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
+		}
+	}
+
+	@Override
+	public void discardChanges() {
+		changes.clear();
+		view.setPendingChangeCount(0);
+		rerunCurrentQuery();
+	}
+
+	/**
+	 * The uploaded file is kept next to the table (as a file entity), and
+	 * imported into the table on the server, in the background
+	 */
+	@Override
+	public void importCsv(String fileHandleId) {
+		view.setImportProgress(DisplayConstants.IMPORTING_CSV + " 0 " + DisplayConstants.ROWS_IMPORTED);
+		try {
+			synapseClient.setFileEntityFileHandle(fileHandleId, null, table.getParentId(), false, new AsyncCallback<String>() {
+				@Override
+				public void onSuccess(String fileEntityId) {
+					synapseClient.startTableImport(tableEntityId, fileEntityId, new AsyncCallback<String>() {
+						@Override
+						public void onSuccess(String jobId) {
+							checkImportStatus(jobId);
+						}
+						@Override
+						public void onFailure(Throwable caught) {
+							importFailed(caught.getMessage());
+						}
+					});
+				}
+				@Override
+				public void onFailure(Throwable caught) {
+					importFailed(caught.getMessage());
+				}
+			});
+		} catch (RestServiceException e) {
+			importFailed(e.getMessage());
+		}
 	}
 
 	@Override
@@ -262,44 +423,13 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 	}
 
 	/**
-	 * Delete rows from the table
+	 * Delete rows from the table (when the changes are saved)
 	 */
 	@Override
 	public void deleteRows(List<TableModel> selectedRows) {
-		RowSelection toDeleteSelection = new RowSelection();
-		toDeleteSelection.setTableId(tableEntityId);
-		toDeleteSelection.setEtag(currentEtag);
-		final List<Long> rowIds = new ArrayList<Long>();
-		for(TableModel model : selectedRows) {
-			if(model != null && model.getId() != null) {				
-				rowIds.add(Long.parseLong(model.getId()));
-			}
-		} 
-		toDeleteSelection.setRowIds(rowIds);
-		
-		try {
-			synapseClient.deleteRowsFromTable(toDeleteSelection.writeToJSONObject(adapterFactory.createNew()).toJSONString(), new AsyncCallback<String>() {
-				@Override
-				public void onSuccess(String result) {
-					RowReferenceSet rrs = null;
-					try {
-						rrs = new RowReferenceSet(adapterFactory.createNew(result));
-						currentEtag = rrs.getEtag();
-						view.showInfo(rowIds.size() + " " + DisplayConstants.ROWS_DELETED, "");
-						rerunCurrentQuery();
-					} catch (JSONObjectAdapterException e) {
-						view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);			
-					}
-
-				}
-				@Override
-				public void onFailure(Throwable caught) {
-					view.showErrorMessage(DisplayConstants.ERROR_DELETE_ROWS + ": " + caught.getMessage());
-				}
-			});
-		} catch (JSONObjectAdapterException e) {
-			view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
-		}
+		changes.delete(selectedRows);
+		view.setPendingChangeCount(changes.size());
+		view.refreshCurrentPage();
 	}
 
 	@Override
@@ -355,6 +485,86 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 		}
 	}
 
+	/**
+	 * Look up the file handles of all file cells in the given rows that are
+	 * not cached yet, in one request. The callback is only invoked if file
+	 * handles were looked up, so the view can render them.
+	 */
+	@Override
+	public void resolveFileHandles(List<TableModel> rows, final Callback onResolved) {
+		if(rows == null || tableColumns == null || currentHeaders == null) return;
+		final List<String> fileColumnIds = new ArrayList<String>();
+		for(ColumnModel col : tableColumns) {
+			if(col.getColumnType() == ColumnType.FILEHANDLEID && currentHeaders.contains(col.getId())) fileColumnIds.add(col.getId());
+		}
+		if(fileColumnIds.isEmpty()) return;
+
+		List<RowReference> rowReferences = new ArrayList<RowReference>();
+		final Set<String> requestedIds = new HashSet<String>();
+		for(TableModel row : rows) {
+			if(row.getId() == null || row.getVersionNumber() == null) continue;
+			boolean missing = false;
+			for(String colId : fileColumnIds) {
+				String fileHandleId = row.get(colId);
+				if(fileHandleId != null && !tableDataCache.isFileHandleKnown(fileHandleId)) {
+					tableDataCache.setFileHandlePending(fileHandleId);
+					requestedIds.add(fileHandleId);
+					missing = true;
+				}
+			}
+			if(missing) {
+				RowReference rowReference = new RowReference();
+				rowReference.setRowId(Long.parseLong(row.getId()));
+				rowReference.setVersionNumber(Long.parseLong(row.getVersionNumber()));
+				rowReferences.add(rowReference);
+			}
+		}
+		if(rowReferences.isEmpty()) return;
+
+		RowReferenceSet fileHandlesToFind = new RowReferenceSet();
+		fileHandlesToFind.setTableId(tableEntityId);
+		fileHandlesToFind.setEtag(currentEtag);
+		fileHandlesToFind.setHeaders(fileColumnIds);
+		fileHandlesToFind.setRows(rowReferences);
+		try {
+			synapseClient.getTableFileHandle(fileHandlesToFind.writeToJSONObject(adapterFactory.createNew()).toJSONString(), new AsyncCallback<String>() {
+				@Override
+				public void onSuccess(String result) {
+					try {
+						TableFileHandleResults results = new TableFileHandleResults(adapterFactory.createNew(result));
+						if(results.getRows() != null) {
+							for(FileHandleResults row : results.getRows()) {
+								if(row.getList() == null) continue;
+								for(FileHandle fileHandle : row.getList()) {
+									if(fileHandle != null) tableDataCache.putFileHandle(fileHandle);
+								}
+							}
+						}
+					} catch (JSONObjectAdapterException e) {
+						clearPending();
+						view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
+						return;
+					}
+					// remember the file handles the lookup did not return, so they are not requested again
+					for(String fileHandleId : requestedIds) {
+						if(tableDataCache.getFileHandle(fileHandleId) == null) tableDataCache.setFileHandleMissing(fileHandleId);
+					}
+					onResolved.invoke();
+				}
+				@Override
+				public void onFailure(Throwable caught) {
+					// cells without a file handle keep the generic download link
+					clearPending();
+				}
+				private void clearPending() {
+					for(String fileHandleId : requestedIds) tableDataCache.clearFileHandlePending(fileHandleId);
+				}
+			});
+		} catch (JSONObjectAdapterException e) {
+			for(String fileHandleId : requestedIds) tableDataCache.clearFileHandlePending(fileHandleId);
+			view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
+		}
+	}
 	
 	/*
 	 * Private Methods
@@ -466,6 +676,42 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 		});
 	}
 	
+	private void checkImportStatus(final String jobId) {
+		synapseClient.getTableImportStatus(jobId, new AsyncCallback<TableImportStatus>() {
+			@Override
+			public void onSuccess(TableImportStatus status) {
+				if(status.getState() == State.PROCESSING) {
+					String progress = DisplayConstants.IMPORTING_CSV + " " + status.getRowsImported() + " " + DisplayConstants.ROWS_IMPORTED;
+					if(status.getPercentComplete() != null) progress += " (" + status.getPercentComplete() + "%)";
+					view.setImportProgress(progress);
+					gwt.scheduleExecution(new Callback() {
+						@Override
+						public void invoke() {
+							checkImportStatus(jobId);
+						}
+					}, IMPORT_STATUS_POLL_MS);
+				} else if(status.getState() == State.COMPLETED) {
+					view.setImportProgress(null);
+					view.showInfo(DisplayConstants.CSV_IMPORTED, status.getRowsImported() + " " + DisplayConstants.ROWS_IMPORTED);
+					rerunCurrentQuery();
+				} else {
+					importFailed(status.getErrorMessage() + " (" + status.getRowsImported() + " " + DisplayConstants.ROWS_IMPORTED + ")");
+					// rows imported before the failure are kept
+					if(status.getRowsImported() > 0) rerunCurrentQuery();
+				}
+			}
+			@Override
+			public void onFailure(Throwable caught) {
+				importFailed(caught.getMessage());
+			}
+		});
+	}
+
+	private void importFailed(String reason) {
+		view.setImportProgress(null);
+		view.showErrorMessage(DisplayConstants.CSV_IMPORT_FAILED + " " + DisplayConstants.REASON + ": " + reason);
+	}
+
 	private void handleTableUnavailableException(Throwable caught) {
 		Integer progress = null;
 		TableStatus status = null;
@@ -480,45 +726,6 @@ public class SimpleTableWidget implements SimpleTableWidgetView.Presenter, Widge
 	}
 
 
-	/**
-	 * Add or update row. Row objects without a rowId are considered an add
-	 * @param row
-	 * @param etag
-	 * @param headers
-	 * @param callback
-	 */
-	private void sendRowToTable(Row row, String etag, List<String> headers, final AsyncCallback<RowReferenceSet> callback) {
-		RowSet rowSet = new RowSet();
-		rowSet.setTableId(tableEntityId);
-		rowSet.setEtag(etag);
-		rowSet.setHeaders(headers);
-		rowSet.setRows(Arrays.asList(new Row[] { row }));
-		try {
-			synapseClient.sendRowsToTable(rowSet.writeToJSONObject(adapterFactory.createNew()).toJSONString(), new AsyncCallback<String>() {
-				@Override
-				public void onSuccess(String result) {
-					RowReferenceSet rrs = null;
-					try {
-						rrs = new RowReferenceSet(adapterFactory.createNew(result));
-						currentEtag = rrs.getEtag();
-					} catch (JSONObjectAdapterException e) {
-						view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
-						callback.onFailure(e);
-					}
-					callback.onSuccess(rrs);
-				}
-				@Override
-				public void onFailure(Throwable caught) {
-					view.showErrorMessage(DisplayConstants.ROW_UPDATE_FAILED + " " + DisplayConstants.REASON + ": " + caught.getMessage());
-					callback.onFailure(caught);
-				}
-			});
-		} catch (JSONObjectAdapterException e) {
-			view.showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
-			callback.onFailure(e);
-		}
-	}
-
 	
 	/**
 	 * Update the current TableEntity in repo
@@ -8,6 +8,7 @@ import org.sagebionetworks.repo.model.table.RowReferenceSet;
 import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.repo.model.table.TableStatus;
 import org.sagebionetworks.web.client.SynapseView;
+import org.sagebionetworks.web.client.utils.Callback;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -30,6 +31,13 @@ public interface SimpleTableWidgetView extends IsWidget, SynapseView {
 
 		void alterCurrentQuery(QueryDetails alterDetails, AsyncCallback<RowSet> asyncCallback);
 
+		/**
+		 * Get a range of rows of the current query, without changing the current query
+		 * @param range offset, limit and sort of the rows to get
+		 * @param callback the rows (decoded when first read)
+		 */
+		void queryRange(QueryDetails range, AsyncCallback<List<TableModel>> callback);
+
 		void query(String query);
 
 		void rerunCurrentQuery();
@@ -48,6 +56,31 @@ public interface SimpleTableWidgetView extends IsWidget, SynapseView {
 
 		void getFileHandle(String rowId, String versionNumber, String colId, AsyncCallback<FileHandle> callback);
 
+		/**
+		 * Show the changes that are not saved yet on a page of query results
+		 * @param page
+		 * @param firstPage added rows are shown on the first page
+		 * @return
+		 */
+		List<TableModel> applyPendingChanges(List<TableModel> page, boolean firstPage);
+
+		void saveChanges();
+
+		void discardChanges();
+
+		/**
+		 * Import an uploaded CSV file into the table
+		 * @param fileHandleId
+		 */
+		void importCsv(String fileHandleId);
+
+		/**
+		 * Look up the file handles of the file cells in the rows shown, in one request
+		 * @param rows
+		 * @param onResolved invoked when file handles were looked up
+		 */
+		void resolveFileHandles(List<TableModel> rows, Callback onResolved);
+
 	}
 	
 	/**
@@ -69,4 +102,21 @@ public interface SimpleTableWidgetView extends IsWidget, SynapseView {
 	public void insertNewRow(TableModel model);
 
 	public void createRowView(List<ColumnModel> tableColumns, RowSet rowset);
+
+	/**
+	 * Show how many rows were changed (and not saved yet)
+	 * @param count
+	 */
+	public void setPendingChangeCount(int count);
+
+	/**
+	 * Show the current page again, with the pending changes
+	 */
+	public void refreshCurrentPage();
+
+	/**
+	 * Show the progress of a CSV import
+	 * @param progress null when the import is done
+	 */
+	public void setImportProgress(String progress);
 }
@@ -20,9 +20,16 @@ import org.sagebionetworks.web.client.DisplayUtils.ButtonType;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.SageImageBundle;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
+import org.sagebionetworks.web.client.cache.TableDataCache;
+import org.sagebionetworks.web.client.events.CancelEvent;
+import org.sagebionetworks.web.client.events.CancelHandler;
+import org.sagebionetworks.web.client.events.EntityUpdatedEvent;
+import org.sagebionetworks.web.client.events.EntityUpdatedHandler;
 import org.sagebionetworks.web.client.utils.BootstrapTable;
 import org.sagebionetworks.web.client.utils.Callback;
+import org.sagebionetworks.web.client.utils.CallbackP;
 import org.sagebionetworks.web.client.widget.ListCreatorViewWidget;
+import org.sagebionetworks.web.client.widget.entity.download.Uploader;
 import org.sagebionetworks.web.client.widget.modal.BootstrapModal;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 import org.sagebionetworks.web.shared.table.QueryDetails.SortDirection;
@@ -31,6 +38,8 @@ import com.extjs.gxt.ui.client.event.Listener;
 import com.extjs.gxt.ui.client.event.MessageBoxEvent;
 import com.extjs.gxt.ui.client.widget.Dialog;
 import com.extjs.gxt.ui.client.widget.MessageBox;
+import com.extjs.gxt.ui.client.widget.layout.FitLayout;
+import com.extjs.gxt.ui.client.widget.layout.MarginData;
 import com.google.gwt.cell.client.CheckboxCell;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.dom.client.DivElement;
@@ -40,11 +49,14 @@ import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
+import com.google.gwt.user.cellview.client.ColumnSortEvent;
 import com.google.gwt.user.cellview.client.ColumnSortEvent.AsyncHandler;
 import com.google.gwt.user.cellview.client.ColumnSortList;
 import com.google.gwt.user.cellview.client.ColumnSortList.ColumnSortInfo;
@@ -60,6 +72,7 @@ import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.HTMLPanel;
 import com.google.gwt.user.client.ui.InlineHTML;
 import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.Widget;
@@ -75,6 +88,14 @@ import com.google.inject.Inject;
 public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableWidgetView {
 	private static final String HAS_ERROR_HAS_FEEDBACK = "has-error has-feedback";
 	private static int sequence = 0;
+	// scroll view: rows are loaded a page at a time into a bounded buffer, and
+	// a single table holding the rows around the viewport is moved (and its
+	// rows refilled) as the user scrolls
+	public static final int SCROLL_ROW_HEIGHT_PX = 32;
+	public static final int SCROLL_VIEWPORT_HEIGHT_PX = 600;
+	public static final int SCROLL_OVERSCAN_ROWS = 10;
+	public static final int SCROLL_PAGE_SIZE = 100;
+	public static final int SCROLL_MAX_BUFFERED_PAGES = 8;
 	
 	public interface Binder extends UiBinder<Widget, SimpleTableWidgetViewImpl> {	}
 	
@@ -124,11 +145,27 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 	Button addRowBtn;
 	Button deleteRowBtn;
 	Button viewRowBtn;
+	Button scrollModeBtn;
+	Button saveChangesBtn;
+	Button discardChangesBtn;
+	Button importCsvBtn;
+	InlineHTML importProgress;
+	String importProgressText;
+	Uploader uploader;
+	PortalGinInjector ginInjector;
+	TableDataCache tableDataCache;
+	int pendingChangeCount = 0;
+	boolean scrollMode = false;
+	TableRowBuffer rowBuffer = new TableRowBuffer(SCROLL_PAGE_SIZE, SCROLL_MAX_BUFFERED_PAGES);
+	ScrollPanel scrollViewport;
+	int windowStart, windowEnd;
 	
 	@Inject
-	public SimpleTableWidgetViewImpl(final Binder uiBinder, SageImageBundle sageImageBundle, SynapseJSNIUtils jsniUtils, PortalGinInjector ginInjector) {
+	public SimpleTableWidgetViewImpl(final Binder uiBinder, SageImageBundle sageImageBundle, SynapseJSNIUtils jsniUtils, PortalGinInjector ginInjector, TableDataCache tableDataCache) {
 		this.sageImageBundle = sageImageBundle;
 		this.jsniUtils = jsniUtils;
+		this.ginInjector = ginInjector;
+		this.tableDataCache = tableDataCache;
 		TableViewUtils.ginInjector = ginInjector;
 		
 		columnToModel = new HashMap<Column, ColumnModel>();
@@ -157,6 +194,11 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 		columnEditorBuilt = false; // clear out old column editor view
 		setupTableEditorToolbar(columns);
 		setDefaultToolbarButtonVisibility(canEdit);
+		// the scroll view is read only, rows are added and edited in the paged view
+		if(scrollMode) {
+			addRowBtn.setVisible(false);
+			importCsvBtn.setVisible(false);
+		}
 		
 		// special cases display user instructions instead of empty table
 		if(columns == null || (columns != null && columns.size() == 0)) {
@@ -166,6 +208,14 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 		
 		setupQueryBox(queryString);			
 		queryPanel.setVisible(true);		
+		if(scrollMode) {
+			buildScrollingTable(totalRowCount);
+			buildColumns(tableEntityId, columns, false);
+			hideLoading();
+			pagerContainer.setVisible(false);
+			updateScrollWindow(true);
+			return;
+		}
 		buildTable(queryDetails, totalRowCount, canEdit);
 		buildColumns(tableEntityId, columns, canEdit);			
 		hideLoading();		 	    
@@ -175,6 +225,7 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 	private void setDefaultToolbarButtonVisibility(boolean canEdit) {
 		showColumnsBtn.setVisible(canEdit);
 		addRowBtn.setVisible(canEdit);
+		importCsvBtn.setVisible(canEdit);
 		deleteRowBtn.setVisible(false);
 		viewRowBtn.setVisible(false);
 	}
@@ -271,6 +322,33 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 		cellTable.setRowData(currentPage); // causes onRangeChange event
 	}
 
+	@Override
+	public void setPendingChangeCount(int count) {
+		pendingChangeCount = count;
+		if(saveChangesBtn == null) return;
+		saveChangesBtn.setText(DisplayConstants.SAVE_CHANGES + " (" + count + ")");
+		saveChangesBtn.setVisible(count > 0);
+		discardChangesBtn.setVisible(count > 0);
+	}
+
+	@Override
+	public void setImportProgress(String progress) {
+		importProgressText = progress;
+		if(importProgress == null) return;
+		importProgress.setText(progress == null ? "" : progress);
+		importProgress.setVisible(progress != null);
+		// one import at a time
+		importCsvBtn.setEnabled(progress == null);
+	}
+
+	@Override
+	public void refreshCurrentPage() {
+		if(cellTable == null || scrollMode) return;
+		if(selectionModel instanceof MultiSelectionModel) ((MultiSelectionModel<TableModel>) selectionModel).clear();
+		// asks for the page again, and the pending changes are shown on it
+		cellTable.setVisibleRangeAndClearData(cellTable.getVisibleRange(), true);
+	}
+
 	@Override
 	public void showInfo(String title, String message) {
 		DisplayUtils.showInfo(title, message);
@@ -397,33 +475,15 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 	}
 	
 	private void buildTable(QueryDetails queryDetails, int totalRowCount, final boolean canEdit) {
-		cellTable = new CellTable<TableModel>(TableModel.KEY_PROVIDER);
-		cellTable.setWidth("100%", true);
+		createCellTable(canEdit);
 		cellTable.setPageSize(queryDetails.getLimit().intValue());
-		cellTable.addStyleName("cellTable");
-		cellTable.setLoadingIndicator(getLoadingWidget());
 		tableContainer.setWidget(cellTable);
 
-		// Do not refresh the headers and footers every time the data is
-		// updated.
-		cellTable.setAutoHeaderRefreshDisabled(true);
-		cellTable.setAutoFooterRefreshDisabled(true);
-
 		// Create a Pager to control the table.
 		SimplePager.Resources pagerResources = GWT.create(SimplePager.Resources.class);
 		pager = new MySimplePager(TextLocation.CENTER, pagerResources, false, 0, true);
 		pager.setDisplay(cellTable);
 		pagerContainer.setWidget(pager);
-
-		// Add a selection model so we can select cells.
-		selectionModel = new MultiSelectionModel<TableModel>(TableModel.KEY_PROVIDER);
-		cellTable.setSelectionModel(selectionModel, DefaultSelectionEventManager.<TableModel> createCheckboxManager());
-		selectionModel.addSelectionChangeHandler(new SelectionChangeEvent.Handler() {
-			@Override
-			public void onSelectionChange(SelectionChangeEvent event) {				
-				setSelectionButtonVisibility(getSelectedRows(), canEdit);				
-			}			
-		});
 		
 	    // Add a ColumnSortEvent.AsyncHandler to connect sorting to the
 	    // AsyncDataPRrovider.
@@ -443,6 +503,147 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 
 	}
 
+	private void createCellTable(final boolean canEdit) {
+		cellTable = new CellTable<TableModel>(TableModel.KEY_PROVIDER);
+		cellTable.setWidth("100%", true);
+		cellTable.addStyleName("cellTable");
+		cellTable.setLoadingIndicator(getLoadingWidget());
+
+		// Do not refresh the headers and footers every time the data is
+		// updated.
+		cellTable.setAutoHeaderRefreshDisabled(true);
+		cellTable.setAutoFooterRefreshDisabled(true);
+
+		// Add a selection model so we can select cells.
+		selectionModel = new MultiSelectionModel<TableModel>(TableModel.KEY_PROVIDER);
+		cellTable.setSelectionModel(selectionModel, DefaultSelectionEventManager.<TableModel> createCheckboxManager());
+		selectionModel.addSelectionChangeHandler(new SelectionChangeEvent.Handler() {
+			@Override
+			public void onSelectionChange(SelectionChangeEvent event) {				
+				setSelectionButtonVisibility(getSelectedRows(), canEdit);				
+			}			
+		});
+	}
+
+	/**
+	 * Build the scroll view: a viewport over a canvas as tall as all rows of
+	 * the query, with the table positioned at the rows scrolled to.
+	 * @param totalRowCount
+	 */
+	private void buildScrollingTable(int totalRowCount) {
+		createCellTable(false);
+		cellTable.addStyleName("tableScrollWindow");
+		cellTable.addColumnSortHandler(new ColumnSortEvent.Handler() {
+			@Override
+			public void onColumnSort(ColumnSortEvent event) {
+				// the buffered rows are in the old order
+				rowBuffer.reset(rowBuffer.getTotalRowCount());
+				scrollViewport.scrollToTop();
+				updateScrollWindow(true);
+			}
+		});
+		FlowPanel canvas = new FlowPanel();
+		canvas.addStyleName("tableScrollCanvas");
+		// one extra row for the header
+		int canvasHeight = (totalRowCount + 1) * SCROLL_ROW_HEIGHT_PX;
+		canvas.setHeight(canvasHeight + "px");
+		canvas.add(cellTable);
+		scrollViewport = new ScrollPanel(canvas);
+		scrollViewport.setHeight(Math.min(canvasHeight, SCROLL_VIEWPORT_HEIGHT_PX) + "px");
+		scrollViewport.addScrollHandler(new ScrollHandler() {
+			@Override
+			public void onScroll(ScrollEvent event) {
+				updateScrollWindow(false);
+			}
+		});
+		tableContainer.setWidget(scrollViewport);
+		pagerContainer.clear();
+
+		// the first page of the query result is not used, pages are loaded at the scroll view page size
+		initialLoad = null;
+		initialDetails = null;
+		newRow = null;
+		rowBuffer.reset(totalRowCount);
+		windowStart = 0;
+		windowEnd = 0;
+	}
+
+	/**
+	 * Show the rows around the viewport, unless the rows shown already cover
+	 * it (and force is false). Pages of rows that are not loaded yet, and the
+	 * page before and after the rows shown, are requested.
+	 */
+	private void updateScrollWindow(boolean force) {
+		int total = rowBuffer.getTotalRowCount();
+		int firstVisible = scrollViewport.getVerticalScrollPosition() / SCROLL_ROW_HEIGHT_PX;
+		int lastVisible = Math.min(total, firstVisible + SCROLL_VIEWPORT_HEIGHT_PX / SCROLL_ROW_HEIGHT_PX + 1);
+		if (!force && windowStart <= firstVisible && lastVisible <= windowEnd)
+			return;
+		windowStart = Math.max(0, firstVisible - SCROLL_OVERSCAN_ROWS);
+		windowEnd = Math.min(total, lastVisible + SCROLL_OVERSCAN_ROWS);
+		for (Integer page : rowBuffer.requestPages(windowStart - SCROLL_PAGE_SIZE, windowEnd + SCROLL_PAGE_SIZE)) {
+			loadScrollPage(page);
+		}
+		renderScrollWindow();
+	}
+
+	private void renderScrollWindow() {
+		List<TableModel> rows = new ArrayList<TableModel>(windowEnd - windowStart);
+		for (int i = windowStart; i < windowEnd; i++) {
+			TableModel row = rowBuffer.getRow(i);
+			// rows that are still loading are shown empty
+			rows.add(row == null ? new TableModel() : row);
+		}
+		cellTable.getElement().getStyle().setTop(windowStart * SCROLL_ROW_HEIGHT_PX, Unit.PX);
+		cellTable.setRowData(rows);
+		presenter.resolveFileHandles(rows, new Callback() {
+			@Override
+			public void invoke() {
+				cellTable.redraw();
+			}
+		});
+	}
+
+	private void loadScrollPage(final int page) {
+		final int generation = rowBuffer.getGeneration();
+		final int offset = page * SCROLL_PAGE_SIZE;
+		presenter.queryRange(createQueryDetails(offset, SCROLL_PAGE_SIZE), new AsyncCallback<List<TableModel>>() {
+			@Override
+			public void onSuccess(List<TableModel> rows) {
+				if(rowBuffer.setPage(generation, page, rows, windowStart) && offset < windowEnd && windowStart < offset + SCROLL_PAGE_SIZE) {
+					renderScrollWindow();
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable caught) {
+				if(generation != rowBuffer.getGeneration()) return;
+				// requested again on the next scroll
+				rowBuffer.pageFailed(generation, page);
+				DisplayUtils.showErrorMessage(DisplayConstants.ERROR_LOADING_QUERY_PLEASE_RETRY);
+			}
+		});
+	}
+
+	/**
+	 * @return query details for the given rows, sorted by the column sorted in the table
+	 */
+	private QueryDetails createQueryDetails(long offset, long limit) {
+		String sortedColumnName = null;
+		QueryDetails.SortDirection sortDirection = null;
+		ColumnSortList sortList = cellTable.getColumnSortList();
+		if (sortList.size() > 0 && sortList.get(0).getColumn() != null) {
+			ColumnSortInfo columnSortInfo = sortList.get(0);
+			ColumnModel model = columnToModel.get(columnSortInfo
+					.getColumn());
+			if (model != null) {
+				sortedColumnName = TableUtils.escapeColumnName(model.getName());
+				sortDirection = columnSortInfo.isAscending() ? SortDirection.ASC : SortDirection.DESC;
+			}
+		}
+		return new QueryDetails(offset, limit, sortedColumnName, sortDirection);
+	}
+
 	/**
 	 * Control the visibility of buttons depending upon selection state
 	 * @param selected
@@ -475,25 +676,8 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 					return;
 				}
 				
-				// extract sorted column
-				String sortedColumnName = null;
-				QueryDetails.SortDirection sortDirection = null;
-				ColumnSortList sortList = cellTable.getColumnSortList();
-				if (sortList.size() > 0 && sortList.get(0).getColumn() != null) {
-					ColumnSortInfo columnSortInfo = sortList.get(0);
-					ColumnModel model = columnToModel.get(columnSortInfo
-							.getColumn());
-					if (model != null) {
-						sortedColumnName = TableUtils.escapeColumnName(model.getName());
-						sortDirection = columnSortInfo.isAscending() ? SortDirection.ASC : SortDirection.DESC;
-					}
-				}
-
 				final Range range = display.getVisibleRange();
-				Long offset = new Long(range.getStart());
-				Long limit = new Long(range.getLength());
-				
-				presenter.alterCurrentQuery(new QueryDetails(offset, limit, sortedColumnName, sortDirection), new AsyncCallback<RowSet>() {
+				presenter.alterCurrentQuery(createQueryDetails(range.getStart(), range.getLength()), new AsyncCallback<RowSet>() {
 					@Override
 					public void onSuccess(RowSet rowData) {
 						updateData(range, rowData);
@@ -513,8 +697,15 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 			        for(Row row : rowData.getRows()) {			        				        	
 			        	currentPage.add(TableUtils.convertRowToModel(rowData.getHeaders(), row));
 			        }
+			        currentPage = presenter.applyPendingChanges(currentPage, range.getStart() == 0);
 			        updateRowData(range.getStart(), currentPage);
 			        hideLoading();
+			        presenter.resolveFileHandles(currentPage, new Callback() {
+						@Override
+						public void invoke() {
+							cellTable.redraw();
+						}
+					});
 				}
 			}
 	    };
@@ -560,7 +751,7 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 		}
 				
 		for(ColumnModel model : columns) {
-			Column<TableModel, ?> column = TableViewUtils.getColumn(tableEntityId, model, canEdit, rowUpdater, cellTable, this, jsniUtils);
+			Column<TableModel, ?> column = TableViewUtils.getColumn(tableEntityId, model, canEdit, rowUpdater, cellTable, this, jsniUtils, tableDataCache);
 			cellTable.addColumn(column, model.getName());
 			columnToModel.put(column, model);
 			
@@ -588,6 +779,43 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 	}
 
 	
+	/**
+	 * Upload a CSV file (with the chunked uploader) to import into the table
+	 */
+	private void showImportCsvForm() {
+		if (uploader == null)
+			uploader = ginInjector.getUploaderWidget();
+		uploader.clearHandlers();
+		final com.extjs.gxt.ui.client.widget.Window window = new com.extjs.gxt.ui.client.widget.Window();
+		uploader.addPersistSuccessHandler(new EntityUpdatedHandler() {
+			@Override
+			public void onPersistSuccess(EntityUpdatedEvent event) {
+				window.hide();
+			}
+		});
+		uploader.addCancelHandler(new CancelHandler() {
+			@Override
+			public void onCancel(CancelEvent event) {
+				window.hide();
+			}
+		});
+		window.removeAll();
+		window.setPlain(true);
+		window.setModal(true);
+		window.setHeading(DisplayConstants.IMPORT_CSV);
+		window.setLayout(new FitLayout());
+		Widget widget = uploader.asWidget(null, null, null,
+				new CallbackP<String>() {
+					@Override
+					public void invoke(String fileHandleId) {
+						presenter.importCsv(fileHandleId);
+					}
+				}, false);
+		window.add(widget, new MarginData(5));
+		window.show();
+		window.setSize(uploader.getDisplayWidth(), uploader.getDisplayHeight());
+	}
+
 	/**
 	 * ----- Column Editor Methods -----
 	 */
@@ -641,10 +869,55 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 			}
 		});
 		
+		importCsvBtn = DisplayUtils.createIconButton(DisplayConstants.IMPORT_CSV, ButtonType.DEFAULT, "glyphicon-upload");
+		importCsvBtn.addStyleName("margin-right-5");
+		importCsvBtn.addClickHandler(new ClickHandler() {			
+			@Override
+			public void onClick(ClickEvent event) {
+				showImportCsvForm();
+			}
+		});
+		importProgress = new InlineHTML();
+		importProgress.addStyleName("margin-right-5");
+		
 		buttonToolbar.add(showColumnsBtn);		
 		buttonToolbar.add(addRowBtn);
+		buttonToolbar.add(importCsvBtn);
 		buttonToolbar.add(viewRowBtn);
 		buttonToolbar.add(deleteRowBtn);
+
+		scrollModeBtn = DisplayUtils.createButton(scrollMode ? DisplayConstants.PAGED_VIEW : DisplayConstants.SCROLL_VIEW, ButtonType.DEFAULT);
+		scrollModeBtn.addStyleName("margin-right-5");
+		scrollModeBtn.addClickHandler(new ClickHandler() {			
+			@Override
+			public void onClick(ClickEvent event) {
+				scrollMode = !scrollMode;
+				presenter.rerunCurrentQuery();
+			}
+		});
+		buttonToolbar.add(scrollModeBtn);
+
+		saveChangesBtn = DisplayUtils.createButton(DisplayConstants.SAVE_CHANGES, ButtonType.PRIMARY);
+		saveChangesBtn.addStyleName("margin-right-5");
+		saveChangesBtn.addClickHandler(new ClickHandler() {			
+			@Override
+			public void onClick(ClickEvent event) {
+				presenter.saveChanges();
+			}
+		});
+		discardChangesBtn = DisplayUtils.createButton(DisplayConstants.DISCARD_CHANGES, ButtonType.DEFAULT);
+		discardChangesBtn.addStyleName("margin-right-5");
+		discardChangesBtn.addClickHandler(new ClickHandler() {			
+			@Override
+			public void onClick(ClickEvent event) {
+				presenter.discardChanges();
+			}
+		});
+		buttonToolbar.add(saveChangesBtn);
+		buttonToolbar.add(discardChangesBtn);
+		buttonToolbar.add(importProgress);
+		setPendingChangeCount(pendingChangeCount);
+		setImportProgress(importProgressText);
 		
 		Button modelTest = DisplayUtils.createButton("Show Modal", ButtonType.DEFAULT);
 		buttonToolbar.add(modelTest);
@@ -683,6 +956,15 @@ public class SimpleTableWidgetViewImpl extends Composite implements SimpleTableW
 	 */
 	private List<TableModel> getSelectedRows() {
 		List<TableModel> selected = new ArrayList<TableModel>();		
+		if(scrollMode) {
+			if(selectionModel != null && cellTable != null) {
+				for(TableModel model : cellTable.getVisibleItems()) {
+					// skip rows that are still loading
+					if(model.getId() != null && selectionModel.isSelected(model)) selected.add(model);
+				}
+			}
+			return selected;
+		}
 		if(selectionModel != null && dataProvider != null && dataProvider.getDataDisplays() != null) {
 			for(HasData<TableModel> hd : dataProvider.getDataDisplays()) {
 				for(TableModel model : hd.getVisibleItems()) {
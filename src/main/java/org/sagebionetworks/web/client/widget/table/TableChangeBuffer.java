@@ -0,0 +1,107 @@
+package org.sagebionetworks.web.client.widget.table;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The table changes made since the last save: added and edited rows (by row
+ * key, in the order they were first changed) and the ids of deleted rows.
+ * Changes are shown on query results right away, and sent to the table
+ * together when saved.
+ */
+public class TableChangeBuffer {
+
+	private LinkedHashMap<String, TableModel> changedRows = new LinkedHashMap<String, TableModel>();
+	private LinkedHashSet<String> deletedRowIds = new LinkedHashSet<String>();
+
+	/**
+	 * Add or update a changed row. Rows without a row id are added to the table when saved.
+	 */
+	public void update(TableModel row) {
+		changedRows.put(getKey(row), row);
+	}
+
+	/**
+	 * Delete rows. Added rows that were not saved yet are just dropped.
+	 */
+	public void delete(List<TableModel> rows) {
+		for (TableModel row : rows) {
+			if (row == null) continue;
+			changedRows.remove(getKey(row));
+			if (row.getId() != null)
+				deletedRowIds.add(row.getId());
+		}
+	}
+
+	public boolean isEmpty() {
+		return changedRows.isEmpty() && deletedRowIds.isEmpty();
+	}
+
+	/**
+	 * @return number of changed, added and deleted rows
+	 */
+	public int size() {
+		return changedRows.size() + deletedRowIds.size();
+	}
+
+	/**
+	 * @return added and edited rows, in the order they were first changed
+	 */
+	public List<TableModel> getChangedRows() {
+		return new ArrayList<TableModel>(changedRows.values());
+	}
+
+	public Set<String> getDeletedRowIds() {
+		return new LinkedHashSet<String>(deletedRowIds);
+	}
+
+	/**
+	 * The changed row was saved. Must be called before a saved row is given its new row id.
+	 */
+	public void rowSaved(TableModel row) {
+		changedRows.remove(getKey(row));
+	}
+
+	public void deletesSaved() {
+		deletedRowIds.clear();
+	}
+
+	public void clear() {
+		changedRows.clear();
+		deletedRowIds.clear();
+	}
+
+	/**
+	 * Show the changes on a page of query results: edited rows replace the
+	 * rows that were read, deleted rows are dropped and, on the first page,
+	 * added rows come first.
+	 * @param page
+	 * @param firstPage
+	 * @return
+	 */
+	public List<TableModel> applyTo(List<TableModel> page, boolean firstPage) {
+		if (isEmpty())
+			return page;
+		List<TableModel> result = new ArrayList<TableModel>(page.size());
+		if (firstPage) {
+			for (TableModel row : changedRows.values()) {
+				if (row.getId() == null)
+					result.add(row);
+			}
+		}
+		for (TableModel row : page) {
+			if (row.getId() != null && deletedRowIds.contains(row.getId()))
+				continue;
+			TableModel changed = changedRows.get(getKey(row));
+			result.add(changed != null ? changed : row);
+		}
+		return result;
+	}
+
+	private static String getKey(TableModel row) {
+		return (String) TableModel.KEY_PROVIDER.getKey(row);
+	}
+}
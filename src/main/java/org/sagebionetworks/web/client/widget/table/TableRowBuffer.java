@@ -0,0 +1,140 @@
+package org.sagebionetworks.web.client.widget.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded buffer of table query results for the scrolling table view. Rows
+ * are loaded and kept in fixed size pages, and only a limited number of pages
+ * is kept: once the limit is passed, the pages farthest from the rows being
+ * viewed are dropped (and loaded again if the user scrolls back to them).
+ */
+public class TableRowBuffer {
+
+	private final int pageSize;
+	private final int maxPages;
+	private Map<Integer, List<TableModel>> pages = new HashMap<Integer, List<TableModel>>();
+	private Set<Integer> requestedPages = new HashSet<Integer>();
+	// incremented on every reset, so responses to an earlier query (or sort) can be ignored
+	private int generation = 0;
+	private int totalRowCount = 0;
+
+	/**
+	 * @param pageSize number of rows loaded per query
+	 * @param maxPages maximum number of pages kept. Must be more than the pages needed to cover the rows viewed (and prefetched) at once.
+	 */
+	public TableRowBuffer(int pageSize, int maxPages) {
+		this.pageSize = pageSize;
+		this.maxPages = maxPages;
+	}
+
+	/**
+	 * Drop all rows (the query or sort changed).
+	 * @param totalRowCount number of rows in the new query result
+	 */
+	public void reset(int totalRowCount) {
+		pages.clear();
+		requestedPages.clear();
+		generation++;
+		this.totalRowCount = totalRowCount;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	public int getTotalRowCount() {
+		return totalRowCount;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param index
+	 * @return the row at the given index, or null if it is not loaded
+	 */
+	public TableModel getRow(int index) {
+		List<TableModel> page = pages.get(index / pageSize);
+		int indexInPage = index % pageSize;
+		if (page == null || indexInPage >= page.size())
+			return null;
+		return page.get(indexInPage);
+	}
+
+	/**
+	 * Find the pages covering the given rows that are neither loaded nor
+	 * already requested, and mark them as requested.
+	 * @param from index of the first row
+	 * @param to index just past the last row
+	 * @return the page numbers to load (the first row of a page is page * page size)
+	 */
+	public List<Integer> requestPages(int from, int to) {
+		List<Integer> toLoad = new ArrayList<Integer>();
+		from = Math.max(0, from);
+		to = Math.min(totalRowCount, to);
+		if (from >= to)
+			return toLoad;
+		for (int page = from / pageSize; page <= (to - 1) / pageSize; page++) {
+			if (!pages.containsKey(page) && requestedPages.add(page))
+				toLoad.add(page);
+		}
+		return toLoad;
+	}
+
+	/**
+	 * Add a loaded page, dropping the pages farthest from the viewed rows if there are too many.
+	 * @param generation generation the page was requested in
+	 * @param page
+	 * @param rows
+	 * @param viewedRow index of a row being viewed
+	 * @return false if the page is from an earlier generation (and was ignored)
+	 */
+	public boolean setPage(int generation, int page, List<TableModel> rows, int viewedRow) {
+		if (generation != this.generation)
+			return false;
+		requestedPages.remove(page);
+		pages.put(page, rows);
+		evict(viewedRow / pageSize);
+		return true;
+	}
+
+	/**
+	 * Loading a page failed, it can be requested again.
+	 */
+	public void pageFailed(int generation, int page) {
+		if (generation == this.generation)
+			requestedPages.remove(page);
+	}
+
+	/**
+	 * @return number of rows currently kept in the buffer
+	 */
+	public int getBufferedRowCount() {
+		int count = 0;
+		for (List<TableModel> page : pages.values()) {
+			count += page.size();
+		}
+		return count;
+	}
+
+	/*
+	 * Private Methods
+	 */
+
+	private void evict(int viewedPage) {
+		while (pages.size() > maxPages) {
+			Integer farthest = null;
+			for (Integer page : pages.keySet()) {
+				if (farthest == null || Math.abs(page - viewedPage) > Math.abs(farthest - viewedPage))
+					farthest = page;
+			}
+			pages.remove(farthest);
+		}
+	}
+}
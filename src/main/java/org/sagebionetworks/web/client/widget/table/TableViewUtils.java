@@ -16,6 +16,7 @@ import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
 import org.sagebionetworks.web.client.SynapseView;
+import org.sagebionetworks.web.client.cache.TableDataCache;
 import org.sagebionetworks.web.client.widget.table.SimpleTableWidgetView.Presenter;
 
 import com.google.gwt.cell.client.AbstractCell;
@@ -87,7 +88,7 @@ public class TableViewUtils {
 	public static Column<TableModel, ?> getColumn(String tableEntityId,
 			ColumnModel col, boolean canEdit, final RowUpdater rowUpdater,
 			CellTable<TableModel> cellTable, SynapseView view,
-			SynapseJSNIUtils synapseJSNIUtils) {
+			SynapseJSNIUtils synapseJSNIUtils, TableDataCache tableDataCache) {
 		// any restrained column, regardless of type
 		if(canEdit && col.getEnumValues() != null && col.getEnumValues().size() > 0)
 			return configComboString(col, canEdit, rowUpdater, cellTable, view); // Enum combo box
@@ -103,7 +104,7 @@ public class TableViewUtils {
 			if(canEdit) return configBooleanCombo(col, rowUpdater, cellTable, view); 
 			else return configSimpleText(col, canEdit, rowUpdater, cellTable, view);			
 		} else if(col.getColumnType() == ColumnType.FILEHANDLEID) {
-			return configFileHandle(tableEntityId, col, canEdit, rowUpdater, cellTable, view, synapseJSNIUtils);  
+			return configFileHandle(tableEntityId, col, canEdit, rowUpdater, cellTable, view, synapseJSNIUtils, tableDataCache);  
 		} else if(col.getColumnType() == ColumnType.DATE) {
 			return configDateColumn(col, canEdit, rowUpdater, cellTable, view);
 		} else {
@@ -494,8 +495,9 @@ public class TableViewUtils {
 	private static Column<TableModel, ?> configFileHandle(
 			final String tableEntityId, final ColumnModel col, boolean canEdit,
 			final RowUpdater rowUpdater, final CellTable<TableModel> cellTable,
-			final SynapseView view, SynapseJSNIUtils synapseJSNIUtils) {
-		final FileHandleCell cell = new FileHandleCell(canEdit, synapseJSNIUtils, ginInjector);
+			final SynapseView view, SynapseJSNIUtils synapseJSNIUtils,
+			TableDataCache tableDataCache) {
+		final FileHandleCell cell = new FileHandleCell(canEdit, synapseJSNIUtils, ginInjector, tableDataCache);
 		Column<TableModel, TableCellFileHandle> column = new Column<TableModel, TableCellFileHandle>(cell) {
 			@Override
 			public TableCellFileHandle getValue(TableModel object) {				
@@ -9,7 +9,6 @@ import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.SageImageBundle;
-import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeBrowserViewImpl;
 
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.user.client.ui.FlowPanel;
@@ -88,6 +87,6 @@ public class TeamListWidgetViewImpl extends FlowPanel implements TeamListWidgetV
 			
 		}
 		if (teams.isEmpty())
-			add(new HTML(SafeHtmlUtils.fromSafeConstant("<div class=\"smallGreyText\">" + EntityTreeBrowserViewImpl.PLACEHOLDER_NAME_PREFIX + " " + DisplayConstants.EMPTY + "</div>").asString()));
+			add(new HTML(SafeHtmlUtils.fromSafeConstant("<div class=\"smallGreyText\">&#8212; " + DisplayConstants.EMPTY + "</div>").asString()));
 	}
 }
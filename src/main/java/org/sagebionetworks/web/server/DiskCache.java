@@ -0,0 +1,460 @@
+package org.sagebionetworks.web.server;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * A local disk tier for content the portal keeps in memory (rendered wiki
+ * pages, feeds), so a restarted node serves it without asking the repository
+ * again. Entries are appended to a single segment file and found through an
+ * in-memory index of key to file offset, which is rebuilt by scanning the file
+ * when the cache is loaded. The live entries are bounded in bytes; the least
+ * recently used entries are dropped from the index, and the file is rewritten
+ * with only the live entries once most of it is garbage. The rewrite runs in
+ * a background thread, and the new file is swapped in when it is done.
+ *
+ * The monitor guards the index and appends; file reads only hold the read
+ * side of the segment lock, which the swap takes for writing.
+ *
+ * Until {@link #load()} is done, gets miss and puts are ignored.
+ */
+public class DiskCache {
+	public static final String SEGMENT_FILE_NAME = "cache.dat";
+	public static final String DEFAULT_DIRECTORY_NAME = "synapse-portal-cache";
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024L * 1024L;
+	public static final String CHARSET = "UTF-8";
+	// the file is compacted when it is this many times the size of the live entries
+	public static final int COMPACT_RATIO = 2;
+	// key length, value length
+	private static final int RECORD_HEADER_BYTES = 8;
+	private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+	static private Log log = LogFactory.getLog(DiskCache.class);
+
+	private File directory = new File(System.getProperty("java.io.tmpdir"), DEFAULT_DIRECTORY_NAME);
+	private long maxBytes = DEFAULT_MAX_BYTES;
+	private RandomAccessFile segment;
+	private Map<String, Entry> index = new LinkedHashMap<String, Entry>(1000, 0.75f, true);
+	private long liveBytes = 0;
+	private volatile boolean loaded = false;
+	private boolean compacting = false;
+	private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+	private Executor compactionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "disk-cache-compact");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	@Inject
+	public DiskCache() {
+	}
+
+	public DiskCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	@Inject(optional=true)
+	public void setDirectory(@Named(ServerConstants.KEY_DISK_CACHE_DIRECTORY) String directory) {
+		this.directory = new File(directory);
+	}
+
+	@Inject(optional=true)
+	public void setMaxBytes(@Named(ServerConstants.KEY_DISK_CACHE_MAX_BYTES) long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Load the index in a background thread, so startup does not wait for it.
+	 */
+	public void loadInBackground() {
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				load();
+			}
+		}, "disk-cache-load");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Open the segment file and index its entries. A record cut short (by a
+	 * crash while writing) ends the file. On failure, the cache stays disabled.
+	 */
+	public void load() {
+		boolean compact = false;
+		segmentLock.writeLock().lock();
+		try {
+			synchronized (this) {
+				if (loaded)
+					return;
+				compact = loadSegment();
+			}
+		} finally {
+			segmentLock.writeLock().unlock();
+		}
+		if (compact)
+			scheduleCompaction();
+	}
+
+	/**
+	 * @return true if the loaded file should be compacted
+	 */
+	private boolean loadSegment() {
+		long start = System.currentTimeMillis();
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs())
+				throw new IOException("Unable to create " + directory);
+			segment = new RandomAccessFile(new File(directory, SEGMENT_FILE_NAME), "rw");
+			long length = segment.length();
+			long offset = 0;
+			while (offset < length) {
+				try {
+					segment.seek(offset);
+					int keyLength = segment.readInt();
+					int valueLength = segment.readInt();
+					long recordLength = RECORD_HEADER_BYTES + (long) keyLength + valueLength;
+					if (keyLength < 0 || valueLength < 0 || offset + recordLength > length)
+						break;
+					byte[] key = new byte[keyLength];
+					segment.readFully(key);
+					addToIndex(new String(key, CHARSET), new Entry(offset, keyLength, valueLength));
+					offset += recordLength;
+				} catch (EOFException e) {
+					break;
+				}
+			}
+			if (offset < length) {
+				log.warn("Dropping " + (length - offset) + " bytes of an incomplete record from the disk cache");
+				segment.setLength(offset);
+			}
+			evict();
+			loaded = true;
+			log.info("Loaded " + index.size() + " disk cache entries (" + liveBytes + " bytes) in " + (System.currentTimeMillis() - start) + " ms");
+			return isCompactionNeeded();
+		} catch (IOException e) {
+			log.error("Unable to load the disk cache in " + directory, e);
+			close();
+			return false;
+		}
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Unit test can override this.
+	 * @param compactionExecutor runs the compaction of the segment file
+	 */
+	public void setCompactionExecutor(Executor compactionExecutor) {
+		this.compactionExecutor = compactionExecutor;
+	}
+
+	/**
+	 * @param key
+	 * @return the value, or null if it is not cached (or the cache is not loaded)
+	 */
+	public String get(String key) {
+		if (!loaded)
+			return null;
+		// the segment can not be swapped while it is read, but the index is only locked for the lookup
+		segmentLock.readLock().lock();
+		try {
+			Entry entry;
+			RandomAccessFile file;
+			synchronized (this) {
+				entry = index.get(key);
+				file = segment;
+			}
+			if (entry == null || file == null)
+				return null;
+			try {
+				ByteBuffer value = ByteBuffer.allocate(entry.valueLength);
+				read(file, entry.offset + RECORD_HEADER_BYTES + entry.keyLength, value);
+				return new String(value.array(), CHARSET);
+			} catch (IOException e) {
+				log.error("Unable to read a disk cache entry", e);
+				remove(key);
+				return null;
+			}
+		} finally {
+			segmentLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Append the value, replacing any value of the key.
+	 * @param key
+	 * @param value
+	 */
+	public void put(String key, String value) {
+		if (!loaded || key == null || value == null)
+			return;
+		boolean compact = false;
+		segmentLock.readLock().lock();
+		try {
+			byte[] keyBytes = key.getBytes(CHARSET);
+			byte[] valueBytes = value.getBytes(CHARSET);
+			if (RECORD_HEADER_BYTES + keyBytes.length + valueBytes.length > maxBytes)
+				return;
+			synchronized (this) {
+				if (segment == null)
+					return;
+				long offset = segment.length();
+				segment.seek(offset);
+				segment.writeInt(keyBytes.length);
+				segment.writeInt(valueBytes.length);
+				segment.write(keyBytes);
+				segment.write(valueBytes);
+				addToIndex(key, new Entry(offset, keyBytes.length, valueBytes.length));
+				evict();
+				compact = isCompactionNeeded();
+			}
+		} catch (IOException e) {
+			log.error("Unable to write a disk cache entry", e);
+		} finally {
+			segmentLock.readLock().unlock();
+		}
+		if (compact)
+			scheduleCompaction();
+	}
+
+	public synchronized void remove(String key) {
+		Entry entry = index.remove(key);
+		if (entry != null)
+			liveBytes -= entry.getRecordLength();
+	}
+
+	/**
+	 * @return number of live entries
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * @return bytes of the live entries
+	 */
+	public synchronized long getLiveBytes() {
+		return liveBytes;
+	}
+
+	/**
+	 * @return bytes of the segment file, live entries and garbage
+	 */
+	public synchronized long getFileBytes() {
+		try {
+			return segment == null ? 0 : segment.length();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	public void close() {
+		segmentLock.writeLock().lock();
+		try {
+			synchronized (this) {
+				loaded = false;
+				index.clear();
+				liveBytes = 0;
+				if (segment != null) {
+					try {
+						segment.close();
+					} catch (IOException e) {
+					}
+					segment = null;
+				}
+			}
+		} finally {
+			segmentLock.writeLock().unlock();
+		}
+	}
+
+	private void addToIndex(String key, Entry entry) {
+		Entry previous = index.put(key, entry);
+		if (previous != null)
+			liveBytes -= previous.getRecordLength();
+		liveBytes += entry.getRecordLength();
+	}
+
+	/**
+	 * Drop the least recently used entries until the live entries fit
+	 */
+	private void evict() {
+		for (Iterator<Entry> it = index.values().iterator(); liveBytes > maxBytes && it.hasNext();) {
+			liveBytes -= it.next().getRecordLength();
+			it.remove();
+		}
+	}
+
+	/**
+	 * @return true once most of the file is garbage
+	 */
+	private synchronized boolean isCompactionNeeded() throws IOException {
+		if (compacting || segment == null)
+			return false;
+		long fileBytes = segment.length();
+		return fileBytes > COMPACT_RATIO * liveBytes && fileBytes >= maxBytes / 4;
+	}
+
+	private void scheduleCompaction() {
+		synchronized (this) {
+			if (compacting)
+				return;
+			compacting = true;
+		}
+		compactionExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					compact();
+				} catch (IOException e) {
+					log.error("Unable to compact the disk cache", e);
+				} finally {
+					synchronized (DiskCache.this) {
+						compacting = false;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Rewrite the live entries to a new segment file, and swap it in. The
+	 * entries are copied while gets and puts go on; only the records appended
+	 * during the copy are copied once the cache is locked for the swap.
+	 */
+	private void compact() throws IOException {
+		File compactedFile = new File(directory, SEGMENT_FILE_NAME + ".compact");
+		RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+		try {
+			compacted.setLength(0);
+			RandomAccessFile copied;
+			long copiedBytes;
+			List<Entry> entries;
+			// new location of each copied record
+			Map<Entry, Entry> moved = new IdentityHashMap<Entry, Entry>();
+			segmentLock.readLock().lock();
+			try {
+				synchronized (this) {
+					if (segment == null)
+						return;
+					copied = segment;
+					copiedBytes = segment.length();
+					// in least recently used order, so the order survives a restart
+					entries = new ArrayList<Entry>(index.values());
+				}
+				for (Entry entry : entries) {
+					long offset = compacted.length();
+					copy(copied, entry.offset, entry.getRecordLength(), compacted, offset);
+					moved.put(entry, new Entry(offset, entry.keyLength, entry.valueLength));
+				}
+			} finally {
+				segmentLock.readLock().unlock();
+			}
+
+			segmentLock.writeLock().lock();
+			try {
+				synchronized (this) {
+					if (segment != copied)
+						return;
+					long appendedOffset = compacted.length();
+					long fileBytes = segment.length();
+					copy(segment, copiedBytes, fileBytes - copiedBytes, compacted, appendedOffset);
+					Map<String, Entry> compactedIndex = new LinkedHashMap<String, Entry>(index.size(), 0.75f, true);
+					for (Map.Entry<String, Entry> mapEntry : index.entrySet()) {
+						Entry entry = mapEntry.getValue();
+						Entry compactedEntry = entry.offset >= copiedBytes
+								? new Entry(appendedOffset + entry.offset - copiedBytes, entry.keyLength, entry.valueLength)
+								: moved.get(entry);
+						if (compactedEntry != null)
+							compactedIndex.put(mapEntry.getKey(), compactedEntry);
+					}
+					compacted.close();
+					segment.close();
+					File segmentFile = new File(directory, SEGMENT_FILE_NAME);
+					if (!segmentFile.delete() || !compactedFile.renameTo(segmentFile)) {
+						segment = null;
+						loaded = false;
+						index.clear();
+						liveBytes = 0;
+						throw new IOException("Unable to replace " + segmentFile);
+					}
+					segment = new RandomAccessFile(segmentFile, "rw");
+					index = compactedIndex;
+					log.info("Compacted the disk cache from " + fileBytes + " to " + segment.length() + " bytes");
+				}
+			} finally {
+				segmentLock.writeLock().unlock();
+			}
+		} finally {
+			compacted.close();
+		}
+	}
+
+	/**
+	 * Read at the given position, without moving the file pointer, so reads
+	 * can run concurrently.
+	 */
+	private static void read(RandomAccessFile file, long position, ByteBuffer buffer) throws IOException {
+		FileChannel channel = file.getChannel();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException();
+		}
+	}
+
+	private static void copy(RandomAccessFile from, long fromPosition, long length, RandomAccessFile to, long toPosition) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, COPY_BUFFER_BYTES));
+		long copied = 0;
+		while (copied < length) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), length - copied));
+			read(from, fromPosition + copied, buffer);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				copied += to.getChannel().write(buffer, toPosition + copied);
+			}
+		}
+	}
+
+	private static class Entry {
+		long offset;
+		int keyLength;
+		int valueLength;
+		Entry(long offset, int keyLength, int valueLength) {
+			this.offset = offset;
+			this.keyLength = keyLength;
+			this.valueLength = valueLength;
+		}
+		long getRecordLength() {
+			return RECORD_HEADER_BYTES + (long) keyLength + valueLength;
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package org.sagebionetworks.web.server;
 
+import javax.servlet.ServletContextEvent;
+
+import org.sagebionetworks.web.server.servlet.SlowRpcSampler;
+
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.servlet.GuiceServletContextListener;
@@ -12,11 +16,29 @@ import com.google.inject.servlet.GuiceServletContextListener;
  */
 public class PortalContextListner extends GuiceServletContextListener {
 
+	private Injector injector;
+
 	@Override
 	protected Injector getInjector() {
 		// This is where we get to set the injector for our servlets
-		return Guice.createInjector(new PortalServletModule());
+		injector = Guice.createInjector(new PortalServletModule());
+		return injector;
+	}
+
+	@Override
+	public void contextInitialized(ServletContextEvent servletContextEvent) {
+		super.contextInitialized(servletContextEvent);
+		// warm content from before the restart, without holding up startup
+		injector.getInstance(DiskCache.class).loadInBackground();
 	}
 
+	@Override
+	public void contextDestroyed(ServletContextEvent servletContextEvent) {
+		if (injector != null) {
+			injector.getInstance(DiskCache.class).close();
+			injector.getInstance(SlowRpcSampler.class).shutdown();
+		}
+		super.contextDestroyed(servletContextEvent);
+	}
 
 }
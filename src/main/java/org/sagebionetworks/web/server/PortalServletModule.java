@@ -9,6 +9,8 @@ import java.util.logging.Logger;
 
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
 import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.servlet.AdmissionStatusServlet;
+import org.sagebionetworks.web.server.servlet.AnonymousReadStatusServlet;
 import org.sagebionetworks.web.server.servlet.FileAttachmentServlet;
 import org.sagebionetworks.web.server.servlet.FileHandleServlet;
 import org.sagebionetworks.web.server.servlet.FileUpload;
@@ -21,14 +23,29 @@ import org.sagebionetworks.web.server.servlet.LicenseServiceImpl;
 import org.sagebionetworks.web.server.servlet.LinkedInServiceImpl;
 import org.sagebionetworks.web.server.servlet.NcboSearchService;
 import org.sagebionetworks.web.server.servlet.ProjectServiceImpl;
+import org.sagebionetworks.web.server.servlet.RepositoryGuard;
+import org.sagebionetworks.web.server.servlet.RepositoryHealthServlet;
+import org.sagebionetworks.web.server.servlet.RequestTraceServlet;
+import org.sagebionetworks.web.server.servlet.RequestTraceStore;
 import org.sagebionetworks.web.server.servlet.RssServiceImpl;
 import org.sagebionetworks.web.server.servlet.SearchServiceImpl;
 import org.sagebionetworks.web.server.servlet.SimpleFileHandleUploadServlet;
 import org.sagebionetworks.web.server.servlet.SimpleSearchService;
+import org.sagebionetworks.web.server.servlet.SlowRpcSampler;
+import org.sagebionetworks.web.server.servlet.SlowRpcServlet;
 import org.sagebionetworks.web.server.servlet.StackConfigServiceImpl;
 import org.sagebionetworks.web.server.servlet.SynapseClientImpl;
+import org.sagebionetworks.web.server.servlet.SynapseProvider;
+import org.sagebionetworks.web.server.servlet.SynapseProviderImpl;
+import org.sagebionetworks.web.server.servlet.TelemetryAggregator;
+import org.sagebionetworks.web.server.servlet.TelemetryServlet;
+import org.sagebionetworks.web.server.servlet.TelemetryStatusServlet;
 import org.sagebionetworks.web.server.servlet.UserAccountServiceImpl;
 import org.sagebionetworks.web.server.servlet.UserProfileAttachmentServlet;
+import org.sagebionetworks.web.server.servlet.ValidatedSessionTokens;
+import org.sagebionetworks.web.server.servlet.filter.AccessLog;
+import org.sagebionetworks.web.server.servlet.filter.AdminFilter;
+import org.sagebionetworks.web.server.servlet.filter.AdmissionControlFilter;
 import org.sagebionetworks.web.server.servlet.filter.DreamFilter;
 import org.sagebionetworks.web.server.servlet.filter.RPCValidationFilter;
 import org.sagebionetworks.web.server.servlet.filter.TimingFilter;
@@ -60,6 +77,14 @@ public class PortalServletModule extends ServletModule {
 		// filter all call through this filter
 		filter("/Portal/*").through(TimingFilter.class);
 		bind(TimingFilter.class).in(Singleton.class);
+		bind(AccessLog.class).in(Singleton.class);
+		// rate limit each client before any work is done for it
+		filter("/Portal/*").through(AdmissionControlFilter.class);
+		bind(AdmissionControlFilter.class).in(Singleton.class);
+		bind(ValidatedSessionTokens.class).in(Singleton.class);
+		// the operational endpoints are for the admins only
+		filter("/Portal/admin/*").through(AdminFilter.class);
+		bind(AdminFilter.class).in(Singleton.class);
 		// This supports RPC
 		filter("/Portal/*").through(RPCValidationFilter.class);
 		bind(RPCValidationFilter.class).in(Singleton.class);
@@ -156,6 +181,40 @@ public class PortalServletModule extends ServletModule {
 		
 		// JSONObjectAdapter
 		bind(JSONObjectAdapter.class).to(JSONObjectAdapterImpl.class);
+		
+		// Disk tier of the rendered wiki and feed caches, loaded by the PortalContextListner
+		bind(DiskCache.class).in(Singleton.class);
+		
+		// Bulkheads and circuit breakers of the repository calls, and their state
+		bind(RepositoryGuard.class).in(Singleton.class);
+		bind(SynapseProvider.class).to(SynapseProviderImpl.class).in(Singleton.class);
+		bind(RepositoryHealthServlet.class).in(Singleton.class);
+		serve("/Portal/admin/repositoryhealth").with(RepositoryHealthServlet.class);
+		
+		// Requests admitted and throttled by the AdmissionControlFilter
+		bind(AdmissionStatusServlet.class).in(Singleton.class);
+		serve("/Portal/admin/admission").with(AdmissionStatusServlet.class);
+		
+		// Hit ratio of the anonymous read cache of the SynapseClientImpl
+		bind(AnonymousReadStatusServlet.class).in(Singleton.class);
+		serve("/Portal/admin/anonymousreads").with(AnonymousReadStatusServlet.class);
+		
+		// Repository call traces of recent slow requests
+		bind(RequestTraceStore.class).in(Singleton.class);
+		bind(RequestTraceServlet.class).in(Singleton.class);
+		serve("/Portal/admin/trace").with(RequestTraceServlet.class);
+		
+		// Samples of recent slow RPCs
+		bind(SlowRpcSampler.class).in(Singleton.class);
+		bind(SlowRpcServlet.class).in(Singleton.class);
+		serve("/Portal/admin/slowrpc").with(SlowRpcServlet.class);
+		
+		// Measurements sent by the browsers, and their percentiles
+		bind(TelemetryAggregator.class).in(Singleton.class);
+		bind(TelemetryServlet.class).in(Singleton.class);
+		serve("/Portal/telemetry").with(TelemetryServlet.class);
+		bind(TelemetryStatusServlet.class).in(Singleton.class);
+		serve("/Portal/admin/telemetry").with(TelemetryStatusServlet.class);
 	}
 	
 	
@@ -90,4 +90,119 @@ public class ServerConstants {
 	 */
 	public static final String KEY_FILTER_ENUMERATION_CONFIG_XML_FILE = "org.sagebionetworks.fileter.enumeration.xml.resource";
 	
+	/**
+	 * The property key that turns on forwarding the repository's entity bundle JSON without a model round trip.
+	 */
+	public static final String KEY_ENTITY_BUNDLE_PASS_THROUGH = "org.sagebionetworks.portal.entity.bundle.passthrough";
+	
+	/**
+	 * The property key for the directory of the disk cache (rendered wikis and feeds kept across restarts).
+	 */
+	public static final String KEY_DISK_CACHE_DIRECTORY = "org.sagebionetworks.portal.disk.cache.directory";
+	
+	/**
+	 * The property key for the maximum bytes of live entries in the disk cache.
+	 */
+	public static final String KEY_DISK_CACHE_MAX_BYTES = "org.sagebionetworks.portal.disk.cache.max.bytes";
+	
+	/**
+	 * The property key for the concurrent repository calls allowed per category, as category:limit pairs (READ:200,WRITE:50,SEARCH:40,TABLE_QUERY:40,UPLOAD:20).
+	 */
+	public static final String KEY_REPOSITORY_BULKHEAD_LIMITS = "org.sagebionetworks.portal.repository.bulkhead.limits";
+	
+	/**
+	 * The property key for how long a repository call waits for a free slot before it is turned away.
+	 */
+	public static final String KEY_REPOSITORY_BULKHEAD_WAIT_MS = "org.sagebionetworks.portal.repository.bulkhead.wait.ms";
+	
+	/**
+	 * The property key for the percent of failed or slow recent repository calls that opens a circuit breaker.
+	 */
+	public static final String KEY_REPOSITORY_BREAKER_FAILURE_PERCENT = "org.sagebionetworks.portal.repository.breaker.failure.percent";
+	
+	/**
+	 * The property key for the time after which a repository call counts as slow.
+	 */
+	public static final String KEY_REPOSITORY_BREAKER_SLOW_CALL_MS = "org.sagebionetworks.portal.repository.breaker.slow.call.ms";
+	
+	/**
+	 * The property key for how long an open circuit breaker fails calls before it lets a trial call through.
+	 */
+	public static final String KEY_REPOSITORY_BREAKER_OPEN_MS = "org.sagebionetworks.portal.repository.breaker.open.ms";
+	
+	/**
+	 * The property key for the requests per second each client may make to the portal services.
+	 */
+	public static final String KEY_ADMISSION_REQUESTS_PER_SECOND = "org.sagebionetworks.portal.admission.requests.per.second";
+	
+	/**
+	 * The property key for the requests a client may make at once, before the rate applies.
+	 */
+	public static final String KEY_ADMISSION_BURST = "org.sagebionetworks.portal.admission.burst";
+	
+	/**
+	 * The property key for the requests per second all signed in users at one address may make.
+	 */
+	public static final String KEY_ADMISSION_ADDRESS_REQUESTS_PER_SECOND = "org.sagebionetworks.portal.admission.address.requests.per.second";
+	
+	/**
+	 * The property key for the requests all signed in users at one address may make at once.
+	 */
+	public static final String KEY_ADMISSION_ADDRESS_BURST = "org.sagebionetworks.portal.admission.address.burst";
+	
+	/**
+	 * The property key for the expensive RPCs (search, table queries, descendants) per second each client may make, per kind.
+	 */
+	public static final String KEY_ADMISSION_EXPENSIVE_REQUESTS_PER_SECOND = "org.sagebionetworks.portal.admission.expensive.requests.per.second";
+	
+	/**
+	 * The property key for the expensive RPCs of one kind a client may make at once.
+	 */
+	public static final String KEY_ADMISSION_EXPENSIVE_BURST = "org.sagebionetworks.portal.admission.expensive.burst";
+	
+	/**
+	 * The property key for the number of client rate limit buckets kept in memory.
+	 */
+	public static final String KEY_ADMISSION_MAX_BUCKETS = "org.sagebionetworks.portal.admission.max.buckets";
+	
+	/**
+	 * The property key for the comma separated addresses of the load balancers whose X-Forwarded-For header names the caller (* for any; none when empty).
+	 */
+	public static final String KEY_TRUSTED_PROXY_ADDRESSES = "org.sagebionetworks.portal.trusted.proxy.addresses";
+	
+	/**
+	 * The property key for the time after which the repository call trace of a request is kept for the trace endpoint.
+	 */
+	public static final String KEY_TRACE_SLOW_REQUEST_MS = "org.sagebionetworks.portal.trace.slow.request.ms";
+	
+	/**
+	 * The property key for the time after which an RPC is sampled as slow.
+	 */
+	public static final String KEY_SLOW_RPC_THRESHOLD_MS = "org.sagebionetworks.portal.slow.rpc.threshold.ms";
+	
+	/**
+	 * The property key for the slow RPC thresholds of single methods, as comma separated method:milliseconds pairs.
+	 */
+	public static final String KEY_SLOW_RPC_METHOD_THRESHOLDS = "org.sagebionetworks.portal.slow.rpc.method.thresholds";
+	
+	/**
+	 * The property key for the time after which the stack of a running RPC is captured.
+	 */
+	public static final String KEY_SLOW_RPC_STACK_MS = "org.sagebionetworks.portal.slow.rpc.stack.ms";
+	
+	/**
+	 * The property key for how long the browser measurements are aggregated before the percentiles start over.
+	 */
+	public static final String KEY_TELEMETRY_WINDOW_MS = "org.sagebionetworks.portal.telemetry.window.ms";
+	
+	/**
+	 * The property key for the key admin requests must carry; the /Portal/admin endpoints are off without it.
+	 */
+	public static final String KEY_ADMIN_KEY = "org.sagebionetworks.portal.admin.key";
+	
+	/**
+	 * The property key for the comma separated addresses admin requests may come from (any when empty).
+	 */
+	public static final String KEY_ADMIN_ADDRESSES = "org.sagebionetworks.portal.admin.addresses";
+	
 }
@@ -0,0 +1,55 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.servlet.filter.AdmissionControlFilter;
+
+import com.google.inject.Inject;
+
+/**
+ * Reports the requests admitted and throttled by the
+ * {@link AdmissionControlFilter} of this portal node, as json.
+ */
+public class AdmissionStatusServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private AdmissionControlFilter admissionControlFilter;
+
+	@Inject
+	public void setAdmissionControlFilter(AdmissionControlFilter admissionControlFilter) {
+		this.admissionControlFilter = admissionControlFilter;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String status;
+		try {
+			JSONObjectAdapter json = new JSONObjectAdapterImpl();
+			json.put("admitted", admissionControlFilter.getAdmittedCount());
+			json.put("buckets", (long) admissionControlFilter.getBucketCount());
+			JSONObjectAdapter throttled = json.createNew();
+			for (Map.Entry<String, Long> entry : admissionControlFilter.getThrottledCounts().entrySet()) {
+				throttled.put(entry.getKey(), entry.getValue().longValue());
+			}
+			json.put("throttled", throttled);
+			status = json.toJSONString();
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(status);
+	}
+}
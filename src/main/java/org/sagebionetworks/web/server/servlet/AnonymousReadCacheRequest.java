@@ -0,0 +1,88 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.sagebionetworks.repo.model.ObjectType;
+
+/**
+ * Cache key for a read made without a session token. Anonymous callers all
+ * see the same (public) data, so the result of a read is shared by every
+ * anonymous caller making the same call.
+ */
+public class AnonymousReadCacheRequest implements Serializable {
+	private static final long serialVersionUID = -2316406325546716390L;
+
+	/**
+	 * The cached reads
+	 */
+	public enum Method {
+		ENTITY_BUNDLE,
+		WIKI_PAGE_AS_V1,
+		WIKI_HEADER_TREE,
+		ENTITY_HEADER_BATCH,
+		ENTITY_HEADER_LIST
+	}
+
+	private Method method;
+	private List<String> arguments;
+	public AnonymousReadCacheRequest(Method method, String... arguments) {
+		this(method, Arrays.asList(arguments));
+	}
+	public AnonymousReadCacheRequest(Method method, List<String> arguments) {
+		super();
+		this.method = method;
+		this.arguments = new ArrayList<String>(arguments);
+	}
+	public Method getMethod() {
+		return method;
+	}
+	public List<String> getArguments() {
+		return arguments;
+	}
+	public String getArgument(int index) {
+		return arguments.get(index);
+	}
+	/**
+	 * @return true if this key is a wiki read of the given owner.
+	 */
+	public boolean isWikiOwner(String ownerId, ObjectType ownerType) {
+		return (method == Method.WIKI_PAGE_AS_V1 || method == Method.WIKI_HEADER_TREE)
+				&& ownerId != null && ownerId.equals(arguments.get(0))
+				&& ownerType != null && ownerType.name().equals(arguments.get(1));
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((arguments == null) ? 0 : arguments.hashCode());
+		result = prime * result + ((method == null) ? 0 : method.hashCode());
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		AnonymousReadCacheRequest other = (AnonymousReadCacheRequest) obj;
+		if (arguments == null) {
+			if (other.arguments != null)
+				return false;
+		} else if (!arguments.equals(other.arguments))
+			return false;
+		if (method != other.method)
+			return false;
+		return true;
+	}
+	@Override
+	public String toString() {
+		return "AnonymousReadCacheRequest [method=" + method + ", arguments="
+				+ arguments + "]";
+	}
+}
@@ -0,0 +1,50 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+
+import com.google.inject.Inject;
+
+/**
+ * Reports the requests, loads and hit ratio of the anonymous read cache of
+ * the {@link SynapseClientImpl} of this portal node, as json.
+ */
+public class AnonymousReadStatusServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private SynapseClientImpl synapseClient;
+
+	@Inject
+	public void setSynapseClient(SynapseClientImpl synapseClient) {
+		this.synapseClient = synapseClient;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		CacheStats stats = synapseClient.getAnonymousReadStats();
+		String status;
+		try {
+			JSONObjectAdapter json = new JSONObjectAdapterImpl();
+			json.put("requests", stats.getRequestCount());
+			json.put("loads", stats.getLoadCount());
+			json.put("hitRatio", stats.getHitRatio());
+			status = json.toJSONString();
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(status);
+	}
+}
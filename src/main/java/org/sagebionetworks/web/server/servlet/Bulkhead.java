@@ -0,0 +1,61 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the concurrent calls of one kind. A caller waits at most
+ * maxWaitMillis for a slot, and is turned away after that, so callers do not
+ * pile up behind a slow dependency.
+ */
+public class Bulkhead {
+	private final int limit;
+	private final long maxWaitMillis;
+	private final Semaphore permits;
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	public Bulkhead(int limit, long maxWaitMillis) {
+		this.limit = limit;
+		this.maxWaitMillis = maxWaitMillis;
+		this.permits = new Semaphore(limit, true);
+	}
+
+	/**
+	 * @return true if the caller got a slot, and must {@link #release()} it
+	 */
+	public boolean tryAcquire() {
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired)
+			rejectedCount.incrementAndGet();
+		return acquired;
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getActiveCount() {
+		return limit - permits.availablePermits();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "Bulkhead [limit=" + limit + ", active=" + getActiveCount()
+				+ ", rejected=" + getRejectedCount() + "]";
+	}
+}
@@ -0,0 +1,46 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request and load counts of a cache. Concurrent requests for the same
+ * missing entry wait for a single load, so they count as one load.
+ */
+public class CacheStats {
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong loadCount = new AtomicLong();
+
+	public void recordRequest() {
+		requestCount.incrementAndGet();
+	}
+
+	public void recordLoad() {
+		loadCount.incrementAndGet();
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+
+	/**
+	 * @return the fraction of requests served without a load (1.0 if there
+	 *         were no requests)
+	 */
+	public double getHitRatio() {
+		long requests = requestCount.get();
+		if (requests == 0)
+			return 1.0;
+		long hits = requests - loadCount.get();
+		return Math.max(0, hits) / (double) requests;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [requestCount=" + getRequestCount() + ", loadCount="
+				+ getLoadCount() + ", hitRatio=" + getHitRatio() + "]";
+	}
+}
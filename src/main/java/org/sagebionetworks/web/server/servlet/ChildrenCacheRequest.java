@@ -0,0 +1,85 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.Serializable;
+
+/**
+ * Cache key for a page of the children of a container. The session token is
+ * part of the key since the repository only returns the children the caller
+ * can see (null for anonymous callers).
+ */
+public class ChildrenCacheRequest implements Serializable {
+	private static final long serialVersionUID = 2817596218403785582L;
+	private String parentId;
+	private boolean sortByName;
+	private String sessionToken;
+	private int offset;
+	public ChildrenCacheRequest(String parentId, boolean sortByName,
+			String sessionToken, int offset) {
+		super();
+		this.parentId = parentId;
+		this.sortByName = sortByName;
+		this.sessionToken = sessionToken;
+		this.offset = offset;
+	}
+	public String getParentId() {
+		return parentId;
+	}
+	public void setParentId(String parentId) {
+		this.parentId = parentId;
+	}
+	public boolean isSortByName() {
+		return sortByName;
+	}
+	public void setSortByName(boolean sortByName) {
+		this.sortByName = sortByName;
+	}
+	public String getSessionToken() {
+		return sessionToken;
+	}
+	public void setSessionToken(String sessionToken) {
+		this.sessionToken = sessionToken;
+	}
+	public int getOffset() {
+		return offset;
+	}
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + offset;
+		result = prime * result
+				+ ((parentId == null) ? 0 : parentId.hashCode());
+		result = prime * result
+				+ ((sessionToken == null) ? 0 : sessionToken.hashCode());
+		result = prime * result + (sortByName ? 1231 : 1237);
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ChildrenCacheRequest other = (ChildrenCacheRequest) obj;
+		if (offset != other.offset)
+			return false;
+		if (parentId == null) {
+			if (other.parentId != null)
+				return false;
+		} else if (!parentId.equals(other.parentId))
+			return false;
+		if (sessionToken == null) {
+			if (other.sessionToken != null)
+				return false;
+		} else if (!sessionToken.equals(other.sessionToken))
+			return false;
+		if (sortByName != other.sortByName)
+			return false;
+		return true;
+	}
+}
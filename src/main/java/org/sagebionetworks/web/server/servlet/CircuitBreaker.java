@@ -0,0 +1,156 @@
+package org.sagebionetworks.web.server.servlet;
+
+/**
+ * Fails calls fast while a dependency is unhealthy. The outcomes of the last
+ * windowSize calls are kept; a call is bad if it failed or took at least
+ * slowCallMillis. Once at least minimumCalls are in the window and
+ * failurePercent of them are bad, the breaker opens and turns calls away for
+ * openMillis. After that a single trial call is let through (half open): if it
+ * is good the breaker closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int windowSize;
+	private final int minimumCalls;
+	private final int failurePercent;
+	private final long slowCallMillis;
+	private final long openMillis;
+
+	private State state = State.CLOSED;
+	private boolean[] window;
+	private int windowCount = 0;
+	private int windowNext = 0;
+	private int windowBadCount = 0;
+	private long openedAt = 0;
+	private boolean trialInFlight = false;
+
+	private long callCount = 0;
+	private long failureCount = 0;
+	private long slowCallCount = 0;
+	private long rejectedCount = 0;
+	private long openCount = 0;
+
+	public CircuitBreaker(int windowSize, int minimumCalls, int failurePercent,
+			long slowCallMillis, long openMillis) {
+		this.windowSize = windowSize;
+		this.minimumCalls = Math.min(minimumCalls, windowSize);
+		this.failurePercent = failurePercent;
+		this.slowCallMillis = slowCallMillis;
+		this.openMillis = openMillis;
+		this.window = new boolean[windowSize];
+	}
+
+	/**
+	 * @return true if the call may go ahead, and its outcome must be passed to
+	 *         {@link #recordResult(boolean, long)}
+	 */
+	public synchronized boolean allowCall() {
+		if (state == State.OPEN && currentTimeMillis() - openedAt >= openMillis) {
+			state = State.HALF_OPEN;
+			trialInFlight = false;
+		}
+		if (state == State.CLOSED)
+			return true;
+		if (state == State.HALF_OPEN && !trialInFlight) {
+			trialInFlight = true;
+			return true;
+		}
+		rejectedCount++;
+		return false;
+	}
+
+	/**
+	 * @param failed true if the dependency failed the call
+	 * @param elapsedMillis
+	 */
+	public synchronized void recordResult(boolean failed, long elapsedMillis) {
+		boolean slow = elapsedMillis >= slowCallMillis;
+		boolean bad = failed || slow;
+		callCount++;
+		if (failed)
+			failureCount++;
+		if (slow)
+			slowCallCount++;
+		if (state == State.HALF_OPEN) {
+			trialInFlight = false;
+			if (bad)
+				open();
+			else
+				close();
+		} else if (state == State.CLOSED) {
+			if (windowCount == windowSize && window[windowNext])
+				windowBadCount--;
+			window[windowNext] = bad;
+			if (bad)
+				windowBadCount++;
+			windowNext = (windowNext + 1) % windowSize;
+			windowCount = Math.min(windowCount + 1, windowSize);
+			if (windowCount >= minimumCalls && windowBadCount * 100 >= failurePercent * windowCount)
+				open();
+		}
+		// calls that started before the breaker opened do not change it
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = currentTimeMillis();
+		openCount++;
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		window = new boolean[windowSize];
+		windowCount = 0;
+		windowNext = 0;
+		windowBadCount = 0;
+	}
+
+	/**
+	 * Tests override this to control time.
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized long getCallCount() {
+		return callCount;
+	}
+
+	public synchronized long getFailureCount() {
+		return failureCount;
+	}
+
+	public synchronized long getSlowCallCount() {
+		return slowCallCount;
+	}
+
+	public synchronized long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	public synchronized long getOpenCount() {
+		return openCount;
+	}
+
+	/**
+	 * @return percent of bad calls in the current window
+	 */
+	public synchronized int getWindowBadPercent() {
+		return windowCount == 0 ? 0 : windowBadCount * 100 / windowCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker [state=" + state + ", calls=" + callCount
+				+ ", failures=" + failureCount + ", slowCalls=" + slowCallCount
+				+ ", rejected=" + rejectedCount + ", opened=" + openCount + "]";
+	}
+}
@@ -0,0 +1,122 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma separated values one record at a time, so a file of any size
+ * can be processed without holding it in memory. Fields may be quoted (a
+ * quote inside a quoted field is written twice), and quoted fields may
+ * contain commas and line breaks. Records end with \n, \r\n or \r.
+ *
+ * Fields and records are bounded in length, so a stray quote fails the read
+ * instead of pulling the rest of the file into one field.
+ */
+public class CsvRecordReader {
+	public static final char SEPARATOR = ',';
+	public static final char QUOTE = '"';
+	public static final int DEFAULT_MAX_FIELD_LENGTH = 64*1024;
+	public static final int DEFAULT_MAX_RECORD_LENGTH = 1024*1024;
+
+	private final Reader reader;
+	private final int maxFieldLength;
+	private final int maxRecordLength;
+	// one character of look ahead (-2 if nothing is held back)
+	private int next = -2;
+	private long recordNumber = 0;
+
+	/**
+	 * @param reader should be buffered
+	 */
+	public CsvRecordReader(Reader reader) {
+		this(reader, DEFAULT_MAX_FIELD_LENGTH, DEFAULT_MAX_RECORD_LENGTH);
+	}
+
+	/**
+	 * @param reader should be buffered
+	 * @param maxFieldLength characters
+	 * @param maxRecordLength characters of all fields together
+	 */
+	public CsvRecordReader(Reader reader, int maxFieldLength, int maxRecordLength) {
+		this.reader = reader;
+		this.maxFieldLength = maxFieldLength;
+		this.maxRecordLength = maxRecordLength;
+	}
+
+	/**
+	 * @return the fields of the next record, or null at the end of the input
+	 * @throws IOException if the input can't be read, ends inside a quoted
+	 *             field, or a field or the record is too long
+	 */
+	public List<String> readRecord() throws IOException {
+		int c = read();
+		if (c == -1)
+			return null;
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		int recordLength = 0;
+		while (true) {
+			if (field.length() > maxFieldLength)
+				throw new IOException("Record " + (recordNumber + 1) + " has a field longer than " + maxFieldLength + " characters");
+			if (recordLength + field.length() > maxRecordLength)
+				throw new IOException("Record " + (recordNumber + 1) + " is longer than " + maxRecordLength + " characters");
+			if (quoted) {
+				if (c == -1)
+					throw new IOException("Record " + (recordNumber + 1) + " ends inside a quoted field");
+				if (c == QUOTE) {
+					int peek = read();
+					if (peek == QUOTE) {
+						field.append(QUOTE);
+					} else {
+						quoted = false;
+						unread(peek);
+					}
+				} else {
+					field.append((char) c);
+				}
+			} else if (c == QUOTE && field.length() == 0) {
+				quoted = true;
+			} else if (c == SEPARATOR) {
+				recordLength += field.length();
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\n' || c == -1) {
+				break;
+			} else if (c == '\r') {
+				int peek = read();
+				if (peek != '\n')
+					unread(peek);
+				break;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+		fields.add(field.toString());
+		recordNumber++;
+		return fields;
+	}
+
+	/**
+	 * @return number of records read so far
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	private int read() throws IOException {
+		if (next != -2) {
+			int c = next;
+			next = -2;
+			return c;
+		}
+		return reader.read();
+	}
+
+	private void unread(int c) {
+		next = c;
+	}
+}
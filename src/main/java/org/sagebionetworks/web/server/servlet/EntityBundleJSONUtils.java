@@ -0,0 +1,135 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.StringWriter;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONWriter;
+import org.sagebionetworks.web.shared.EntityBundleTransport;
+
+/**
+ * Builds an EntityBundleTransport directly from the repository's entity bundle
+ * JSON. Each part is forwarded as the repository sent it, so no model objects
+ * are created and re-serialized on the way to the browser.
+ *
+ */
+public class EntityBundleJSONUtils {
+
+	/*
+	 * Field names of the repository's EntityBundle JSON.
+	 */
+	public static final String JSON_ENTITY = "entity";
+	public static final String JSON_ANNOTATIONS = "annotations";
+	public static final String JSON_PERMISSIONS = "permissions";
+	public static final String JSON_PATH = "path";
+	public static final String JSON_REFERENCED_BY = "referencedBy";
+	public static final String JSON_HAS_CHILDREN = "hasChildren";
+	public static final String JSON_ACL = "accessControlList";
+	public static final String JSON_ACCESS_REQUIREMENTS = "accessRequirements";
+	public static final String JSON_UNMET_ACCESS_REQUIREMENTS = "unmetAccessRequirements";
+	public static final String JSON_FILE_HANDLES = "fileHandles";
+
+	public static final String JSON_RESULTS = "results";
+	public static final String JSON_TOTAL_NUMBER_OF_RESULTS = "totalNumberOfResults";
+
+	/**
+	 * The repository URI of the bundle for the given entity (and optional version).
+	 * @param entityId
+	 * @param versionNumber null for the current version
+	 * @param partsMask
+	 * @return
+	 */
+	public static String getEntityBundleUri(String entityId, Long versionNumber, int partsMask) {
+		StringBuilder uri = new StringBuilder();
+		uri.append("/").append(ServiceUtils.REPOSVC_PATH_ENTITY).append("/").append(entityId);
+		if (versionNumber != null) {
+			uri.append("/version/").append(versionNumber);
+		}
+		uri.append("/bundle?mask=").append(partsMask);
+		return uri.toString();
+	}
+
+	/**
+	 * Copy the requested parts of the repository bundle JSON into a transport.
+	 * The ACL is only set when the repository included it (the entity is its
+	 * own benefactor); callers are responsible for resolving an inherited ACL.
+	 *
+	 * @param bundleJson
+	 * @param partsMask
+	 * @return
+	 * @throws JSONException
+	 */
+	public static EntityBundleTransport createTransport(JSONObject bundleJson, int partsMask) throws JSONException {
+		EntityBundleTransport ebt = new EntityBundleTransport();
+		if ((EntityBundleTransport.ENTITY & partsMask) > 0) {
+			ebt.setEntityJson(getPart(bundleJson, JSON_ENTITY));
+		}
+		if ((EntityBundleTransport.ANNOTATIONS & partsMask) > 0) {
+			ebt.setAnnotationsJson(getPart(bundleJson, JSON_ANNOTATIONS));
+		}
+		if ((EntityBundleTransport.PERMISSIONS & partsMask) > 0) {
+			ebt.setPermissionsJson(getPart(bundleJson, JSON_PERMISSIONS));
+		}
+		if ((EntityBundleTransport.ENTITY_PATH & partsMask) > 0) {
+			ebt.setEntityPathJson(getPart(bundleJson, JSON_PATH));
+		}
+		if ((EntityBundleTransport.ENTITY_REFERENCEDBY & partsMask) > 0) {
+			ebt.setEntityReferencedByJson(createPaginatedResultsJSON(bundleJson.optJSONArray(JSON_REFERENCED_BY)));
+		}
+		if ((EntityBundleTransport.HAS_CHILDREN & partsMask) > 0 && bundleJson.has(JSON_HAS_CHILDREN)) {
+			ebt.setHashChildren(bundleJson.getBoolean(JSON_HAS_CHILDREN));
+		}
+		if ((EntityBundleTransport.ACL & partsMask) > 0) {
+			ebt.setAclJson(getPart(bundleJson, JSON_ACL));
+		}
+		if ((EntityBundleTransport.ACCESS_REQUIREMENTS & partsMask) != 0) {
+			ebt.setAccessRequirementsJson(getArrayPart(bundleJson, JSON_ACCESS_REQUIREMENTS));
+		}
+		if ((EntityBundleTransport.UNMET_ACCESS_REQUIREMENTS & partsMask) != 0) {
+			ebt.setUnmetAccessRequirementsJson(getArrayPart(bundleJson, JSON_UNMET_ACCESS_REQUIREMENTS));
+		}
+		if ((EntityBundleTransport.FILE_HANDLES & partsMask) != 0 && bundleJson.has(JSON_FILE_HANDLES)) {
+			ebt.setFileHandlesJson(getArrayPart(bundleJson, JSON_FILE_HANDLES));
+		}
+		return ebt;
+	}
+
+	/**
+	 * Wrap the list in the PaginatedResults JSON the client expects. The list
+	 * is serialized as it is, without copying it into a new JSONObject.
+	 *
+	 * @param results may be null
+	 * @return
+	 * @throws JSONException
+	 */
+	public static String createPaginatedResultsJSON(JSONArray results) throws JSONException {
+		if (results == null) {
+			results = new JSONArray();
+		}
+		StringWriter out = new StringWriter();
+		new JSONWriter(out)
+			.object()
+				.key(JSON_TOTAL_NUMBER_OF_RESULTS).value(results.length())
+				.key(JSON_RESULTS).value(results)
+			.endObject();
+		return out.toString();
+	}
+
+	private static String getPart(JSONObject bundleJson, String key) {
+		Object part = bundleJson.opt(key);
+		if (part == null || JSONObject.NULL.equals(part)) {
+			return null;
+		}
+		return part.toString();
+	}
+
+	/**
+	 * The model based conversion always sent an array, even when the repository
+	 * left the list out.
+	 */
+	private static String getArrayPart(JSONObject bundleJson, String key) {
+		String part = getPart(bundleJson, key);
+		return part == null ? new JSONArray().toString() : part;
+	}
+}
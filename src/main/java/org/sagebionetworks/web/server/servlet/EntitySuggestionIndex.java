@@ -0,0 +1,182 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.repo.model.Project;
+
+/**
+ * In-memory prefix index over the names of public projects, used to suggest
+ * projects while the user types.
+ *
+ * Every word of a project name starts an entry in a sorted array of
+ * normalized (lower case) names, so a prefix lookup is a binary search
+ * followed by a short scan. The index is replaced as a whole on each refresh
+ * (readers never see a partially built index); refreshes only ask the
+ * repository for projects modified since the last refresh, with a periodic
+ * full reload to drop deleted projects and projects that are no longer
+ * public.
+ */
+public class EntitySuggestionIndex {
+	public static final int QUERY_PAGE_SIZE = 500;
+	public static final int MAX_PROJECTS = 50000;
+	public static final long FULL_REFRESH_INTERVAL_MS = 1000L*60L*60L;
+
+	public static final String QUERY_TOTAL_NUMBER_OF_RESULTS = "totalNumberOfResults";
+	public static final String QUERY_RESULTS = "results";
+	public static final String QUERY_PROJECT_ID = "project.id";
+	public static final String QUERY_PROJECT_NAME = "project.name";
+
+	private volatile Snapshot snapshot = new Snapshot(new HashMap<String, String>());
+	private Long lastRefreshStart;
+	private Long lastFullRefresh;
+
+	/**
+	 * Bring the index up to date. Called from a single background thread.
+	 * @param synapseClient an anonymous client, so only public projects are indexed
+	 * @throws SynapseException
+	 * @throws JSONException
+	 */
+	public void refresh(org.sagebionetworks.client.SynapseClient synapseClient) throws SynapseException, JSONException {
+		long refreshStart = System.currentTimeMillis();
+		Map<String, String> projectNames;
+		if (lastFullRefresh == null || refreshStart - lastFullRefresh >= FULL_REFRESH_INTERVAL_MS) {
+			projectNames = new HashMap<String, String>();
+			loadProjects(synapseClient, "select id, name from project", projectNames);
+			lastFullRefresh = refreshStart;
+		} else {
+			projectNames = new HashMap<String, String>(snapshot.projectNames);
+			loadProjects(synapseClient, "select id, name from project where project.modifiedOn > " + lastRefreshStart, projectNames);
+		}
+		lastRefreshStart = refreshStart;
+		snapshot = new Snapshot(projectNames);
+	}
+
+	private void loadProjects(org.sagebionetworks.client.SynapseClient synapseClient, String query, Map<String, String> projectNames) throws SynapseException, JSONException {
+		long offset = 1;
+		long total;
+		do {
+			JSONObject page = synapseClient.query(query + " limit " + QUERY_PAGE_SIZE + " offset " + offset);
+			total = page.getLong(QUERY_TOTAL_NUMBER_OF_RESULTS);
+			JSONArray results = page.getJSONArray(QUERY_RESULTS);
+			for (int i = 0; i < results.length(); i++) {
+				JSONObject row = results.getJSONObject(i);
+				projectNames.put(row.getString(QUERY_PROJECT_ID), row.getString(QUERY_PROJECT_NAME));
+			}
+			if (results.length() == 0)
+				break;
+			offset += results.length();
+		} while (offset <= total && projectNames.size() < MAX_PROJECTS);
+	}
+
+	/**
+	 * @param prefix
+	 * @param limit
+	 * @return projects with a name (or a word of the name) starting with the prefix
+	 */
+	public List<EntityHeader> suggest(String prefix, int limit) {
+		return snapshot.suggest(normalize(prefix), limit);
+	}
+
+	public int size() {
+		return snapshot.projectNames.size();
+	}
+
+	public static String normalize(String name) {
+		return name == null ? "" : name.trim().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * @return true if the name, or one of its words, starts with the (normalized) prefix
+	 */
+	public static boolean matches(String name, String normalizedPrefix) {
+		String normalizedName = normalize(name);
+		for (int start : getWordStarts(normalizedName)) {
+			if (normalizedName.startsWith(normalizedPrefix, start))
+				return true;
+		}
+		return false;
+	}
+
+	private static List<Integer> getWordStarts(String normalizedName) {
+		List<Integer> starts = new ArrayList<Integer>();
+		for (int i = 0; i < normalizedName.length(); i++) {
+			if (Character.isLetterOrDigit(normalizedName.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(normalizedName.charAt(i-1))))
+				starts.add(i);
+		}
+		return starts;
+	}
+
+	/**
+	 * An immutable index over a set of project names.
+	 */
+	private static class Snapshot {
+		final Map<String, String> projectNames;
+		final String[] keys;
+		final String[] keyIds;
+
+		Snapshot(Map<String, String> projectNames) {
+			this.projectNames = projectNames;
+			List<String[]> entries = new ArrayList<String[]>();
+			for (Map.Entry<String, String> project : projectNames.entrySet()) {
+				String normalizedName = normalize(project.getValue());
+				for (int start : getWordStarts(normalizedName)) {
+					entries.add(new String[] {normalizedName.substring(start), project.getKey()});
+				}
+			}
+			String[][] sorted = entries.toArray(new String[entries.size()][]);
+			Arrays.sort(sorted, new Comparator<String[]>() {
+				@Override
+				public int compare(String[] o1, String[] o2) {
+					return o1[0].compareTo(o2[0]);
+				}
+			});
+			keys = new String[sorted.length];
+			keyIds = new String[sorted.length];
+			for (int i = 0; i < sorted.length; i++) {
+				keys[i] = sorted[i][0];
+				keyIds[i] = sorted[i][1];
+			}
+		}
+
+		List<EntityHeader> suggest(String normalizedPrefix, int limit) {
+			List<EntityHeader> suggestions = new ArrayList<EntityHeader>();
+			if (normalizedPrefix.length() == 0)
+				return suggestions;
+			//first key that is not less than the prefix
+			int i = 0;
+			int high = keys.length;
+			while (i < high) {
+				int mid = (i + high) >>> 1;
+				if (keys[mid].compareTo(normalizedPrefix) < 0)
+					i = mid + 1;
+				else
+					high = mid;
+			}
+			Set<String> added = new HashSet<String>();
+			for (; i < keys.length && suggestions.size() < limit && keys[i].startsWith(normalizedPrefix); i++) {
+				String id = keyIds[i];
+				if (added.add(id)) {
+					EntityHeader header = new EntityHeader();
+					header.setId(id);
+					header.setName(projectNames.get(id));
+					header.setType(Project.class.getName());
+					suggestions.add(header);
+				}
+			}
+			return suggestions;
+		}
+	}
+}
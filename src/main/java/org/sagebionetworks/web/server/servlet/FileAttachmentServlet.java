@@ -65,6 +65,7 @@ public class FileAttachmentServlet extends HttpServlet {
 	 *
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider synapseProvider) {
 		this.synapseProvider = synapseProvider;
 	}
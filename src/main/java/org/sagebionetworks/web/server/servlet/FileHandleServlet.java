@@ -8,6 +8,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.util.Enumeration;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletException;
@@ -60,6 +61,16 @@ public class FileHandleServlet extends HttpServlet {
 
 	private static Logger logger = Logger.getLogger(FileUpload.class.getName());
 	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * A missing preview is retried once after a short wait, since it is often
+	 * still being made. Only this many requests wait at once; beyond that the
+	 * preview unavailable image is shown right away, so a burst of missing
+	 * previews does not hold the servlet threads.
+	 */
+	public static final int MAX_PREVIEW_RETRY_WAITS = 10;
+	public static final long PREVIEW_RETRY_WAIT_MS = 1500;
+	private static final Semaphore previewRetryWaits = new Semaphore(MAX_PREVIEW_RETRY_WAITS);
 
 	protected static final ThreadLocal<HttpServletRequest> perThreadRequest = new ThreadLocal<HttpServletRequest>();
 	
@@ -81,6 +92,7 @@ public class FileHandleServlet extends HttpServlet {
 	 *
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider synapseProvider) {
 		this.synapseProvider = synapseProvider;
 	}
@@ -159,8 +171,13 @@ public class FileHandleServlet extends HttpServlet {
 		} catch (SynapseNotFoundException e) {
 			// Retry preview once, after 1.5 seconds
 			if(isPreview) {
+				if (!previewRetryWaits.tryAcquire()) {
+					// too many waiting already, show generic image
+					doRedirect(request, response, isProxy, new URL(getBaseUrl(request) + WebConstants.PREVIEW_UNAVAILABLE_PATH));
+					return;
+				}
 				try {
-					Thread.sleep(1500);
+					Thread.sleep(PREVIEW_RETRY_WAIT_MS);
 					resolveUrlAndRedirect(request, response, client, isProxy, teamId,
 							entityId, entityVersion, tableColumnId, tableRowId,
 							tableRowVersionNumbrer, ownerId, ownerType, fileName,
@@ -172,7 +189,9 @@ public class FileHandleServlet extends HttpServlet {
 					doRedirect(request, response, isProxy, new URL(getBaseUrl(request) + WebConstants.PREVIEW_UNAVAILABLE_PATH));
 				} catch (SynapseException e1) { 
 					throw new ServletException(e);
-				}				
+				} finally {
+					previewRetryWaits.release();
+				}
 			}			
 		} catch (SynapseException e) {
 			throw new ServletException(e);
@@ -13,10 +13,9 @@ import com.atlassian.jira.rest.client.IssueRestClient;
 import com.atlassian.jira.rest.client.domain.BasicIssue;
 import com.atlassian.jira.rest.client.domain.input.IssueInputBuilder;
 import com.atlassian.util.concurrent.Promise;
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
-public class JiraClientImpl extends RemoteServiceServlet implements JiraClient {
+public class JiraClientImpl extends TracedRemoteServiceServlet implements JiraClient {
 	private static Logger logger = Logger.getLogger(JiraClientImpl.class.getName());
 		
 	private JiraJavaClient jiraJavaClient;
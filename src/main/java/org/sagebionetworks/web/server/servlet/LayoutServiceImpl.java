@@ -13,8 +13,6 @@ import org.sagebionetworks.web.client.services.LayoutService;
 import org.sagebionetworks.web.server.servlet.layout.ProvTreeNodeExtentProvider;
 import org.sagebionetworks.web.shared.provenance.ProvTreeNode;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
-
 /**
  * The server-side implementation of the DatasetService. This serverlet will
  * communicate with the platform API via REST.
@@ -23,7 +21,7 @@ import com.google.gwt.user.server.rpc.RemoteServiceServlet;
  * 
  */
 @SuppressWarnings("serial")
-public class LayoutServiceImpl extends RemoteServiceServlet implements LayoutService {
+public class LayoutServiceImpl extends TracedRemoteServiceServlet implements LayoutService {
 
 	private static Logger logger = Logger.getLogger(LayoutServiceImpl.class
 			.getName());
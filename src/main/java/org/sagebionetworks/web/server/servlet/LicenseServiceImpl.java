@@ -20,10 +20,9 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
-public class LicenseServiceImpl extends RemoteServiceServlet implements LicenceService {
+public class LicenseServiceImpl extends TracedRemoteServiceServlet implements LicenceService {
 
 	private static final long serialVersionUID = 1L;
 
@@ -28,10 +28,9 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
-public class LinkedInServiceImpl extends RemoteServiceServlet implements LinkedInService {
+public class LinkedInServiceImpl extends TracedRemoteServiceServlet implements LinkedInService {
 	private static Logger logger = Logger.getLogger(LinkedInServiceImpl.class.getName());
 	
 	// OAuth service for authentication and integration with LinkedIn
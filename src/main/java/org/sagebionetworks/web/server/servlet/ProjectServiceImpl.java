@@ -14,7 +14,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
 /**
@@ -25,7 +24,7 @@ import com.google.inject.Inject;
  * 
  */
 @SuppressWarnings("serial")
-public class ProjectServiceImpl extends RemoteServiceServlet implements
+public class ProjectServiceImpl extends TracedRemoteServiceServlet implements
 		ProjectService {
 
 	private static Logger logger = Logger.getLogger(ProjectServiceImpl.class
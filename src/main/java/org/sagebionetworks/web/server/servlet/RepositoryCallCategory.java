@@ -0,0 +1,74 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of repository calls that get their own bulkhead and circuit
+ * breaker, so a slow search or table query backend does not hold the threads
+ * that entity reads need.
+ */
+public enum RepositoryCallCategory {
+	READ(200),
+	WRITE(50),
+	SEARCH(40),
+	TABLE_QUERY(40),
+	UPLOAD(20);
+
+	/**
+	 * The Synapse Java client methods the portal calls that are not reads.
+	 * Every other method is a READ.
+	 */
+	private static final Map<String, RepositoryCallCategory> METHOD_CATEGORIES = new HashMap<String, RepositoryCallCategory>();
+	static {
+		put(SEARCH, "search");
+		put(TABLE_QUERY, "queryTableEntity", "getColumnModelsForTableEntity", "getFileHandlesFromTable",
+				"getTableFileHandleTemporaryUrl", "getTableFileHandlePreviewTemporaryUrl");
+		put(UPLOAD, "createChunkedFileUploadToken", "createChunkedPresignedUrl", "startUploadDeamon",
+				"getCompleteUploadDaemonStatus", "createFileHandle", "createExternalFileHandle",
+				"waitForPreviewToBeCreated", "createAttachmentPresignedUrl", "uploadAttachmentToSynapse",
+				"uploadLocationableToSynapse", "createUserProfileAttachmentPresignedUrl",
+				"uploadUserProfileAttachmentToSynapse");
+		put(WRITE, "createEntity", "putEntity", "updateAnnotations", "deleteEntityById", "deleteEntityVersionById",
+				"updateExternalLocationableToSynapse", "createEntityDoi",
+				"createACL", "updateACL", "deleteACL", "updateEvaluationAcl",
+				"createAccessRequirement", "createLockAccessRequirement", "createAccessApproval",
+				"createWikiPage", "updateWikiPage", "deleteWikiPage",
+				"appendRowsToTable", "deleteRowsFromTable", "createColumnModel",
+				"addFavorite", "removeFavorite", "createSubmission",
+				"createTeam", "updateTeam", "deleteTeam", "addTeamMember", "removeTeamMember", "setTeamMemberPermissions",
+				"createMembershipInvitation", "deleteMembershipInvitation", "createMembershipRequest", "deleteMembershipRequest",
+				"createUser", "updateMyProfile", "changePassword", "sendPasswordResetEmail", "signTermsOfUse",
+				"addEmail", "additionalEmailValidation", "setNotificationEmail", "invalidateApiKey",
+				"sendStringMessage", "submitCertifiedUserTestResponse");
+	}
+
+	private static void put(RepositoryCallCategory category, String... methodNames) {
+		for (String methodName : methodNames) {
+			METHOD_CATEGORIES.put(methodName, category);
+		}
+	}
+
+	private int defaultLimit;
+
+	RepositoryCallCategory(int defaultLimit) {
+		this.defaultLimit = defaultLimit;
+	}
+
+	/**
+	 * @return concurrent calls allowed when no limit is configured
+	 */
+	public int getDefaultLimit() {
+		return defaultLimit;
+	}
+
+	/**
+	 * Classify a Synapse Java client method by its name.
+	 * @param methodName
+	 * @return the category of the method, READ if it is not listed
+	 */
+	public static RepositoryCallCategory forMethod(String methodName) {
+		RepositoryCallCategory category = METHOD_CATEGORIES.get(methodName);
+		return category == null ? READ : category;
+	}
+}
@@ -0,0 +1,61 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+
+/**
+ * Records the repository calls of a Synapse Java client into the
+ * {@link RequestTrace} of the request that created the client, and tags the
+ * calls with the request ID.
+ */
+public class RepositoryCallTracer {
+
+	/**
+	 * @param client
+	 * @return the client, recording into the trace of the current request
+	 *         (the client itself if there is none)
+	 */
+	public static SynapseClient wrap(final SynapseClient client) {
+		final RequestTrace trace = RequestTrace.current();
+		if (trace == null)
+			return client;
+		client.appendUserAgent(" " + RequestTrace.USER_AGENT_REQUEST_ID_PREFIX + trace.getRequestId());
+		return (SynapseClient) Proxy.newProxyInstance(SynapseClient.class.getClassLoader(),
+				new Class[] { SynapseClient.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (!RepositoryGuard.isGuarded(method))
+							return invokeTarget(client, method, args);
+						long start = System.currentTimeMillis();
+						String outcome = RequestTrace.OUTCOME_OK;
+						try {
+							return invokeTarget(client, method, args);
+						} catch (Throwable t) {
+							outcome = getOutcome(t);
+							throw t;
+						} finally {
+							trace.recordCall(method.getName(), start, System.currentTimeMillis() - start, outcome);
+						}
+					}
+				});
+	}
+
+	public static String getOutcome(Throwable t) {
+		if (t instanceof SynapseServerException)
+			return Integer.toString(((SynapseServerException) t).getStatusCode());
+		return t.getClass().getSimpleName();
+	}
+
+	private static Object invokeTarget(SynapseClient client, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(client, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
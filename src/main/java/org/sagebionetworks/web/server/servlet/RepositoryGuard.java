@@ -0,0 +1,251 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseBadRequestException;
+import org.sagebionetworks.client.exceptions.SynapseForbiddenException;
+import org.sagebionetworks.client.exceptions.SynapseNotFoundException;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.client.exceptions.SynapseUnauthorizedException;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.ServerConstants;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Puts a bulkhead and a circuit breaker per {@link RepositoryCallCategory} in
+ * front of the Synapse Java client. When the repository slows down, callers
+ * of a category wait a bounded time for a slot and are then turned away, and
+ * a category that keeps failing or running slow is failed fast until it
+ * recovers, so the servlet threads stay free for everything else.
+ *
+ * Calls turned away fail with a 503 {@link SynapseServerException}. Calls
+ * that can not throw a SynapseException (setters of the client) are not
+ * guarded.
+ *
+ * One instance is bound as a singleton and injected into the
+ * {@link SynapseProviderImpl}; the limits are configured from
+ * ServerConstants.properties.
+ */
+public class RepositoryGuard {
+	public static final long DEFAULT_BULKHEAD_WAIT_MS = 5000;
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MINIMUM_CALLS = 10;
+	public static final int DEFAULT_FAILURE_PERCENT = 50;
+	public static final long DEFAULT_SLOW_CALL_MS = 10000;
+	public static final long DEFAULT_OPEN_MS = 30000;
+	public static final String REJECTED_MESSAGE = "Synapse is not responding to %s calls right now, please try again shortly";
+
+	static private Log log = LogFactory.getLog(RepositoryGuard.class);
+
+	private Map<RepositoryCallCategory, Integer> limits = new EnumMap<RepositoryCallCategory, Integer>(RepositoryCallCategory.class);
+	private long bulkheadWaitMillis = DEFAULT_BULKHEAD_WAIT_MS;
+	private int failurePercent = DEFAULT_FAILURE_PERCENT;
+	private long slowCallMillis = DEFAULT_SLOW_CALL_MS;
+	private long openMillis = DEFAULT_OPEN_MS;
+	private volatile Map<RepositoryCallCategory, Guard> guards;
+
+	public RepositoryGuard() {
+		for (RepositoryCallCategory category : RepositoryCallCategory.values()) {
+			limits.put(category, category.getDefaultLimit());
+		}
+		rebuild();
+	}
+
+	/**
+	 * @param limitsValue comma separated category:limit pairs, for example "READ:200,SEARCH:40".
+	 *            Categories that are not listed keep their limit.
+	 */
+	@Inject(optional=true)
+	public synchronized void setBulkheadLimits(@Named(ServerConstants.KEY_REPOSITORY_BULKHEAD_LIMITS) String limitsValue) {
+		for (String pair : limitsValue.split(",")) {
+			String[] parts = pair.trim().split(":");
+			if (parts.length != 2) {
+				log.warn("Ignoring repository bulkhead limit " + pair);
+				continue;
+			}
+			try {
+				limits.put(RepositoryCallCategory.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+			} catch (IllegalArgumentException e) {
+				log.warn("Ignoring repository bulkhead limit " + pair);
+			}
+		}
+		rebuild();
+	}
+
+	@Inject(optional=true)
+	public synchronized void setBulkheadWaitMillis(@Named(ServerConstants.KEY_REPOSITORY_BULKHEAD_WAIT_MS) long bulkheadWaitMillis) {
+		this.bulkheadWaitMillis = bulkheadWaitMillis;
+		rebuild();
+	}
+
+	@Inject(optional=true)
+	public synchronized void setFailurePercent(@Named(ServerConstants.KEY_REPOSITORY_BREAKER_FAILURE_PERCENT) int failurePercent) {
+		this.failurePercent = failurePercent;
+		rebuild();
+	}
+
+	@Inject(optional=true)
+	public synchronized void setSlowCallMillis(@Named(ServerConstants.KEY_REPOSITORY_BREAKER_SLOW_CALL_MS) long slowCallMillis) {
+		this.slowCallMillis = slowCallMillis;
+		rebuild();
+	}
+
+	@Inject(optional=true)
+	public synchronized void setOpenMillis(@Named(ServerConstants.KEY_REPOSITORY_BREAKER_OPEN_MS) long openMillis) {
+		this.openMillis = openMillis;
+		rebuild();
+	}
+
+	private void rebuild() {
+		Map<RepositoryCallCategory, Guard> newGuards = new EnumMap<RepositoryCallCategory, Guard>(RepositoryCallCategory.class);
+		for (RepositoryCallCategory category : RepositoryCallCategory.values()) {
+			newGuards.put(category, new Guard(
+					new Bulkhead(limits.get(category), bulkheadWaitMillis),
+					createCircuitBreaker(DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, failurePercent, slowCallMillis, openMillis)));
+		}
+		guards = newGuards;
+	}
+
+	/**
+	 * Unit tests override this to control time.
+	 */
+	protected CircuitBreaker createCircuitBreaker(int windowSize, int minimumCalls, int failurePercent, long slowCallMillis, long openMillis) {
+		return new CircuitBreaker(windowSize, minimumCalls, failurePercent, slowCallMillis, openMillis);
+	}
+
+	public Bulkhead getBulkhead(RepositoryCallCategory category) {
+		return guards.get(category).bulkhead;
+	}
+
+	public CircuitBreaker getCircuitBreaker(RepositoryCallCategory category) {
+		return guards.get(category).breaker;
+	}
+
+	/**
+	 * @param client
+	 * @return the client, with its calls guarded
+	 */
+	public SynapseClient wrap(final SynapseClient client) {
+		return (SynapseClient) Proxy.newProxyInstance(SynapseClient.class.getClassLoader(),
+				new Class[] { SynapseClient.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (!isGuarded(method))
+							return invokeTarget(client, method, args);
+						return invokeGuarded(RepositoryCallCategory.forMethod(method.getName()), client, method, args);
+					}
+				});
+	}
+
+	private Object invokeGuarded(RepositoryCallCategory category, SynapseClient client, Method method, Object[] args) throws Throwable {
+		Guard guard = guards.get(category);
+		// take the slot first, so a half open breaker does not give its trial to a call that then waits
+		if (!guard.bulkhead.tryAcquire()) {
+			log.warn("Repository " + category + " bulkhead full, rejected " + method.getName());
+			throw new SynapseServerException(HttpStatus.SC_SERVICE_UNAVAILABLE, String.format(REJECTED_MESSAGE, category));
+		}
+		try {
+			if (!guard.breaker.allowCall())
+				throw new SynapseServerException(HttpStatus.SC_SERVICE_UNAVAILABLE, String.format(REJECTED_MESSAGE, category));
+			CircuitBreaker.State before = guard.breaker.getState();
+			long start = System.currentTimeMillis();
+			boolean failed = false;
+			try {
+				return invokeTarget(client, method, args);
+			} catch (Throwable t) {
+				failed = isFailure(t);
+				throw t;
+			} finally {
+				guard.breaker.recordResult(failed, System.currentTimeMillis() - start);
+				CircuitBreaker.State after = guard.breaker.getState();
+				if (before != after)
+					log.warn("Repository " + category + " circuit breaker is now " + after + ": " + guard.breaker);
+			}
+		} finally {
+			guard.bulkhead.release();
+		}
+	}
+
+	private static Object invokeTarget(SynapseClient client, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(client, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Only methods that can report a repository error are guarded.
+	 */
+	public static boolean isGuarded(Method method) {
+		for (Class<?> exceptionType : method.getExceptionTypes()) {
+			if (exceptionType.isAssignableFrom(SynapseServerException.class))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Errors caused by the request (not found, forbidden, bad request) and
+	 * read only mode say nothing about the health of the repository.
+	 */
+	public static boolean isFailure(Throwable t) {
+		if (t instanceof SynapseNotFoundException || t instanceof SynapseForbiddenException
+				|| t instanceof SynapseBadRequestException || t instanceof SynapseUnauthorizedException)
+			return false;
+		if (t instanceof SynapseServerException) {
+			SynapseServerException sse = (SynapseServerException) t;
+			if (sse.getMessage() != null && sse.getMessage().contains("READ_ONLY"))
+				return false;
+			return sse.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+		}
+		return true;
+	}
+
+	/**
+	 * @return bulkhead and circuit breaker state of each category, as json
+	 * @throws JSONObjectAdapterException
+	 */
+	public String getStatusJson() throws JSONObjectAdapterException {
+		JSONObjectAdapter status = new JSONObjectAdapterImpl();
+		for (RepositoryCallCategory category : RepositoryCallCategory.values()) {
+			Bulkhead bulkhead = getBulkhead(category);
+			CircuitBreaker breaker = getCircuitBreaker(category);
+			JSONObjectAdapter categoryStatus = status.createNew();
+			categoryStatus.put("state", breaker.getState().name());
+			categoryStatus.put("limit", (long) bulkhead.getLimit());
+			categoryStatus.put("active", (long) bulkhead.getActiveCount());
+			categoryStatus.put("bulkheadRejected", bulkhead.getRejectedCount());
+			categoryStatus.put("calls", breaker.getCallCount());
+			categoryStatus.put("failures", breaker.getFailureCount());
+			categoryStatus.put("slowCalls", breaker.getSlowCallCount());
+			categoryStatus.put("breakerRejected", breaker.getRejectedCount());
+			categoryStatus.put("opened", breaker.getOpenCount());
+			categoryStatus.put("windowBadPercent", (long) breaker.getWindowBadPercent());
+			status.put(category.name(), categoryStatus);
+		}
+		return status.toJSONString();
+	}
+
+	private static class Guard {
+		final Bulkhead bulkhead;
+		final CircuitBreaker breaker;
+		Guard(Bulkhead bulkhead, CircuitBreaker breaker) {
+			this.bulkhead = bulkhead;
+			this.breaker = breaker;
+		}
+	}
+}
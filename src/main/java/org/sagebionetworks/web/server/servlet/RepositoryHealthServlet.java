@@ -0,0 +1,43 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+
+import com.google.inject.Inject;
+
+/**
+ * Reports the bulkheads and circuit breakers of the repository calls made by
+ * this portal node, as json.
+ */
+public class RepositoryHealthServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private RepositoryGuard repositoryGuard;
+
+	@Inject
+	public void setRepositoryGuard(RepositoryGuard repositoryGuard) {
+		this.repositoryGuard = repositoryGuard;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String status;
+		try {
+			status = repositoryGuard.getStatusJson();
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(status);
+	}
+}
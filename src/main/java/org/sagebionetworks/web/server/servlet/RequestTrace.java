@@ -0,0 +1,174 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sagebionetworks.schema.adapter.JSONArrayAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+
+/**
+ * The repository calls made for one portal request: method, time and outcome
+ * of each. A trace is started by the TimingFilter on the request thread;
+ * clients created on that thread record into it, also when they are used from
+ * a pool thread.
+ */
+public class RequestTrace {
+	public static final String REQUEST_ID_HEADER = "X-Request-Id";
+	/**
+	 * Appended to the user agent of the repository calls, so the repository
+	 * logs can be tied to the portal request
+	 */
+	public static final String USER_AGENT_REQUEST_ID_PREFIX = "PortalRequest/";
+	public static final int MAX_CALLS = 200;
+	public static final String OUTCOME_OK = "OK";
+
+	private static final ThreadLocal<RequestTrace> current = new ThreadLocal<RequestTrace>();
+
+	private final String requestId;
+	private final String path;
+	private final long startMillis;
+	private volatile String rpcMethod;
+	private volatile long elapsedMillis = -1;
+	private List<Call> calls = new ArrayList<Call>();
+	private int droppedCallCount = 0;
+
+	public RequestTrace(String requestId, String path, long startMillis) {
+		this.requestId = requestId;
+		this.path = path;
+		this.startMillis = startMillis;
+	}
+
+	/**
+	 * Start the trace of the request on this thread.
+	 * @param requestId
+	 * @param path
+	 * @return
+	 */
+	public static RequestTrace start(String requestId, String path) {
+		RequestTrace trace = new RequestTrace(requestId, path, System.currentTimeMillis());
+		current.set(trace);
+		return trace;
+	}
+
+	/**
+	 * @return the trace of the request on this thread, or null
+	 */
+	public static RequestTrace current() {
+		return current.get();
+	}
+
+	/**
+	 * End the trace of the request on this thread.
+	 * @return the trace, or null if none was started
+	 */
+	public static RequestTrace end() {
+		RequestTrace trace = current.get();
+		current.remove();
+		if (trace != null)
+			trace.elapsedMillis = System.currentTimeMillis() - trace.startMillis;
+		return trace;
+	}
+
+	public synchronized void recordCall(String method, long callStartMillis, long durationMillis, String outcome) {
+		if (calls.size() >= MAX_CALLS) {
+			droppedCallCount++;
+			return;
+		}
+		calls.add(new Call(method, callStartMillis - startMillis, durationMillis, outcome));
+	}
+
+	public String getRequestId() {
+		return requestId;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getRpcMethod() {
+		return rpcMethod;
+	}
+
+	public void setRpcMethod(String rpcMethod) {
+		this.rpcMethod = rpcMethod;
+	}
+
+	/**
+	 * @return time of the whole request, or -1 while it runs
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public synchronized List<Call> getCalls() {
+		return new ArrayList<Call>(calls);
+	}
+
+	/**
+	 * @return sum of the repository call times (they may have overlapped)
+	 */
+	public synchronized long getRepositoryMillis() {
+		long total = 0;
+		for (Call call : calls) {
+			total += call.durationMillis;
+		}
+		return total;
+	}
+
+	public synchronized JSONObjectAdapter writeToJSONObject() throws JSONObjectAdapterException {
+		JSONObjectAdapter json = new JSONObjectAdapterImpl();
+		json.put("requestId", requestId);
+		json.put("path", path);
+		if (rpcMethod != null)
+			json.put("rpcMethod", rpcMethod);
+		json.put("startMillis", startMillis);
+		json.put("elapsedMillis", elapsedMillis);
+		json.put("droppedCalls", (long) droppedCallCount);
+		JSONArrayAdapter callsJson = json.createNewArray();
+		for (int i = 0; i < calls.size(); i++) {
+			callsJson.put(i, calls.get(i).writeToJSONObject(json.createNew()));
+		}
+		json.put("calls", callsJson);
+		return json;
+	}
+
+	public static class Call {
+		private final String method;
+		private final long offsetMillis;
+		private final long durationMillis;
+		private final String outcome;
+		public Call(String method, long offsetMillis, long durationMillis, String outcome) {
+			this.method = method;
+			this.offsetMillis = offsetMillis;
+			this.durationMillis = durationMillis;
+			this.outcome = outcome;
+		}
+		public String getMethod() {
+			return method;
+		}
+		/**
+		 * @return start of the call, from the start of the request
+		 */
+		public long getOffsetMillis() {
+			return offsetMillis;
+		}
+		public long getDurationMillis() {
+			return durationMillis;
+		}
+		/**
+		 * @return OK, the status code of a repository error, or the exception class
+		 */
+		public String getOutcome() {
+			return outcome;
+		}
+		public JSONObjectAdapter writeToJSONObject(JSONObjectAdapter json) throws JSONObjectAdapterException {
+			json.put("method", method);
+			json.put("offsetMillis", offsetMillis);
+			json.put("durationMillis", durationMillis);
+			json.put("outcome", outcome);
+			return json;
+		}
+	}
+}
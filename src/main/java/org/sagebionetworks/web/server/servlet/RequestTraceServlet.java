@@ -0,0 +1,66 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONArrayAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+
+import com.google.inject.Inject;
+
+/**
+ * Serves the repository call traces of recent slow requests as json: the one
+ * given by the requestId parameter (the X-Request-Id of its response), or
+ * all of them.
+ */
+public class RequestTraceServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+	public static final String REQUEST_ID_PARAM = "requestId";
+
+	private RequestTraceStore requestTraceStore;
+
+	@Inject
+	public void setRequestTraceStore(RequestTraceStore requestTraceStore) {
+		this.requestTraceStore = requestTraceStore;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String result;
+		try {
+			String requestId = request.getParameter(REQUEST_ID_PARAM);
+			if (requestId != null) {
+				RequestTrace trace = requestTraceStore.get(requestId);
+				if (trace == null) {
+					response.sendError(HttpServletResponse.SC_NOT_FOUND, "No trace of request " + requestId + " is kept");
+					return;
+				}
+				result = trace.writeToJSONObject().toJSONString();
+			} else {
+				JSONObjectAdapter json = new JSONObjectAdapterImpl();
+				json.put("slowRequestMillis", requestTraceStore.getSlowRequestMillis());
+				JSONArrayAdapter traces = json.createNewArray();
+				int i = 0;
+				for (RequestTrace trace : requestTraceStore.getRecent()) {
+					traces.put(i++, trace.writeToJSONObject());
+				}
+				json.put("traces", traces);
+				result = json.toJSONString();
+			}
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(result);
+	}
+}
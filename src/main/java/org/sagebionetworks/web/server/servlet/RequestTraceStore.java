@@ -0,0 +1,75 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sagebionetworks.web.server.ServerConstants;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Keeps the traces of the last {@link #CAPACITY} slow requests, so they can be
+ * looked at after the fact.
+ */
+public class RequestTraceStore {
+	public static final int CAPACITY = 100;
+	public static final long DEFAULT_SLOW_REQUEST_MS = 2000;
+
+	private long slowRequestMillis = DEFAULT_SLOW_REQUEST_MS;
+	private final RequestTrace[] traces = new RequestTrace[CAPACITY];
+	private int next = 0;
+
+	@Inject(optional=true)
+	public void setSlowRequestMillis(@Named(ServerConstants.KEY_TRACE_SLOW_REQUEST_MS) long slowRequestMillis) {
+		this.slowRequestMillis = slowRequestMillis;
+	}
+
+	public long getSlowRequestMillis() {
+		return slowRequestMillis;
+	}
+
+	/**
+	 * Keep the trace of a finished request, if it was slow.
+	 * @param trace
+	 * @return true if it was kept
+	 */
+	public boolean add(RequestTrace trace) {
+		if (trace.getElapsedMillis() < slowRequestMillis)
+			return false;
+		synchronized (traces) {
+			traces[next] = trace;
+			next = (next + 1) % CAPACITY;
+		}
+		return true;
+	}
+
+	/**
+	 * @param requestId
+	 * @return the trace of the request, or null if it was not kept
+	 */
+	public RequestTrace get(String requestId) {
+		synchronized (traces) {
+			for (RequestTrace trace : traces) {
+				if (trace != null && trace.getRequestId().equals(requestId))
+					return trace;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the kept traces, most recent first
+	 */
+	public List<RequestTrace> getRecent() {
+		List<RequestTrace> recent = new ArrayList<RequestTrace>();
+		synchronized (traces) {
+			for (int i = 1; i <= CAPACITY; i++) {
+				RequestTrace trace = traces[(next - i + CAPACITY) % CAPACITY];
+				if (trace != null)
+					recent.add(trace);
+			}
+		}
+		return recent;
+	}
+}
@@ -17,17 +17,19 @@ import javax.servlet.ServletException;
 
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.RssService;
+import org.sagebionetworks.web.server.DiskCache;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
+import com.google.inject.Inject;
 
-public class RssServiceImpl extends RemoteServiceServlet implements RssService {
+public class RssServiceImpl extends TracedRemoteServiceServlet implements RssService {
 	private static final long serialVersionUID = 1L;
 	
 	// Cache all known responses!
 	private Map<String, String> cache = new ConcurrentHashMap<String, String>();
 	private Collection<CacheProvider> registeredCacheProviders = Collections.synchronizedCollection(new ArrayList<CacheProvider>());
 	private static Logger logger = Logger.getLogger(RssServiceImpl.class.getName());
+	private DiskCache diskCache;
 	
 	public RssServiceImpl() {
 		//register all known cache providers
@@ -44,6 +46,16 @@ public class RssServiceImpl extends RemoteServiceServlet implements RssService {
 		}
 	}
 	
+	/**
+	 * Content from before a restart is served from disk until the first update.
+	 * 
+	 * @param diskCache
+	 */
+	@Inject
+	public void setDiskCache(DiskCache diskCache) {
+		this.diskCache = diskCache;
+	}
+	
 	protected void registerCacheProviders(List<CacheProvider> providers) {
 		registeredCacheProviders.addAll(providers);
 	}
@@ -80,17 +92,26 @@ public class RssServiceImpl extends RemoteServiceServlet implements RssService {
 		//go through all cache providers, and update the content
 		for (Iterator it = registeredCacheProviders.iterator(); it.hasNext();) {
 			CacheProvider cacheProvider = (CacheProvider) it.next();
-			cache.put(cacheProvider.getCacheProviderId(), cacheProvider.getValueToCache());
+			String value = cacheProvider.getValueToCache();
+			cache.put(cacheProvider.getCacheProviderId(), value);
+			if (diskCache != null)
+				diskCache.put(getDiskCacheKey(cacheProvider.getCacheProviderId()), value);
 		}
 		logger.info("finished cache update");
 	}
 	@Override
 	public String getCachedContent(String cacheproviderId) {
 		String cacheValue = cache.get(cacheproviderId);
+		if (cacheValue == null && diskCache != null)
+			cacheValue = diskCache.get(getDiskCacheKey(cacheproviderId));
 		if (cacheValue == null)
 			throw new IllegalArgumentException(DisplayConstants.ERROR_EXTERNAL_CONTENT_NOT_IN_CACHE + cacheproviderId);
 		return cacheValue;
 	}
 	
+	private static String getDiskCacheKey(String cacheProviderId) {
+		return "rss/" + cacheProviderId;
+	}
+	
 }
 
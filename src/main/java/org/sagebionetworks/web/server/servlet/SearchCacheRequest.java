@@ -0,0 +1,62 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.Serializable;
+
+/**
+ * Cache key for search results. The repository filters hits by the caller's
+ * access, so the session token is part of the key (null for anonymous
+ * searches, which are shared by all anonymous users).
+ */
+public class SearchCacheRequest implements Serializable {
+	private static final long serialVersionUID = -3626481427311880923L;
+	private String searchQueryJson;
+	private String sessionToken;
+	public SearchCacheRequest(String searchQueryJson, String sessionToken) {
+		super();
+		this.searchQueryJson = searchQueryJson;
+		this.sessionToken = sessionToken;
+	}
+	public String getSearchQueryJson() {
+		return searchQueryJson;
+	}
+	public void setSearchQueryJson(String searchQueryJson) {
+		this.searchQueryJson = searchQueryJson;
+	}
+	public String getSessionToken() {
+		return sessionToken;
+	}
+	public void setSessionToken(String sessionToken) {
+		this.sessionToken = sessionToken;
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((searchQueryJson == null) ? 0 : searchQueryJson.hashCode());
+		result = prime * result
+				+ ((sessionToken == null) ? 0 : sessionToken.hashCode());
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SearchCacheRequest other = (SearchCacheRequest) obj;
+		if (searchQueryJson == null) {
+			if (other.searchQueryJson != null)
+				return false;
+		} else if (!searchQueryJson.equals(other.searchQueryJson))
+			return false;
+		if (sessionToken == null) {
+			if (other.sessionToken != null)
+				return false;
+		} else if (!sessionToken.equals(other.sessionToken))
+			return false;
+		return true;
+	}
+}
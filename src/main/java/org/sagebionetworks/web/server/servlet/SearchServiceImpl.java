@@ -34,10 +34,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
-public class SearchServiceImpl extends RemoteServiceServlet implements
+public class SearchServiceImpl extends TracedRemoteServiceServlet implements
 		SearchService {
 
 	private static Logger logger = Logger.getLogger(SearchServiceImpl.class.getName());
@@ -50,6 +50,7 @@ public class SimpleFileHandleUploadServlet extends HttpServlet {
 	 *
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider synapseProvider) {
 		this.synapseProvider = synapseProvider;
 	}
@@ -67,6 +67,7 @@ public class SimpleSearchService extends HttpServlet {
 	 * 
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider provider) {
 		this.synapseProvider = provider;
 	}
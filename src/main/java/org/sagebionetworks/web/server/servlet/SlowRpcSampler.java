@@ -0,0 +1,314 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.schema.adapter.JSONArrayAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.ServerConstants;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Keeps the last {@link #CAPACITY} RPCs that took longer than the threshold
+ * of their method: the types and sizes of the arguments (never their
+ * values, which belong to the users), payload sizes and the repository calls
+ * they made. An RPC still running past the stack threshold
+ * also gets a snapshot of its thread's stack, taken by a watchdog thread.
+ */
+public class SlowRpcSampler {
+	public static final int CAPACITY = 50;
+	public static final long DEFAULT_THRESHOLD_MS = 3000;
+	public static final long DEFAULT_STACK_MS = 10000;
+	public static final long WATCH_INTERVAL_MS = 250;
+
+	static private Log log = LogFactory.getLog(SlowRpcSampler.class);
+
+	private long thresholdMillis = DEFAULT_THRESHOLD_MS;
+	private Map<String, Long> methodThresholds = new HashMap<String, Long>();
+	private long stackMillis = DEFAULT_STACK_MS;
+	private final Sample[] samples = new Sample[CAPACITY];
+	private int next = 0;
+	private ConcurrentHashMap<Call, Boolean> running = new ConcurrentHashMap<Call, Boolean>();
+	private ScheduledExecutorService watchdog;
+
+	@Inject(optional=true)
+	public void setThresholdMillis(@Named(ServerConstants.KEY_SLOW_RPC_THRESHOLD_MS) long thresholdMillis) {
+		this.thresholdMillis = thresholdMillis;
+	}
+
+	/**
+	 * @param thresholds comma separated method:milliseconds pairs, for example "executeTableQuery:10000"
+	 */
+	@Inject(optional=true)
+	public void setMethodThresholds(@Named(ServerConstants.KEY_SLOW_RPC_METHOD_THRESHOLDS) String thresholds) {
+		Map<String, Long> newThresholds = new HashMap<String, Long>();
+		for (String pair : thresholds.split(",")) {
+			String[] parts = pair.trim().split(":");
+			try {
+				if (parts.length != 2)
+					throw new NumberFormatException();
+				newThresholds.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+			} catch (NumberFormatException e) {
+				log.warn("Ignoring slow RPC threshold " + pair);
+			}
+		}
+		this.methodThresholds = newThresholds;
+	}
+
+	@Inject(optional=true)
+	public void setStackMillis(@Named(ServerConstants.KEY_SLOW_RPC_STACK_MS) long stackMillis) {
+		this.stackMillis = stackMillis;
+	}
+
+	public long getThresholdMillis(String method) {
+		Long threshold = method == null ? null : methodThresholds.get(method);
+		return threshold == null ? thresholdMillis : threshold;
+	}
+
+	/**
+	 * Start the watchdog that takes the stack snapshots.
+	 */
+	public synchronized void start() {
+		if (watchdog != null)
+			return;
+		watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "slow-rpc-watchdog");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		watchdog.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					captureStacks(System.currentTimeMillis());
+				} catch (Throwable e) {
+					log.error("Unable to capture slow RPC stacks", e);
+				}
+			}
+		}, WATCH_INTERVAL_MS, WATCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void shutdown() {
+		if (watchdog != null)
+			watchdog.shutdownNow();
+		watchdog = null;
+	}
+
+	/**
+	 * @param service name of the RPC service
+	 * @return the running call, to pass to {@link #end(Call, int, RequestTrace)}
+	 */
+	public Call begin(String service) {
+		Call call = new Call(service, Thread.currentThread(), System.currentTimeMillis());
+		running.put(call, Boolean.TRUE);
+		return call;
+	}
+
+	/**
+	 * Keep the call if it was slow.
+	 * @param call
+	 * @param responseBytes
+	 * @param trace the trace of the request, or null
+	 * @return the sample kept, or null
+	 */
+	public Sample end(Call call, int responseBytes, RequestTrace trace) {
+		running.remove(call);
+		long elapsed = System.currentTimeMillis() - call.startMillis;
+		if (elapsed < getThresholdMillis(call.method))
+			return null;
+		Sample sample = new Sample(call, elapsed, responseBytes, trace);
+		synchronized (samples) {
+			samples[next] = sample;
+			next = (next + 1) % CAPACITY;
+		}
+		return sample;
+	}
+
+	/**
+	 * Snapshot the stacks of the calls running longer than the stack threshold (once per call).
+	 */
+	public void captureStacks(long nowMillis) {
+		for (Call call : running.keySet()) {
+			if (call.stack == null && nowMillis - call.startMillis >= stackMillis)
+				call.stack = call.thread.getStackTrace();
+		}
+	}
+
+	/**
+	 * @return the kept samples, most recent first
+	 */
+	public List<Sample> getSamples() {
+		List<Sample> recent = new ArrayList<Sample>();
+		synchronized (samples) {
+			for (int i = 1; i <= CAPACITY; i++) {
+				Sample sample = samples[(next - i + CAPACITY) % CAPACITY];
+				if (sample != null)
+					recent.add(sample);
+			}
+		}
+		return recent;
+	}
+
+	public String getSamplesJson() throws JSONObjectAdapterException {
+		JSONObjectAdapter json = new JSONObjectAdapterImpl();
+		json.put("thresholdMillis", thresholdMillis);
+		json.put("stackMillis", stackMillis);
+		JSONArrayAdapter samplesJson = json.createNewArray();
+		int i = 0;
+		for (Sample sample : getSamples()) {
+			samplesJson.put(i++, sample.writeToJSONObject(json.createNew()));
+		}
+		json.put("samples", samplesJson);
+		return json.toJSONString();
+	}
+
+	/**
+	 * @param arguments
+	 * @return the type of each argument, with its size for strings, collections and arrays
+	 */
+	public static List<String> describeArguments(Object[] arguments) {
+		List<String> described = new ArrayList<String>();
+		if (arguments == null)
+			return described;
+		for (Object argument : arguments) {
+			if (argument == null) {
+				described.add("null");
+				continue;
+			}
+			String type = argument.getClass().getSimpleName();
+			if (argument instanceof CharSequence)
+				described.add(type + "(" + ((CharSequence) argument).length() + " characters)");
+			else if (argument instanceof Collection)
+				described.add(type + "(" + ((Collection<?>) argument).size() + " items)");
+			else if (argument instanceof Map)
+				described.add(type + "(" + ((Map<?, ?>) argument).size() + " entries)");
+			else if (argument.getClass().isArray())
+				described.add(type + "(" + Array.getLength(argument) + " items)");
+			else
+				described.add(type);
+		}
+		return described;
+	}
+
+	/**
+	 * An RPC while it runs.
+	 */
+	public static class Call {
+		private final String service;
+		private final Thread thread;
+		private final long startMillis;
+		private volatile String method;
+		private volatile Object[] arguments;
+		private volatile int requestBytes;
+		private volatile StackTraceElement[] stack;
+		Call(String service, Thread thread, long startMillis) {
+			this.service = service;
+			this.thread = thread;
+			this.startMillis = startMillis;
+		}
+		public void setMethod(String method, Object[] arguments) {
+			this.method = method;
+			this.arguments = arguments;
+		}
+		public void setRequestBytes(int requestBytes) {
+			this.requestBytes = requestBytes;
+		}
+		public String getMethod() {
+			return method;
+		}
+		public StackTraceElement[] getStack() {
+			return stack;
+		}
+	}
+
+	public static class Sample {
+		private final String service;
+		private final String method;
+		private final long startMillis;
+		private final long elapsedMillis;
+		private final int requestBytes;
+		private final int responseBytes;
+		private final List<String> arguments;
+		private final StackTraceElement[] stack;
+		private final String requestId;
+		private final List<RequestTrace.Call> repositoryCalls;
+
+		Sample(Call call, long elapsedMillis, int responseBytes, RequestTrace trace) {
+			this.service = call.service;
+			this.method = call.method;
+			this.startMillis = call.startMillis;
+			this.elapsedMillis = elapsedMillis;
+			this.requestBytes = call.requestBytes;
+			this.responseBytes = responseBytes;
+			// formatted now, so the sample does not hold on to the arguments
+			this.arguments = describeArguments(call.arguments);
+			this.stack = call.stack;
+			this.requestId = trace == null ? null : trace.getRequestId();
+			this.repositoryCalls = trace == null ? new ArrayList<RequestTrace.Call>() : trace.getCalls();
+		}
+
+		public String getMethod() {
+			return method;
+		}
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+		public List<String> getArguments() {
+			return arguments;
+		}
+		public StackTraceElement[] getStack() {
+			return stack;
+		}
+		public List<RequestTrace.Call> getRepositoryCalls() {
+			return repositoryCalls;
+		}
+
+		JSONObjectAdapter writeToJSONObject(JSONObjectAdapter json) throws JSONObjectAdapterException {
+			json.put("service", service);
+			if (method != null)
+				json.put("method", method);
+			if (requestId != null)
+				json.put("requestId", requestId);
+			json.put("startMillis", startMillis);
+			json.put("elapsedMillis", elapsedMillis);
+			json.put("requestBytes", (long) requestBytes);
+			json.put("responseBytes", (long) responseBytes);
+			JSONArrayAdapter argumentsJson = json.createNewArray();
+			for (int i = 0; i < arguments.size(); i++) {
+				argumentsJson.put(i, arguments.get(i));
+			}
+			json.put("arguments", argumentsJson);
+			JSONArrayAdapter callsJson = json.createNewArray();
+			for (int i = 0; i < repositoryCalls.size(); i++) {
+				callsJson.put(i, repositoryCalls.get(i).writeToJSONObject(json.createNew()));
+			}
+			json.put("repositoryCalls", callsJson);
+			if (stack != null) {
+				JSONArrayAdapter stackJson = json.createNewArray();
+				for (int i = 0; i < stack.length; i++) {
+					stackJson.put(i, stack[i].toString());
+				}
+				json.put("stack", stackJson);
+			}
+			return json;
+		}
+	}
+}
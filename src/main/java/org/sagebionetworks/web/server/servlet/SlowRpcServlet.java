@@ -0,0 +1,42 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+
+import com.google.inject.Inject;
+
+/**
+ * Serves the samples of recent slow RPCs as json.
+ */
+public class SlowRpcServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private SlowRpcSampler slowRpcSampler;
+
+	@Inject
+	public void setSlowRpcSampler(SlowRpcSampler slowRpcSampler) {
+		this.slowRpcSampler = slowRpcSampler;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String result;
+		try {
+			result = slowRpcSampler.getSamplesJson();
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(result);
+	}
+}
@@ -3,8 +3,6 @@ package org.sagebionetworks.web.server.servlet;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.web.client.StackConfigService;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
-
 /**
 * 
 * This class provides access to stack configuration information.
@@ -13,7 +11,7 @@ import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 * @author brucehoff
 *
 */
-public class StackConfigServiceImpl extends RemoteServiceServlet implements StackConfigService {
+public class StackConfigServiceImpl extends TracedRemoteServiceServlet implements StackConfigService {
 	
 	public static final long serialVersionUID = 46893767375462651L;
 
@@ -6,7 +6,6 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
@@ -14,15 +13,32 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
@@ -32,6 +48,7 @@ import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.client.exceptions.SynapseForbiddenException;
 import org.sagebionetworks.client.exceptions.SynapseNotFoundException;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
 import org.sagebionetworks.client.exceptions.SynapseTableUnavailableException;
 import org.sagebionetworks.evaluation.model.Evaluation;
 import org.sagebionetworks.evaluation.model.Submission;
@@ -50,6 +67,7 @@ import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.repo.model.EntityId;
 import org.sagebionetworks.repo.model.EntityIdList;
 import org.sagebionetworks.repo.model.EntityPath;
+import org.sagebionetworks.repo.model.EntityType;
 import org.sagebionetworks.repo.model.FileEntity;
 import org.sagebionetworks.repo.model.Locationable;
 import org.sagebionetworks.repo.model.MembershipInvitation;
@@ -99,6 +117,7 @@ import org.sagebionetworks.repo.model.request.ReferenceList;
 import org.sagebionetworks.repo.model.search.SearchResults;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
 import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.Row;
 import org.sagebionetworks.repo.model.table.RowReferenceSet;
 import org.sagebionetworks.repo.model.table.RowSelection;
 import org.sagebionetworks.repo.model.table.RowSet;
@@ -122,8 +141,13 @@ import org.sagebionetworks.web.client.DisplayUtils;
 import org.sagebionetworks.web.client.SynapseClient;
 import org.sagebionetworks.web.client.transform.JSONEntityFactory;
 import org.sagebionetworks.web.client.transform.JSONEntityFactoryImpl;
+import org.sagebionetworks.web.server.DiskCache;
+import org.sagebionetworks.web.server.ServerConstants;
 import org.sagebionetworks.web.shared.AccessRequirementsTransport;
+import org.sagebionetworks.web.shared.ClientLogEntry;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
 import org.sagebionetworks.web.shared.EntityConstants;
 import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.MembershipInvitationBundle;
@@ -137,17 +161,20 @@ import org.sagebionetworks.web.shared.exceptions.NotFoundException;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
 import org.sagebionetworks.web.shared.exceptions.TableUnavilableException;
 import org.sagebionetworks.web.shared.exceptions.UnknownErrorException;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
 import org.sagebionetworks.web.shared.table.QueryDetails;
 import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 @SuppressWarnings("serial")
-public class SynapseClientImpl extends RemoteServiceServlet implements
+public class SynapseClientImpl extends TracedRemoteServiceServlet implements
 		SynapseClient, TokenProvider {
 	static private Log log = LogFactory.getLog(SynapseClientImpl.class);
 	// This will be appended to the User-Agent header.
@@ -164,6 +191,11 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 						@Override
 						public String load(MarkdownCacheRequest key)
 								throws Exception {
+							// pages rendered before a restart are kept on disk
+							String diskKey = getDiskCacheKey(key);
+							String cachedPage = diskCache == null ? null : diskCache.get(diskKey);
+							if (cachedPage != null)
+								return cachedPage;
 							try {
 								org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 								WikiPage returnPage = null;
@@ -172,7 +204,10 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 								 else 
 									 returnPage = synapseClient.getVersionOfV2WikiPageAsV1(key.getWikiPageKey(), key.getVersion());
 
-								return EntityFactory.createJSONStringForEntity(returnPage);
+								String pageJson = EntityFactory.createJSONStringForEntity(returnPage);
+								if (diskCache != null)
+									diskCache.put(diskKey, pageJson);
+								return pageJson;
 							} catch(SynapseException e) {
 								throw ExceptionUtil.convertSynapseException(e);
 							}
@@ -180,12 +215,307 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 					}
 				);
 	
+	/**
+	 * ACLs of permission benefactors, keyed by benefactor id. Every child of a
+	 * benefactor shares its ACL, so bundles and sharing dialogs for the children
+	 * of one project only fetch it once. Entries are invalidated when this
+	 * service creates, updates or deletes an ACL, and expire quickly to bound
+	 * staleness from changes made elsewhere. Callers still resolve the benefactor
+	 * with their own credentials before reading from the cache.
+	 */
+	private Cache<String, AccessControlList> benefactorAclCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(1, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<String, AccessControlList>() {
+						@Override
+						public AccessControlList load(String benefactorId)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							return synapseClient.getACL(benefactorId);
+						}
+					}
+				);
+	
+	/**
+	 * Root wiki page ids, keyed by wiki owner. Only the id is cached, so the
+	 * entry is shared by all users; the page itself is still fetched with the
+	 * caller's credentials.
+	 */
+	private Cache<WikiOwnerCacheRequest, String> rootWikiIdCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(10, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<WikiOwnerCacheRequest, String>() {
+						@Override
+						public String load(WikiOwnerCacheRequest key)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							V2WikiPage rootPage = synapseClient.getV2RootWikiPage(key.getOwnerId(), key.getOwnerType());
+							if (rootPage == null)
+								throw new SynapseNotFoundException();
+							return rootPage.getId();
+						}
+					}
+				);
+	
+	/**
+	 * Wiki header trees (as JSON), keyed by wiki owner and session token since
+	 * the titles are only visible to users that can read the wiki. Entries are
+	 * invalidated when this service changes a wiki page of the owner, and expire
+	 * to bound staleness from changes made elsewhere.
+	 */
+	private Cache<WikiOwnerCacheRequest, String> wikiHeaderTreeCache = CacheBuilder.newBuilder()
+			.maximumSize(500)
+			.expireAfterWrite(5, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<WikiOwnerCacheRequest, String>() {
+						@Override
+						public String load(WikiOwnerCacheRequest key)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							PaginatedResults<V2WikiHeader> results = synapseClient.getV2WikiHeaderTree(key.getOwnerId(), key.getOwnerType());
+							return EntityFactory.createJSONStringForEntity(results);
+						}
+					}
+				);
+	
+	/**
+	 * Teams, keyed by team id. Teams are public, so entries are shared by all
+	 * users. Entries are invalidated when this service updates or deletes the
+	 * team, and dropped when a fresh team list shows a different etag.
+	 */
+	private Cache<String, Team> teamCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(10, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<String, Team>() {
+						@Override
+						public Team load(String teamId)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							return synapseClient.getTeam(teamId);
+						}
+					}
+				);
+	
+	/**
+	 * Team member counts, keyed by team id. Invalidated by the membership
+	 * changes made through this service, with a short expiry for the rest.
+	 */
+	private Cache<String, Long> teamMemberCountCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(1, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<String, Long>() {
+						@Override
+						public Long load(String teamId)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							PaginatedResults<TeamMember> allMembers = synapseClient.getTeamMembers(teamId, null, 1, ZERO_OFFSET);
+							return allMembers.getTotalNumberOfResults();
+						}
+					}
+				);
+	
+	/**
+	 * Search results (as JSON), keyed by the canonical query JSON and the
+	 * caller's session token. Concurrent requests for the same key wait for a
+	 * single repository search. Entries expire quickly, since newly indexed
+	 * entities should show up soon.
+	 */
+	private Cache<SearchCacheRequest, String> searchResultsCache = CacheBuilder.newBuilder()
+			.maximumSize(500)
+			.expireAfterWrite(2, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<SearchCacheRequest, String>() {
+						@Override
+						public String load(SearchCacheRequest key)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							SearchResults searchResults = synapseClient.search(new SearchQuery(
+									new JSONObjectAdapterImpl(key.getSearchQueryJson())));
+							return EntityFactory.createJSONStringForEntity(searchResults);
+						}
+					}
+				);
+	
+	/**
+	 * Favorites of the caller (keyed by session token), matched against the
+	 * prefix when suggesting entities.
+	 */
+	private Cache<String, List<EntityHeader>> favoritesCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(1, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<String, List<EntityHeader>>() {
+						@Override
+						public List<EntityHeader> load(String sessionToken)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							return synapseClient.getFavorites(MAX_LIMIT, ZERO_OFFSET).getResults();
+						}
+					}
+				);
+	
+	/**
+	 * Pages of the (non-table) children of a container, keyed by the parent,
+	 * the sort, the caller's session token and the offset of the page. Each
+	 * page is one repository query. Entries are dropped when this server
+	 * creates or updates a child, and expire quickly for moves, deletes and
+	 * changes made elsewhere.
+	 */
+	public static final int CHILDREN_PAGE_SIZE = 200;
+	private static final Pattern SYNAPSE_ID = Pattern.compile("syn\\d+");
+	public static final String TABLE_ENTITY_NODE_TYPE_ID = "17";
+	public static final String QUERY_ENTITY_ID = "entity.id";
+	public static final String QUERY_ENTITY_NAME = "entity.name";
+	public static final String QUERY_ENTITY_NODE_TYPE = "entity.nodeType";
+	private Cache<ChildrenCacheRequest, EntityChildrenPage> childrenCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(1, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<ChildrenCacheRequest, EntityChildrenPage>() {
+						@Override
+						public EntityChildrenPage load(ChildrenCacheRequest key)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							return queryChildren(synapseClient, key);
+						}
+					}
+				);
+	
+	/**
+	 * Column models of a table (as json), keyed by the table, its etag and the
+	 * caller's session token.
+	 */
+	private Cache<TableColumnsCacheRequest, List<String>> tableColumnsCache = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(10, TimeUnit.MINUTES)
+			.build(
+					new CacheLoader<TableColumnsCacheRequest, List<String>>() {
+						@Override
+						public List<String> load(TableColumnsCacheRequest key)
+								throws Exception {
+							org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+							return getColumnModelsJson(synapseClient, key.getTableId());
+						}
+					}
+				);
+	
+	/**
+	 * Reads made without a session token (entity bundles, wiki pages, wiki
+	 * header trees and entity headers), shared by all anonymous callers. When
+	 * a public project is announced many anonymous visitors ask for the same
+	 * pages at once; concurrent requests for the same missing entry wait for a
+	 * single repository call. Entries expire quickly to bound staleness.
+	 */
+	public static final int ANONYMOUS_READ_CACHE_SECONDS = 30;
+	private final CacheStats anonymousReadStats = new CacheStats();
+	private Cache<AnonymousReadCacheRequest, Object> anonymousReadCache = CacheBuilder.newBuilder()
+			.maximumSize(2000)
+			.expireAfterWrite(ANONYMOUS_READ_CACHE_SECONDS, TimeUnit.SECONDS)
+			.build(
+					new CacheLoader<AnonymousReadCacheRequest, Object>() {
+						@Override
+						public Object load(AnonymousReadCacheRequest key)
+								throws Exception {
+							anonymousReadStats.recordLoad();
+							return loadAnonymousRead(key);
+						}
+					}
+				);
+	
+	/**
+	 * Public project names for the search box suggestions, refreshed in the
+	 * background once the servlet is initialized.
+	 */
+	public static final long SUGGESTION_REFRESH_MINUTES = 5;
+	/**
+	 * Most suggestions returned for a prefix, whatever limit the caller asks for
+	 */
+	public static final int MAX_SUGGESTIONS = 20;
+	private EntitySuggestionIndex suggestionIndex = new EntitySuggestionIndex();
+	private ScheduledExecutorService suggestionRefresher;
+	
+	/**
+	 * Bounded pool used to issue independent repository calls concurrently
+	 * (entity list rows, team bundles). The pool threads have no request, so
+	 * each task is handed a Synapse client created on the request thread.
+	 * When the pool and its queue are full the request thread makes the call
+	 * itself, and a single request never has more than
+	 * MAX_REPO_CALLS_PER_REQUEST tasks on the pool.
+	 */
+	public static final int REPO_CALL_THREAD_COUNT = 20;
+	public static final int REPO_CALL_QUEUE_SIZE = 100;
+	public static final int MAX_REPO_CALLS_PER_REQUEST = 4;
+	private ExecutorService repoCallExecutor = new ThreadPoolExecutor(REPO_CALL_THREAD_COUNT, REPO_CALL_THREAD_COUNT,
+			0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(REPO_CALL_QUEUE_SIZE),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "repo-call");
+					t.setDaemon(true);
+					return t;
+				}
+			},
+			new ThreadPoolExecutor.CallerRunsPolicy());
+	
+	/**
+	 * CSV files are imported into tables in the background, on a small pool of
+	 * their own. Only a few imports wait for a thread, and a user has only a
+	 * few imports running at once; more are turned away. The status of an
+	 * import is kept for a while after it finishes, so the browser can poll
+	 * for it.
+	 */
+	public static final int TABLE_IMPORT_THREAD_COUNT = 2;
+	public static final int TABLE_IMPORT_QUEUE_SIZE = 10;
+	public static final int MAX_TABLE_IMPORTS_PER_USER = 2;
+	public static final long TABLE_IMPORT_RETENTION_MS = 1000L*60L*60L;
+	private ExecutorService tableImportExecutor = new ThreadPoolExecutor(TABLE_IMPORT_THREAD_COUNT, TABLE_IMPORT_THREAD_COUNT,
+			0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(TABLE_IMPORT_QUEUE_SIZE),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "table-import");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	private ConcurrentHashMap<String, TableCsvImport> tableImports = new ConcurrentHashMap<String, TableCsvImport>();
+	
+	/**
+	 * Log batches sent by the browsers are written on a thread of their own, so
+	 * the request does not wait on the log appenders. When the writer falls
+	 * behind, batches are dropped rather than queued without bound.
+	 */
+	public static final int CLIENT_LOG_QUEUE_SIZE = 1000;
+	public static final int MAX_CLIENT_LOG_BATCH_ENTRIES = 100;
+	public static final int MAX_CLIENT_LOG_MESSAGE_LENGTH = 10000;
+	private ExecutorService clientLogExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(CLIENT_LOG_QUEUE_SIZE), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "client-log");
+			t.setDaemon(true);
+			return t;
+		}
+	}, new ThreadPoolExecutor.DiscardPolicy());
+	
+	/**
+	 * Upload daemons started here are polled once per interval in the
+	 * background, for all browser polls of the daemon.
+	 */
+	private UploadDaemonMonitor uploadDaemonMonitor = new UploadDaemonMonitor();
+	private ScheduledExecutorService uploadDaemonPoller;
+	
 	private TokenProvider tokenProvider = this;
 	AdapterFactory adapterFactory = new AdapterFactoryImpl();
 	AutoGenFactory entityFactory = new AutoGenFactory();
 	
 	private volatile HashMap<String, org.sagebionetworks.web.shared.WikiPageKey> pageName2WikiKeyMap;
 	private volatile HashSet<String> wikiBasedEntities;
+	private boolean entityBundlePassThrough = false;
+	private DiskCache diskCache;
 	
 	/**
 	 * Injected with Gin
@@ -212,6 +542,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	 * 
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider provider) {
 		this.synapseProvider = provider;
 	}
@@ -229,6 +560,157 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		this.wiki2Markdown = wikiToMarkdown;
 	}
 	
+	/**
+	 * Disk tier of the wiki page cache, shared by the portal servlets.
+	 * 
+	 * @param diskCache
+	 */
+	@Inject
+	public void setDiskCache(DiskCache diskCache) {
+		this.diskCache = diskCache;
+	}
+	
+	public void setBenefactorAclCache(Cache<String, AccessControlList> benefactorAclCache) {
+		this.benefactorAclCache = benefactorAclCache;
+	}
+	
+	public void setRootWikiIdCache(Cache<WikiOwnerCacheRequest, String> rootWikiIdCache) {
+		this.rootWikiIdCache = rootWikiIdCache;
+	}
+	
+	public void setWikiHeaderTreeCache(Cache<WikiOwnerCacheRequest, String> wikiHeaderTreeCache) {
+		this.wikiHeaderTreeCache = wikiHeaderTreeCache;
+	}
+	
+	public void setTeamCache(Cache<String, Team> teamCache) {
+		this.teamCache = teamCache;
+	}
+	
+	public void setTeamMemberCountCache(Cache<String, Long> teamMemberCountCache) {
+		this.teamMemberCountCache = teamMemberCountCache;
+	}
+	
+	public void setSearchResultsCache(Cache<SearchCacheRequest, String> searchResultsCache) {
+		this.searchResultsCache = searchResultsCache;
+	}
+	
+	public void setFavoritesCache(Cache<String, List<EntityHeader>> favoritesCache) {
+		this.favoritesCache = favoritesCache;
+	}
+	
+	public void setSuggestionIndex(EntitySuggestionIndex suggestionIndex) {
+		this.suggestionIndex = suggestionIndex;
+	}
+	
+	public void setChildrenCache(Cache<ChildrenCacheRequest, EntityChildrenPage> childrenCache) {
+		this.childrenCache = childrenCache;
+	}
+	
+	public void setTableColumnsCache(Cache<TableColumnsCacheRequest, List<String>> tableColumnsCache) {
+		this.tableColumnsCache = tableColumnsCache;
+	}
+	
+	public void setAnonymousReadCache(Cache<AnonymousReadCacheRequest, Object> anonymousReadCache) {
+		this.anonymousReadCache = anonymousReadCache;
+	}
+	
+	/**
+	 * @return request and load counts of the anonymous read cache
+	 */
+	public CacheStats getAnonymousReadStats() {
+		return anonymousReadStats;
+	}
+	
+	/**
+	 * Unit test can override this.
+	 * @param uploadDaemonMonitor
+	 */
+	public void setUploadDaemonMonitor(UploadDaemonMonitor uploadDaemonMonitor) {
+		this.uploadDaemonMonitor = uploadDaemonMonitor;
+	}
+	
+	/**
+	 * Unit test can override this.
+	 * @param clientLogExecutor
+	 */
+	public void setClientLogExecutor(ExecutorService clientLogExecutor) {
+		this.clientLogExecutor = clientLogExecutor;
+	}
+	
+	@Override
+	public void init() throws ServletException {
+		super.init();
+		suggestionRefresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "suggestion-index-refresh");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		suggestionRefresher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					//anonymous, so only public projects are suggested to everyone
+					suggestionIndex.refresh(createSynapseClient(null));
+				} catch (Throwable e) {
+					log.error("Unable to refresh the suggestion index", e);
+				}
+			}
+		}, 0, SUGGESTION_REFRESH_MINUTES, TimeUnit.MINUTES);
+		uploadDaemonPoller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "upload-daemon-poll");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		// the poll thread has no request, so its clients are not traced
+		final UploadDaemonMonitor.ClientFactory pollClientFactory = new UploadDaemonMonitor.ClientFactory() {
+			@Override
+			public org.sagebionetworks.client.SynapseClient createClient(String sessionToken) {
+				return createSynapseClient(sessionToken);
+			}
+		};
+		uploadDaemonPoller.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					uploadDaemonMonitor.poll(pollClientFactory);
+				} catch (Throwable e) {
+					log.error("Unable to poll the upload daemons", e);
+				}
+			}
+		}, UploadDaemonMonitor.POLL_INTERVAL_MS, UploadDaemonMonitor.POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+	
+	@Override
+	public void destroy() {
+		log.info("Anonymous read cache: " + anonymousReadStats);
+		repoCallExecutor.shutdownNow();
+		tableImportExecutor.shutdownNow();
+		// write the batches already received
+		clientLogExecutor.shutdown();
+		if (suggestionRefresher != null)
+			suggestionRefresher.shutdownNow();
+		if (uploadDaemonPoller != null)
+			uploadDaemonPoller.shutdownNow();
+		super.destroy();
+	}
+
+	/**
+	 * When enabled, entity bundles are requested from the repository as raw JSON
+	 * and each part is forwarded to the client as is.
+	 *
+	 * @param entityBundlePassThrough
+	 */
+	@Inject(optional=true)
+	public void setEntityBundlePassThrough(@Named(ServerConstants.KEY_ENTITY_BUNDLE_PASS_THROUGH) boolean entityBundlePassThrough) {
+		this.entityBundlePassThrough = entityBundlePassThrough;
+	}
+	
 	/**
 	 * Validate that the service is ready to go. If any of the injected data is
 	 * missing then it cannot run. Public for tests.
@@ -279,6 +761,16 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	@Override
 	public EntityBundleTransport getEntityBundle(String entityId, int partsMask)
 			throws RestServiceException {
+		if (isAnonymous())
+			return (EntityBundleTransport) getAnonymousRead(new AnonymousReadCacheRequest(AnonymousReadCacheRequest.Method.ENTITY_BUNDLE, entityId, Integer.toString(partsMask)));
+		return loadEntityBundle(entityId, partsMask);
+	}
+	
+	private EntityBundleTransport loadEntityBundle(String entityId, int partsMask)
+			throws RestServiceException {
+		if (entityBundlePassThrough) {
+			return getEntityBundlePassThrough(entityId, null, partsMask);
+		}
 		try {			
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();			
 			EntityBundle eb;
@@ -302,6 +794,9 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	@Override
 	public EntityBundleTransport getEntityBundleForVersion(String entityId,
 			Long versionNumber, int partsMask) throws RestServiceException {
+		if (entityBundlePassThrough) {
+			return getEntityBundlePassThrough(entityId, versionNumber, partsMask);
+		}
 		try {			
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 			EntityBundle eb;
@@ -358,26 +853,148 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 
 	@Override
 	public EntityWrapper search(String searchQueryJson) throws RestServiceException {
-		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		try {
-			JSONObjectAdapter adapter = new JSONObjectAdapterImpl();
-			SearchResults searchResults = synapseClient.search(new SearchQuery(
-					adapter.createNew(searchQueryJson)));
-			searchResults.writeToJSONObject(adapter);
-			return new EntityWrapper(adapter.toJSONString(), SearchResults.class.getName());
-		} catch (SynapseException e) {
-			throw ExceptionUtil.convertSynapseException(e);
+			//round trip the query so equivalent queries share a cache entry
+			String canonicalQueryJson = EntityFactory.createJSONStringForEntity(new SearchQuery(new JSONObjectAdapterImpl(searchQueryJson)));
+			String searchResultsJson = searchResultsCache.get(new SearchCacheRequest(canonicalQueryJson, tokenProvider.getSessionToken()));
+			return new EntityWrapper(searchResultsJson, SearchResults.class.getName());
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
 		} catch (JSONObjectAdapterException e) {
 			throw new UnknownErrorException(e.getMessage());
-		} catch (UnsupportedEncodingException e) {
+		}
+	}
+
+	@Override
+	public ArrayList<String> getEntitySuggestions(String prefix, int limit) throws RestServiceException {
+		try {
+			String normalizedPrefix = EntitySuggestionIndex.normalize(prefix);
+			ArrayList<String> suggestions = new ArrayList<String>();
+			limit = Math.min(limit, MAX_SUGGESTIONS);
+			if (normalizedPrefix.length() == 0 || limit <= 0)
+				return suggestions;
+			Set<String> suggestedIds = new HashSet<String>();
+			//the caller's favorites come first
+			String sessionToken = tokenProvider.getSessionToken();
+			if (sessionToken != null) {
+				for (EntityHeader favorite : favoritesCache.get(sessionToken)) {
+					if (suggestions.size() < limit && EntitySuggestionIndex.matches(favorite.getName(), normalizedPrefix) && suggestedIds.add(favorite.getId()))
+						suggestions.add(EntityFactory.createJSONStringForEntity(favorite));
+				}
+			}
+			for (EntityHeader project : suggestionIndex.suggest(normalizedPrefix, limit)) {
+				if (suggestions.size() < limit && suggestedIds.add(project.getId()))
+					suggestions.add(EntityFactory.createJSONStringForEntity(project));
+			}
+			return suggestions;
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
+		} catch (JSONObjectAdapterException e) {
 			throw new UnknownErrorException(e.getMessage());
 		}
 	}
 
+	@Override
+	public EntityChildrenPage getChildrenHeaders(String parentId, boolean sortByName, String pageToken) throws RestServiceException {
+		if (parentId == null || !SYNAPSE_ID.matcher(parentId).matches())
+			throw new BadRequestException("Invalid container id: " + parentId);
+		int offset;
+		try {
+			offset = pageToken == null ? 0 : Integer.parseInt(pageToken);
+		} catch (NumberFormatException e) {
+			throw new BadRequestException("Invalid page token: " + pageToken);
+		}
+		if (offset < 0)
+			throw new BadRequestException("Invalid page token: " + pageToken);
+		try {
+			return childrenCache.get(new ChildrenCacheRequest(parentId, sortByName, tokenProvider.getSessionToken(), offset));
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
+		}
+	}
+
 	/*
 	 * Private Methods
 	 */
 
+	/**
+	 * Query one page of the (non-table) children of a container, in the order
+	 * of the repository.
+	 */
+	private EntityChildrenPage queryChildren(org.sagebionetworks.client.SynapseClient synapseClient, ChildrenCacheRequest key) throws SynapseException, JSONException, JSONObjectAdapterException {
+		StringBuilder query = new StringBuilder();
+		query.append("select id, name, nodeType from entity where parentId == \"").append(key.getParentId()).append("\"");
+		query.append(" and nodeType != ").append(TABLE_ENTITY_NODE_TYPE_ID);
+		if (key.isSortByName())
+			query.append(" order by name asc");
+		// query offsets are 1 based
+		query.append(" limit ").append(CHILDREN_PAGE_SIZE).append(" offset ").append(key.getOffset() + 1);
+		JSONObject page = synapseClient.query(query.toString());
+		long total = page.getLong(EntitySuggestionIndex.QUERY_TOTAL_NUMBER_OF_RESULTS);
+		JSONArray results = page.getJSONArray(EntitySuggestionIndex.QUERY_RESULTS);
+		ArrayList<String> childrenJson = new ArrayList<String>();
+		for (int i = 0; i < results.length(); i++) {
+			JSONObject row = results.getJSONObject(i);
+			EntityHeader header = new EntityHeader();
+			header.setId(row.getString(QUERY_ENTITY_ID));
+			header.setName(row.getString(QUERY_ENTITY_NAME));
+			EntityType type = EntityType.getTypeForId(Short.parseShort(row.get(QUERY_ENTITY_NODE_TYPE).toString()));
+			header.setType(type.getMetadata().getName());
+			childrenJson.add(EntityFactory.createJSONStringForEntity(header));
+		}
+		int end = key.getOffset() + results.length();
+		String nextPageToken = results.length() == CHILDREN_PAGE_SIZE && end < total ? Integer.toString(end) : null;
+		return new EntityChildrenPage(childrenJson, nextPageToken, total);
+	}
+
+	/**
+	 * Drop the cached children of the given container.
+	 */
+	private void invalidateChildrenCache(String parentId) {
+		if (parentId == null)
+			return;
+		for (Iterator<ChildrenCacheRequest> it = childrenCache.asMap().keySet().iterator(); it.hasNext();) {
+			if (parentId.equals(it.next().getParentId()))
+				it.remove();
+		}
+	}
+
+	// Request the bundle as raw JSON and forward its parts without a model round trip
+	private EntityBundleTransport getEntityBundlePassThrough(String entityId,
+			Long versionNumber, int partsMask) throws RestServiceException {
+		try {
+			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+			JSONObject bundleJson;
+			try {
+				bundleJson = synapseClient.getEntity(EntityBundleJSONUtils.getEntityBundleUri(entityId, versionNumber, partsMask));
+			} catch(SynapseNotFoundException e) {
+				//if we're trying to get the filehandles, then give another try without the filehandles
+				if ((EntityBundleTransport.FILE_HANDLES & partsMask)!=0) {
+					int newPartsMask = (~EntityBundleTransport.FILE_HANDLES) & partsMask;
+					bundleJson = synapseClient.getEntity(EntityBundleJSONUtils.getEntityBundleUri(entityId, versionNumber, newPartsMask));
+				}
+				else throw e;
+			}
+			EntityBundleTransport ebt = EntityBundleJSONUtils.createTransport(bundleJson, partsMask);
+			if ((EntityBundleTransport.ACL & partsMask) > 0 && ebt.getAclJson() == null) {
+				// ACL is inherited; fetch benefactor ACL.
+				try {
+					ebt.setAclJson(EntityFactory.createJSONStringForEntity(getAcl(entityId)));
+				} catch (SynapseException e) {
+					log.error("Unable to get the benefactor ACL of " + entityId, e);
+				}
+			}
+			ebt.setIsWikiBasedEntity(getWikiBasedEntities().contains(entityId));
+			return ebt;
+		} catch (SynapseException e) {
+			throw ExceptionUtil.convertSynapseException(e);
+		} catch (JSONException e) {
+			throw new UnknownErrorException(e.getMessage());
+		} catch (JSONObjectAdapterException e) {
+			throw new UnknownErrorException(e.getMessage());
+		}
+	}
+
 	// Convert repo-side EntityBundle to serializable EntityBundleTransport
 	private EntityBundleTransport convertBundleToTransport(String entityId, 
 			EntityBundle eb, int partsMask) throws RestServiceException {
@@ -454,9 +1071,16 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	 * request
 	 */	
 	private org.sagebionetworks.client.SynapseClient createSynapseClient() {
+		return createSynapseClient(tokenProvider.getSessionToken());
+	}
+	
+	/**
+	 * @param sessionToken null for an anonymous client (needed off the request thread)
+	 */
+	private org.sagebionetworks.client.SynapseClient createSynapseClient(String sessionToken) {
 		// Create a new syanpse			
 		org.sagebionetworks.client.SynapseClient synapseClient = synapseProvider.createNewClient();		
-		synapseClient.setSessionToken(tokenProvider.getSessionToken());
+		synapseClient.setSessionToken(sessionToken);
 		synapseClient.setRepositoryEndpoint(urlProvider
 				.getRepositoryServiceUrl());
 		synapseClient.setAuthEndpoint(urlProvider.getPublicAuthBaseUrl());
@@ -501,18 +1125,42 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	}
 
 	@Override
-	public void logDebug(String message) {
-		log.debug(message);
-	}
-
-	@Override
-	public void logError(String message) {
-		log.error(message);
+	public void logBatch(List<ClientLogEntry> entries) {
+		if (entries == null || entries.isEmpty())
+			return;
+		final List<ClientLogEntry> batch = entries.size() > MAX_CLIENT_LOG_BATCH_ENTRIES ? new ArrayList<ClientLogEntry>(entries.subList(0, MAX_CLIENT_LOG_BATCH_ENTRIES)) : entries;
+		clientLogExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				for (ClientLogEntry entry : batch) {
+					if (entry == null || entry.getLevel() == null)
+						continue;
+					String message = formatClientLogMessage(entry);
+					switch (entry.getLevel()) {
+					case ERROR:
+						log.error(message);
+						break;
+					case INFO:
+						log.info(message);
+						break;
+					default:
+						log.debug(message);
+					}
+				}
+			}
+		});
 	}
 
-	@Override
-	public void logInfo(String message) {
-		log.info(message);
+	/**
+	 * @return the message of the entry, cut to the maximum length, with the number of times it was logged
+	 */
+	public static String formatClientLogMessage(ClientLogEntry entry) {
+		String message = entry.getMessage() == null ? "null" : entry.getMessage();
+		if (message.length() > MAX_CLIENT_LOG_MESSAGE_LENGTH)
+			message = message.substring(0, MAX_CLIENT_LOG_MESSAGE_LENGTH) + "...";
+		if (entry.getCount() > 1)
+			message += " (repeated " + entry.getCount() + " times)";
+		return message;
 	}
 
 	@Override
@@ -530,6 +1178,8 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			Entity entity = parseEntityFromJson(entityJson);
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 			entity = synapseClient.putEntity(entity);
+			// the previous parent of a move is left to expire
+			invalidateChildrenCache(entity.getParentId());
 			
 			EntityWrapper wrapper = new EntityWrapper();
 			wrapper.setEntityClassName(entity.getClass().getName());
@@ -581,6 +1231,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 				// This is an update
 				entity = synapseClient.putEntity(entity);
 			}
+			invalidateChildrenCache(entity.getParentId());
 			// Update the annotations
 			if (annos != null) {
 				annos.setEtag(entity.getEtag());
@@ -639,6 +1290,13 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	@Override
 	public String getEntityHeaderBatch(String referenceList)
 			throws RestServiceException {
+		if (isAnonymous())
+			return (String) getAnonymousRead(new AnonymousReadCacheRequest(AnonymousReadCacheRequest.Method.ENTITY_HEADER_BATCH, referenceList));
+		return loadEntityHeaderBatch(referenceList);
+	}
+	
+	private String loadEntityHeaderBatch(String referenceList)
+			throws RestServiceException {
 		try {
 			ReferenceList list = new ReferenceList(new JSONObjectAdapterImpl(referenceList));
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
@@ -651,9 +1309,17 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		}
 	}
 	
+	@SuppressWarnings("unchecked")
 	@Override
 	public List<String> getEntityHeaderBatch(List<String> entityIds)
 			throws RestServiceException {
+		if (isAnonymous())
+			return new ArrayList<String>((List<String>) getAnonymousRead(new AnonymousReadCacheRequest(AnonymousReadCacheRequest.Method.ENTITY_HEADER_LIST, entityIds)));
+		return loadEntityHeaderList(entityIds);
+	}
+	
+	private List<String> loadEntityHeaderList(List<String> entityIds)
+			throws RestServiceException {
 		try {
 			List<Reference> list = new ArrayList<Reference>();
 			for (String entityId : entityIds) {
@@ -674,6 +1340,111 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			throw new UnknownErrorException(e.getMessage());
 		}
 	}
+	
+	@Override
+	public List<EntityListRowBundle> getEntityListRows(String referenceList) throws RestServiceException {
+		List<Reference> references;
+		try {
+			references = new ReferenceList(new JSONObjectAdapterImpl(referenceList)).getReferences();
+		} catch (JSONObjectAdapterException e) {
+			throw new UnknownErrorException(e.getMessage());
+		}
+		if (references == null)
+			return new ArrayList<EntityListRowBundle>();
+		// each task loads every n-th row, so the list never takes more than n pool threads
+		final List<Reference> refs = references;
+		final EntityListRowBundle[] rows = new EntityListRowBundle[refs.size()];
+		final int taskCount = Math.min(MAX_REPO_CALLS_PER_REQUEST, refs.size());
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int task = 0; task < taskCount; task++) {
+			final int firstRow = task;
+			final org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+			futures.add(repoCallExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = firstRow; i < rows.length && !Thread.currentThread().isInterrupted(); i += taskCount) {
+						rows[i] = getEntityListRow(synapseClient, refs.get(i));
+					}
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					log.error("Failed to load entity list rows", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnknownErrorException(e.getMessage());
+		} finally {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+		// rows that could not be loaded are reported in place
+		List<EntityListRowBundle> rowList = new ArrayList<EntityListRowBundle>();
+		for (int i = 0; i < rows.length; i++) {
+			rowList.add(rows[i] != null ? rows[i] : new EntityListRowBundle(new UnknownErrorException("Unable to load " + refs.get(i).getTargetId())));
+		}
+		return rowList;
+	}
+	
+	/**
+	 * Load a single entity list row. Failures are returned in the row, so one
+	 * missing or restricted entity does not fail the whole list.
+	 */
+	private EntityListRowBundle getEntityListRow(org.sagebionetworks.client.SynapseClient synapseClient, Reference ref) {
+		try {
+			Entity entity;
+			if (ref.getTargetVersionNumber() == null) {
+				entity = synapseClient.getEntityById(ref.getTargetId());
+			} else {
+				entity = synapseClient.getEntityByIdForVersion(ref.getTargetId(), ref.getTargetVersionNumber());
+			}
+			String description;
+			if (entity instanceof Locationable) {
+				// Locationable is deprecated, and uses the description field
+				description = entity.getDescription();
+			} else {
+				description = getPlainTextRootWiki(synapseClient, entity.getId());
+			}
+			JSONObjectAdapter entityJson = entity.writeToJSONObject(adapterFactory.createNew());
+			return new EntityListRowBundle(new EntityWrapper(entityJson.toJSONString(), entity.getClass().getName()), description);
+		} catch (SynapseException e) {
+			return new EntityListRowBundle(ExceptionUtil.convertSynapseException(e));
+		} catch (JSONObjectAdapterException e) {
+			return new EntityListRowBundle(new UnknownErrorException(e.getMessage()));
+		} catch (IOException e) {
+			return new EntityListRowBundle(new UnknownErrorException(e.getMessage()));
+		} catch (RuntimeException e) {
+			log.error("Failed to load entity list row " + ref.getTargetId(), e);
+			return new EntityListRowBundle(new UnknownErrorException(e.getMessage()));
+		}
+	}
+	
+	/**
+	 * @return the plain text of the root wiki page of the entity, or an empty string if it has no wiki
+	 */
+	private String getPlainTextRootWiki(org.sagebionetworks.client.SynapseClient synapseClient, String entityId) throws SynapseException, JSONObjectAdapterException, IOException {
+		// the root wiki id cache loads with the request's session, so only read from it here
+		String rootWikiId = rootWikiIdCache.asMap().get(new WikiOwnerCacheRequest(entityId, ObjectType.ENTITY, null));
+		try {
+			if (rootWikiId == null) {
+				V2WikiPage rootPage = synapseClient.getV2RootWikiPage(entityId, ObjectType.ENTITY);
+				if (rootPage == null)
+					return "";
+				rootWikiId = rootPage.getId();
+			}
+			String markdown = synapseClient.downloadV2WikiMarkdown(WikiPageKeyHelper.createWikiPageKey(entityId, ObjectType.ENTITY, rootWikiId));
+			return getPlainText(markdown);
+		} catch (SynapseNotFoundException e) {
+			return "";
+		}
+	}
 
 
 
@@ -681,7 +1452,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	public void deleteEntityById(String entityId) throws RestServiceException {
 		try {
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
-			synapseClient.deleteEntityById(entityId);			
+			synapseClient.deleteEntityById(entityId);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		} 
@@ -692,7 +1463,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			throws RestServiceException {
 		try {
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
-			synapseClient.deleteEntityById(entityId, skipTrashCan);			
+			synapseClient.deleteEntityById(entityId, skipTrashCan);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		} 
@@ -743,17 +1514,46 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	@Override
 	public String getTeam(String teamId) throws RestServiceException {
 		try {
-			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
-			Team team = synapseClient.getTeam(teamId);
+			Team team = getCachedTeam(teamId);
 			
 			return EntityFactory.createJSONStringForEntity(team);
-		} catch (SynapseException e) {
-			throw ExceptionUtil.convertSynapseException(e);
 		} catch (JSONObjectAdapterException e) {
 			throw new UnknownErrorException(e.getMessage());
 		} 
 	}
 	
+	private Team getCachedTeam(String teamId) throws RestServiceException {
+		try {
+			return teamCache.get(teamId);
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
+		}
+	}
+	
+	private long getCachedTeamMemberCount(String teamId) throws RestServiceException {
+		try {
+			return teamMemberCountCache.get(teamId);
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
+		}
+	}
+	
+	/**
+	 * Drop cached teams that the repository reports with a different etag.
+	 */
+	private void validateCachedTeams(List<Team> teams) {
+		for (Team team : teams) {
+			Team cached = teamCache.asMap().get(team.getId());
+			if (cached != null && (cached.getEtag() == null || !cached.getEtag().equals(team.getEtag())))
+				teamCache.invalidate(team.getId());
+		}
+	}
+	
+	private void invalidateTeamCaches(String teamId) {
+		teamCache.invalidate(teamId);
+		teamMemberCountCache.invalidate(teamId);
+	}
+	
 	@Override
 	public EntityWrapper getUserGroupHeadersById(List<String> ids) throws RestServiceException {
 		try {
@@ -869,7 +1669,13 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		EntityHeader benefactor = synapseClient.getEntityBenefactor(id);
 		String benefactorId = benefactor.getId();
-		return synapseClient.getACL(benefactorId);
+		try {
+			return benefactorAclCache.get(benefactorId);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SynapseException)
+				throw (SynapseException)e.getCause();
+			else throw new SynapseException(e.getCause());
+		}
 	}
 	
 	@Override
@@ -893,6 +1699,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			JSONEntityFactory jsonEntityFactory = new JSONEntityFactoryImpl(adapterFactory);
 			AccessControlList acl = jsonEntityFactory.createEntity(aclEW.getEntityJson(), AccessControlList.class);
 			acl = synapseClient.createACL(acl);
+			benefactorAclCache.invalidate(acl.getId());
 			JSONObjectAdapter aclJson = acl
 					.writeToJSONObject(adapterFactory.createNew());
 			return new EntityWrapper(aclJson.toJSONString(), aclJson.getClass().getName());
@@ -915,6 +1722,12 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			JSONEntityFactory jsonEntityFactory = new JSONEntityFactoryImpl(adapterFactory);
 			AccessControlList acl = jsonEntityFactory.createEntity(aclEW.getEntityJson(), AccessControlList.class);
 			acl = synapseClient.updateACL(acl, recursive);
+			if (recursive) {
+				// the ACLs of descendants were removed as well
+				benefactorAclCache.invalidateAll();
+			} else {
+				benefactorAclCache.invalidate(acl.getId());
+			}
 			JSONObjectAdapter aclJson = acl
 					.writeToJSONObject(adapterFactory.createNew());
 			return new EntityWrapper(aclJson.toJSONString(), aclJson.getClass().getName());
@@ -931,6 +1744,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		try {
 			// first delete the ACL
 			synapseClient.deleteACL(ownerEntityId);
+			benefactorAclCache.invalidate(ownerEntityId);
 			// now get the ACL governing this entity, which will be some ancestor, the 'permissions benefactor'
 			AccessControlList acl = getAcl(ownerEntityId);
 			JSONObjectAdapter aclJson = acl
@@ -1235,6 +2049,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			if (isManuallySettingName)
 				newEntity.setName(name);
 			Entity updatedEntity = synapseClient.createEntity(newEntity);
+			invalidateChildrenCache(parentEntityId);
 			if (!isManuallySettingName)
 				updatedEntity = updateExternalFileName(updatedEntity, externalUrl, synapseClient);
 			JSONObjectAdapter aaJson = updatedEntity.writeToJSONObject(adapterFactory.createNew());
@@ -1266,7 +2081,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			String html = SynapseMarkdownProcessor.getInstance().markdown2Html(markdown, isPreview, clientHostString);
 			long endTime = System.currentTimeMillis();
 			float elapsedTime = endTime-startTime;
-			logInfo("Markdown processing took " + (elapsedTime/1000f) + " seconds.  In alpha mode? " + isAlphaMode);
+			log.info("Markdown processing took " + (elapsedTime/1000f) + " seconds.  In alpha mode? " + isAlphaMode);
 			return html;
 		} catch (IOException e) {
 			throw new RestServiceException(e.getMessage());
@@ -1371,6 +2186,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			@SuppressWarnings("unchecked")
 			WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,WikiPage.class);
 			WikiPage returnPage = synapseClient.createWikiPage(ownerId, ObjectType.valueOf(ownerType), page);
+			invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
 			return EntityFactory.createJSONStringForEntity(returnPage);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
@@ -1385,6 +2201,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		try {
 			WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
 			synapseClient.deleteWikiPage(properKey);
+			invalidateWikiOwnerCaches(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		}
@@ -1392,6 +2209,12 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	
 	@Override
 	public String getWikiHeaderTree(String ownerId, String ownerType) throws RestServiceException {
+		if (isAnonymous())
+			return (String) getAnonymousRead(new AnonymousReadCacheRequest(AnonymousReadCacheRequest.Method.WIKI_HEADER_TREE, ownerId, ownerType));
+		return loadWikiHeaderTree(ownerId, ownerType);
+	}
+	
+	private String loadWikiHeaderTree(String ownerId, String ownerType) throws RestServiceException {
 		try {
 			PaginatedResults<WikiHeader> results = getWikiHeaderTree(ownerId, ObjectType.valueOf(ownerType));
 			return EntityFactory.createJSONStringForEntity(results);
@@ -1452,6 +2275,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			@SuppressWarnings("unchecked")
 			WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,WikiPage.class);
 			WikiPage returnPage = synapseClient.updateWikiPage(ownerId, ObjectType.valueOf(ownerType), page);
+			invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
 			return EntityFactory.createJSONStringForEntity(returnPage);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
@@ -1496,6 +2320,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
                     @SuppressWarnings("unchecked")
                     V2WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,V2WikiPage.class);
                     V2WikiPage returnPage = synapseClient.createV2WikiPage(ownerId, ObjectType.valueOf(ownerType), page);
+                    invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
                     return EntityFactory.createJSONStringForEntity(returnPage);
             } catch (SynapseException e) {
                     throw ExceptionUtil.convertSynapseException(e);
@@ -1504,19 +2329,86 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
             }
     }
 
-    private String getV2RootWikiId(org.sagebionetworks.client.SynapseClient synapseClient, String ownerId, ObjectType ownerType) throws RestServiceException{
+    private String getV2RootWikiId(String ownerId, ObjectType ownerType) throws RestServiceException{
             try{
-                    V2WikiPage rootPage = synapseClient.getV2RootWikiPage(ownerId, ownerType);
-                    if (rootPage != null)
-                            return rootPage.getId();
-                    else return null;
-            } catch (SynapseException e) {
-                    throw ExceptionUtil.convertSynapseException(e);
-            } catch (JSONObjectAdapterException e) {
-                    throw new UnknownErrorException(e.getMessage());
+                    return rootWikiIdCache.get(new WikiOwnerCacheRequest(ownerId, ownerType, null));
+            } catch (ExecutionException e) {
+                    throw convertCacheLoadException(e);
             }
     }
     
+    /**
+     * Drop the cached root wiki id and header trees of the given owner, after
+     * one of its wiki pages was created, changed or deleted.
+     */
+    private void invalidateWikiOwnerCaches(String ownerId, ObjectType ownerType) {
+            rootWikiIdCache.invalidate(new WikiOwnerCacheRequest(ownerId, ownerType, null));
+            for (Iterator<WikiOwnerCacheRequest> it = wikiHeaderTreeCache.asMap().keySet().iterator(); it.hasNext();) {
+                    if (it.next().isOwner(ownerId, ownerType))
+                            it.remove();
+            }
+            for (Iterator<AnonymousReadCacheRequest> it = anonymousReadCache.asMap().keySet().iterator(); it.hasNext();) {
+                    if (it.next().isWikiOwner(ownerId, ownerType))
+                            it.remove();
+            }
+    }
+    
+    /**
+     * @return true if the caller has no session token (all anonymous callers see the same data)
+     */
+    private boolean isAnonymous() {
+            return tokenProvider.getSessionToken() == null;
+    }
+    
+    private Object getAnonymousRead(AnonymousReadCacheRequest key) throws RestServiceException {
+            anonymousReadStats.recordRequest();
+            try {
+                    return anonymousReadCache.get(key);
+            } catch (ExecutionException e) {
+                    throw convertCacheLoadException(e);
+            }
+    }
+    
+    /**
+     * Make the read described by the key. Called in the (anonymous) caller's
+     * thread, by the anonymous read cache loader.
+     */
+    private Object loadAnonymousRead(AnonymousReadCacheRequest key) throws RestServiceException, IOException {
+            switch (key.getMethod()) {
+            case ENTITY_BUNDLE:
+                    return loadEntityBundle(key.getArgument(0), Integer.parseInt(key.getArgument(1)));
+            case WIKI_PAGE_AS_V1:
+                    return loadV2WikiPageAsV1(new org.sagebionetworks.web.shared.WikiPageKey(key.getArgument(0), key.getArgument(1), key.getArgument(2)));
+            case WIKI_HEADER_TREE:
+                    return loadWikiHeaderTree(key.getArgument(0), key.getArgument(1));
+            case ENTITY_HEADER_BATCH:
+                    return loadEntityHeaderBatch(key.getArgument(0));
+            case ENTITY_HEADER_LIST:
+                    return loadEntityHeaderList(key.getArguments());
+            default:
+                    throw new IllegalArgumentException("Unknown read: " + key.getMethod());
+            }
+    }
+    
+    /**
+     * The etag of the page is part of the key, so a changed page is not read from disk.
+     */
+    private static String getDiskCacheKey(MarkdownCacheRequest key) {
+            WikiPageKey wikiKey = key.getWikiPageKey();
+            return "wiki/" + wikiKey.getOwnerObjectType() + "/" + wikiKey.getOwnerObjectId() + "/" + wikiKey.getWikiPageId()
+                            + "/" + key.getEtag() + "/" + key.getVersion();
+    }
+    
+    private RestServiceException convertCacheLoadException(ExecutionException e) {
+            if (e.getCause() instanceof SynapseException)
+                    return ExceptionUtil.convertSynapseException((SynapseException)e.getCause());
+            else if (e.getCause() instanceof RestServiceException)
+                    return (RestServiceException)e.getCause();
+            else if (e.getCause() instanceof JSONObjectAdapterException)
+                    return new UnknownErrorException(e.getCause().getMessage());
+            else return new RestServiceException(e.getMessage());
+    }
+    
     @Override
     public String getV2WikiPage(org.sagebionetworks.web.shared.WikiPageKey key)
                     throws RestServiceException {
@@ -1524,7 +2416,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
             try {
                     if (key.getWikiPageId() == null) {
                             //asking for the root.  find the root id first
-                            String rootWikiPage = getV2RootWikiId(synapseClient, key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
+                            String rootWikiPage = getV2RootWikiId(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
                             key.setWikiPageId(rootWikiPage);
                     }
                     WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
@@ -1544,7 +2436,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
     	try {
             if (key.getWikiPageId() == null) {
                     //asking for the root.  find the root id first
-                    String rootWikiPage = getV2RootWikiId(synapseClient, key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
+                    String rootWikiPage = getV2RootWikiId(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
                     key.setWikiPageId(rootWikiPage);
             }
             WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
@@ -1561,6 +2453,10 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
     public String getPlainTextWikiPage(org.sagebionetworks.web.shared.WikiPageKey key)
     			throws RestServiceException, IOException {
     	String markdown = getMarkdown(key);
+    	return getPlainText(markdown);
+    }
+    
+    private String getPlainText(String markdown) throws IOException {
     	String html = SynapseMarkdownProcessor.getInstance().markdown2Html(markdown, false, null);
     	String plainText = Jsoup.clean(html,  "", Whitelist.none(), new Document.OutputSettings().prettyPrint(false));
     	return plainText;
@@ -1575,6 +2471,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
                     @SuppressWarnings("unchecked")
                     V2WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,V2WikiPage.class);
                     V2WikiPage returnPage = synapseClient.updateV2WikiPage(ownerId, ObjectType.valueOf(ownerType), page);
+                    invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
                     return EntityFactory.createJSONStringForEntity(returnPage);
             } catch (SynapseException e) {
                     throw ExceptionUtil.convertSynapseException(e);
@@ -1590,6 +2487,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
             org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
             try {
                     V2WikiPage returnPage = synapseClient.restoreV2WikiPage(ownerId, ObjectType.valueOf(ownerType), wikiId, versionToUpdate);
+                    invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
                     return EntityFactory.createJSONStringForEntity(returnPage);
             } catch (SynapseException e) {
                     throw ExceptionUtil.convertSynapseException(e);
@@ -1605,6 +2503,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
             try {
                     WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
                     synapseClient.deleteV2WikiPage(properKey);
+                    invalidateWikiOwnerCaches(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
             } catch (SynapseException e) {
                     throw ExceptionUtil.convertSynapseException(e);
             }
@@ -1613,14 +2512,10 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
     @Override
     public String getV2WikiHeaderTree(String ownerId, String ownerType)
                     throws RestServiceException {
-            org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
             try {
-                    PaginatedResults<V2WikiHeader> results = synapseClient.getV2WikiHeaderTree(ownerId, ObjectType.valueOf(ownerType));
-                    return EntityFactory.createJSONStringForEntity(results);
-            } catch (SynapseException e) {
-                    throw ExceptionUtil.convertSynapseException(e);
-            } catch (JSONObjectAdapterException e) {
-                    throw new UnknownErrorException(e.getMessage());
+                    return wikiHeaderTreeCache.get(new WikiOwnerCacheRequest(ownerId, ObjectType.valueOf(ownerType), tokenProvider.getSessionToken()));
+            } catch (ExecutionException e) {
+                    throw convertCacheLoadException(e);
             }
     }
     
@@ -1632,7 +2527,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
             try {
                     if (key.getWikiPageId() == null) {
                             //asking for the root.  find the root id first
-                            String rootWikiPage = getV2RootWikiId(synapseClient, key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
+                            String rootWikiPage = getV2RootWikiId(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
                             key.setWikiPageId(rootWikiPage);
                     }
                     WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
@@ -1652,7 +2547,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
     	try {
             if (key.getWikiPageId() == null) {
                     //asking for the root.  find the root id first
-                    String rootWikiPage = getV2RootWikiId(synapseClient, key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
+                    String rootWikiPage = getV2RootWikiId(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
                     key.setWikiPageId(rootWikiPage);
             }
             WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), key.getWikiPageId());
@@ -1762,6 +2657,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	        @SuppressWarnings("unchecked")
 	        WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,WikiPage.class);
 	        WikiPage returnPage = synapseClient.createV2WikiPageWithV1(ownerId, ObjectType.valueOf(ownerType), page);
+	        invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
 	        return EntityFactory.createJSONStringForEntity(returnPage);
         } catch (SynapseException e) {
             throw ExceptionUtil.convertSynapseException(e);
@@ -1779,6 +2675,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	        @SuppressWarnings("unchecked")
 	        WikiPage page = jsonEntityFactory.createEntity(wikiPageJson,WikiPage.class);
 	        WikiPage returnPage = synapseClient.updateV2WikiPageWithV1(ownerId, ObjectType.valueOf(ownerType), page);
+	        invalidateWikiOwnerCaches(ownerId, ObjectType.valueOf(ownerType));
 	        return EntityFactory.createJSONStringForEntity(returnPage);
 	    } catch (SynapseException e) {
 	        throw ExceptionUtil.convertSynapseException(e);
@@ -1790,13 +2687,20 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		String wikiPageId = key.getWikiPageId();
 		if (wikiPageId == null) {
 			//asking for the root.  find the root id first
-			wikiPageId = getV2RootWikiId(synapseClient, key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
+			wikiPageId = getV2RootWikiId(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()));
          }
 		return wikiPageId;
 	}
 	@Override
     public String getV2WikiPageAsV1(org.sagebionetworks.web.shared.WikiPageKey key)
                     throws RestServiceException, IOException {
+		if (isAnonymous())
+			return (String) getAnonymousRead(new AnonymousReadCacheRequest(AnonymousReadCacheRequest.Method.WIKI_PAGE_AS_V1, key.getOwnerObjectId(), key.getOwnerObjectType(), key.getWikiPageId()));
+		return loadV2WikiPageAsV1(key);
+	}
+	
+	private String loadV2WikiPageAsV1(org.sagebionetworks.web.shared.WikiPageKey key)
+                    throws RestServiceException, IOException {
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		WikiPageKey properKey = WikiPageKeyHelper.createWikiPageKey(key.getOwnerObjectId(), ObjectType.valueOf(key.getOwnerObjectType()), getWikiKeyId(synapseClient, key));
 		String etag = null;
@@ -1898,6 +2802,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		try {
 			synapseClient.deleteTeam(teamId);
+			invalidateTeamCaches(teamId);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		}
@@ -1923,6 +2828,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		try {
 			PaginatedResults<Team> teams = synapseClient.getTeamsForUser(userId, MAX_LIMIT, ZERO_OFFSET);
 			List<Team> teamList = teams.getResults();
+			validateCachedTeams(teamList);
 			ArrayList<String> teamListStrings = new ArrayList<String>();
 			for (Team t : teamList) {
 				teamListStrings.add(EntityFactory.createJSONStringForEntity(t));
@@ -1999,6 +2905,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			//if we can join the team without creating the request (like if we are a team admin, or there is an open invitation), then just do that!
 			if (membershipStatus.getCanJoin()) {
 				synapseClient.addTeamMember(teamId, currentUserId);
+				teamMemberCountCache.invalidate(teamId);
 			} else if (!membershipStatus.getHasOpenRequest()){
 				//otherwise, create the request
 				MembershipRqstSubmission membershipRequest = new MembershipRqstSubmission();
@@ -2022,6 +2929,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			//if we can join the team without creating the invite (like if we are a team admin, or there is an open membership request), then just do that!
 			if (membershipStatus.getCanJoin()) {
 				synapseClient.addTeamMember(teamId, userGroupId);
+				teamMemberCountCache.invalidate(teamId);
 			} else if (!membershipStatus.getHasOpenInvitation()){
 				//check to see if there is already an open invite
 				MembershipInvtnSubmission membershipInvite = new MembershipInvtnSubmission();
@@ -2098,31 +3006,56 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	}
 	
 	@Override
-	public TeamBundle getTeamBundle(String userId, String teamId, boolean isLoggedIn) throws RestServiceException {
-		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
-		try {
-			PaginatedResults<TeamMember> allMembers = synapseClient.getTeamMembers(teamId, null, 1, ZERO_OFFSET);
-			long memberCount = allMembers.getTotalNumberOfResults();
-			boolean isAdmin = false;
-			Team team = synapseClient.getTeam(teamId);
-			String membershipStatusJsonString = null;
-			//get membership state for the current user
-			if (isLoggedIn){
-				TeamMembershipStatus membershipStatus = synapseClient.getTeamMembershipStatus(teamId,userId);
-				JSONObjectAdapter membershipStatusJson = membershipStatus.writeToJSONObject(adapterFactory.createNew());
-				membershipStatusJsonString = membershipStatusJson.toJSONString();
-				if (membershipStatus.getIsMember()) {
-					TeamMember teamMember = synapseClient.getTeamMember(teamId, userId);
-					isAdmin = teamMember.getIsAdmin();
+	public TeamBundle getTeamBundle(final String userId, final String teamId, boolean isLoggedIn) throws RestServiceException {
+		//the membership state of the current user is not cached, so look it up on the pool while the (cached) team and member count are resolved here
+		TeamBundle bundle = new TeamBundle();
+		Future<TeamBundle> membershipFuture = null;
+		if (isLoggedIn){
+			final org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+			final TeamBundle membershipBundle = bundle;
+			membershipFuture = repoCallExecutor.submit(new Callable<TeamBundle>() {
+				@Override
+				public TeamBundle call() throws SynapseException, JSONObjectAdapterException {
+					TeamMembershipStatus membershipStatus = synapseClient.getTeamMembershipStatus(teamId,userId);
+					JSONObjectAdapter membershipStatusJson = membershipStatus.writeToJSONObject(adapterFactory.createNew());
+					membershipBundle.setTeamMembershipStatusJson(membershipStatusJson.toJSONString());
+					if (membershipStatus.getIsMember()) {
+						TeamMember teamMember = synapseClient.getTeamMember(teamId, userId);
+						membershipBundle.setIsUserAdmin(teamMember.getIsAdmin());
+					}
+					return membershipBundle;
 				}
-			}
+			});
+		}
+		try {
+			long memberCount = getCachedTeamMemberCount(teamId);
+			Team team = getCachedTeam(teamId);
+			if (membershipFuture != null)
+				bundle = getResult(membershipFuture);
 			
 			JSONObjectAdapter teamJson = team.writeToJSONObject(adapterFactory.createNew());
-			return new TeamBundle(teamJson.toJSONString(), memberCount, membershipStatusJsonString, isAdmin);
-		} catch (SynapseException e) {
-			throw ExceptionUtil.convertSynapseException(e);
+			bundle.setTeamJson(teamJson.toJSONString());
+			bundle.setTotalMemberCount(memberCount);
+			return bundle;
 		} catch (JSONObjectAdapterException e) {
 			throw new UnknownErrorException(e.getMessage());
+		} finally {
+			if (membershipFuture != null)
+				membershipFuture.cancel(true);
+		}
+	}
+	
+	/**
+	 * Wait for a repository call submitted to the pool, converting its failure.
+	 */
+	private <T> T getResult(Future<T> future) throws RestServiceException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnknownErrorException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
 		}
 	}
 	
@@ -2180,7 +3113,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			//now go through and create a MembershipInvitationBundle for each pair
 			
 			for (MembershipInvitation invite : invitations.getResults()) {
-				Team team = synapseClient.getTeam(invite.getTeamId());
+				Team team = getCachedTeam(invite.getTeamId());
 				JSONObjectAdapter teamJson = team.writeToJSONObject(adapterFactory.createNew());
 				JSONObjectAdapter inviteJson = invite.writeToJSONObject(adapterFactory.createNew());
 				MembershipInvitationBundle b = new MembershipInvitationBundle(teamJson.toJSONString(), null, inviteJson.toJSONString());
@@ -2246,6 +3179,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		try {
 			synapseClient.removeTeamMember(teamId, targetUserId);
+			teamMemberCountCache.invalidate(teamId);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		}
@@ -2258,6 +3192,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			JSONEntityFactory jsonEntityFactory = new JSONEntityFactoryImpl(adapterFactory);
 			Team team = jsonEntityFactory.createEntity(teamJson, Team.class);
 			Team updatedTeam = synapseClient.updateTeam(team);
+			invalidateTeamCaches(updatedTeam.getId());
 			JSONObjectAdapter updatedTeamJson = updatedTeam.writeToJSONObject(adapterFactory.createNew());
 			return updatedTeamJson.toJSONString();
 		} catch (SynapseException e) {
@@ -2379,6 +3314,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 
 			// Start the daemon
 			UploadDaemonStatus status = synapseClient.startUploadDeamon(cacr);
+			uploadDaemonMonitor.watch(status, tokenProvider.getSessionToken());
 			JSONObjectAdapter requestJson = status.writeToJSONObject(adapterFactory.createNew());
 			return requestJson.toJSONString();
 		} catch (SynapseException e) {
@@ -2390,11 +3326,12 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	
 	@Override
 	public String getUploadDaemonStatus(String daemonId) throws RestServiceException {
-		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
 		try {
-			UploadDaemonStatus status = synapseClient.getCompleteUploadDaemonStatus(daemonId);
+			UploadDaemonStatus status = uploadDaemonMonitor.getStatus(daemonId, tokenProvider.getSessionToken());
+			if (status == null)
+				status = createSynapseClient().getCompleteUploadDaemonStatus(daemonId);
 			if (State.FAILED == status.getState()) {
-				logError(status.getErrorMessage());
+				log.error(status.getErrorMessage());
 			}
 			JSONObjectAdapter requestJson = status.writeToJSONObject(adapterFactory.createNew());
 			return requestJson.toJSONString();
@@ -2449,6 +3386,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			}
 			//fix name and lock down
 			FileHandleServlet.lockDown(fileEntity, isRestricted, synapseClient);
+			invalidateChildrenCache(fileEntity.getParentId());
 			return fileEntity.getId();
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
@@ -2732,12 +3670,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	public List<String> getColumnModelsForTableEntity(String tableEntityId) throws RestServiceException {
 		try {
 			org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
-			List<ColumnModel> columns = synapseClient.getColumnModelsForTableEntity(tableEntityId);
-			List<String> stringList = new ArrayList<String>();
-			for(ColumnModel col : columns) {
-				stringList.add(col.writeToJSONObject(adapterFactory.createNew()).toJSONString());
-			}
-			return stringList;
+			return getColumnModelsJson(synapseClient, tableEntityId);
 		} catch (SynapseException e) {
 			throw ExceptionUtil.convertSynapseException(e);
 		} catch (JSONObjectAdapterException e) {
@@ -2745,6 +3678,26 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		}
 	}
 
+	@Override
+	public List<String> getColumnModelsForTableEntity(String tableEntityId, String tableEtag) throws RestServiceException {
+		if (tableEtag == null)
+			return getColumnModelsForTableEntity(tableEntityId);
+		try {
+			return tableColumnsCache.get(new TableColumnsCacheRequest(tableEntityId, tableEtag, tokenProvider.getSessionToken()));
+		} catch (ExecutionException e) {
+			throw convertCacheLoadException(e);
+		}
+	}
+
+	private List<String> getColumnModelsJson(org.sagebionetworks.client.SynapseClient synapseClient, String tableEntityId) throws SynapseException, JSONObjectAdapterException {
+		List<ColumnModel> columns = synapseClient.getColumnModelsForTableEntity(tableEntityId);
+		List<String> stringList = new ArrayList<String>();
+		for(ColumnModel col : columns) {
+			stringList.add(col.writeToJSONObject(adapterFactory.createNew()).toJSONString());
+		}
+		return stringList;
+	}
+
 	@Override
 	public String sendMessage(Set<String> recipients, String subject, String messageBody) throws RestServiceException {
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
@@ -2781,6 +3734,18 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 	
 	@Override
 	public QueryResult executeTableQuery(String query, QueryDetails modifyingQueryDetails, boolean includeTotalRowCount) throws RestServiceException {		
+		return executeTableQuery(query, modifyingQueryDetails, includeTotalRowCount, false);
+	}
+
+	@Override
+	public QueryResult executeCompactTableQuery(String query, QueryDetails modifyingQueryDetails, boolean includeTotalRowCount) throws RestServiceException {
+		return executeTableQuery(query, modifyingQueryDetails, includeTotalRowCount, true);
+	}
+
+	/**
+	 * @param compact return the rows as a {@link CompactRowSet} instead of row set json
+	 */
+	private QueryResult executeTableQuery(String query, QueryDetails modifyingQueryDetails, boolean includeTotalRowCount, boolean compact) throws RestServiceException {		
 		if(query == null) throw new BadRequestException("query must be defined");
 		
 		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
@@ -2806,7 +3771,7 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			} catch (SynapseTableUnavailableException e) {
 				handleTableUnavailableException(e);
 			} catch (SynapseException e) {
-				logError(e.getMessage());
+				log.error(e.getMessage());
 				throw ExceptionUtil.convertSynapseException(e);
 			} catch (NumberFormatException e) { 
 				// do nothing 				
@@ -2815,9 +3780,11 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		
 		// Execute Query		
 		String json = null;
+		CompactRowSet compactRowSet = null;
 		try {
 			RowSet rs = synapseClient.queryTableEntity(executedQuery);
-			 json = rs.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+			if(compact) compactRowSet = CompactRowSet.create(rs);
+			else json = rs.writeToJSONObject(adapterFactory.createNew()).toJSONString();
 		} catch (SynapseTableUnavailableException e) {
 			handleTableUnavailableException(e);
 		} catch (SynapseException e) {
@@ -2826,7 +3793,9 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 			throw new UnknownErrorException(e.getMessage());		
 		}
 		
-		return new QueryResult(json, executedQuery, queryDetails, totalRowCount);
+		QueryResult result = new QueryResult(json, executedQuery, queryDetails, totalRowCount);
+		result.setCompactRowSet(compactRowSet);
+		return result;
 	}
 
 	private void handleTableUnavailableException(SynapseTableUnavailableException e) throws TableUnavilableException {
@@ -2851,7 +3820,159 @@ public class SynapseClientImpl extends RemoteServiceServlet implements
 		}
 	}
 
-	
+	/**
+	 * Rows per appendRowsToTable call when applying a batch of table changes
+	 */
+	public static final int MAX_ROWS_PER_APPEND = 1000;
+
+	/**
+	 * Times a conflicting chunk is split in half to find the conflicting rows,
+	 * the rows of a chunk still conflicting at this depth are all reported
+	 */
+	public static final int MAX_CONFLICT_SPLIT_DEPTH = 4;
+
+	@Override
+	public TableChangeResult applyTableChanges(String rowSet, String toDelete) throws RestServiceException {
+		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient();
+		try {
+			RowSet toAppend = rowSet == null ? null : new RowSet(adapterFactory.createNew(rowSet));
+			List<Row> rows = toAppend == null || toAppend.getRows() == null ? new ArrayList<Row>() : toAppend.getRows();
+			TableChangeResult result = new TableChangeResult(rows.size());
+			if (toDelete != null) {
+				RowSelection toDeleteSet = new RowSelection(adapterFactory.createNew(toDelete));
+				if (toDeleteSet.getRowIds() != null && !toDeleteSet.getRowIds().isEmpty()) {
+					RowReferenceSet responseSet = synapseClient.deleteRowsFromTable(toDeleteSet);
+					result.setEtag(responseSet.getEtag());
+					result.setDeletedCount(responseSet.getRows() == null ? 0 : responseSet.getRows().size());
+				}
+			}
+			for (int start = 0; start < rows.size(); start += MAX_ROWS_PER_APPEND) {
+				try {
+					appendRows(synapseClient, toAppend, rows.subList(start, Math.min(rows.size(), start + MAX_ROWS_PER_APPEND)), start, result, 0);
+				} catch (SynapseException e) {
+					// earlier rows are saved, report the rest as not saved
+					for (int i = start; i < rows.size(); i++) {
+						if (result.getRowId(i) == null && result.getRowError(i) == null)
+							result.setRowError(i, e.getMessage());
+					}
+					break;
+				}
+			}
+			return result;
+		} catch (SynapseTableUnavailableException e) {
+			try {
+				throw new TableUnavilableException(e.getStatus().writeToJSONObject(adapterFactory.createNew()).toJSONString());
+			} catch (JSONObjectAdapterException e1) {
+				throw new TableUnavilableException(e.getMessage());
+			}
+		} catch (SynapseException e) {
+			throw ExceptionUtil.convertSynapseException(e);
+		} catch (JSONObjectAdapterException e) {
+			throw new UnknownErrorException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Append a chunk of the rows. If the chunk conflicts with changes made
+	 * since the row set was read, it is split in half (up to
+	 * MAX_CONFLICT_SPLIT_DEPTH times), so the rows that do not conflict are
+	 * still saved and only the conflicting part is reported.
+	 * @param firstIndex index of the first row of the chunk in the row set
+	 * @param splitDepth times the chunk has been split
+	 */
+	private void appendRows(org.sagebionetworks.client.SynapseClient synapseClient, RowSet rowSet, List<Row> rows, int firstIndex, TableChangeResult result, int splitDepth) throws SynapseException {
+		RowSet chunk = new RowSet();
+		chunk.setTableId(rowSet.getTableId());
+		//rows saved by this batch changed the table etag, so send the latest one
+		chunk.setEtag(result.getEtag() == null ? rowSet.getEtag() : result.getEtag());
+		chunk.setHeaders(rowSet.getHeaders());
+		chunk.setRows(new ArrayList<Row>(rows));
+		try {
+			RowReferenceSet refSet = synapseClient.appendRowsToTable(chunk);
+			result.setEtag(refSet.getEtag());
+			for (int i = 0; i < rows.size() && refSet.getRows() != null && i < refSet.getRows().size(); i++) {
+				result.setSaved(firstIndex + i, refSet.getRows().get(i).getRowId(), refSet.getRows().get(i).getVersionNumber());
+			}
+		} catch (SynapseException e) {
+			if (!(e instanceof SynapseServerException) || ((SynapseServerException) e).getStatusCode() != HttpStatus.SC_CONFLICT)
+				throw e;
+			if (rows.size() == 1 || splitDepth >= MAX_CONFLICT_SPLIT_DEPTH) {
+				for (int i = 0; i < rows.size(); i++) {
+					result.setRowError(firstIndex + i, e.getMessage());
+				}
+				return;
+			}
+			int half = rows.size() / 2;
+			appendRows(synapseClient, rowSet, rows.subList(0, half), firstIndex, result, splitDepth + 1);
+			appendRows(synapseClient, rowSet, rows.subList(half, rows.size()), firstIndex + half, result, splitDepth + 1);
+		}
+	}
+
+	@Override
+	public String startTableImport(String tableId, String fileEntityId) throws RestServiceException {
+		String sessionToken = tokenProvider.getSessionToken();
+		org.sagebionetworks.client.SynapseClient synapseClient = createSynapseClient(sessionToken);
+		try {
+			List<ColumnModel> columns = synapseClient.getColumnModelsForTableEntity(tableId);
+			pruneTableImports();
+			if (sessionToken != null && countRunningTableImports(sessionToken) >= MAX_TABLE_IMPORTS_PER_USER)
+				throw new UnknownErrorException("You already have " + MAX_TABLE_IMPORTS_PER_USER + " table imports running, please wait for one to finish");
+			// the import creates its own client on the import thread, so its calls are not traced into this request
+			UploadDaemonMonitor.ClientFactory importClientFactory = new UploadDaemonMonitor.ClientFactory() {
+				@Override
+				public org.sagebionetworks.client.SynapseClient createClient(String ownerSessionToken) {
+					return createSynapseClient(ownerSessionToken);
+				}
+			};
+			TableCsvImport tableImport = new TableCsvImport(UUID.randomUUID().toString(), sessionToken, tableId, fileEntityId, columns, importClientFactory);
+			tableImports.put(tableImport.getJobId(), tableImport);
+			try {
+				tableImportExecutor.execute(tableImport);
+			} catch (RejectedExecutionException e) {
+				tableImports.remove(tableImport.getJobId());
+				throw new UnknownErrorException("Too many table imports are waiting, please try again later");
+			}
+			return tableImport.getJobId();
+		} catch (SynapseException e) {
+			throw ExceptionUtil.convertSynapseException(e);
+		}
+	}
+
+	/**
+	 * @param sessionToken
+	 * @return imports of the user that have not finished
+	 */
+	private int countRunningTableImports(String sessionToken) {
+		int count = 0;
+		for (TableCsvImport tableImport : tableImports.values()) {
+			if (tableImport.getFinishedOn() == 0 && sessionToken.equals(tableImport.getOwnerSessionToken()))
+				count++;
+		}
+		return count;
+	}
+
+	@Override
+	public TableImportStatus getTableImportStatus(String jobId) throws RestServiceException {
+		TableCsvImport tableImport = jobId == null ? null : tableImports.get(jobId);
+		String sessionToken = tokenProvider.getSessionToken();
+		// only the user who started the import can follow it
+		if (tableImport == null || tableImport.getOwnerSessionToken() == null || !tableImport.getOwnerSessionToken().equals(sessionToken))
+			throw new NotFoundException("Table import " + jobId + " was not found");
+		return tableImport.getStatus();
+	}
+
+	/**
+	 * Forget imports that finished a while ago.
+	 */
+	private void pruneTableImports() {
+		long now = System.currentTimeMillis();
+		for (Iterator<TableCsvImport> it = tableImports.values().iterator(); it.hasNext();) {
+			long finishedOn = it.next().getFinishedOn();
+			if (finishedOn > 0 && now - finishedOn > TABLE_IMPORT_RETENTION_MS)
+				it.remove();
+		}
+	}
+
 	@Override
 	public HashMap<String, org.sagebionetworks.web.shared.WikiPageKey> getHelpPages()
 			throws RestServiceException {
@@ -4,17 +4,36 @@ import org.sagebionetworks.client.SynapseClient;
 import org.sagebionetworks.client.SynapseClientImpl;
 import org.sagebionetworks.client.SynapseProfileProxy;
 
+import com.google.inject.Inject;
+
 /**
- * Very simple implementation.
+ * Very simple implementation. Calls of the clients are traced (see
+ * {@link RequestTrace}) and, when injected, go through the shared
+ * {@link RepositoryGuard}.
  * @author John
  *
  */
 public class SynapseProviderImpl implements SynapseProvider {
 	
+	private RepositoryGuard repositoryGuard;
+
+	/**
+	 * The calls of the clients are only traced.
+	 */
+	public SynapseProviderImpl() {
+	}
+
+	@Inject
+	public SynapseProviderImpl(RepositoryGuard repositoryGuard) {
+		this.repositoryGuard = repositoryGuard;
+	}
 
 	@Override
 	public SynapseClient createNewClient() {
-		return SynapseProfileProxy.createProfileProxy(new SynapseClientImpl());
+		SynapseClient client = SynapseProfileProxy.createProfileProxy(new SynapseClientImpl());
+		if (repositoryGuard != null)
+			client = repositoryGuard.wrap(client);
+		return RepositoryCallTracer.wrap(client);
 		// ONE LINE CHANGE TO USE STUB SYNAPSE CLIENT:		
 		//return SynapseClientStubUtil.createSynapseClient();		
 	}
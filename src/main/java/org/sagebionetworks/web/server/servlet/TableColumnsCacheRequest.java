@@ -0,0 +1,78 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.Serializable;
+
+/**
+ * Cache key for the column models of a table. The columns of a table are
+ * part of the table entity, so a changed schema changes the table etag. The
+ * session token is part of the key so a table is only read from the cache by
+ * callers that were allowed to read it (null for anonymous callers).
+ */
+public class TableColumnsCacheRequest implements Serializable {
+	private static final long serialVersionUID = -4623155204391722735L;
+	private String tableId;
+	private String tableEtag;
+	private String sessionToken;
+	public TableColumnsCacheRequest(String tableId, String tableEtag,
+			String sessionToken) {
+		super();
+		this.tableId = tableId;
+		this.tableEtag = tableEtag;
+		this.sessionToken = sessionToken;
+	}
+	public String getTableId() {
+		return tableId;
+	}
+	public void setTableId(String tableId) {
+		this.tableId = tableId;
+	}
+	public String getTableEtag() {
+		return tableEtag;
+	}
+	public void setTableEtag(String tableEtag) {
+		this.tableEtag = tableEtag;
+	}
+	public String getSessionToken() {
+		return sessionToken;
+	}
+	public void setSessionToken(String sessionToken) {
+		this.sessionToken = sessionToken;
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((sessionToken == null) ? 0 : sessionToken.hashCode());
+		result = prime * result
+				+ ((tableEtag == null) ? 0 : tableEtag.hashCode());
+		result = prime * result + ((tableId == null) ? 0 : tableId.hashCode());
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TableColumnsCacheRequest other = (TableColumnsCacheRequest) obj;
+		if (sessionToken == null) {
+			if (other.sessionToken != null)
+				return false;
+		} else if (!sessionToken.equals(other.sessionToken))
+			return false;
+		if (tableEtag == null) {
+			if (other.tableEtag != null)
+				return false;
+		} else if (!tableEtag.equals(other.tableEtag))
+			return false;
+		if (tableId == null) {
+			if (other.tableId != null)
+				return false;
+		} else if (!tableId.equals(other.tableId))
+			return false;
+		return true;
+	}
+}
@@ -0,0 +1,239 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
+import org.sagebionetworks.web.shared.table.TableImportStatus.State;
+
+/**
+ * Imports a CSV file into a table, in the background. The file is read as a
+ * stream and its rows are appended to the table in batches, so only one
+ * batch is held in memory however large the file is.
+ *
+ * The first record of the file is the header: each header is matched to a
+ * table column by name (ignoring case), and fields under headers that don't
+ * match a column are skipped. Rows appended before a failure are kept.
+ *
+ * The Synapse client is created on the import thread, so its calls are not
+ * traced into the request that started the import.
+ */
+public class TableCsvImport implements Runnable {
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	public static final int CONNECT_TIMEOUT_MS = 30*1000;
+	public static final int READ_TIMEOUT_MS = 60*1000;
+	public static final String CHARSET = "UTF-8";
+	private static Log log = LogFactory.getLog(TableCsvImport.class);
+
+	private final String jobId;
+	private final String ownerSessionToken;
+	private final String tableId;
+	private final String fileEntityId;
+	private final List<ColumnModel> columns;
+	private final UploadDaemonMonitor.ClientFactory clientFactory;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private CountingInputStream counter;
+
+	// read by status requests while the import runs
+	private volatile State state = State.PROCESSING;
+	private volatile long rowsImported = 0;
+	private volatile long bytesRead = 0;
+	private volatile Long totalBytes;
+	private volatile String errorMessage;
+	private volatile long finishedOn = 0;
+
+	/**
+	 * @param jobId
+	 * @param ownerSessionToken session of the user who started the import (only they can see its status)
+	 * @param tableId
+	 * @param fileEntityId file entity holding the CSV file
+	 * @param columns the table's columns
+	 * @param clientFactory creates the client of the user who started the import, on the import thread
+	 */
+	public TableCsvImport(String jobId, String ownerSessionToken, String tableId, String fileEntityId,
+			List<ColumnModel> columns, UploadDaemonMonitor.ClientFactory clientFactory) {
+		this.jobId = jobId;
+		this.ownerSessionToken = ownerSessionToken;
+		this.tableId = tableId;
+		this.fileEntityId = fileEntityId;
+		this.columns = columns;
+		this.clientFactory = clientFactory;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void run() {
+		try {
+			org.sagebionetworks.client.SynapseClient synapseClient = clientFactory.createClient(ownerSessionToken);
+			URL url = synapseClient.getFileEntityTemporaryUrlForCurrentVersion(fileEntityId);
+			URLConnection connection = url.openConnection();
+			// a stalled download fails the import instead of holding an import thread
+			connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+			connection.setReadTimeout(READ_TIMEOUT_MS);
+			int length = connection.getContentLength();
+			if (length >= 0)
+				totalBytes = (long) length;
+			counter = new CountingInputStream(connection.getInputStream());
+			try {
+				importRows(new BufferedReader(new InputStreamReader(counter, CHARSET)), synapseClient);
+			} finally {
+				counter.close();
+			}
+			state = State.COMPLETED;
+		} catch (Throwable e) {
+			log.error("Unable to import " + fileEntityId + " into " + tableId, e);
+			errorMessage = e.getMessage();
+			state = State.FAILED;
+		} finally {
+			finishedOn = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Read the CSV records and append them to the table.
+	 * @param reader
+	 * @param synapseClient
+	 * @throws IOException
+	 * @throws SynapseException
+	 */
+	public void importRows(Reader reader, org.sagebionetworks.client.SynapseClient synapseClient) throws IOException, SynapseException {
+		CsvRecordReader csv = new CsvRecordReader(reader);
+		List<String> header = csv.readRecord();
+		if (header == null)
+			throw new IllegalArgumentException("The file is empty");
+		Map<String, String> columnIds = new HashMap<String, String>();
+		for (ColumnModel column : columns) {
+			columnIds.put(column.getName().trim().toLowerCase(Locale.ENGLISH), column.getId());
+		}
+		// position in the record of each imported field
+		List<Integer> fieldIndexes = new ArrayList<Integer>();
+		List<String> headers = new ArrayList<String>();
+		for (int i = 0; i < header.size(); i++) {
+			String columnId = columnIds.get(header.get(i).trim().toLowerCase(Locale.ENGLISH));
+			if (columnId != null && !headers.contains(columnId)) {
+				fieldIndexes.add(i);
+				headers.add(columnId);
+			}
+		}
+		if (headers.isEmpty())
+			throw new IllegalArgumentException("None of the CSV headers match a column of the table");
+
+		List<Row> batch = new ArrayList<Row>(batchSize);
+		List<String> record;
+		while ((record = csv.readRecord()) != null) {
+			if (record.size() == 1 && record.get(0).length() == 0)
+				continue;
+			List<String> values = new ArrayList<String>(fieldIndexes.size());
+			for (Integer index : fieldIndexes) {
+				String value = index < record.size() ? record.get(index) : null;
+				values.add(value == null || value.length() == 0 ? null : value);
+			}
+			Row row = new Row();
+			row.setValues(values);
+			batch.add(row);
+			if (batch.size() >= batchSize) {
+				append(synapseClient, headers, batch);
+				batch = new ArrayList<Row>(batchSize);
+			}
+		}
+		if (!batch.isEmpty())
+			append(synapseClient, headers, batch);
+		updateBytesRead();
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public String getOwnerSessionToken() {
+		return ownerSessionToken;
+	}
+
+	/**
+	 * @return when the import completed or failed, or 0 while it is running
+	 */
+	public long getFinishedOn() {
+		return finishedOn;
+	}
+
+	public TableImportStatus getStatus() {
+		return new TableImportStatus(jobId, state, rowsImported, bytesRead, totalBytes, errorMessage);
+	}
+
+	/*
+	 * Private Methods
+	 */
+
+	private void append(org.sagebionetworks.client.SynapseClient synapseClient, List<String> headers, List<Row> rows) throws SynapseException {
+		RowSet rowSet = new RowSet();
+		rowSet.setTableId(tableId);
+		rowSet.setHeaders(headers);
+		rowSet.setRows(rows);
+		synapseClient.appendRowsToTable(rowSet);
+		rowsImported += rows.size();
+		updateBytesRead();
+	}
+
+	private void updateBytesRead() {
+		if (counter != null)
+			bytesRead = counter.getCount();
+	}
+
+	/**
+	 * Counts the bytes read, for the progress of the import.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private volatile long count = 0;
+
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1)
+				count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		public long getCount() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.sagebionetworks.markdown.constants.WidgetConstants;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.client.SynapseClient;
+import org.sagebionetworks.web.client.mvp.AppPlaceHistoryMapper;
+import org.sagebionetworks.web.server.ServerConstants;
+
+import com.google.gwt.place.shared.WithTokenizers;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Aggregates the measurements sent by the browsers (see ClientTelemetry) into
+ * a histogram per name, from which percentiles are reported. The histogram
+ * buckets grow by a fifth, so a percentile is within 20% of the exact value,
+ * and a histogram takes the same space however many values it counts.
+ * 
+ * The batches are posted by anyone, so only the names the portal can send
+ * are kept (the places, the SynapseClient RPCs and the widgets), a batch
+ * counts at most {@link #MAX_VALUES_PER_NAME} values of a name, and the
+ * histograms start over every window (an hour by default).
+ */
+public class TelemetryAggregator {
+	public static final long MAX_VALUE = 1000000000L;
+	public static final int MAX_VALUES_PER_NAME = 200;
+	public static final int MAX_BATCH_VALUES = 1000;
+	public static final long DEFAULT_WINDOW_MS = 1000L*60L*60L;
+	public static final double[] PERCENTILES = new double[] {0.5, 0.9, 0.99};
+	public static final Set<String> KNOWN_NAMES = Collections.unmodifiableSet(getKnownNames());
+	// upper bounds of the buckets
+	private static final long[] BUCKET_BOUNDS;
+	static {
+		List<Long> bounds = new ArrayList<Long>();
+		long bound = 0;
+		while (bound < MAX_VALUE) {
+			bounds.add(bound);
+			bound = Math.max(bound + 1, (long) (bound * 1.2));
+		}
+		bounds.add(MAX_VALUE);
+		BUCKET_BOUNDS = new long[bounds.size()];
+		for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+			BUCKET_BOUNDS[i] = bounds.get(i);
+		}
+	}
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private long windowMillis = DEFAULT_WINDOW_MS;
+	private volatile long startMillis = System.currentTimeMillis();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	@Inject(optional=true)
+	public void setWindowMillis(@Named(ServerConstants.KEY_TELEMETRY_WINDOW_MS) long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	/**
+	 * @return the metric names the portal sends
+	 */
+	private static Set<String> getKnownNames() {
+		Set<String> names = new HashSet<String>();
+		for (Class<?> tokenizer : AppPlaceHistoryMapper.class.getAnnotation(WithTokenizers.class).value()) {
+			names.add("place." + tokenizer.getEnclosingClass().getSimpleName() + ".ms");
+		}
+		for (Method method : SynapseClient.class.getMethods()) {
+			String prefix = "rpc." + method.getName();
+			names.add(prefix + ".ms");
+			names.add(prefix + ".requestBytes");
+			names.add(prefix + ".responseBytes");
+		}
+		for (Field field : WidgetConstants.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class && field.getName().endsWith("CONTENT_TYPE")) {
+				try {
+					names.add("widget." + field.get(null) + ".configure.ms");
+				} catch (IllegalAccessException e) {
+					// public, so not thrown
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @param body {"values":{"name":[value,...],...},"dropped":count}
+	 * @throws JSONException if the body is not understood
+	 */
+	public void addBatch(String body) throws JSONException {
+		rollWindow(System.currentTimeMillis());
+		JSONObject batch = new JSONObject(body);
+		JSONObject values = batch.getJSONObject("values");
+		int batchValues = 0;
+		for (Iterator<?> it = values.keys(); it.hasNext();) {
+			String name = (String) it.next();
+			JSONArray list = values.getJSONArray(name);
+			int kept = Math.min(list.length(), Math.min(MAX_VALUES_PER_NAME, MAX_BATCH_VALUES - batchValues));
+			for (int i = 0; i < kept; i++) {
+				record(name, list.getLong(i));
+			}
+			droppedCount.addAndGet(list.length() - kept);
+			batchValues += kept;
+		}
+		droppedCount.addAndGet(Math.min(MAX_BATCH_VALUES, Math.max(0, batch.optLong("dropped", 0))));
+		batchCount.incrementAndGet();
+	}
+
+	/**
+	 * Start over once the window is over.
+	 * @param nowMillis
+	 */
+	public synchronized void rollWindow(long nowMillis) {
+		if (nowMillis - startMillis < windowMillis)
+			return;
+		histograms.clear();
+		batchCount.set(0);
+		droppedCount.set(0);
+		startMillis = nowMillis;
+	}
+
+	/**
+	 * @param name
+	 * @param value
+	 * @return false if the value was dropped (unknown name, or bad value)
+	 */
+	public boolean record(String name, long value) {
+		if (value < 0 || value > MAX_VALUE || !KNOWN_NAMES.contains(name)) {
+			droppedCount.incrementAndGet();
+			return false;
+		}
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			histogram = new Histogram();
+			Histogram previous = histograms.putIfAbsent(name, histogram);
+			if (previous != null)
+				histogram = previous;
+		}
+		histogram.add(value);
+		return true;
+	}
+
+	/**
+	 * @param name
+	 * @return the histogram of the name, or null
+	 */
+	public Histogram getHistogram(String name) {
+		return histograms.get(name);
+	}
+
+	public String getSummaryJson() throws JSONObjectAdapterException {
+		rollWindow(System.currentTimeMillis());
+		JSONObjectAdapter json = new JSONObjectAdapterImpl();
+		json.put("sinceMillis", startMillis);
+		json.put("batches", batchCount.get());
+		json.put("dropped", droppedCount.get());
+		JSONObjectAdapter metrics = json.createNew();
+		// sorted, so the places, RPCs and widgets are together
+		for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(histograms).entrySet()) {
+			metrics.put(entry.getKey(), entry.getValue().writeToJSONObject(json.createNew()));
+		}
+		json.put("metrics", metrics);
+		return json.toJSONString();
+	}
+
+	public static class Histogram {
+		private final long[] counts = new long[BUCKET_BOUNDS.length];
+		private long count = 0;
+		private long sum = 0;
+		private long max = 0;
+
+		public synchronized void add(long value) {
+			int bucket = Arrays.binarySearch(BUCKET_BOUNDS, value);
+			if (bucket < 0)
+				// the first bound above the value
+				bucket = -bucket - 1;
+			counts[bucket]++;
+			count++;
+			sum += value;
+			max = Math.max(max, value);
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * @param percentile between 0 and 1
+		 * @return the upper bound of the bucket holding the percentile (at most the largest value), or 0 if empty
+		 */
+		public synchronized long getPercentile(double percentile) {
+			long rank = (long) Math.ceil(percentile * count);
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank && seen > 0)
+					return Math.min(BUCKET_BOUNDS[i], max);
+			}
+			return 0;
+		}
+
+		synchronized JSONObjectAdapter writeToJSONObject(JSONObjectAdapter json) throws JSONObjectAdapterException {
+			json.put("count", count);
+			json.put("mean", count == 0 ? 0 : sum / count);
+			for (double percentile : PERCENTILES) {
+				json.put("p" + Math.round(percentile * 100), getPercentile(percentile));
+			}
+			json.put("max", max);
+			return json;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONException;
+
+import com.google.inject.Inject;
+
+/**
+ * Receives the batches of measurements posted by the browsers (or sent as
+ * beacons when a page unloads), for the {@link TelemetryAggregator}.
+ */
+public class TelemetryServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+	public static final int MAX_BODY_CHARS = 64 * 1024;
+
+	private TelemetryAggregator telemetryAggregator;
+
+	@Inject
+	public void setTelemetryAggregator(TelemetryAggregator telemetryAggregator) {
+		this.telemetryAggregator = telemetryAggregator;
+	}
+
+	@Override
+	public void doPost(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		StringBuilder body = new StringBuilder();
+		Reader reader = request.getReader();
+		char[] buffer = new char[4096];
+		int read;
+		while ((read = reader.read(buffer)) > 0) {
+			body.append(buffer, 0, read);
+			if (body.length() > MAX_BODY_CHARS) {
+				response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+				return;
+			}
+		}
+		try {
+			telemetryAggregator.addBatch(body.toString());
+		} catch (JSONException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unable to read telemetry batch");
+			return;
+		}
+		response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+	}
+}
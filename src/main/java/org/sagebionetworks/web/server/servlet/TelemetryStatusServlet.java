@@ -0,0 +1,43 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+
+import com.google.inject.Inject;
+
+/**
+ * Reports the percentiles of the browser measurements received by this
+ * portal node, as json.
+ */
+public class TelemetryStatusServlet extends HttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private TelemetryAggregator telemetryAggregator;
+
+	@Inject
+	public void setTelemetryAggregator(TelemetryAggregator telemetryAggregator) {
+		this.telemetryAggregator = telemetryAggregator;
+	}
+
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		String result;
+		try {
+			result = telemetryAggregator.getSummaryJson();
+		} catch (JSONObjectAdapterException e) {
+			throw new ServletException(e);
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		response.getWriter().write(result);
+	}
+}
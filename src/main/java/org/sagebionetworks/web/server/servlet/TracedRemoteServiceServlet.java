@@ -0,0 +1,54 @@
+package org.sagebionetworks.web.server.servlet;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.RPCRequest;
+import com.google.gwt.user.server.rpc.RemoteServiceServlet;
+import com.google.inject.Inject;
+
+/**
+ * Base of the portal RPC services. Names the RPC method in the
+ * {@link RequestTrace} of the request, and hands each call to the
+ * {@link SlowRpcSampler} (when one is injected).
+ */
+public class TracedRemoteServiceServlet extends RemoteServiceServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient SlowRpcSampler slowRpcSampler;
+	private transient ThreadLocal<SlowRpcSampler.Call> currentCall = new ThreadLocal<SlowRpcSampler.Call>();
+
+	@Inject(optional=true)
+	public void setSlowRpcSampler(SlowRpcSampler slowRpcSampler) {
+		this.slowRpcSampler = slowRpcSampler;
+		slowRpcSampler.start();
+	}
+
+	@Override
+	public String processCall(String payload) throws SerializationException {
+		if (slowRpcSampler == null)
+			return super.processCall(payload);
+		SlowRpcSampler.Call call = slowRpcSampler.begin(getClass().getSimpleName());
+		call.setRequestBytes(payload.length());
+		currentCall.set(call);
+		String response = null;
+		try {
+			response = super.processCall(payload);
+			return response;
+		} finally {
+			currentCall.remove();
+			slowRpcSampler.end(call, response == null ? 0 : response.length(), RequestTrace.current());
+		}
+	}
+
+	@Override
+	protected void onAfterRequestDeserialized(RPCRequest rpcRequest) {
+		super.onAfterRequestDeserialized(rpcRequest);
+		String method = rpcRequest.getMethod().getName();
+		RequestTrace trace = RequestTrace.current();
+		if (trace != null)
+			trace.setRpcMethod(method);
+		SlowRpcSampler.Call call = currentCall.get();
+		if (call != null)
+			call.setMethod(method, rpcRequest.getParameters());
+	}
+}
@@ -0,0 +1,121 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.repo.model.file.State;
+import org.sagebionetworks.repo.model.file.UploadDaemonStatus;
+
+/**
+ * Follows the upload daemons (the repository combining the chunks of an
+ * upload) started through this portal node. A single background thread asks
+ * the repository for the status of each daemon once per
+ * {@link #POLL_INTERVAL_MS}, and the browser polls are answered from memory,
+ * so they hold a servlet thread only for a moment and cost no repository call.
+ *
+ * A daemon is dropped once nobody has asked for it for {@link #IDLE_MS}, or
+ * if the repository can not be asked about it; the browser polls then go to
+ * the repository directly.
+ *
+ * The poll thread asks with clients of its own, created on that thread, so
+ * its calls are not recorded into the trace of the request that started the
+ * daemon.
+ */
+public class UploadDaemonMonitor {
+	public static final long POLL_INTERVAL_MS = 1000;
+	public static final long IDLE_MS = 1000L*60L;
+
+	static private Log log = LogFactory.getLog(UploadDaemonMonitor.class);
+
+	/**
+	 * Creates the clients of the poll thread.
+	 */
+	public interface ClientFactory {
+		/**
+		 * @param sessionToken of the user that started the daemon
+		 */
+		org.sagebionetworks.client.SynapseClient createClient(String sessionToken);
+	}
+
+	private ConcurrentHashMap<String, Watch> watches = new ConcurrentHashMap<String, Watch>();
+
+	/**
+	 * Follow a daemon that was just started.
+	 * @param started the status returned when the daemon was started
+	 * @param sessionToken of the user that started it
+	 */
+	public void watch(UploadDaemonStatus started, String sessionToken) {
+		if (started == null || started.getDaemonId() == null || State.PROCESSING != started.getState())
+			return;
+		watches.put(started.getDaemonId(), new Watch(started, sessionToken, currentTimeMillis()));
+	}
+
+	/**
+	 * @param daemonId
+	 * @param sessionToken of the caller
+	 * @return the last known status, or null if the daemon is not followed (or was started by someone else)
+	 */
+	public UploadDaemonStatus getStatus(String daemonId, String sessionToken) {
+		Watch watch = daemonId == null ? null : watches.get(daemonId);
+		if (watch == null || !equals(watch.sessionToken, sessionToken))
+			return null;
+		watch.lastRequested = currentTimeMillis();
+		return watch.status;
+	}
+
+	/**
+	 * Bring the status of each followed daemon up to date. Called from a single background thread.
+	 * @param clientFactory creates a client the first time a daemon is polled
+	 */
+	public void poll(ClientFactory clientFactory) {
+		long now = currentTimeMillis();
+		for (Iterator<Watch> it = watches.values().iterator(); it.hasNext();) {
+			Watch watch = it.next();
+			if (now - watch.lastRequested > IDLE_MS) {
+				it.remove();
+				continue;
+			}
+			if (State.PROCESSING != watch.status.getState())
+				continue;
+			try {
+				if (watch.synapseClient == null)
+					watch.synapseClient = clientFactory.createClient(watch.sessionToken);
+				watch.status = watch.synapseClient.getCompleteUploadDaemonStatus(watch.status.getDaemonId());
+			} catch (SynapseException e) {
+				log.warn("Unable to get the status of upload daemon " + watch.status.getDaemonId() + ", no longer following it", e);
+				it.remove();
+			}
+		}
+	}
+
+	public int size() {
+		return watches.size();
+	}
+
+	/**
+	 * Unit tests override this to control time.
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static class Watch {
+		volatile UploadDaemonStatus status;
+		volatile long lastRequested;
+		// only used by the poll thread
+		org.sagebionetworks.client.SynapseClient synapseClient;
+		final String sessionToken;
+		Watch(UploadDaemonStatus status, String sessionToken, long now) {
+			this.status = status;
+			this.sessionToken = sessionToken;
+			this.lastRequested = now;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package org.sagebionetworks.web.server.servlet;
 
 import org.sagebionetworks.client.SynapseClient;
 import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.client.exceptions.SynapseUnauthorizedException;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
 import org.sagebionetworks.repo.model.UserSessionData;
 import org.sagebionetworks.repo.model.auth.NewUser;
@@ -16,10 +17,9 @@ import org.sagebionetworks.web.shared.exceptions.UnauthorizedException;
 import org.sagebionetworks.web.shared.users.UserRegistration;
 import org.springframework.web.client.RestClientException;
 
-import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 import com.google.inject.Inject;
 
-public class UserAccountServiceImpl extends RemoteServiceServlet implements UserAccountService, TokenProvider {
+public class UserAccountServiceImpl extends TracedRemoteServiceServlet implements UserAccountService, TokenProvider {
 	
 	public static final long serialVersionUID = 498269726L;
 	
@@ -34,6 +34,8 @@ public class UserAccountServiceImpl extends RemoteServiceServlet implements User
 	
 	public static PublicPrincipalIds publicPrincipalIds = null;
 	
+	private transient ValidatedSessionTokens validatedSessionTokens = new ValidatedSessionTokens();
+	
 	/**
 	 * Injected with Gin
 	 */
@@ -41,6 +43,16 @@ public class UserAccountServiceImpl extends RemoteServiceServlet implements User
 	public void setServiceUrlProvider(ServiceUrlProvider provider){
 		this.urlProvider = provider;
 	}
+	
+	@Inject
+	public void setValidatedSessionTokens(ValidatedSessionTokens validatedSessionTokens) {
+		this.validatedSessionTokens = validatedSessionTokens;
+	}
+	
+	@Inject
+	public void setSynapseProvider(SynapseProvider synapseProvider) {
+		this.synapseProvider = synapseProvider;
+	}
 
 	/**
 	 * This allows integration tests to override the token provider.
@@ -93,6 +105,7 @@ public class UserAccountServiceImpl extends RemoteServiceServlet implements User
 		SynapseClient synapseClient = createSynapseClient();
 		try {
 			Session session = synapseClient.login(username, password);
+			validatedSessionTokens.validated(session.getSessionToken(), System.currentTimeMillis());
 			return EntityFactory.createJSONStringForEntity(session);
 		} catch (JSONObjectAdapterException e) {
 			throw new UnauthorizedException(e.getMessage());
@@ -105,13 +118,17 @@ public class UserAccountServiceImpl extends RemoteServiceServlet implements User
 	public String getUserSessionData(String sessionToken) throws RestServiceException {
 		validateService();
 		
+		String token = sessionToken == null ? tokenProvider.getSessionToken() : sessionToken;
 		SynapseClient synapseClient = createSynapseClient(sessionToken);
 		try {
 			UserSessionData userData = synapseClient.getUserSessionData();
+			validatedSessionTokens.validated(token, System.currentTimeMillis());
 			return EntityFactory.createJSONStringForEntity(userData);
 		} catch (JSONObjectAdapterException e) {
 			throw new UnauthorizedException(e.getMessage());
 		} catch (SynapseException e) {
+			if (e instanceof SynapseUnauthorizedException)
+				validatedSessionTokens.invalidated(token);
 			throw ExceptionUtil.convertSynapseException(e);
 		}
 	}
@@ -149,6 +166,7 @@ public class UserAccountServiceImpl extends RemoteServiceServlet implements User
 	public void terminateSession(String sessionToken) throws RestServiceException {
 		validateService();
 
+		validatedSessionTokens.invalidated(sessionToken);
 		SynapseClient client = createSynapseClient();
 		try {
 			client.logout();
@@ -64,6 +64,7 @@ public class UserProfileAttachmentServlet extends HttpServlet {
 	 *
 	 * @param provider
 	 */
+	@Inject
 	public void setSynapseProvider(SynapseProvider synapseProvider) {
 		this.synapseProvider = synapseProvider;
 	}
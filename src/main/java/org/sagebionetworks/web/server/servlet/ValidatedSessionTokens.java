@@ -0,0 +1,75 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The session tokens the repository accepted recently (at login, or when the
+ * browser checked its session), so the portal can tell a signed in caller from
+ * one sending a made up cookie without asking the repository on each request.
+ * Bounded in number: once full, one caller drops the expired tokens and then,
+ * if that was not enough, any tokens down to three quarters of the bound.
+ * Lookups never wait.
+ */
+public class ValidatedSessionTokens {
+	public static final int DEFAULT_MAX_TOKENS = 50000;
+	// the repository expires idle sessions after a day
+	public static final long VALIDITY_MS = 1000L*60L*60L*24L;
+
+	private final int maxTokens;
+	private final ConcurrentMap<String, Long> validatedOn = new ConcurrentHashMap<String, Long>();
+	private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+	public ValidatedSessionTokens() {
+		this(DEFAULT_MAX_TOKENS);
+	}
+
+	public ValidatedSessionTokens(int maxTokens) {
+		this.maxTokens = maxTokens;
+	}
+
+	public void validated(String sessionToken, long nowMillis) {
+		if (sessionToken == null)
+			return;
+		validatedOn.put(sessionToken, nowMillis);
+		if (validatedOn.size() > maxTokens)
+			sweep(nowMillis);
+	}
+
+	public void invalidated(String sessionToken) {
+		if (sessionToken != null)
+			validatedOn.remove(sessionToken);
+	}
+
+	public boolean isValidated(String sessionToken, long nowMillis) {
+		if (sessionToken == null)
+			return false;
+		Long validated = validatedOn.get(sessionToken);
+		return validated != null && nowMillis - validated < VALIDITY_MS;
+	}
+
+	public int size() {
+		return validatedOn.size();
+	}
+
+	private void sweep(long nowMillis) {
+		if (!sweeping.compareAndSet(false, true))
+			return;
+		try {
+			for (Iterator<Map.Entry<String, Long>> it = validatedOn.entrySet().iterator(); it.hasNext();) {
+				if (nowMillis - it.next().getValue() >= VALIDITY_MS)
+					it.remove();
+			}
+			int target = maxTokens * 3 / 4;
+			for (Iterator<Long> it = validatedOn.values().iterator(); validatedOn.size() > target && it.hasNext();) {
+				it.next();
+				it.remove();
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.sagebionetworks.web.server.servlet;
+
+import java.io.Serializable;
+
+import org.sagebionetworks.repo.model.ObjectType;
+
+/**
+ * Cache key for wiki data that belongs to a wiki owner (rather than to a
+ * single page). The session token is only set for data that depends on the
+ * caller's access, like the titles in the wiki header tree.
+ */
+public class WikiOwnerCacheRequest implements Serializable {
+	private static final long serialVersionUID = 2795826218362613954L;
+	private String ownerId;
+	private ObjectType ownerType;
+	private String sessionToken;
+	public WikiOwnerCacheRequest(String ownerId, ObjectType ownerType, String sessionToken) {
+		super();
+		this.ownerId = ownerId;
+		this.ownerType = ownerType;
+		this.sessionToken = sessionToken;
+	}
+	public String getOwnerId() {
+		return ownerId;
+	}
+	public void setOwnerId(String ownerId) {
+		this.ownerId = ownerId;
+	}
+	public ObjectType getOwnerType() {
+		return ownerType;
+	}
+	public void setOwnerType(ObjectType ownerType) {
+		this.ownerType = ownerType;
+	}
+	public String getSessionToken() {
+		return sessionToken;
+	}
+	public void setSessionToken(String sessionToken) {
+		this.sessionToken = sessionToken;
+	}
+	/**
+	 * @return true if this key belongs to the given owner, regardless of the session.
+	 */
+	public boolean isOwner(String ownerId, ObjectType ownerType) {
+		return this.ownerType == ownerType && this.ownerId != null && this.ownerId.equals(ownerId);
+	}
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((ownerId == null) ? 0 : ownerId.hashCode());
+		result = prime * result
+				+ ((ownerType == null) ? 0 : ownerType.hashCode());
+		result = prime * result
+				+ ((sessionToken == null) ? 0 : sessionToken.hashCode());
+		return result;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		WikiOwnerCacheRequest other = (WikiOwnerCacheRequest) obj;
+		if (ownerId == null) {
+			if (other.ownerId != null)
+				return false;
+		} else if (!ownerId.equals(other.ownerId))
+			return false;
+		if (ownerType != other.ownerType)
+			return false;
+		if (sessionToken == null) {
+			if (other.sessionToken != null)
+				return false;
+		} else if (!sessionToken.equals(other.sessionToken))
+			return false;
+		return true;
+	}
+}
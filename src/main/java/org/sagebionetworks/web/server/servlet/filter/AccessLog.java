@@ -0,0 +1,233 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.servlet.RequestTrace;
+
+/**
+ * Access log of the portal, one json line per request. Request threads only
+ * put their entry in a ring buffer (without locks, and without waiting: when
+ * the ring is full the entry is dropped and counted); a background thread
+ * formats the entries and writes them to the access logger.
+ */
+public class AccessLog {
+	public static final int CAPACITY = 8192;
+	public static final long WRITE_INTERVAL_MS = 100;
+	public static final String LOGGER_NAME = "org.sagebionetworks.portal.access";
+
+	static private Logger log = LogManager.getLogger(AccessLog.class);
+	static private Logger accessLog = LogManager.getLogger(LOGGER_NAME);
+
+	private final int capacity;
+	private final AtomicReferenceArray<Entry> ring;
+	// next slot to claim, by the request threads
+	private final AtomicLong tail = new AtomicLong();
+	// next slot to write, only moved by the writer
+	private volatile long head = 0;
+	private final AtomicLong droppedCount = new AtomicLong();
+	private long reportedDroppedCount = 0;
+	private MessageDigest digest;
+	private Thread writer;
+	private volatile boolean running = false;
+
+	public AccessLog() {
+		this(CAPACITY);
+	}
+
+	public AccessLog(int capacity) {
+		this.capacity = capacity;
+		this.ring = new AtomicReferenceArray<Entry>(capacity);
+	}
+
+	/**
+	 * Hand the entry to the writer. Never waits.
+	 * @param entry
+	 * @return false if the ring was full and the entry was dropped
+	 */
+	public boolean record(Entry entry) {
+		while (true) {
+			long slot = tail.get();
+			if (slot - head >= capacity) {
+				droppedCount.incrementAndGet();
+				return false;
+			}
+			if (tail.compareAndSet(slot, slot + 1)) {
+				ring.set((int) (slot % capacity), entry);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Write the entries handed over so far. Only called by the writer thread
+	 * (or by tests, when it is not started).
+	 * @return the number of entries written
+	 */
+	public int drain() {
+		int written = 0;
+		while (true) {
+			int index = (int) (head % capacity);
+			Entry entry = ring.get(index);
+			if (entry == null)
+				// empty, or the slot is claimed but not filled yet
+				break;
+			ring.set(index, null);
+			head++;
+			try {
+				write(format(entry));
+			} catch (Exception e) {
+				log.error("Unable to write access log entry", e);
+			}
+			written++;
+		}
+		long dropped = droppedCount.get();
+		if (dropped > reportedDroppedCount) {
+			write("{\"dropped\":" + (dropped - reportedDroppedCount) + "}");
+			reportedDroppedCount = dropped;
+		}
+		return written;
+	}
+
+	public synchronized void start() {
+		if (writer != null)
+			return;
+		running = true;
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					if (drain() == 0) {
+						try {
+							Thread.sleep(WRITE_INTERVAL_MS);
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+				}
+				drain();
+			}
+		}, "access-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public synchronized void shutdown() {
+		if (writer == null)
+			return;
+		running = false;
+		writer.interrupt();
+		try {
+			writer.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer = null;
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Write one line; by default to the access logger.
+	 * @param line
+	 */
+	protected void write(String line) {
+		accessLog.info(line);
+	}
+
+	public String format(Entry entry) throws JSONObjectAdapterException {
+		JSONObjectAdapter json = new JSONObjectAdapterImpl();
+		json.put("time", entry.timeMillis);
+		json.put("requestId", entry.requestId);
+		json.put("method", entry.method);
+		json.put("path", entry.path);
+		json.put("status", (long) entry.status);
+		json.put("latencyMillis", entry.latencyMillis);
+		json.put("bytesIn", entry.bytesIn);
+		json.put("bytesOut", entry.bytesOut);
+		if (entry.sessionToken != null)
+			json.put("user", hashUser(entry.sessionToken));
+		RequestTrace trace = entry.trace;
+		if (trace != null) {
+			if (trace.getRpcMethod() != null)
+				json.put("rpc", trace.getRpcMethod());
+			json.put("repoCalls", (long) trace.getCalls().size());
+			json.put("repoMillis", trace.getRepositoryMillis());
+		}
+		return json.toJSONString();
+	}
+
+	/**
+	 * @param sessionToken
+	 * @return the start of the SHA-256 of the token, to tell users apart without logging their tokens
+	 */
+	String hashUser(String sessionToken) {
+		try {
+			if (digest == null)
+				digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(sessionToken.getBytes("UTF-8"));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hex.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+				hex.append(Character.forDigit(hash[i] & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * What the request thread knows of a request. Formatted by the writer.
+	 */
+	public static class Entry {
+		private final long timeMillis;
+		private final String requestId;
+		private final String method;
+		private final String path;
+		private final int status;
+		private final long latencyMillis;
+		private final long bytesIn;
+		private final long bytesOut;
+		private final String sessionToken;
+		private final RequestTrace trace;
+
+		/**
+		 * @param timeMillis start of the request
+		 * @param requestId
+		 * @param method the http method
+		 * @param path
+		 * @param status
+		 * @param latencyMillis
+		 * @param bytesIn
+		 * @param bytesOut
+		 * @param sessionToken the session token of the user, or null
+		 * @param trace the ended trace of the request, or null
+		 */
+		public Entry(long timeMillis, String requestId, String method, String path, int status,
+				long latencyMillis, long bytesIn, long bytesOut, String sessionToken, RequestTrace trace) {
+			this.timeMillis = timeMillis;
+			this.requestId = requestId;
+			this.method = method;
+			this.path = path;
+			this.status = status;
+			this.latencyMillis = latencyMillis;
+			this.bytesIn = bytesIn;
+			this.bytesOut = bytesOut;
+			this.sessionToken = sessionToken;
+			this.trace = trace;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Keeps the status of the response and counts what is written to it, for the
+ * {@link AccessLog} (the servlet API in use cannot tell either). Output
+ * written through the writer is counted in characters.
+ */
+public class AccessLogResponse extends HttpServletResponseWrapper {
+
+	private int status = HttpServletResponse.SC_OK;
+	private long bytesOut = 0;
+	private ServletOutputStream outputStream;
+	private PrintWriter writer;
+
+	public AccessLogResponse(HttpServletResponse response) {
+		super(response);
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		status = sc;
+		super.setStatus(sc);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void setStatus(int sc, String sm) {
+		status = sc;
+		super.setStatus(sc, sm);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		status = sc;
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		status = sc;
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			final ServletOutputStream out = super.getOutputStream();
+			outputStream = new ServletOutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					bytesOut++;
+				}
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					bytesOut += len;
+				}
+				@Override
+				public void flush() throws IOException {
+					out.flush();
+				}
+				@Override
+				public void close() throws IOException {
+					out.close();
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			final PrintWriter out = super.getWriter();
+			writer = new PrintWriter(new Writer() {
+				@Override
+				public void write(char[] cbuf, int off, int len) throws IOException {
+					out.write(cbuf, off, len);
+					bytesOut += len;
+				}
+				@Override
+				public void flush() throws IOException {
+					out.flush();
+				}
+				@Override
+				public void close() throws IOException {
+					out.close();
+				}
+			});
+		}
+		return writer;
+	}
+}
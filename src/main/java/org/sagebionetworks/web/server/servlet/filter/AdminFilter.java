@@ -0,0 +1,92 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.web.server.ServerConstants;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Guards the operational endpoints under /Portal/admin. A request must carry
+ * the admin key of the deployment in the {@link #HEADER_ADMIN_KEY} header
+ * and, when admin addresses are configured, come from one of them. Without
+ * a configured key the endpoints are turned off (404).
+ */
+public class AdminFilter implements Filter {
+
+	public static final String HEADER_ADMIN_KEY = "X-Portal-Admin-Key";
+
+	static private Logger log = LogManager.getLogger(AdminFilter.class);
+
+	private byte[] adminKey;
+	private Set<String> allowedAddresses = Collections.emptySet();
+	private Set<String> trustedProxies = Collections.emptySet();
+
+	@Inject(optional=true)
+	public void setAdminKey(@Named(ServerConstants.KEY_ADMIN_KEY) String adminKey) {
+		this.adminKey = adminKey == null || adminKey.trim().isEmpty() ? null : getBytes(adminKey.trim());
+	}
+
+	@Inject(optional=true)
+	public void setAllowedAddresses(@Named(ServerConstants.KEY_ADMIN_ADDRESSES) String allowedAddresses) {
+		this.allowedAddresses = AdmissionControlFilter.parseAddresses(allowedAddresses);
+	}
+
+	@Inject(optional=true)
+	public void setTrustedProxies(@Named(ServerConstants.KEY_TRUSTED_PROXY_ADDRESSES) String trustedProxies) {
+		this.trustedProxies = AdmissionControlFilter.parseAddresses(trustedProxies);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response,
+			FilterChain chain) throws IOException, ServletException {
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		if (adminKey == null) {
+			httpResponse.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		String address = AdmissionControlFilter.getClientAddress(httpRequest, trustedProxies);
+		String key = httpRequest.getHeader(HEADER_ADMIN_KEY);
+		// compared in constant time, so the key can not be guessed from response times
+		if ((!allowedAddresses.isEmpty() && !allowedAddresses.contains(address))
+				|| key == null || !MessageDigest.isEqual(adminKey, getBytes(key))) {
+			log.warn("Refused admin request " + httpRequest.getServletPath() + " from " + address);
+			httpResponse.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+
+	private static byte[] getBytes(String value) {
+		try {
+			return value.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
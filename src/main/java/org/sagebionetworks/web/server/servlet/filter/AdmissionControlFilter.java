@@ -0,0 +1,364 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.web.client.cookie.CookieKeys;
+import org.sagebionetworks.web.server.ServerConstants;
+import org.sagebionetworks.web.server.servlet.ValidatedSessionTokens;
+import org.sagebionetworks.web.shared.RpcPayloadUtils;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Rate limits the portal services per client, so one script or crawler can
+ * not take all the servlet threads. Each client (the session token, or the
+ * address of anonymous callers) has a token bucket for all of its requests,
+ * and one more for each kind of expensive RPC. A request finding its bucket
+ * empty gets a 429 with a Retry-After.
+ * 
+ * Only session tokens the repository accepted get buckets of their own (see
+ * {@link ValidatedSessionTokens}); a made up cookie counts as anonymous. The
+ * requests of signed in users are charged to their address as well, at the
+ * higher rate of the many users one address may have.
+ * 
+ * The kind of an RPC is read from the start of its body only (see
+ * {@link #MAX_RPC_PREFIX_BYTES}); the rest is passed on unread.
+ */
+public class AdmissionControlFilter implements Filter {
+
+	public static final int SC_TOO_MANY_REQUESTS = 429;
+	public static final String HEADER_RETRY_AFTER = "Retry-After";
+	public static final String HEADER_X_FORWARDED_FOR = "X-Forwarded-For";
+	public static final String GWT_RPC_CONTENT_TYPE = "text/x-gwt-rpc";
+	public static final String TOKEN_PREFIX = "token:";
+	public static final String ADDRESS_PREFIX = "ip:";
+	public static final String ANY_ADDRESS = "*";
+	/**
+	 * The method name comes right after the module, policy and interface names
+	 * at the start of an RPC body, so a request that does not name its method
+	 * in this many bytes is only charged to the general budget.
+	 */
+	public static final int MAX_RPC_PREFIX_BYTES = 8192;
+
+	public static final String GENERAL_BUDGET = "general";
+	public static final String ADDRESS_BUDGET = "address";
+	public static final String SEARCH_BUDGET = "search";
+	public static final String TABLE_QUERY_BUDGET = "tableQuery";
+	public static final String DESCENDANTS_BUDGET = "descendants";
+	/**
+	 * RPC method name to the budget it is charged to, besides the general one
+	 */
+	public static final Map<String, String> EXPENSIVE_METHODS;
+	static {
+		Map<String, String> methods = new HashMap<String, String>();
+		methods.put("search", SEARCH_BUDGET);
+		methods.put("executeTableQuery", TABLE_QUERY_BUDGET);
+		methods.put("executeCompactTableQuery", TABLE_QUERY_BUDGET);
+		methods.put("getDescendants", DESCENDANTS_BUDGET);
+		EXPENSIVE_METHODS = Collections.unmodifiableMap(methods);
+	}
+
+	public static final double DEFAULT_REQUESTS_PER_SECOND = 20;
+	public static final int DEFAULT_BURST = 100;
+	public static final double DEFAULT_ADDRESS_REQUESTS_PER_SECOND = 100;
+	public static final int DEFAULT_ADDRESS_BURST = 500;
+	public static final double DEFAULT_EXPENSIVE_REQUESTS_PER_SECOND = 1;
+	public static final int DEFAULT_EXPENSIVE_BURST = 10;
+	public static final int DEFAULT_MAX_BUCKETS = 50000;
+
+	static private Logger log = LogManager.getLogger(AdmissionControlFilter.class);
+
+	private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+	private int burst = DEFAULT_BURST;
+	private double addressRequestsPerSecond = DEFAULT_ADDRESS_REQUESTS_PER_SECOND;
+	private int addressBurst = DEFAULT_ADDRESS_BURST;
+	private double expensiveRequestsPerSecond = DEFAULT_EXPENSIVE_REQUESTS_PER_SECOND;
+	private int expensiveBurst = DEFAULT_EXPENSIVE_BURST;
+	private TokenBucketStore buckets = new TokenBucketStore(DEFAULT_MAX_BUCKETS);
+	private ValidatedSessionTokens validatedSessionTokens = new ValidatedSessionTokens();
+	private Set<String> trustedProxies = Collections.emptySet();
+	private AtomicLong admittedCount = new AtomicLong();
+	private Map<String, AtomicLong> throttledCounts = new LinkedHashMap<String, AtomicLong>();
+
+	public AdmissionControlFilter() {
+		throttledCounts.put(GENERAL_BUDGET, new AtomicLong());
+		throttledCounts.put(ADDRESS_BUDGET, new AtomicLong());
+		for (String budget : EXPENSIVE_METHODS.values()) {
+			if (!throttledCounts.containsKey(budget))
+				throttledCounts.put(budget, new AtomicLong());
+		}
+	}
+
+	@Inject(optional=true)
+	public void setRequestsPerSecond(@Named(ServerConstants.KEY_ADMISSION_REQUESTS_PER_SECOND) double requestsPerSecond) {
+		this.requestsPerSecond = requestsPerSecond;
+	}
+
+	@Inject(optional=true)
+	public void setBurst(@Named(ServerConstants.KEY_ADMISSION_BURST) int burst) {
+		this.burst = burst;
+	}
+
+	@Inject(optional=true)
+	public void setAddressRequestsPerSecond(@Named(ServerConstants.KEY_ADMISSION_ADDRESS_REQUESTS_PER_SECOND) double addressRequestsPerSecond) {
+		this.addressRequestsPerSecond = addressRequestsPerSecond;
+	}
+
+	@Inject(optional=true)
+	public void setAddressBurst(@Named(ServerConstants.KEY_ADMISSION_ADDRESS_BURST) int addressBurst) {
+		this.addressBurst = addressBurst;
+	}
+
+	@Inject
+	public void setValidatedSessionTokens(ValidatedSessionTokens validatedSessionTokens) {
+		this.validatedSessionTokens = validatedSessionTokens;
+	}
+
+	@Inject(optional=true)
+	public void setExpensiveRequestsPerSecond(@Named(ServerConstants.KEY_ADMISSION_EXPENSIVE_REQUESTS_PER_SECOND) double expensiveRequestsPerSecond) {
+		this.expensiveRequestsPerSecond = expensiveRequestsPerSecond;
+	}
+
+	@Inject(optional=true)
+	public void setExpensiveBurst(@Named(ServerConstants.KEY_ADMISSION_EXPENSIVE_BURST) int expensiveBurst) {
+		this.expensiveBurst = expensiveBurst;
+	}
+
+	/**
+	 * @param trustedProxies comma separated addresses of the load balancers whose X-Forwarded-For is used, or * for any
+	 */
+	@Inject(optional=true)
+	public void setTrustedProxies(@Named(ServerConstants.KEY_TRUSTED_PROXY_ADDRESSES) String trustedProxies) {
+		this.trustedProxies = parseAddresses(trustedProxies);
+	}
+
+	@Inject(optional=true)
+	public void setMaxBuckets(@Named(ServerConstants.KEY_ADMISSION_MAX_BUCKETS) int maxBuckets) {
+		this.buckets = new TokenBucketStore(maxBuckets);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response,
+			FilterChain chain) throws IOException, ServletException {
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		long now = System.currentTimeMillis();
+		String address = getClientAddress(httpRequest, trustedProxies);
+		String clientKey = getClientKey(httpRequest, validatedSessionTokens, trustedProxies, now);
+		String budget = GENERAL_BUDGET;
+		long waitMillis = buckets.get(GENERAL_BUDGET + ":" + clientKey, burst, requestsPerSecond, now).tryConsume(now);
+		if (waitMillis == 0 && !clientKey.startsWith(ADDRESS_PREFIX)) {
+			waitMillis = buckets.get(ADDRESS_BUDGET + ":" + address, addressBurst, addressRequestsPerSecond, now).tryConsume(now);
+			if (waitMillis > 0)
+				budget = ADDRESS_BUDGET;
+		}
+		if (waitMillis == 0 && isRpc(httpRequest)) {
+			// the method name is at the start of the body, which the service reads again
+			PrefixBufferedRequest bufferedRequest = new PrefixBufferedRequest(httpRequest, MAX_RPC_PREFIX_BYTES);
+			request = bufferedRequest;
+			String methodName = getRpcMethodName(bufferedRequest.getPrefixAsString());
+			String expensiveBudget = methodName == null ? null : EXPENSIVE_METHODS.get(methodName);
+			if (expensiveBudget != null) {
+				budget = expensiveBudget;
+				waitMillis = buckets.get(expensiveBudget + ":" + clientKey, expensiveBurst, expensiveRequestsPerSecond, now).tryConsume(now);
+			}
+		}
+		if (waitMillis > 0) {
+			throttledCounts.get(budget).incrementAndGet();
+			log.info("Throttled " + budget + " request " + httpRequest.getServletPath() + " from " + (clientKey.startsWith(ADDRESS_PREFIX) ? clientKey : "a signed in user at " + address));
+			HttpServletResponse httpResponse = (HttpServletResponse) response;
+			httpResponse.setHeader(HEADER_RETRY_AFTER, Long.toString(getRetryAfterSeconds(waitMillis)));
+			httpResponse.sendError(SC_TOO_MANY_REQUESTS, "Too many requests, please try again later");
+			return;
+		}
+		admittedCount.incrementAndGet();
+		chain.doFilter(request, response);
+	}
+
+	public static long getRetryAfterSeconds(long waitMillis) {
+		if (waitMillis == Long.MAX_VALUE)
+			return 60;
+		return Math.max(1, (waitMillis + 999) / 1000);
+	}
+
+	/**
+	 * @param request
+	 * @param validatedSessionTokens
+	 * @param trustedProxies
+	 * @param nowMillis
+	 * @return the session token of a signed in caller, if the repository accepted it, otherwise the caller's address
+	 */
+	public static String getClientKey(HttpServletRequest request, ValidatedSessionTokens validatedSessionTokens, Set<String> trustedProxies, long nowMillis) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (CookieKeys.USER_LOGIN_TOKEN.equals(cookie.getName()) && validatedSessionTokens.isValidated(cookie.getValue(), nowMillis))
+					return TOKEN_PREFIX + cookie.getValue();
+			}
+		}
+		return ADDRESS_PREFIX + getClientAddress(request, trustedProxies);
+	}
+
+	/**
+	 * @param request
+	 * @param trustedProxies the load balancers whose X-Forwarded-For is used
+	 * @return the address of the caller
+	 */
+	public static String getClientAddress(HttpServletRequest request, Set<String> trustedProxies) {
+		String remoteAddress = request.getRemoteAddr();
+		if (!trustedProxies.contains(ANY_ADDRESS) && !trustedProxies.contains(remoteAddress))
+			return remoteAddress;
+		// the load balancer appends the address it saw, so the last one can be trusted
+		String forwardedFor = request.getHeader(HEADER_X_FORWARDED_FOR);
+		if (forwardedFor != null && forwardedFor.trim().length() > 0) {
+			String[] addresses = forwardedFor.split(",");
+			return addresses[addresses.length - 1].trim();
+		}
+		return remoteAddress;
+	}
+
+	/**
+	 * @param addresses comma separated
+	 * @return the addresses, without blanks
+	 */
+	public static Set<String> parseAddresses(String addresses) {
+		Set<String> parsed = new HashSet<String>();
+		for (String address : addresses.split(",")) {
+			if (address.trim().length() > 0)
+				parsed.add(address.trim());
+		}
+		return parsed;
+	}
+
+	public static boolean isRpc(HttpServletRequest request) {
+		String contentType = request.getContentType();
+		return "POST".equals(request.getMethod()) && contentType != null && contentType.startsWith(GWT_RPC_CONTENT_TYPE);
+	}
+
+	/**
+	 * @param payload
+	 * @return the method name of a GWT RPC request, or null if the payload is not understood
+	 */
+	public static String getRpcMethodName(String payload) {
+		return RpcPayloadUtils.getMethodName(payload);
+	}
+
+	public long getAdmittedCount() {
+		return admittedCount.get();
+	}
+
+	/**
+	 * @return requests turned away, by budget
+	 */
+	public Map<String, Long> getThrottledCounts() {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : throttledCounts.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().get());
+		}
+		return counts;
+	}
+
+	public int getBucketCount() {
+		return buckets.size();
+	}
+
+	/**
+	 * A request whose body starts with a prefix read into memory, so the body
+	 * can be read again: the prefix, then the rest of the original stream.
+	 */
+	private static class PrefixBufferedRequest extends HttpServletRequestWrapper {
+		private byte[] prefix;
+		private int prefixLength;
+		private boolean complete;
+
+		PrefixBufferedRequest(HttpServletRequest request, int maxPrefixBytes) throws IOException {
+			super(request);
+			InputStream in = request.getInputStream();
+			prefix = new byte[maxPrefixBytes];
+			int read = 0;
+			while (prefixLength < prefix.length && (read = in.read(prefix, prefixLength, prefix.length - prefixLength)) > 0) {
+				prefixLength += read;
+			}
+			complete = read < 0 || prefixLength < prefix.length;
+		}
+
+		/**
+		 * @return the prefix, cut after its last separator when the body is
+		 *         longer, so no token of the payload is cut short
+		 */
+		String getPrefixAsString() throws IOException {
+			String value = new String(prefix, 0, prefixLength, getEncoding());
+			if (complete)
+				return value;
+			return value.substring(0, value.lastIndexOf('|') + 1);
+		}
+
+		private String getEncoding() {
+			String encoding = getCharacterEncoding();
+			return encoding == null ? "UTF-8" : encoding;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			final InputStream rest = super.getInputStream();
+			return new ServletInputStream() {
+				private int position = 0;
+				@Override
+				public int read() throws IOException {
+					if (position < prefixLength)
+						return prefix[position++] & 0xff;
+					return rest.read();
+				}
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					if (len == 0)
+						return 0;
+					if (position < prefixLength) {
+						int count = Math.min(len, prefixLength - position);
+						System.arraycopy(prefix, position, b, off, count);
+						position += count;
+						return count;
+					}
+					return rest.read(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			return new BufferedReader(new InputStreamReader(getInputStream(), getEncoding()));
+		}
+	}
+}
@@ -40,6 +40,7 @@ import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
 import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
 import org.sagebionetworks.web.client.DisplayConstants;
+import org.sagebionetworks.web.server.DiskCache;
 import org.sagebionetworks.web.server.servlet.ServiceUrlProvider;
 import org.sagebionetworks.web.server.servlet.SynapseClientImpl;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
@@ -48,6 +49,8 @@ import org.sagebionetworks.web.shared.SearchQueryUtils;
 import org.sagebionetworks.web.shared.WikiPageKey;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
 
+import com.google.inject.Injector;
+
 /**
  * This filter detects ajax crawler (Google).  If so, it takes over the renders the javascript page and handles the response.
  *
@@ -275,6 +278,10 @@ public class CrawlFilter implements Filter {
 		this.sc = config.getServletContext();
 		synapseClient = new SynapseClientImpl();
 		synapseClient.setServiceUrlProvider(new ServiceUrlProvider());
+		// share the disk tier of the wiki page cache with the portal servlets
+		Injector injector = (Injector) sc.getAttribute(Injector.class.getName());
+		if (injector != null)
+			synapseClient.setDiskCache(injector.getInstance(DiskCache.class));
 		jsonObjectAdapter = new JSONObjectAdapterImpl();
     }
 }
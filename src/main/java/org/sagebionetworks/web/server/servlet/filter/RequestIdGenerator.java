@@ -0,0 +1,28 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request ids that are cheap to make: a random prefix, picked once so ids
+ * differ between nodes and restarts, followed by a counter. Unlike
+ * UUID.randomUUID() this does not go to the shared SecureRandom for every
+ * request.
+ */
+public class RequestIdGenerator {
+	private static final String PREFIX = createPrefix();
+	private static final AtomicLong counter = new AtomicLong();
+
+	/**
+	 * @return a new request id
+	 */
+	public static String next() {
+		return PREFIX + Long.toString(counter.incrementAndGet(), Character.MAX_RADIX);
+	}
+
+	private static String createPrefix() {
+		// 48 random bits
+		long bits = new SecureRandom().nextLong() & 0xffffffffffffL;
+		return Long.toString(bits, Character.MAX_RADIX) + "-";
+	}
+}
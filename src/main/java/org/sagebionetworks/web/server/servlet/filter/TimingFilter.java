@@ -1,7 +1,6 @@
 package org.sagebionetworks.web.server.servlet.filter;
 
 import java.io.IOException;
-import java.util.UUID;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -9,14 +8,22 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
+import org.sagebionetworks.web.client.cookie.CookieKeys;
+import org.sagebionetworks.web.server.servlet.RequestTrace;
+import org.sagebionetworks.web.server.servlet.RequestTraceStore;
+
+import com.google.inject.Inject;
 
 /**
- * Logs timing and error messages 
+ * Logs error messages, and writes one {@link AccessLog} line for each request
+ * (with a summary of the repository calls, see {@link RequestTrace}).
  * @author John
  *
  */
@@ -25,45 +32,89 @@ public class TimingFilter implements Filter {
 	public static final String SESSION_ID = "sessionId";
 	
 	static private Logger log = LogManager.getLogger(TimingFilter.class);
+	
+	private RequestTraceStore requestTraceStore = new RequestTraceStore();
+	private AccessLog accessLog;
+	
+	@Inject
+	public void setRequestTraceStore(RequestTraceStore requestTraceStore) {
+		this.requestTraceStore = requestTraceStore;
+	}
+	
+	@Inject
+	public void setAccessLog(AccessLog accessLog) {
+		this.accessLog = accessLog;
+	}
 
 	@Override
 	public void destroy() {
+		if (accessLog != null)
+			accessLog.shutdown();
 	}
 
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response,
 			FilterChain chain) throws IOException, ServletException {
-		// push a new UUID as session id to the logging thread context
+		// push a new ID as session id to the logging thread context
 		// this ID will be every log entry and will tie together all
 		// entries for this call.
-		ThreadContext.put(SESSION_ID, UUID.randomUUID().toString());
+		String requestId = RequestIdGenerator.next();
+		ThreadContext.put(SESSION_ID, requestId);
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		AccessLogResponse accessLogResponse = new AccessLogResponse((HttpServletResponse) response);
+		// the ID is sent back, and to the repository with each call, so a request can be followed
+		accessLogResponse.setHeader(RequestTrace.REQUEST_ID_HEADER, requestId);
+		RequestTrace.start(requestId, httpRequest.getServletPath());
 		// Log the time
 		long start = System.currentTimeMillis();
+		boolean failed = false;
 		try{
 			// Pass it along.
-			chain.doFilter(request, response);
+			chain.doFilter(request, accessLogResponse);
 		}catch (IOException e){
 			// Log any exceptions.
 			log.error(e);
+			failed = true;
 			throw e;
 		}catch (ServletException e){
 			// Log any exceptions.
 			log.error(e);
+			failed = true;
+			throw e;
+		}catch (RuntimeException e){
+			failed = true;
 			throw e;
 		}finally{
-			// Log the timing.
 			long end = System.currentTimeMillis();
-			HttpServletRequest httpRequest = (HttpServletRequest) request;
-			log.trace(httpRequest.getServletPath()+" elapse: "+(end-start)+" ms");
+			RequestTrace trace = RequestTrace.end();
+			if (trace != null)
+				requestTraceStore.add(trace);
+			if (accessLog != null) {
+				int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : accessLogResponse.getStatus();
+				accessLog.record(new AccessLog.Entry(start, requestId, httpRequest.getMethod(), httpRequest.getServletPath(),
+						status, end - start, Math.max(0, httpRequest.getContentLength()), accessLogResponse.getBytesOut(),
+						getSessionToken(httpRequest), trace));
+			}
 			// Clear the logging thread context
 			ThreadContext.clear();
 		}
 	}
 
+	private static String getSessionToken(HttpServletRequest request) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (CookieKeys.USER_LOGIN_TOKEN.equals(cookie.getName()))
+					return cookie.getValue();
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public void init(FilterConfig arg0) throws ServletException {
-		// TODO Auto-generated method stub
-		
+		if (accessLog != null)
+			accessLog.start();
 	}
 
 }
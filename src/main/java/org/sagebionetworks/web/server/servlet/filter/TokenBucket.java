@@ -0,0 +1,71 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket without locks. The time of the last refill and the tokens
+ * left (in thousandths of a token) are packed in one long, so taking a token
+ * is a single compare and set.
+ */
+public class TokenBucket {
+	private static final int TOKEN_BITS = 24;
+	private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+	private static final long ONE_TOKEN = 1000;
+	public static final int MAX_BURST = (int) (TOKEN_MASK / ONE_TOKEN);
+
+	private final long capacity;
+	// thousandths of a token per millisecond
+	private final double refillPerMillisecond;
+	private final long baseMillis;
+	private final AtomicLong state;
+
+	/**
+	 * Starts full.
+	 * @param burst tokens the bucket holds, at most {@link #MAX_BURST}
+	 * @param perSecond tokens added each second
+	 * @param nowMillis
+	 */
+	public TokenBucket(int burst, double perSecond, long nowMillis) {
+		this.capacity = Math.max(1, Math.min(burst, MAX_BURST)) * ONE_TOKEN;
+		this.refillPerMillisecond = perSecond;
+		this.baseMillis = nowMillis;
+		this.state = new AtomicLong(capacity);
+	}
+
+	/**
+	 * Take a token if there is one.
+	 * @param nowMillis
+	 * @return 0 if a token was taken, otherwise milliseconds until there will be one
+	 */
+	public long tryConsume(long nowMillis) {
+		long elapsed = Math.max(0, nowMillis - baseMillis);
+		while (true) {
+			long current = state.get();
+			long time = Math.max(elapsed, current >>> TOKEN_BITS);
+			long tokens = getTokens(current, elapsed);
+			if (tokens < ONE_TOKEN) {
+				if (refillPerMillisecond <= 0)
+					return Long.MAX_VALUE;
+				return Math.max(1, (long) Math.ceil((ONE_TOKEN - tokens) / refillPerMillisecond));
+			}
+			if (state.compareAndSet(current, (time << TOKEN_BITS) | (tokens - ONE_TOKEN)))
+				return 0;
+		}
+	}
+
+	/**
+	 * @param nowMillis
+	 * @return true if the bucket has refilled, so it is the same as a new bucket
+	 */
+	public boolean isFull(long nowMillis) {
+		return getTokens(state.get(), Math.max(0, nowMillis - baseMillis)) >= capacity;
+	}
+
+	private long getTokens(long current, long elapsed) {
+		long last = current >>> TOKEN_BITS;
+		long tokens = current & TOKEN_MASK;
+		if (elapsed > last)
+			tokens = Math.min(capacity, tokens + (long) ((elapsed - last) * refillPerMillisecond));
+		return tokens;
+	}
+}
@@ -0,0 +1,64 @@
+package org.sagebionetworks.web.server.servlet.filter;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token buckets by key, bounded in number. Once the store is full, one caller
+ * drops the buckets that have refilled (a new bucket would be the same), and
+ * then, if that was not enough, any buckets down to three quarters of the
+ * bound. Other callers do not wait for it.
+ */
+public class TokenBucketStore {
+	private final int maxBuckets;
+	private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+	private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+	public TokenBucketStore(int maxBuckets) {
+		this.maxBuckets = maxBuckets;
+	}
+
+	/**
+	 * @param key
+	 * @param burst used if the bucket is new
+	 * @param perSecond used if the bucket is new
+	 * @param nowMillis
+	 * @return the bucket of the key
+	 */
+	public TokenBucket get(String key, int burst, double perSecond, long nowMillis) {
+		TokenBucket bucket = buckets.get(key);
+		if (bucket == null) {
+			if (buckets.size() >= maxBuckets)
+				sweep(nowMillis);
+			bucket = new TokenBucket(burst, perSecond, nowMillis);
+			TokenBucket previous = buckets.putIfAbsent(key, bucket);
+			if (previous != null)
+				bucket = previous;
+		}
+		return bucket;
+	}
+
+	public int size() {
+		return buckets.size();
+	}
+
+	private void sweep(long nowMillis) {
+		if (!sweeping.compareAndSet(false, true))
+			return;
+		try {
+			for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext();) {
+				if (it.next().isFull(nowMillis))
+					it.remove();
+			}
+			int target = maxBuckets * 3 / 4;
+			for (Iterator<TokenBucket> it = buckets.values().iterator(); buckets.size() > target && it.hasNext();) {
+				it.next();
+				it.remove();
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+}
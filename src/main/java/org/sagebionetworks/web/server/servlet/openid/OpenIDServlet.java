@@ -36,6 +36,11 @@ public class OpenIDServlet extends HttpServlet {
 		this.urlProvider = provider;
 	}
 	
+	@Inject
+	public void setSynapseProvider(SynapseProvider synapseProvider) {
+		this.synapseProvider = synapseProvider;
+	}
+	
 	@Override
     public void doPost(final HttpServletRequest request, HttpServletResponse response)  throws ServletException, IOException {        
 		if (request.getRequestURI().equals(WebConstants.OPEN_ID_URI)) {
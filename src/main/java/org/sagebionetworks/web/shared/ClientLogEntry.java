@@ -0,0 +1,46 @@
+package org.sagebionetworks.web.shared;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * A message logged in the browser, with the number of times it was logged
+ * since the last batch was sent.
+ */
+public class ClientLogEntry implements IsSerializable {
+
+	public enum Level {
+		DEBUG, INFO, ERROR
+	}
+
+	private Level level;
+	private String message;
+	private int count;
+
+	/**
+	 * This should only be used for RPC
+	 */
+	public ClientLogEntry() {
+	}
+
+	public ClientLogEntry(Level level, String message) {
+		this.level = level;
+		this.message = message;
+		this.count = 1;
+	}
+
+	public Level getLevel() {
+		return level;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public void incrementCount() {
+		count++;
+	}
+}
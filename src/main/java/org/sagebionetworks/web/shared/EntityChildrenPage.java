@@ -0,0 +1,87 @@
+package org.sagebionetworks.web.shared;
+
+import java.util.ArrayList;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * One page of the children of a container entity: the child entity headers
+ * (as JSON) and the token to pass back for the next page, which is null when
+ * this is the last page.
+ */
+public class EntityChildrenPage implements IsSerializable {
+
+	private ArrayList<String> childrenJson;
+	private String nextPageToken;
+	private long totalNumberOfChildren;
+	
+	/**
+	 * Default constructor
+	 */
+	public EntityChildrenPage() {
+		
+	}
+
+	public EntityChildrenPage(ArrayList<String> childrenJson, String nextPageToken, long totalNumberOfChildren) {
+		super();
+		this.childrenJson = childrenJson;
+		this.nextPageToken = nextPageToken;
+		this.totalNumberOfChildren = totalNumberOfChildren;
+	}
+
+	public ArrayList<String> getChildrenJson() {
+		return childrenJson;
+	}
+	public void setChildrenJson(ArrayList<String> childrenJson) {
+		this.childrenJson = childrenJson;
+	}
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+	public void setNextPageToken(String nextPageToken) {
+		this.nextPageToken = nextPageToken;
+	}
+	public long getTotalNumberOfChildren() {
+		return totalNumberOfChildren;
+	}
+	public void setTotalNumberOfChildren(long totalNumberOfChildren) {
+		this.totalNumberOfChildren = totalNumberOfChildren;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((childrenJson == null) ? 0 : childrenJson.hashCode());
+		result = prime * result
+				+ ((nextPageToken == null) ? 0 : nextPageToken.hashCode());
+		result = prime * result
+				+ (int) (totalNumberOfChildren ^ (totalNumberOfChildren >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		EntityChildrenPage other = (EntityChildrenPage) obj;
+		if (childrenJson == null) {
+			if (other.childrenJson != null)
+				return false;
+		} else if (!childrenJson.equals(other.childrenJson))
+			return false;
+		if (nextPageToken == null) {
+			if (other.nextPageToken != null)
+				return false;
+		} else if (!nextPageToken.equals(other.nextPageToken))
+			return false;
+		if (totalNumberOfChildren != other.totalNumberOfChildren)
+			return false;
+		return true;
+	}
+}
@@ -0,0 +1,101 @@
+package org.sagebionetworks.web.shared;
+
+import org.sagebionetworks.web.shared.exceptions.RestServiceException;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * One row of an entity list: the referenced entity and the plain text
+ * description from its wiki (or description field), or the exception that
+ * prevented loading the row.
+ */
+public class EntityListRowBundle implements IsSerializable {
+
+	private EntityWrapper entityWrapper;
+	private String description;
+	private RestServiceException exception;
+	
+	/**
+	 * Default constructor
+	 */
+	public EntityListRowBundle() {
+		
+	}
+
+	public EntityListRowBundle(EntityWrapper entityWrapper, String description) {
+		super();
+		this.entityWrapper = entityWrapper;
+		this.description = description;
+	}
+	
+	public EntityListRowBundle(RestServiceException exception) {
+		super();
+		this.exception = exception;
+	}
+
+	public EntityWrapper getEntityWrapper() {
+		return entityWrapper;
+	}
+	public void setEntityWrapper(EntityWrapper entityWrapper) {
+		this.entityWrapper = entityWrapper;
+	}
+	public String getDescription() {
+		return description;
+	}
+	public void setDescription(String description) {
+		this.description = description;
+	}
+	public RestServiceException getException() {
+		return exception;
+	}
+	public void setException(RestServiceException exception) {
+		this.exception = exception;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((description == null) ? 0 : description.hashCode());
+		result = prime * result
+				+ ((entityWrapper == null) ? 0 : entityWrapper.hashCode());
+		result = prime * result
+				+ ((exception == null) ? 0 : exception.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		EntityListRowBundle other = (EntityListRowBundle) obj;
+		if (description == null) {
+			if (other.description != null)
+				return false;
+		} else if (!description.equals(other.description))
+			return false;
+		if (entityWrapper == null) {
+			if (other.entityWrapper != null)
+				return false;
+		} else if (!entityWrapper.equals(other.entityWrapper))
+			return false;
+		if (exception == null) {
+			if (other.exception != null)
+				return false;
+		} else if (!exception.equals(other.exception))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "EntityListRowBundle [entityWrapper=" + entityWrapper
+				+ ", description=" + description + ", exception=" + exception
+				+ "]";
+	}
+}
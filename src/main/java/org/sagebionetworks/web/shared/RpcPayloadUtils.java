@@ -0,0 +1,69 @@
+package org.sagebionetworks.web.shared;
+
+/**
+ * Reads GWT RPC request payloads without deserializing them. Used on both
+ * sides: by the server to budget requests, and by the client to name the
+ * RPCs it times.
+ */
+public class RpcPayloadUtils {
+	// the RPC stream flag for an included XSRF token, which comes before the method name
+	private static final int FLAG_RPC_TOKEN_INCLUDED = 2;
+
+	/**
+	 * Read the method name from a GWT RPC request payload:
+	 * version|flags|string count|strings...|module base|strong name|interface|method|...
+	 * where the last four are 1 based indices into the strings.
+	 * @param payload
+	 * @return the method name, or null if the payload is not understood
+	 */
+	public static String getMethodName(String payload) {
+		if (payload == null)
+			return null;
+		try {
+			RpcTokenizer tokens = new RpcTokenizer(payload);
+			tokens.next(); // version
+			int flags = Integer.parseInt(tokens.next());
+			if ((flags & FLAG_RPC_TOKEN_INCLUDED) != 0)
+				return null;
+			int stringCount = Integer.parseInt(tokens.next());
+			// each string takes at least its separator, so a larger count is made up
+			if (stringCount < 0 || stringCount > payload.length())
+				return null;
+			String[] strings = new String[stringCount];
+			for (int i = 0; i < stringCount; i++) {
+				strings[i] = tokens.next();
+			}
+			tokens.next(); // module base
+			tokens.next(); // strong name
+			tokens.next(); // service interface
+			int methodIndex = Integer.parseInt(tokens.next());
+			if (methodIndex < 1 || methodIndex > stringCount)
+				return null;
+			return strings[methodIndex - 1];
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Splits on '|' without copying the whole payload; the arguments past the
+	 * method name are never read.
+	 */
+	private static class RpcTokenizer {
+		private String payload;
+		private int position = 0;
+		RpcTokenizer(String payload) {
+			this.payload = payload;
+		}
+		String next() {
+			if (position > payload.length())
+				throw new NumberFormatException("End of RPC payload");
+			int end = payload.indexOf('|', position);
+			if (end < 0)
+				end = payload.length();
+			String token = payload.substring(position, end);
+			position = end + 1;
+			return token;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package org.sagebionetworks.web.shared.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * A compact form of a table query result. The headers are sent once, and the
+ * values are kept column by column as indexes into a dictionary of the
+ * distinct values, so a value repeated in many cells (common in wide tables)
+ * is sent once. Values are read by row and column, so the client only turns
+ * the rows it shows into table models.
+ */
+public class CompactRowSet implements IsSerializable {
+
+	/**
+	 * Index of a null value
+	 */
+	public static final int NULL_VALUE = -1;
+
+	String tableId;
+	String etag;
+	ArrayList<String> headers;
+	ArrayList<Long> rowIds;
+	ArrayList<Long> versionNumbers;
+	String[] dictionary;
+	// columns[column][row] is the index of the value in the dictionary
+	int[][] columns;
+
+	public CompactRowSet() {
+	}
+
+	/**
+	 * Encode a row set.
+	 * @param rowSet
+	 * @return
+	 */
+	public static CompactRowSet create(RowSet rowSet) {
+		CompactRowSet compact = new CompactRowSet();
+		compact.tableId = rowSet.getTableId();
+		compact.etag = rowSet.getEtag();
+		compact.headers = rowSet.getHeaders() == null ? new ArrayList<String>() : new ArrayList<String>(rowSet.getHeaders());
+		List<Row> rows = rowSet.getRows() == null ? new ArrayList<Row>() : rowSet.getRows();
+		int columnCount = compact.headers.size();
+		compact.rowIds = new ArrayList<Long>(rows.size());
+		compact.versionNumbers = new ArrayList<Long>(rows.size());
+		compact.columns = new int[columnCount][rows.size()];
+		Map<String, Integer> valueIndexes = new HashMap<String, Integer>();
+		List<String> dictionary = new ArrayList<String>();
+		for (int r = 0; r < rows.size(); r++) {
+			Row row = rows.get(r);
+			compact.rowIds.add(row.getRowId());
+			compact.versionNumbers.add(row.getVersionNumber());
+			List<String> values = row.getValues();
+			for (int c = 0; c < columnCount; c++) {
+				String value = values == null || c >= values.size() ? null : values.get(c);
+				if (value == null) {
+					compact.columns[c][r] = NULL_VALUE;
+					continue;
+				}
+				Integer index = valueIndexes.get(value);
+				if (index == null) {
+					index = dictionary.size();
+					dictionary.add(value);
+					valueIndexes.put(value, index);
+				}
+				compact.columns[c][r] = index;
+			}
+		}
+		compact.dictionary = dictionary.toArray(new String[dictionary.size()]);
+		return compact;
+	}
+
+	public String getTableId() {
+		return tableId;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * @return the column ids, in the order of the columns
+	 */
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	public int getRowCount() {
+		return rowIds.size();
+	}
+
+	public int getColumnCount() {
+		return headers.size();
+	}
+
+	public Long getRowId(int row) {
+		return rowIds.get(row);
+	}
+
+	public Long getVersionNumber(int row) {
+		return versionNumbers.get(row);
+	}
+
+	/**
+	 * @param row
+	 * @param column
+	 * @return the value of the cell (may be null)
+	 */
+	public String getValue(int row, int column) {
+		int index = columns[column][row];
+		return index == NULL_VALUE ? null : dictionary[index];
+	}
+
+	/**
+	 * @return number of distinct values
+	 */
+	public int getDictionarySize() {
+		return dictionary.length;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.deepHashCode(columns);
+		result = prime * result + Arrays.hashCode(dictionary);
+		result = prime * result + ((etag == null) ? 0 : etag.hashCode());
+		result = prime * result + ((headers == null) ? 0 : headers.hashCode());
+		result = prime * result + ((rowIds == null) ? 0 : rowIds.hashCode());
+		result = prime * result + ((tableId == null) ? 0 : tableId.hashCode());
+		result = prime * result
+				+ ((versionNumbers == null) ? 0 : versionNumbers.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		CompactRowSet other = (CompactRowSet) obj;
+		if (!Arrays.deepEquals(columns, other.columns))
+			return false;
+		if (!Arrays.equals(dictionary, other.dictionary))
+			return false;
+		if (etag == null) {
+			if (other.etag != null)
+				return false;
+		} else if (!etag.equals(other.etag))
+			return false;
+		if (headers == null) {
+			if (other.headers != null)
+				return false;
+		} else if (!headers.equals(other.headers))
+			return false;
+		if (rowIds == null) {
+			if (other.rowIds != null)
+				return false;
+		} else if (!rowIds.equals(other.rowIds))
+			return false;
+		if (tableId == null) {
+			if (other.tableId != null)
+				return false;
+		} else if (!tableId.equals(other.tableId))
+			return false;
+		if (versionNumbers == null) {
+			if (other.versionNumbers != null)
+				return false;
+		} else if (!versionNumbers.equals(other.versionNumbers))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "CompactRowSet [tableId=" + tableId + ", etag=" + etag
+				+ ", headers=" + headers + ", rowCount="
+				+ (rowIds == null ? 0 : rowIds.size()) + ", dictionarySize="
+				+ (dictionary == null ? 0 : dictionary.length) + "]";
+	}
+}
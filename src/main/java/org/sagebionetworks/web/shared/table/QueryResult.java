@@ -5,6 +5,7 @@ import com.google.gwt.user.client.rpc.IsSerializable;
 public class QueryResult implements IsSerializable {
 
 	String rowSetJson;
+	CompactRowSet compactRowSet;
 	String executedQuery;
 	QueryDetails queryDetails;
 	Integer totalRowCount = null;
@@ -30,6 +31,17 @@ public class QueryResult implements IsSerializable {
 		this.rowSetJson = rowSetJson;
 	}
 
+	/**
+	 * @return the rows, when the compact form was asked for (the row set json is null then)
+	 */
+	public CompactRowSet getCompactRowSet() {
+		return compactRowSet;
+	}
+
+	public void setCompactRowSet(CompactRowSet compactRowSet) {
+		this.compactRowSet = compactRowSet;
+	}
+
 	public String getExecutedQuery() {
 		return executedQuery;
 	}
@@ -58,6 +70,8 @@ public class QueryResult implements IsSerializable {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result
+				+ ((compactRowSet == null) ? 0 : compactRowSet.hashCode());
 		result = prime * result
 				+ ((executedQuery == null) ? 0 : executedQuery.hashCode());
 		result = prime * result
@@ -78,6 +92,11 @@ public class QueryResult implements IsSerializable {
 		if (getClass() != obj.getClass())
 			return false;
 		QueryResult other = (QueryResult) obj;
+		if (compactRowSet == null) {
+			if (other.compactRowSet != null)
+				return false;
+		} else if (!compactRowSet.equals(other.compactRowSet))
+			return false;
 		if (executedQuery == null) {
 			if (other.executedQuery != null)
 				return false;
@@ -103,7 +122,8 @@ public class QueryResult implements IsSerializable {
 
 	@Override
 	public String toString() {
-		return "QueryResult [rowSetJson=" + rowSetJson + ", executedQuery="
+		return "QueryResult [rowSetJson=" + rowSetJson + ", compactRowSet="
+				+ compactRowSet + ", executedQuery="
 				+ executedQuery + ", queryDetails=" + queryDetails
 				+ ", totalRowCount=" + totalRowCount + "]";
 	}
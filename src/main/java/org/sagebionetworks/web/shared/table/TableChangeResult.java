@@ -0,0 +1,147 @@
+package org.sagebionetworks.web.shared.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * The outcome of applying a batch of table changes. Rows are reported by
+ * their position in the row set that was sent: each row was either saved (and
+ * has a row id and version) or has an error.
+ */
+public class TableChangeResult implements IsSerializable {
+
+	String etag;
+	int deletedCount = 0;
+	ArrayList<Long> rowIds;
+	ArrayList<Long> versionNumbers;
+	HashMap<Integer, String> rowErrors;
+
+	public TableChangeResult() {
+		this(0);
+	}
+
+	/**
+	 * @param rowCount number of rows in the row set that was sent
+	 */
+	public TableChangeResult(int rowCount) {
+		super();
+		rowIds = new ArrayList<Long>(rowCount);
+		versionNumbers = new ArrayList<Long>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			rowIds.add(null);
+			versionNumbers.add(null);
+		}
+		rowErrors = new HashMap<Integer, String>();
+	}
+
+	/**
+	 * @return etag of the table after the changes (null if nothing was changed)
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	public void setEtag(String etag) {
+		this.etag = etag;
+	}
+
+	public int getDeletedCount() {
+		return deletedCount;
+	}
+
+	public void setDeletedCount(int deletedCount) {
+		this.deletedCount = deletedCount;
+	}
+
+	public int getRowCount() {
+		return rowIds.size();
+	}
+
+	public void setSaved(int index, Long rowId, Long versionNumber) {
+		rowIds.set(index, rowId);
+		versionNumbers.set(index, versionNumber);
+	}
+
+	/**
+	 * @return the id the row was saved with, or null if it was not saved
+	 */
+	public Long getRowId(int index) {
+		return rowIds.get(index);
+	}
+
+	public Long getVersionNumber(int index) {
+		return versionNumbers.get(index);
+	}
+
+	public void setRowError(int index, String message) {
+		rowErrors.put(index, message);
+	}
+
+	/**
+	 * @return why the row was not saved, or null
+	 */
+	public String getRowError(int index) {
+		return rowErrors.get(index);
+	}
+
+	public int getErrorCount() {
+		return rowErrors.size();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + deletedCount;
+		result = prime * result + ((etag == null) ? 0 : etag.hashCode());
+		result = prime * result
+				+ ((rowErrors == null) ? 0 : rowErrors.hashCode());
+		result = prime * result + ((rowIds == null) ? 0 : rowIds.hashCode());
+		result = prime * result
+				+ ((versionNumbers == null) ? 0 : versionNumbers.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TableChangeResult other = (TableChangeResult) obj;
+		if (deletedCount != other.deletedCount)
+			return false;
+		if (etag == null) {
+			if (other.etag != null)
+				return false;
+		} else if (!etag.equals(other.etag))
+			return false;
+		if (rowErrors == null) {
+			if (other.rowErrors != null)
+				return false;
+		} else if (!rowErrors.equals(other.rowErrors))
+			return false;
+		if (rowIds == null) {
+			if (other.rowIds != null)
+				return false;
+		} else if (!rowIds.equals(other.rowIds))
+			return false;
+		if (versionNumbers == null) {
+			if (other.versionNumbers != null)
+				return false;
+		} else if (!versionNumbers.equals(other.versionNumbers))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "TableChangeResult [etag=" + etag + ", deletedCount="
+				+ deletedCount + ", rowIds=" + rowIds + ", rowErrors="
+				+ rowErrors + "]";
+	}
+}
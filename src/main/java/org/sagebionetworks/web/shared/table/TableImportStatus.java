@@ -0,0 +1,155 @@
+package org.sagebionetworks.web.shared.table;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+/**
+ * Progress of a CSV file being imported into a table.
+ */
+public class TableImportStatus implements IsSerializable {
+
+	public enum State { PROCESSING, COMPLETED, FAILED }
+
+	String jobId;
+	State state;
+	long rowsImported;
+	long bytesRead;
+	Long totalBytes;
+	String errorMessage;
+
+	public TableImportStatus() {
+	}
+
+	public TableImportStatus(String jobId, State state, long rowsImported,
+			long bytesRead, Long totalBytes, String errorMessage) {
+		super();
+		this.jobId = jobId;
+		this.state = state;
+		this.rowsImported = rowsImported;
+		this.bytesRead = bytesRead;
+		this.totalBytes = totalBytes;
+		this.errorMessage = errorMessage;
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public void setJobId(String jobId) {
+		this.jobId = jobId;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public void setState(State state) {
+		this.state = state;
+	}
+
+	/**
+	 * @return number of rows added to the table so far
+	 */
+	public long getRowsImported() {
+		return rowsImported;
+	}
+
+	public void setRowsImported(long rowsImported) {
+		this.rowsImported = rowsImported;
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public void setBytesRead(long bytesRead) {
+		this.bytesRead = bytesRead;
+	}
+
+	/**
+	 * @return size of the file, or null if it is not known
+	 */
+	public Long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public void setTotalBytes(Long totalBytes) {
+		this.totalBytes = totalBytes;
+	}
+
+	/**
+	 * @return why the import failed (rows added before the failure are kept)
+	 */
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	public void setErrorMessage(String errorMessage) {
+		this.errorMessage = errorMessage;
+	}
+
+	/**
+	 * @return percent of the file read, or null if the size is not known
+	 */
+	public Integer getPercentComplete() {
+		if (totalBytes == null || totalBytes <= 0)
+			return null;
+		return (int) Math.min(100, bytesRead * 100 / totalBytes);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (bytesRead ^ (bytesRead >>> 32));
+		result = prime * result
+				+ ((errorMessage == null) ? 0 : errorMessage.hashCode());
+		result = prime * result + ((jobId == null) ? 0 : jobId.hashCode());
+		result = prime * result
+				+ (int) (rowsImported ^ (rowsImported >>> 32));
+		result = prime * result + ((state == null) ? 0 : state.hashCode());
+		result = prime * result
+				+ ((totalBytes == null) ? 0 : totalBytes.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TableImportStatus other = (TableImportStatus) obj;
+		if (bytesRead != other.bytesRead)
+			return false;
+		if (errorMessage == null) {
+			if (other.errorMessage != null)
+				return false;
+		} else if (!errorMessage.equals(other.errorMessage))
+			return false;
+		if (jobId == null) {
+			if (other.jobId != null)
+				return false;
+		} else if (!jobId.equals(other.jobId))
+			return false;
+		if (rowsImported != other.rowsImported)
+			return false;
+		if (state != other.state)
+			return false;
+		if (totalBytes == null) {
+			if (other.totalBytes != null)
+				return false;
+		} else if (!totalBytes.equals(other.totalBytes))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "TableImportStatus [jobId=" + jobId + ", state=" + state
+				+ ", rowsImported=" + rowsImported + ", bytesRead="
+				+ bytesRead + ", totalBytes=" + totalBytes
+				+ ", errorMessage=" + errorMessage + "]";
+	}
+}
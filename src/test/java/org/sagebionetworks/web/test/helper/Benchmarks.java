@@ -0,0 +1,52 @@
+package org.sagebionetworks.web.test.helper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measurements for the benchmark tests. The benchmarks are marked @Ignore so
+ * they stay out of the unit test run; remove the @Ignore locally and run the
+ * single test (mvn test -Dtest=SomeTest) to see the numbers.
+ */
+public class Benchmarks {
+
+	/**
+	 * @return bytes allocated by the current thread so far, or -1 when the JVM can not report it
+	 */
+	public static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return bytes allocated by the current thread since the given count, or -1 when unknown
+	 */
+	public static long getAllocatedBytesSince(long startBytes) {
+		return startBytes < 0 ? -1 : getAllocatedBytes() - startBytes;
+	}
+
+	/**
+	 * @return cpu time of the current thread, or the wall clock when the JVM can not report it
+	 */
+	public static long getCpuTime() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean.isCurrentThreadCpuTimeSupported()) {
+			return bean.getCurrentThreadCpuTime();
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * @return the time and allocation per iteration, as "N ns/unit, M bytes/unit"
+	 */
+	public static String formatResult(long nanos, long bytes, int iterations, String unit) {
+		String bytesPerIteration = bytes < 0 ? "n/a" : Long.toString(bytes / iterations);
+		return nanos / iterations + " ns/" + unit + ", " + bytesPerIteration + " bytes/" + unit;
+	}
+}
@@ -0,0 +1,108 @@
+package org.sagebionetworks.web.unitclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.web.client.ClientLoggerImpl;
+import org.sagebionetworks.web.client.GWTWrapper;
+import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.utils.Callback;
+import org.sagebionetworks.web.shared.ClientLogEntry;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class ClientLoggerImplTest {
+
+	SynapseClientAsync mockSynapseClient;
+	GWTWrapper mockGWT;
+	ClientLoggerImpl logger;
+
+	@Before
+	public void before() {
+		mockSynapseClient = mock(SynapseClientAsync.class);
+		mockGWT = mock(GWTWrapper.class);
+		logger = new ClientLoggerImpl(mockSynapseClient, mockGWT);
+	}
+
+	/**
+	 * @return the flushes scheduled so far
+	 */
+	private List<Callback> getScheduled(int count) {
+		ArgumentCaptor<Callback> captor = ArgumentCaptor.forClass(Callback.class);
+		verify(mockGWT, times(count)).scheduleExecution(captor.capture(), eq(ClientLoggerImpl.FLUSH_DELAY_MS));
+		return captor.getAllValues();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List<ClientLogEntry> getSentBatch(int count, ArgumentCaptor<AsyncCallback> callbackCaptor) {
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(mockSynapseClient, times(count)).logBatch(captor.capture(), callbackCaptor.capture());
+		return captor.getValue();
+	}
+
+	@Test
+	public void testRepeatedMessagesCounted() {
+		logger.error("failed");
+		logger.error("failed");
+		logger.info("failed");
+		// a single flush for the batch, and no RPC yet
+		List<Callback> flushes = getScheduled(1);
+		verify(mockSynapseClient, never()).logBatch(anyList(), any(AsyncCallback.class));
+		flushes.get(0).invoke();
+
+		List<ClientLogEntry> batch = getSentBatch(1, ArgumentCaptor.forClass(AsyncCallback.class));
+		assertEquals(2, batch.size());
+		assertEquals(ClientLogEntry.Level.ERROR, batch.get(0).getLevel());
+		assertEquals(2, batch.get(0).getCount());
+		assertEquals(ClientLogEntry.Level.INFO, batch.get(1).getLevel());
+		assertEquals(1, batch.get(1).getCount());
+	}
+
+	@Test
+	public void testBatchBounded() {
+		for (int i = 0; i < ClientLoggerImpl.MAX_BATCH_ENTRIES + 3; i++) {
+			logger.debug("message " + i);
+		}
+		logger.flush();
+		List<ClientLogEntry> batch = getSentBatch(1, ArgumentCaptor.forClass(AsyncCallback.class));
+		// the distinct messages that did not fit are summed up in one entry
+		assertEquals(ClientLoggerImpl.MAX_BATCH_ENTRIES + 1, batch.size());
+		assertEquals("3 other client log messages were dropped", batch.get(ClientLoggerImpl.MAX_BATCH_ENTRIES).getMessage());
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Test
+	public void testOneBatchAtATime() {
+		logger.error("first");
+		getScheduled(1).get(0).invoke();
+		logger.error("second");
+		// still waiting on the first batch
+		logger.flush();
+		ArgumentCaptor<AsyncCallback> callbackCaptor = ArgumentCaptor.forClass(AsyncCallback.class);
+		getSentBatch(1, callbackCaptor);
+		// the answer schedules the next batch
+		callbackCaptor.getValue().onFailure(new Exception());
+		List<Callback> flushes = getScheduled(2);
+		flushes.get(1).invoke();
+		List<ClientLogEntry> batch = getSentBatch(2, callbackCaptor);
+		assertEquals(1, batch.size());
+		assertEquals("second", batch.get(0).getMessage());
+	}
+
+	@Test
+	public void testNothingToFlush() {
+		logger.flush();
+		verify(mockSynapseClient, never()).logBatch(anyList(), any(AsyncCallback.class));
+	}
+}
@@ -0,0 +1,141 @@
+package org.sagebionetworks.web.unitclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.web.client.ClientProperties;
+import org.sagebionetworks.web.client.ClientTelemetryImpl;
+import org.sagebionetworks.web.client.GWTWrapper;
+import org.sagebionetworks.web.client.RequestBuilderWrapper;
+import org.sagebionetworks.web.client.SynapseJSNIUtils;
+import org.sagebionetworks.web.client.place.Synapse;
+import org.sagebionetworks.web.client.utils.Callback;
+
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+
+public class ClientTelemetryImplTest {
+
+	private static final String BASE_URL = "http://localhost/Portal/";
+
+	GWTWrapper mockGWT;
+	RequestBuilderWrapper mockRequestBuilder;
+	SynapseJSNIUtils mockSynapseJSNIUtils;
+	ClientTelemetryImpl telemetry;
+	long now = 1000;
+
+	@Before
+	public void before() {
+		mockGWT = mock(GWTWrapper.class);
+		mockRequestBuilder = mock(RequestBuilderWrapper.class);
+		mockSynapseJSNIUtils = mock(SynapseJSNIUtils.class);
+		when(mockGWT.getModuleBaseURL()).thenReturn(BASE_URL);
+		telemetry = new ClientTelemetryImpl(mockGWT, mockRequestBuilder, mockSynapseJSNIUtils) {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+	}
+
+	/**
+	 * @return the callbacks scheduled with the given delay
+	 */
+	private List<Callback> getScheduled(int delay, int count) {
+		ArgumentCaptor<Callback> captor = ArgumentCaptor.forClass(Callback.class);
+		verify(mockGWT, times(count)).scheduleExecution(captor.capture(), eq(delay));
+		return captor.getAllValues();
+	}
+
+	@Test
+	public void testRpcRecorded() throws Exception {
+		int rpcId = telemetry.rpcStarted();
+		now += 150;
+		telemetry.rpcFinished(rpcId, "getEntity", 100, 2000);
+		assertEquals("{\"values\":{\"rpc.getEntity.ms\":[150],\"rpc.getEntity.requestBytes\":[100],\"rpc.getEntity.responseBytes\":[2000]},\"dropped\":0}", telemetry.toJson());
+		// unknown ids are ignored
+		telemetry.rpcFinished(rpcId, "getEntity", 100, 2000);
+
+		// one flush is scheduled
+		List<Callback> flushes = getScheduled(ClientTelemetryImpl.FLUSH_INTERVAL_MS, 1);
+		flushes.get(0).invoke();
+		verify(mockRequestBuilder).configure(RequestBuilder.POST, BASE_URL + ClientProperties.TELEMETRY_SERVLET_PATH);
+		verify(mockRequestBuilder).sendRequest(anyString(), any(RequestCallback.class));
+		assertEquals("{\"values\":{},\"dropped\":0}", telemetry.toJson());
+	}
+
+	@Test
+	public void testNavigationRendered() {
+		telemetry.startNavigation(new Synapse("syn123"));
+		now += 10;
+		int first = telemetry.rpcStarted();
+		int second = telemetry.rpcStarted();
+		now += 100;
+		telemetry.rpcFinished(first, "getEntityBundle", 100, 100);
+		// still waiting on the second
+		verify(mockGWT, never()).scheduleExecution(any(Callback.class), eq(ClientTelemetryImpl.QUIET_MS));
+		now += 200;
+		telemetry.rpcFinished(second, "getWikiPage", 100, 100);
+		now += ClientTelemetryImpl.QUIET_MS;
+		getScheduled(ClientTelemetryImpl.QUIET_MS, 1).get(0).invoke();
+		assertTrue(telemetry.toJson().contains("\"place.Synapse.ms\":[310]"));
+	}
+
+	@Test
+	public void testNavigationWaitsForLaterRpcs() {
+		telemetry.startNavigation(new Synapse("syn123"));
+		int first = telemetry.rpcStarted();
+		now += 100;
+		telemetry.rpcFinished(first, "getEntityBundle", 100, 100);
+		// the first answer leads to another call before the quiet time is over
+		int second = telemetry.rpcStarted();
+		now += 100;
+		telemetry.rpcFinished(second, "getWikiPage", 100, 100);
+		List<Callback> checks = getScheduled(ClientTelemetryImpl.QUIET_MS, 2);
+		checks.get(0).invoke();
+		assertTrue(!telemetry.toJson().contains("place."));
+		checks.get(1).invoke();
+		assertTrue(telemetry.toJson().contains("\"place.Synapse.ms\":[200]"));
+	}
+
+	@Test
+	public void testNavigationWithoutRpcsNotMeasured() {
+		telemetry.startNavigation(new Synapse("syn123"));
+		verify(mockGWT, never()).scheduleExecution(any(Callback.class), anyInt());
+		assertEquals("{\"values\":{},\"dropped\":0}", telemetry.toJson());
+	}
+
+	@Test
+	public void testValuesBounded() {
+		for (int i = 0; i < ClientTelemetryImpl.MAX_VALUES + 2; i++) {
+			telemetry.recordWidgetConfigure("image", 5);
+		}
+		assertTrue(telemetry.toJson().endsWith("\"dropped\":2}"));
+	}
+
+	@Test
+	public void testFlushOnUnloadUsesBeacon() throws Exception {
+		when(mockSynapseJSNIUtils.sendBeacon(anyString(), anyString())).thenReturn(true);
+		telemetry.recordWidgetConfigure("youtube", 12);
+		telemetry.flush(true);
+		verify(mockSynapseJSNIUtils).sendBeacon(BASE_URL + ClientProperties.TELEMETRY_SERVLET_PATH, "{\"values\":{\"widget.youtube.configure.ms\":[12]},\"dropped\":0}");
+		verify(mockRequestBuilder, never()).sendRequest(anyString(), any(RequestCallback.class));
+		// nothing left to send
+		telemetry.flush(true);
+		verify(mockSynapseJSNIUtils, times(1)).sendBeacon(anyString(), anyString());
+	}
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.web.unitclient.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.web.client.cache.TableDataCacheImpl;
+import org.sagebionetworks.web.client.security.AuthenticationController;
+
+public class TableDataCacheImplTest {
+	
+	TableDataCacheImpl cache;
+	AuthenticationController mockAuthenticationController;
+	List<String> columns = Arrays.asList("{\"id\":\"1\"}");
+	
+	@Before
+	public void setup(){
+		mockAuthenticationController = mock(AuthenticationController.class);
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn("token");
+		cache = new TableDataCacheImpl(mockAuthenticationController);
+	}
+
+	private S3FileHandle createFileHandle(String id) {
+		S3FileHandle fileHandle = new S3FileHandle();
+		fileHandle.setId(id);
+		return fileHandle;
+	}
+
+	@Test
+	public void testColumnsByEtag() {
+		cache.putColumns("syn1", "etag1", columns);
+		assertEquals(columns, cache.getColumns("syn1", "etag1"));
+		assertNull(cache.getColumns("syn1", "etag2"));
+		assertNull(cache.getColumns("syn2", "etag1"));
+		//without an etag, nothing is cached
+		cache.putColumns("syn3", null, columns);
+		assertNull(cache.getColumns("syn3", null));
+	}
+	
+	@Test
+	public void testColumnsEvicted() {
+		for (int i = 0; i <= TableDataCacheImpl.MAX_TABLES; i++) {
+			cache.putColumns("syn" + i, "etag", columns);
+		}
+		assertNull(cache.getColumns("syn0", "etag"));
+		assertEquals(columns, cache.getColumns("syn1", "etag"));
+	}
+	
+	@Test
+	public void testFileHandlePending() {
+		assertFalse(cache.isFileHandleKnown("10"));
+		cache.setFileHandlePending("10");
+		assertTrue(cache.isFileHandleKnown("10"));
+		assertNull(cache.getFileHandle("10"));
+		cache.putFileHandle(createFileHandle("10"));
+		assertEquals("10", cache.getFileHandle("10").getId());
+		cache.setFileHandlePending("11");
+		cache.clearFileHandlePending("11");
+		assertFalse(cache.isFileHandleKnown("11"));
+	}
+	
+	@Test
+	public void testFileHandleMissing() {
+		cache.setFileHandlePending("10");
+		cache.setFileHandleMissing("10");
+		assertTrue(cache.isFileHandleKnown("10"));
+		assertNull(cache.getFileHandle("10"));
+		//cleared with the session
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn(null);
+		assertFalse(cache.isFileHandleKnown("10"));
+	}
+	
+	@Test
+	public void testSessionChanged() {
+		cache.putColumns("syn1", "etag1", columns);
+		cache.putFileHandle(createFileHandle("10"));
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn(null);
+		assertNull(cache.getFileHandle("10"));
+		//and it was cleared
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn("token");
+		assertNull(cache.getColumns("syn1", "etag1"));
+		assertFalse(cache.isFileHandleKnown("10"));
+	}
+}
@@ -0,0 +1,59 @@
+package org.sagebionetworks.web.unitclient.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.ObjectType;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCacheImpl;
+import org.sagebionetworks.web.client.security.AuthenticationController;
+
+public class WikiHeaderTreeCacheImplTest {
+	
+	WikiHeaderTreeCacheImpl cache;
+	AuthenticationController mockAuthenticationController;
+	String ownerType = ObjectType.ENTITY.toString();
+	
+	@Before
+	public void setup(){
+		mockAuthenticationController = mock(AuthenticationController.class);
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn("token");
+		cache = new WikiHeaderTreeCacheImpl(mockAuthenticationController);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		cache.put("syn1", ownerType, "tree");
+		assertEquals("tree", cache.get("syn1", ownerType));
+		assertNull(cache.get("syn2", ownerType));
+	}
+	
+	@Test
+	public void testOnlyLastOwner() {
+		cache.put("syn1", ownerType, "tree1");
+		cache.put("syn2", ownerType, "tree2");
+		assertNull(cache.get("syn1", ownerType));
+		assertEquals("tree2", cache.get("syn2", ownerType));
+	}
+	
+	@Test
+	public void testRemove() {
+		cache.put("syn1", ownerType, "tree");
+		//other owners are ignored
+		cache.remove("syn2", ownerType);
+		assertEquals("tree", cache.get("syn1", ownerType));
+		cache.remove("syn1", ownerType);
+		assertNull(cache.get("syn1", ownerType));
+	}
+	
+	@Test
+	public void testSessionChanged() {
+		cache.put("syn1", ownerType, "tree");
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn(null);
+		assertNull(cache.get("syn1", ownerType));
+		//and it was cleared
+		when(mockAuthenticationController.getCurrentUserSessionToken()).thenReturn("token");
+		assertNull(cache.get("syn1", ownerType));
+	}
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.sagebionetworks.web.client.ClientTelemetry;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
@@ -45,6 +46,7 @@ public class AppActivityMapperTest {
 	String historyToken = "Home:0";
 	AuthenticationController mockAuthenticationController;
 	BulkPresenterProxy mockBulkPresenterProxy;
+	ClientTelemetry mockClientTelemetry;
 	
 	@Before
 	public void before(){
@@ -66,6 +68,8 @@ public class AppActivityMapperTest {
 		// Global App State
 		mockGlobalApplicationState = Mockito.mock(GlobalApplicationState.class);
 		when(mockInjector.getGlobalApplicationState()).thenReturn(mockGlobalApplicationState);		
+		mockClientTelemetry = Mockito.mock(ClientTelemetry.class);
+		when(mockInjector.getClientTelemetry()).thenReturn(mockClientTelemetry);
 		
 		appActivityMapper = new AppActivityMapper(mockInjector, mockSynapseJSNIUtils, null);
 	}
@@ -85,6 +89,8 @@ public class AppActivityMapperTest {
 		
 		// validate that the place change was recorded
 		verify(mockSynapseJSNIUtils, Mockito.times(1)).recordPageVisit(historyToken);
+		// and timed
+		verify(mockClientTelemetry).startNavigation(unknownPlace);
 	}
 	
 	/*
@@ -3,8 +3,11 @@ package org.sagebionetworks.web.unitclient.presenter;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -14,7 +17,9 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.sagebionetworks.repo.model.search.SearchResults;
 import org.sagebionetworks.repo.model.search.query.KeyValue;
 import org.sagebionetworks.repo.model.search.query.SearchQuery;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
@@ -25,6 +30,7 @@ import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.IconsImageBundle;
 import org.sagebionetworks.web.client.PlaceChanger;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.SearchResultsCache;
 import org.sagebionetworks.web.client.place.Search;
 import org.sagebionetworks.web.client.place.Synapse;
 import org.sagebionetworks.web.client.presenter.SearchPresenter;
@@ -32,6 +38,7 @@ import org.sagebionetworks.web.client.presenter.SearchUtil;
 import org.sagebionetworks.web.client.security.AuthenticationController;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.view.SearchView;
+import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.SearchQueryUtils;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -48,6 +55,7 @@ public class SearchPresenterTest {
 	PlaceChanger mockPlaceChanger;
 	EntityTypeProvider mockEntityTypeProvider;
 	IconsImageBundle mockIconsImageBundle;
+	SearchResultsCache mockSearchResultsCache;
 
 	String exampleTerm;
 	String exampleTermSearchQueryJson;
@@ -63,6 +71,7 @@ public class SearchPresenterTest {
 		when(mockGlobalApplicationState.getPlaceChanger()).thenReturn(mockPlaceChanger);
 		EntityTypeProvider mockEntityTypeProvider = null; 
 		IconsImageBundle mockIconsImageBundle = mock(IconsImageBundle.class);
+		mockSearchResultsCache = mock(SearchResultsCache.class);
 
 		jsonObjectAdapter = new JSONObjectAdapterImpl();
 		
@@ -70,7 +79,7 @@ public class SearchPresenterTest {
 				mockGlobalApplicationState, mockAuthenticationController,
 				mockSynapseClient, mockNodeModelCreator,
 				new JSONObjectAdapterImpl(), mockEntityTypeProvider,
-				mockIconsImageBundle);
+				mockIconsImageBundle, mockSearchResultsCache);
 		
 		exampleTerm = "searchQueryTerm";
 		SearchQuery query = SearchQueryUtils.getDefaultSearchQuery();
@@ -133,6 +142,36 @@ public class SearchPresenterTest {
 		assertEquals(new Synapse(term), SearchUtil.willRedirect(new Search(term))); 
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSearchResultsCached() throws Exception {
+		when(mockSearchResultsCache.get(exampleTermSearchQueryJson)).thenReturn("cached results");
+		searchPresenter.setPlace(new Search(exampleTerm));
+		verify(mockSynapseClient, never()).search(anyString(), any(AsyncCallback.class));
+		verify(mockNodeModelCreator).createJSONEntity("cached results", SearchResults.class);
+		verify(mockView).setSearchResults(any(SearchResults.class), eq(exampleTerm), anyBoolean());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testStaleSearchResponseIgnored() throws Exception {
+		ArgumentCaptor<AsyncCallback> captor = ArgumentCaptor.forClass(AsyncCallback.class);
+		searchPresenter.setPlace(new Search(exampleTerm));
+		searchPresenter.setPlace(new Search("another term"));
+		verify(mockSynapseClient, Mockito.times(2)).search(anyString(), captor.capture());
+		AsyncCallback<EntityWrapper> firstCallback = captor.getAllValues().get(0);
+		AsyncCallback<EntityWrapper> secondCallback = captor.getAllValues().get(1);
+		
+		//the later search responds first, then the earlier (superseded) search
+		secondCallback.onSuccess(new EntityWrapper("second results", SearchResults.class.getName()));
+		firstCallback.onSuccess(new EntityWrapper("first results", SearchResults.class.getName()));
+		
+		verify(mockNodeModelCreator).createJSONEntity("second results", SearchResults.class);
+		verify(mockNodeModelCreator, never()).createJSONEntity("first results", SearchResults.class);
+		verify(mockView).setSearchResults(any(SearchResults.class), eq("another term"), anyBoolean());
+		verify(mockSearchResultsCache).put(anyString(), eq("second results"));
+	}
+	
 	@Test 
 	public void testGetAppliedFacets() {
 		List<KeyValue> facets = searchPresenter.getAppliedFacets();
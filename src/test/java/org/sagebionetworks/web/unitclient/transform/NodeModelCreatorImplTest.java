@@ -0,0 +1,244 @@
+package org.sagebionetworks.web.unitclient.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.AccessRequirement;
+import org.sagebionetworks.repo.model.Annotations;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.repo.model.EntityPath;
+import org.sagebionetworks.repo.model.FileEntity;
+import org.sagebionetworks.repo.model.TermsOfUseAccessRequirement;
+import org.sagebionetworks.repo.model.auth.UserEntityPermissions;
+import org.sagebionetworks.repo.model.file.FileHandle;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
+import org.sagebionetworks.schema.adapter.JSONArrayAdapter;
+import org.sagebionetworks.schema.adapter.JSONEntity;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.web.client.model.EntityBundle;
+import org.sagebionetworks.web.client.transform.JSONEntityFactory;
+import org.sagebionetworks.web.client.transform.JSONEntityFactoryImpl;
+import org.sagebionetworks.web.client.transform.NodeModelCreatorImpl;
+import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.test.helper.Benchmarks;
+
+public class NodeModelCreatorImplTest {
+
+	private static final int BENCHMARK_ITERATIONS = 200;
+	private static final int BENCHMARK_ACCESS_REQUIREMENT_COUNT = 100;
+
+	AdapterFactory adapterFactory;
+	JSONEntityFactory factory;
+	NodeModelCreatorImpl nodeModelCreator;
+	FileEntity entity;
+	Annotations annotations;
+	UserEntityPermissions permissions;
+	EntityPath path;
+	List<AccessRequirement> accessRequirements;
+	List<FileHandle> fileHandles;
+
+	@Before
+	public void setup() throws JSONObjectAdapterException {
+		adapterFactory = new AdapterFactoryImpl();
+		factory = new JSONEntityFactoryImpl(adapterFactory);
+		nodeModelCreator = new NodeModelCreatorImpl(factory, adapterFactory.createNew());
+
+		entity = new FileEntity();
+		entity.setId("syn123");
+		entity.setName("bundled file");
+		entity.setEntityType(FileEntity.class.getName());
+		entity.setDataFileHandleId("20");
+
+		annotations = new Annotations();
+		annotations.setId(entity.getId());
+		annotations.addAnnotation("doubleAnno", new Double(45.0001));
+		annotations.addAnnotation("string", "some string");
+
+		permissions = new UserEntityPermissions();
+		permissions.setCanEdit(true);
+		permissions.setCanView(true);
+
+		path = new EntityPath();
+		path.setPath(new ArrayList<EntityHeader>());
+		EntityHeader header = new EntityHeader();
+		header.setId(entity.getId());
+		header.setName(entity.getName());
+		path.getPath().add(header);
+
+		accessRequirements = new ArrayList<AccessRequirement>();
+		TermsOfUseAccessRequirement ar = new TermsOfUseAccessRequirement();
+		ar.setEntityType(TermsOfUseAccessRequirement.class.getName());
+		ar.setTermsOfUse("foo");
+		accessRequirements.add(ar);
+
+		fileHandles = new ArrayList<FileHandle>();
+		FileHandle fh = new S3FileHandle();
+		fh.setConcreteType(S3FileHandle.class.getName());
+		fh.setFileName("not-a-virus.exe");
+		fh.setId("20");
+		fileHandles.add(fh);
+	}
+
+	private EntityBundleTransport createTransport(List<AccessRequirement> ars) throws JSONObjectAdapterException {
+		EntityBundleTransport transport = new EntityBundleTransport();
+		transport.setEntityJson(factory.createJsonStringForEntity(entity));
+		transport.setAnnotationsJson(factory.createJsonStringForEntity(annotations));
+		transport.setPermissionsJson(factory.createJsonStringForEntity(permissions));
+		transport.setEntityPathJson(factory.createJsonStringForEntity(path));
+		transport.setAccessRequirementsJson(entityListToString(ars));
+		transport.setUnmetAccessRequirementsJson(entityListToString(ars));
+		transport.setFileHandlesJson(entityListToString(fileHandles));
+		transport.setHashChildren(true);
+		return transport;
+	}
+
+	private String entityListToString(List<? extends JSONEntity> list) throws JSONObjectAdapterException {
+		JSONArrayAdapter aa = adapterFactory.createNew().createNewArray();
+		for (int i=0; i<list.size(); i++) {
+			JSONObjectAdapter oa = adapterFactory.createNew();
+			list.get(i).writeToJSONObject(oa);
+			aa.put(i, oa);
+		}
+		return aa.toJSONString();
+	}
+
+	@Test
+	public void testCreateEntityBundle() throws JSONObjectAdapterException {
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(createTransport(accessRequirements));
+		assertEquals(entity, bundle.getEntity());
+		assertTrue(bundle.getHasChildren());
+		assertEquals(annotations, bundle.getAnnotations());
+		assertEquals(permissions, bundle.getPermissions());
+		assertEquals(path, bundle.getPath());
+		assertEquals(accessRequirements, bundle.getAccessRequirements());
+		assertEquals(accessRequirements, bundle.getUnmetAccessRequirements());
+		assertEquals(fileHandles, bundle.getFileHandles());
+	}
+
+	@Test
+	public void testCreateEntityBundleMemoized() throws JSONObjectAdapterException {
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(createTransport(accessRequirements));
+		List<AccessRequirement> parsed = bundle.getAccessRequirements();
+		assertTrue(parsed == bundle.getAccessRequirements());
+		List<FileHandle> parsedFileHandles = bundle.getFileHandles();
+		assertTrue(parsedFileHandles == bundle.getFileHandles());
+	}
+
+	@Test
+	public void testSetterReplacesPart() throws JSONObjectAdapterException {
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(createTransport(accessRequirements));
+		bundle.setFileHandles(null);
+		assertNull(bundle.getFileHandles());
+		bundle.setUnmetAccessRequirements(new ArrayList<AccessRequirement>());
+		assertTrue(bundle.getUnmetAccessRequirements().isEmpty());
+	}
+
+	@Test
+	public void testEqualsBundleParsedUpFront() throws JSONObjectAdapterException {
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(createTransport(accessRequirements));
+		EntityBundle parsed = new EntityBundle(entity, annotations, permissions, path, accessRequirements, accessRequirements, fileHandles);
+		parsed.setChildCount(true);
+		assertEquals(parsed, bundle);
+		assertEquals(bundle, parsed);
+		assertEquals(parsed.hashCode(), bundle.hashCode());
+	}
+
+	@Test
+	public void testMissingParts() throws JSONObjectAdapterException {
+		EntityBundleTransport transport = new EntityBundleTransport();
+		transport.setEntityJson(factory.createJsonStringForEntity(entity));
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(transport);
+		assertEquals(entity, bundle.getEntity());
+		assertNull(bundle.getHasChildren());
+		assertNull(bundle.getAnnotations());
+		assertNull(bundle.getPermissions());
+		assertNull(bundle.getPath());
+		assertNull(bundle.getAccessRequirements());
+		assertNull(bundle.getUnmetAccessRequirements());
+		assertNull(bundle.getFileHandles());
+	}
+
+	@Test(expected=JSONObjectAdapterException.class)
+	public void testInvalidPartFailsCreate() throws JSONObjectAdapterException {
+		EntityBundleTransport transport = createTransport(accessRequirements);
+		transport.setPermissionsJson("not json");
+		nodeModelCreator.createEntityBundle(transport);
+	}
+
+	@Test
+	public void testInvalidListFailsOnFirstAccess() throws JSONObjectAdapterException {
+		EntityBundleTransport transport = createTransport(accessRequirements);
+		transport.setAccessRequirementsJson("not json");
+		EntityBundle bundle = nodeModelCreator.createEntityBundle(transport);
+		// the parts that are not used still work
+		assertEquals(entity, bundle.getEntity());
+		assertEquals(fileHandles, bundle.getFileHandles());
+		try {
+			bundle.getAccessRequirements();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof JSONObjectAdapterException);
+		}
+	}
+
+	/**
+	 * Not a pass/fail test. Reports the parse time and allocation of a bundle
+	 * carrying many access requirements when only the entity is used (the common
+	 * case) versus when every part is read. See {@link Benchmarks} to run it.
+	 */
+	@Ignore
+	@Test
+	public void testParseBenchmark() throws JSONObjectAdapterException {
+		List<AccessRequirement> ars = new ArrayList<AccessRequirement>();
+		for (int i = 0; i < BENCHMARK_ACCESS_REQUIREMENT_COUNT; i++) {
+			TermsOfUseAccessRequirement ar = new TermsOfUseAccessRequirement();
+			ar.setEntityType(TermsOfUseAccessRequirement.class.getName());
+			ar.setId(new Long(i));
+			ar.setTermsOfUse("terms of use number " + i);
+			ars.add(ar);
+		}
+		EntityBundleTransport transport = createTransport(ars);
+		// warm up
+		runBenchmark(transport, true);
+		runBenchmark(transport, false);
+
+		long[] entityOnly = runBenchmark(transport, false);
+		long[] allParts = runBenchmark(transport, true);
+		System.out.println("Entity bundle parse (" + BENCHMARK_ACCESS_REQUIREMENT_COUNT + " access requirements, " + BENCHMARK_ITERATIONS + " iterations)");
+		System.out.println("  entity only: " + Benchmarks.formatResult(entityOnly[0], entityOnly[1], BENCHMARK_ITERATIONS, "bundle"));
+		System.out.println("  all parts:   " + Benchmarks.formatResult(allParts[0], allParts[1], BENCHMARK_ITERATIONS, "bundle"));
+	}
+
+	/**
+	 * @return elapsed nanoseconds and allocated bytes (-1 when the JVM cannot report allocation)
+	 */
+	private long[] runBenchmark(EntityBundleTransport transport, boolean readAllParts) throws JSONObjectAdapterException {
+		long startBytes = Benchmarks.getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			EntityBundle bundle = nodeModelCreator.createEntityBundle(transport);
+			bundle.getEntity();
+			if (readAllParts) {
+				bundle.getAnnotations();
+				bundle.getPermissions();
+				bundle.getPath();
+				bundle.getAccessRequirements();
+				bundle.getUnmetAccessRequirements();
+				bundle.getFileHandles();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		return new long[] {elapsed, Benchmarks.getAllocatedBytesSince(startBytes)};
+	}
+}
@@ -35,6 +35,7 @@ import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
 import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCache;
 import org.sagebionetworks.web.client.security.AuthenticationController;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.widget.entity.WikiPageWidget;
@@ -63,6 +64,7 @@ public class WikiPageWidgetTest {
 	WikiPageWidget presenter;
 	GlobalApplicationState mockGlobalApplicationState;
 	AuthenticationController mockAuthenticationController;
+	WikiHeaderTreeCache mockWikiHeaderTreeCache;
 
 	WikiPage testPage;
 	private static final String MY_TEST_ENTITY_OWNER_NAME = "My Test Entity Owner Name";
@@ -79,9 +81,10 @@ public class WikiPageWidgetTest {
 		mockJsonObjectAdapter = new JSONObjectAdapterImpl();
 		mockGlobalApplicationState = mock(GlobalApplicationState.class);
 		mockAuthenticationController = mock(AuthenticationController.class);
+		mockWikiHeaderTreeCache = mock(WikiHeaderTreeCache.class);
 		presenter = new WikiPageWidget(mockView, mockSynapseClient,
 				mockNodeModelCreator, mockJsonObjectAdapter, adapterFactory,
-				mockGlobalApplicationState, mockAuthenticationController);
+				mockGlobalApplicationState, mockAuthenticationController, mockWikiHeaderTreeCache);
 		BatchResults<EntityHeader> headers = new BatchResults<EntityHeader>();
 		headers.setTotalNumberOfResults(1);
 		List<EntityHeader> resultHeaderList = new ArrayList<EntityHeader>();
@@ -205,6 +208,7 @@ public class WikiPageWidgetTest {
 		presenter.createPage("a new wiki page with this title");
 		verify(mockSynapseClient).createV2WikiPageWithV1(anyString(), anyString(), anyString(), any(AsyncCallback.class));
 		verify(mockView).showInfo(anyString(), anyString());
+		verify(mockWikiHeaderTreeCache).remove("ownerId", ObjectType.ENTITY.toString());
 	}
 	
 	@Test
@@ -236,6 +240,7 @@ public class WikiPageWidgetTest {
 		presenter.configure(new WikiPageKey("ownerId", ObjectType.ENTITY.toString(), null, null), true, null, true);
 		presenter.saveClicked("", "");
 		verify(mockGlobalApplicationState).setIsEditing(eq(false));
+		verify(mockWikiHeaderTreeCache).remove("ownerId", ObjectType.ENTITY.toString());
 	}
 	
 	@Test
@@ -245,6 +250,7 @@ public class WikiPageWidgetTest {
 		presenter.saveClicked("", "");
 		
 		verify(mockGlobalApplicationState, Mockito.times(0)).setIsEditing(anyBoolean());
+		verify(mockWikiHeaderTreeCache, Mockito.never()).remove(anyString(), anyString());
 	}
 	
 	@Test
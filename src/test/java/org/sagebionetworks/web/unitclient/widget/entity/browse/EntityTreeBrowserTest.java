@@ -0,0 +1,101 @@
+package org.sagebionetworks.web.unitclient.widget.entity.browse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
+import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.web.client.EntityTypeProvider;
+import org.sagebionetworks.web.client.GlobalApplicationState;
+import org.sagebionetworks.web.client.IconsImageBundle;
+import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.security.AuthenticationController;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeBrowser;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeBrowserView;
+import org.sagebionetworks.web.client.widget.entity.browse.FolderChildren;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
+import org.sagebionetworks.web.test.helper.AsyncMockStubber;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class EntityTreeBrowserTest {
+
+	EntityTreeBrowserView mockView;
+	SynapseClientAsync mockSynapseClient;
+	AuthenticationController mockAuthenticationController;
+	GlobalApplicationState mockGlobalApplicationState;
+	AdapterFactory adapterFactory;
+	EntityTreeBrowser entityTreeBrowser;
+	
+	@Before
+	public void before() {
+		mockView = mock(EntityTreeBrowserView.class);
+		mockSynapseClient = mock(SynapseClientAsync.class);
+		mockAuthenticationController = mock(AuthenticationController.class);
+		mockGlobalApplicationState = mock(GlobalApplicationState.class);
+		adapterFactory = new AdapterFactoryImpl();
+		entityTreeBrowser = new EntityTreeBrowser(mockView, mockAuthenticationController,
+				mock(EntityTypeProvider.class), mockGlobalApplicationState, mockSynapseClient,
+				mock(JSONObjectAdapter.class), mock(IconsImageBundle.class), adapterFactory);
+	}
+	
+	private EntityChildrenPage createPage(String nextPageToken, String... childIds) throws Exception {
+		ArrayList<String> childrenJson = new ArrayList<String>();
+		for (String childId : childIds) {
+			EntityHeader header = new EntityHeader();
+			header.setId(childId);
+			header.setName("name of " + childId);
+			childrenJson.add(header.writeToJSONObject(adapterFactory.createNew()).toJSONString());
+		}
+		return new EntityChildrenPage(childrenJson, nextPageToken, childIds.length);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testConfigure() throws Exception {
+		AsyncMockStubber.callSuccessWith(createPage("3", "syn1", "syn2")).when(mockSynapseClient).getChildrenHeaders(anyString(), eq(true), anyString(), any(AsyncCallback.class));
+		entityTreeBrowser.configure("syn123", true);
+		verify(mockSynapseClient).getChildrenHeaders(eq("syn123"), eq(true), (String)eq(null), any(AsyncCallback.class));
+		ArgumentCaptor<FolderChildren> captor = ArgumentCaptor.forClass(FolderChildren.class);
+		verify(mockView).setRootEntities(eq("syn123"), captor.capture(), eq(true));
+		FolderChildren children = captor.getValue();
+		assertEquals(2, children.getChildren().size());
+		assertEquals("syn1", children.getChildren().get(0).getId());
+		assertEquals("3", children.getNextPageToken());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetFolderChildrenNextPage() throws Exception {
+		AsyncMockStubber.callSuccessWith(createPage(null, "syn3")).when(mockSynapseClient).getChildrenHeaders(anyString(), eq(true), anyString(), any(AsyncCallback.class));
+		AsyncCallback<FolderChildren> mockCallback = mock(AsyncCallback.class);
+		entityTreeBrowser.getFolderChildren("syn123", "3", mockCallback);
+		verify(mockSynapseClient).getChildrenHeaders(eq("syn123"), eq(true), eq("3"), any(AsyncCallback.class));
+		ArgumentCaptor<FolderChildren> captor = ArgumentCaptor.forClass(FolderChildren.class);
+		verify(mockCallback).onSuccess(captor.capture());
+		assertEquals(1, captor.getValue().getChildren().size());
+		assertNull(captor.getValue().getNextPageToken());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetFolderChildrenFailure() throws Exception {
+		Exception ex = new Exception("unhandled");
+		AsyncMockStubber.callFailureWith(ex).when(mockSynapseClient).getChildrenHeaders(anyString(), eq(true), anyString(), any(AsyncCallback.class));
+		AsyncCallback<FolderChildren> mockCallback = mock(AsyncCallback.class);
+		entityTreeBrowser.getFolderChildren("syn123", null, mockCallback);
+		verify(mockCallback).onFailure(ex);
+	}
+}
@@ -0,0 +1,267 @@
+package org.sagebionetworks.web.unitclient.widget.entity.browse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.repo.model.FileEntity;
+import org.sagebionetworks.repo.model.Folder;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRowRenderer;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Kind;
+import org.sagebionetworks.web.client.widget.entity.browse.EntityTreeRows.Row;
+
+import com.google.gwt.safecss.shared.SafeStyles;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.safehtml.shared.SafeHtmlUtils;
+import com.google.gwt.safehtml.shared.SafeUri;
+
+public class EntityTreeRowsTest {
+
+	private static final String LOAD_MORE = "load more";
+	private static final int BENCHMARK_CHILD_COUNT = 10000;
+	private static final int BENCHMARK_ITERATIONS = 20;
+	// rows in a 500px viewport, plus the overscan above and below
+	private static final int BENCHMARK_WINDOW = 500 / EntityTreeRowRenderer.ROW_HEIGHT_PX + 1 + 40;
+
+	EntityTreeRows rows;
+	EntityTreeRowRenderer renderer;
+
+	/**
+	 * The generated templates are not available outside of GWT, so build the same html by hand.
+	 */
+	private static class TestTemplates implements EntityTreeRowRenderer.Templates {
+		@Override
+		public SafeHtml row(String styleNames, int rowIndex, SafeStyles indent, String toggle, SafeHtml icon, SafeHtml label) {
+			SafeHtmlBuilder sb = new SafeHtmlBuilder();
+			sb.appendHtmlConstant("<div class=\"entityTreeRow ").appendEscaped(styleNames)
+				.appendHtmlConstant("\" data-row=\"").append(rowIndex)
+				.appendHtmlConstant("\" style=\"").appendEscaped(indent.asString())
+				.appendHtmlConstant("\"><span class=\"entityTreeToggle\">").appendEscaped(toggle)
+				.appendHtmlConstant("</span>").append(icon).append(label).appendHtmlConstant("</div>");
+			return sb.toSafeHtml();
+		}
+		@Override
+		public SafeHtml link(SafeUri href, String name) {
+			return new SafeHtmlBuilder().appendHtmlConstant("<a href=\"").appendEscaped(href.asString())
+				.appendHtmlConstant("\">").appendEscaped(name).appendHtmlConstant("</a>").toSafeHtml();
+		}
+		@Override
+		public SafeHtml action(String name) {
+			return new SafeHtmlBuilder().appendHtmlConstant("<a class=\"link\">").appendEscaped(name).appendHtmlConstant("</a>").toSafeHtml();
+		}
+		@Override
+		public SafeHtml text(String name) {
+			return new SafeHtmlBuilder().appendHtmlConstant("<span>").appendEscaped(name).appendHtmlConstant("</span>").toSafeHtml();
+		}
+	}
+
+	@Before
+	public void before() {
+		rows = new EntityTreeRows();
+		renderer = new EntityTreeRowRenderer(new TestTemplates(), new EntityTreeRowRenderer.IconProvider() {
+			@Override
+			public SafeHtml getIcon(String type) {
+				return SafeHtmlUtils.EMPTY_SAFE_HTML;
+			}
+		});
+	}
+
+	private List<EntityHeader> createHeaders(String prefix, int count) {
+		List<EntityHeader> headers = new ArrayList<EntityHeader>();
+		for (int i = 0; i < count; i++) {
+			EntityHeader header = new EntityHeader();
+			header.setId(prefix + i);
+			header.setName("name " + prefix + i);
+			header.setType(FileEntity.class.getName());
+			headers.add(header);
+		}
+		return headers;
+	}
+
+	@Test
+	public void testSetRootsSorted() {
+		EntityHeader b = new EntityHeader();
+		b.setId("syn2");
+		b.setName("b");
+		EntityHeader a = new EntityHeader();
+		a.setId("syn1");
+		a.setName("A");
+		rows.setRoots("syn0", Arrays.asList(b, a), "token", LOAD_MORE, true);
+		assertEquals(3, rows.size());
+		assertEquals("syn1", rows.getRow(0).getId());
+		assertEquals("syn2", rows.getRow(1).getId());
+		assertEquals(Kind.LOAD_MORE, rows.getRow(2).getKind());
+		assertEquals("syn0", rows.getLoadMoreParentId(rows.getRow(2)));
+	}
+
+	@Test
+	public void testExpandCollapse() {
+		rows.setRoots(null, createHeaders("root", 3), null, LOAD_MORE, false);
+		// first expand has to load the children
+		assertTrue(rows.expand(1));
+		Row folder = rows.getRow(1);
+		assertTrue(folder.isLoading());
+		rows.setChildren(folder, createHeaders("child", 2), null, LOAD_MORE);
+		assertEquals(5, rows.size());
+		assertEquals("child0", rows.getRow(2).getId());
+		assertEquals(1, rows.getRow(2).getDepth());
+		assertEquals("root2", rows.getRow(4).getId());
+
+		rows.collapse(1);
+		assertEquals(3, rows.size());
+		assertFalse(folder.isExpanded());
+		// children are kept
+		assertFalse(rows.expand(1));
+		assertEquals(5, rows.size());
+	}
+
+	@Test
+	public void testNestedExpansionKept() {
+		rows.setRoots(null, createHeaders("root", 1), null, LOAD_MORE, false);
+		rows.expand(0);
+		rows.setChildren(rows.getRow(0), createHeaders("child", 1), null, LOAD_MORE);
+		rows.expand(1);
+		rows.setChildren(rows.getRow(1), createHeaders("grandchild", 2), null, LOAD_MORE);
+		assertEquals(4, rows.size());
+		rows.collapse(0);
+		assertEquals(1, rows.size());
+		rows.expand(0);
+		assertEquals(4, rows.size());
+		assertEquals(2, rows.getRow(3).getDepth());
+	}
+
+	@Test
+	public void testEmptyFolderNotExpandable() {
+		rows.setRoots(null, createHeaders("root", 1), null, LOAD_MORE, false);
+		rows.expand(0);
+		rows.setChildren(rows.getRow(0), new ArrayList<EntityHeader>(), null, LOAD_MORE);
+		assertEquals(1, rows.size());
+		assertFalse(rows.getRow(0).isExpandable());
+	}
+
+	@Test
+	public void testChildrenFailed() {
+		rows.setRoots(null, createHeaders("root", 1), null, LOAD_MORE, false);
+		rows.expand(0);
+		rows.setChildrenFailed(rows.getRow(0));
+		assertFalse(rows.getRow(0).isExpanded());
+		// can try again
+		assertTrue(rows.expand(0));
+	}
+
+	@Test
+	public void testAppendPage() {
+		rows.setRoots(null, createHeaders("root", 1), null, LOAD_MORE, false);
+		rows.expand(0);
+		Row folder = rows.getRow(0);
+		rows.setChildren(folder, createHeaders("page1-", 2), "3", LOAD_MORE);
+		Row loadMore = rows.getRow(3);
+		assertEquals(Kind.LOAD_MORE, loadMore.getKind());
+		assertEquals("3", loadMore.getPageToken());
+		assertEquals("root0", rows.getLoadMoreParentId(loadMore));
+
+		rows.appendPage(loadMore, createHeaders("page2-", 2), null, LOAD_MORE);
+		assertEquals(5, rows.size());
+		assertEquals("page2-1", rows.getRow(4).getId());
+		// the new page is part of the folder's children
+		rows.collapse(0);
+		rows.expand(0);
+		assertEquals(5, rows.size());
+	}
+
+	@Test
+	public void testRemoveEntity() {
+		rows.setRoots(null, createHeaders("root", 2), null, LOAD_MORE, false);
+		rows.expand(0);
+		rows.setChildren(rows.getRow(0), createHeaders("child", 2), null, LOAD_MORE);
+		rows.removeEntity("root0");
+		assertEquals(1, rows.size());
+		assertEquals("root1", rows.getRow(0).getId());
+	}
+
+	@Test
+	public void testRender() {
+		EntityHeader folder = new EntityHeader();
+		folder.setId("syn1");
+		folder.setName("<b>folder</b>");
+		folder.setType(Folder.class.getName());
+		rows.setRoots(null, Arrays.asList(folder), "2", LOAD_MORE, false);
+		String html = renderer.render(rows, 0, 2, "syn1").asString();
+		assertTrue(html.contains("data-row=\"0\""));
+		assertTrue(html.contains(EntityTreeRowRenderer.SELECTED_STYLE));
+		assertTrue(html.contains("#!Synapse:syn1"));
+		assertTrue(html.contains("&lt;b&gt;folder&lt;/b&gt;"));
+		assertTrue(html.contains(EntityTreeRowRenderer.COLLAPSED_TOGGLE));
+		assertTrue(html.contains(LOAD_MORE));
+
+		renderer.setMakeLinks(false);
+		html = renderer.render(rows, 0, 1, null).asString();
+		assertFalse(html.contains("href"));
+		assertFalse(html.contains(EntityTreeRowRenderer.SELECTED_STYLE));
+	}
+
+	/**
+	 * Not a pass/fail test. Compares the cost of rendering the rows around the
+	 * viewport against rendering every row of a folder with 10k children (what
+	 * a non-virtualized tree has to build), and the cost of expanding and
+	 * collapsing the folder. Ignored so it stays out of the unit test run;
+	 * remove the @Ignore locally and run this test alone to see the numbers.
+	 */
+	@Ignore
+	@Test
+	public void testRenderBenchmark() {
+		rows.setRoots(null, createHeaders("root", 1), null, LOAD_MORE, false);
+		rows.expand(0);
+		rows.setChildren(rows.getRow(0), createHeaders("child", BENCHMARK_CHILD_COUNT), null, LOAD_MORE);
+		assertEquals(BENCHMARK_CHILD_COUNT + 1, rows.size());
+		// warm up
+		renderWindows();
+		renderAll();
+		toggle();
+
+		long windowNs = renderWindows();
+		long allNs = renderAll();
+		long toggleNs = toggle();
+		System.out.println("Entity tree rendering (" + BENCHMARK_CHILD_COUNT + " children, " + BENCHMARK_ITERATIONS + " iterations)");
+		System.out.println("  viewport window (" + BENCHMARK_WINDOW + " rows): " + windowNs / BENCHMARK_ITERATIONS / 1000 + " us/render");
+		System.out.println("  all rows:                   " + allNs / BENCHMARK_ITERATIONS / 1000 + " us/render");
+		System.out.println("  collapse and expand:        " + toggleNs / BENCHMARK_ITERATIONS / 1000 + " us/toggle");
+	}
+
+	private long renderWindows() {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			// scroll through the folder
+			int from = (i * (BENCHMARK_CHILD_COUNT / BENCHMARK_ITERATIONS)) % (rows.size() - BENCHMARK_WINDOW);
+			renderer.render(rows, from, from + BENCHMARK_WINDOW, null);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long renderAll() {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			renderer.render(rows, 0, rows.size(), null);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long toggle() {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			rows.collapse(0);
+			rows.expand(0);
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -1,7 +1,10 @@
 package org.sagebionetworks.web.unitclient.widget.entity.registration;
 
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,22 +16,26 @@ import org.junit.Test;
 import org.sagebionetworks.markdown.constants.WidgetConstants;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.client.ClientTelemetry;
 import org.sagebionetworks.web.client.PortalGinInjector;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.widget.entity.registration.WidgetRegistrarImpl;
+import org.sagebionetworks.web.client.widget.entity.renderer.YouTubeWidget;
 
 public class WidgetRegistrarImplTest {
 		
 	WidgetRegistrarImpl widgetRegistrar;
 	PortalGinInjector mockGinInjector;
 	NodeModelCreator mockNodeModelCreator;
+	ClientTelemetry mockClientTelemetry;
 	Map<String, String> testImageWidgetDescriptor;
 	String testFileName = "testfile.png";
 	@Before
 	public void setup(){	
 		mockGinInjector = mock(PortalGinInjector.class);
 		mockNodeModelCreator = mock(NodeModelCreator.class);
-		widgetRegistrar= new WidgetRegistrarImpl(mockGinInjector,mockNodeModelCreator, new JSONObjectAdapterImpl());
+		mockClientTelemetry = mock(ClientTelemetry.class);
+		widgetRegistrar= new WidgetRegistrarImpl(mockGinInjector,mockNodeModelCreator, new JSONObjectAdapterImpl(), mockClientTelemetry);
 		testImageWidgetDescriptor = new HashMap<String, String>();
 	}
 	
@@ -43,6 +50,15 @@ public class WidgetRegistrarImplTest {
 		widgetRegistrar.getWidgetRendererForWidgetDescriptor(null, WidgetConstants.PROVENANCE_CONTENT_TYPE, null, true, null, null);
 		verify(mockGinInjector).getProvenanceRenderer();
 	}
+	
+	@Test
+	public void testWidgetConfigureTimed() {
+		YouTubeWidget mockYouTubeWidget = mock(YouTubeWidget.class);
+		when(mockGinInjector.getYouTubeRenderer()).thenReturn(mockYouTubeWidget);
+		widgetRegistrar.getWidgetRendererForWidgetDescriptor(null, WidgetConstants.YOUTUBE_CONTENT_TYPE, null, true, null, null);
+		verify(mockYouTubeWidget).configure(null, null, null, null);
+		verify(mockClientTelemetry).recordWidgetConfigure(eq(WidgetConstants.YOUTUBE_CONTENT_TYPE), anyInt());
+	}
 	@Test
 	public void testCreateWidgetEditors() {
 		widgetRegistrar.getWidgetEditorForWidgetDescriptor(null, WidgetConstants.YOUTUBE_CONTENT_TYPE, null, true, null);
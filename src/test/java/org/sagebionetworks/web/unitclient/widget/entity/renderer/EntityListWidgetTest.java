@@ -1,8 +1,10 @@
 package org.sagebionetworks.web.unitclient.widget.entity.renderer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -22,6 +24,8 @@ import org.sagebionetworks.repo.model.Data;
 import org.sagebionetworks.repo.model.FileEntity;
 import org.sagebionetworks.repo.model.EntityGroupRecord;
 import org.sagebionetworks.repo.model.Reference;
+import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.web.client.DisplayConstants;
 import org.sagebionetworks.web.client.SynapseClientAsync;
 import org.sagebionetworks.web.client.SynapseJSNIUtils;
 import org.sagebionetworks.web.client.model.EntityBundle;
@@ -32,7 +36,10 @@ import org.sagebionetworks.web.client.widget.entity.renderer.EntityListUtil;
 import org.sagebionetworks.web.client.widget.entity.renderer.EntityListWidget;
 import org.sagebionetworks.web.client.widget.entity.renderer.EntityListWidgetView;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
+import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.WikiPageKey;
+import org.sagebionetworks.web.shared.exceptions.NotFoundException;
 import org.sagebionetworks.web.test.helper.AsyncMockStubber;
 
 import com.google.gwt.safehtml.shared.SafeHtml;
@@ -50,6 +57,7 @@ public class EntityListWidgetTest {
 	Map<String, String> descriptor;
 	Data syn456;
 	EntityGroupRecord record456; 
+	EntityWrapper syn456Wrapper;
 	
 	@Before
 	public void setup() throws Exception{		
@@ -69,6 +77,8 @@ public class EntityListWidgetTest {
 		AsyncMockStubber.callSuccessWith(transport).when(mockSynapseClient).getEntityBundle(eq(syn456.getId()), anyInt(), any(AsyncCallback.class));
 		AsyncMockStubber.callSuccessWith(transport).when(mockSynapseClient).getEntityBundleForVersion(eq(syn456.getId()), eq(1L), anyInt(), any(AsyncCallback.class));
 		when(mockNodeModelCreator.createEntityBundle(transport)).thenReturn(bundle);
+		syn456Wrapper = new EntityWrapper("syn456 json", Data.class.getName());
+		when(mockNodeModelCreator.createEntity(syn456Wrapper)).thenReturn(syn456);
 
 		// create an entity group record for syn456
 		record456 = new EntityGroupRecord();
@@ -80,7 +90,7 @@ public class EntityListWidgetTest {
 		// create empty descriptor
 		descriptor = new HashMap<String, String>();		
 				
-		widget = new EntityListWidget(mockView, mockSynapseClient, mockNodeModelCreator, mockSynapseJSNIUtils, mockAuthenticationController);
+		widget = new EntityListWidget(mockView, mockSynapseClient, mockNodeModelCreator, mockSynapseJSNIUtils, mockAuthenticationController, new AdapterFactoryImpl());
 	}
 	
 	@Test
@@ -96,10 +106,54 @@ public class EntityListWidgetTest {
 		String encoded = EntityListUtil.recordsToString(records);
 		descriptor.put(WidgetConstants.ENTITYLIST_WIDGET_LIST_KEY, encoded);
 				
+		List<EntityListRowBundle> rows = new ArrayList<EntityListRowBundle>();
+		rows.add(new EntityListRowBundle(syn456Wrapper, "a description"));
+		AsyncMockStubber.callSuccessWith(rows).when(mockSynapseClient).getEntityListRows(anyString(), any(AsyncCallback.class));
+				
 		widget.configure(null, descriptor, null, null);
 		
 		verify(mockView).configure();	
+		//all rows are loaded with a single call
+		verify(mockSynapseClient).getEntityListRows(anyString(), any(AsyncCallback.class));
+		verify(mockSynapseClient, Mockito.never()).getEntityBundleForVersion(anyString(), any(Long.class), anyInt(), any(AsyncCallback.class));
+		ArgumentCaptor<EntityGroupRecordDisplay> arg = ArgumentCaptor.forClass(EntityGroupRecordDisplay.class);
+		verify(mockView).setEntityGroupRecordDisplay(eq(0), arg.capture(), eq(true));
+		assertEquals(syn456.getId(), arg.getValue().getEntityId());
+		assertEquals("a description", arg.getValue().getDescription().asString());
+	}
+	
+	@Test
+	public void testConfigureRowFailure() {		
+		List<EntityGroupRecord> records = new ArrayList<EntityGroupRecord>();
+		records.add(record456);
+		records.add(record456);
+		descriptor.put(WidgetConstants.ENTITYLIST_WIDGET_LIST_KEY, EntityListUtil.recordsToString(records));
+		List<EntityListRowBundle> rows = new ArrayList<EntityListRowBundle>();
+		rows.add(new EntityListRowBundle(syn456Wrapper, ""));
+		rows.add(new EntityListRowBundle(new NotFoundException()));
+		AsyncMockStubber.callSuccessWith(rows).when(mockSynapseClient).getEntityListRows(anyString(), any(AsyncCallback.class));
+		
+		widget.configure(null, descriptor, null, null);
+		
 		verify(mockView).setEntityGroupRecordDisplay(eq(0), any(EntityGroupRecordDisplay.class), eq(true));
+		ArgumentCaptor<EntityGroupRecordDisplay> arg = ArgumentCaptor.forClass(EntityGroupRecordDisplay.class);
+		verify(mockView).setEntityGroupRecordDisplay(eq(1), arg.capture(), eq(true));
+		assertTrue(arg.getValue().getName().asString().startsWith(DisplayConstants.NOT_FOUND));
+	}
+	
+	@Test
+	public void testConfigureFailure() {		
+		List<EntityGroupRecord> records = new ArrayList<EntityGroupRecord>();
+		records.add(record456);
+		descriptor.put(WidgetConstants.ENTITYLIST_WIDGET_LIST_KEY, EntityListUtil.recordsToString(records));
+		AsyncMockStubber.callFailureWith(new Exception()).when(mockSynapseClient).getEntityListRows(anyString(), any(AsyncCallback.class));
+		
+		widget.configure(null, descriptor, null, null);
+		
+		//every row shows the error
+		ArgumentCaptor<EntityGroupRecordDisplay> arg = ArgumentCaptor.forClass(EntityGroupRecordDisplay.class);
+		verify(mockView).setEntityGroupRecordDisplay(eq(0), arg.capture(), eq(true));
+		assertTrue(arg.getValue().getName().asString().startsWith(DisplayConstants.ERROR_LOADING));
 	}
 	
 	@Test
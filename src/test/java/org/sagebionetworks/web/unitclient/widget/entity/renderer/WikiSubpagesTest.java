@@ -24,6 +24,7 @@ import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.WikiHeaderTreeCache;
 import org.sagebionetworks.web.client.place.Synapse;
 import org.sagebionetworks.web.client.place.Wiki;
 import org.sagebionetworks.web.client.security.AuthenticationController;
@@ -47,9 +48,11 @@ public class WikiSubpagesTest {
 	AutoGenFactory autoGenFactory;
 	GlobalApplicationState mockGlobalApplicationState;
 	AuthenticationController mockAuthenticationController;
+	WikiHeaderTreeCache mockWikiHeaderTreeCache;
 	
 	WikiSubpagesWidget widget;
 	List<JSONEntity> wikiHeadersList;
+	PaginatedResults<JSONEntity> wikiHeaders;
 	V2WikiHeader testRootHeader;
 	String entityId = "syn123";
 	Map<String, String> descriptor = new HashMap<String, String>();
@@ -63,7 +66,8 @@ public class WikiSubpagesTest {
 		autoGenFactory = new AutoGenFactory();		
 		mockGlobalApplicationState = mock(GlobalApplicationState.class);
 		mockAuthenticationController = mock(AuthenticationController.class);
-		widget = new WikiSubpagesWidget(mockView, mockSynapseClient, mockNodeModelCreator, adapterFactory);
+		mockWikiHeaderTreeCache = mock(WikiHeaderTreeCache.class);
+		widget = new WikiSubpagesWidget(mockView, mockSynapseClient, mockNodeModelCreator, adapterFactory, mockWikiHeaderTreeCache);
 		verify(mockView).setPresenter(widget);
 		ArrayList<JSONEntity> results = new ArrayList<JSONEntity>();
 		results.add(new EntityHeader());
@@ -76,7 +80,7 @@ public class WikiSubpagesTest {
 		when(mockNodeModelCreator.createBatchResults(anyString(), eq(EntityHeader.class))).thenReturn(batchResults);
 		
 		AsyncMockStubber.callSuccessWith("").when(mockSynapseClient).getWikiHeaderTree(anyString(), anyString(), any(AsyncCallback.class));
-		PaginatedResults<JSONEntity> wikiHeaders = new PaginatedResults<JSONEntity>();
+		wikiHeaders = new PaginatedResults<JSONEntity>();
 		wikiHeadersList = new ArrayList<JSONEntity>();
 		testRootHeader = new V2WikiHeader();
 		testRootHeader.setId("123");
@@ -114,6 +118,35 @@ public class WikiSubpagesTest {
 		verify(mockView, times(3)).clear();
 	}
 	
+	@Test
+	public void testConfigureCachesHeaderTree() throws Exception {
+		AsyncMockStubber.callSuccessWith("header tree").when(mockSynapseClient).getV2WikiHeaderTree(anyString(), anyString(), any(AsyncCallback.class));
+		when(mockNodeModelCreator.createPaginatedResults(anyString(), eq(V2WikiHeader.class))).thenReturn(wikiHeaders);
+		widget.configure(new WikiPageKey(entityId, ObjectType.ENTITY.toString(), null), descriptor, null, null);
+		verify(mockSynapseClient).getV2WikiHeaderTree(anyString(), anyString(), any(AsyncCallback.class));
+		verify(mockWikiHeaderTreeCache).put(entityId, ObjectType.ENTITY.toString(), "header tree");
+	}
+	
+	@Test
+	public void testConfigureUsesCachedHeaderTree() throws Exception {
+		when(mockWikiHeaderTreeCache.get(entityId, ObjectType.ENTITY.toString())).thenReturn("cached header tree");
+		when(mockNodeModelCreator.createPaginatedResults(eq("cached header tree"), eq(V2WikiHeader.class))).thenReturn(wikiHeaders);
+		//navigate to a page in the cached tree
+		widget.configure(new WikiPageKey(entityId, ObjectType.ENTITY.toString(), testRootHeader.getId()), descriptor, null, null);
+		verify(mockSynapseClient, never()).getV2WikiHeaderTree(anyString(), anyString(), any(AsyncCallback.class));
+		verify(mockNodeModelCreator).createPaginatedResults("cached header tree", V2WikiHeader.class);
+		verify(mockView, never()).showErrorMessage(anyString());
+	}
+	
+	@Test
+	public void testConfigureCachedHeaderTreeMissingPage() throws Exception {
+		when(mockWikiHeaderTreeCache.get(entityId, ObjectType.ENTITY.toString())).thenReturn("cached header tree");
+		when(mockNodeModelCreator.createPaginatedResults(eq("cached header tree"), eq(V2WikiHeader.class))).thenReturn(wikiHeaders);
+		//a page the cached tree does not know about (added since)
+		widget.configure(new WikiPageKey(entityId, ObjectType.ENTITY.toString(), "456"), descriptor, null, null);
+		verify(mockSynapseClient).getV2WikiHeaderTree(anyString(), anyString(), any(AsyncCallback.class));
+	}
+	
 	@Test
 	public void testGetLinkPlaceSynapse() throws Exception {
 		boolean embeddedInOwnerPage = true;
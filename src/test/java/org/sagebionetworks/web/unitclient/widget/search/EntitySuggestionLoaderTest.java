@@ -0,0 +1,108 @@
+package org.sagebionetworks.web.unitclient.widget.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.web.client.GWTWrapper;
+import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.transform.NodeModelCreator;
+import org.sagebionetworks.web.client.utils.Callback;
+import org.sagebionetworks.web.client.widget.search.EntitySuggestionLoader;
+import org.sagebionetworks.web.client.widget.search.EntitySuggestionLoader.SuggestionsHandler;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class EntitySuggestionLoaderTest {
+	
+	EntitySuggestionLoader loader;
+	SynapseClientAsync mockSynapseClient;
+	GWTWrapper mockGwt;
+	NodeModelCreator mockNodeModelCreator;
+	SuggestionsHandler mockHandler;
+	EntityHeader header;
+	
+	@Before
+	public void setup() throws Exception {
+		mockSynapseClient = mock(SynapseClientAsync.class);
+		mockGwt = mock(GWTWrapper.class);
+		mockNodeModelCreator = mock(NodeModelCreator.class);
+		mockHandler = mock(SuggestionsHandler.class);
+		header = new EntityHeader();
+		header.setId("syn1");
+		when(mockNodeModelCreator.createJSONEntity(anyString(), eq(EntityHeader.class))).thenReturn(header);
+		loader = new EntitySuggestionLoader(mockSynapseClient, mockGwt, mockNodeModelCreator);
+	}
+	
+	private List<Callback> getScheduled(int count) {
+		ArgumentCaptor<Callback> captor = ArgumentCaptor.forClass(Callback.class);
+		verify(mockGwt, times(count)).scheduleExecution(captor.capture(), eq(EntitySuggestionLoader.DEBOUNCE_MS));
+		return captor.getAllValues();
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testShortText() {
+		loader.onTextChanged("a", mockHandler);
+		verify(mockGwt, never()).scheduleExecution(any(Callback.class), anyInt());
+		verify(mockHandler).onSuggestions(new ArrayList<EntityHeader>());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDebounce() {
+		loader.onTextChanged("ca", mockHandler);
+		loader.onTextChanged("can", mockHandler);
+		List<Callback> scheduled = getScheduled(2);
+		//typing continued, so only the last text is sent
+		scheduled.get(0).invoke();
+		verify(mockSynapseClient, never()).getEntitySuggestions(anyString(), anyInt(), any(AsyncCallback.class));
+		scheduled.get(1).invoke();
+		verify(mockSynapseClient).getEntitySuggestions(eq("can"), eq(EntitySuggestionLoader.SUGGESTION_LIMIT), any(AsyncCallback.class));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSuggestions() {
+		loader.onTextChanged("can", mockHandler);
+		getScheduled(1).get(0).invoke();
+		ArgumentCaptor<AsyncCallback> captor = ArgumentCaptor.forClass(AsyncCallback.class);
+		verify(mockSynapseClient).getEntitySuggestions(anyString(), anyInt(), captor.capture());
+		ArrayList<String> result = new ArrayList<String>();
+		result.add("header json");
+		captor.getValue().onSuccess(result);
+		
+		ArgumentCaptor<List> suggestions = ArgumentCaptor.forClass(List.class);
+		verify(mockHandler).onSuggestions(suggestions.capture());
+		assertEquals(1, suggestions.getValue().size());
+		assertTrue(suggestions.getValue().contains(header));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testStaleSuggestionsIgnored() {
+		loader.onTextChanged("can", mockHandler);
+		getScheduled(1).get(0).invoke();
+		ArgumentCaptor<AsyncCallback> captor = ArgumentCaptor.forClass(AsyncCallback.class);
+		verify(mockSynapseClient).getEntitySuggestions(anyString(), anyInt(), captor.capture());
+		//the search was submitted before the suggestions arrived
+		loader.cancel();
+		captor.getValue().onSuccess(new ArrayList<String>());
+		verify(mockHandler, never()).onSuggestions(any(List.class));
+	}
+}
@@ -1,19 +1,61 @@
 package org.sagebionetworks.web.unitclient.widget.table;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.repo.model.file.FileHandle;
+import org.sagebionetworks.repo.model.file.FileHandleResults;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowReferenceSet;
+import org.sagebionetworks.repo.model.table.RowSelection;
+import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.repo.model.table.TableEntity;
+import org.sagebionetworks.repo.model.table.TableFileHandleResults;
 import org.sagebionetworks.schema.adapter.AdapterFactory;
 import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.web.client.DisplayConstants;
+import org.sagebionetworks.web.client.GWTWrapper;
 import org.sagebionetworks.web.client.GlobalApplicationState;
 import org.sagebionetworks.web.client.PlaceChanger;
 import org.sagebionetworks.web.client.SynapseClientAsync;
+import org.sagebionetworks.web.client.cache.TableDataCache;
+import org.sagebionetworks.web.client.cache.TableDataCacheImpl;
 import org.sagebionetworks.web.client.security.AuthenticationController;
+import org.sagebionetworks.web.client.utils.Callback;
 import org.sagebionetworks.web.client.widget.table.SimpleTableWidget;
 import org.sagebionetworks.web.client.widget.table.SimpleTableWidgetView;
+import org.sagebionetworks.web.client.widget.table.TableModel;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
+import org.sagebionetworks.web.shared.table.QueryDetails;
+import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
+import org.sagebionetworks.web.shared.table.TableImportStatus.State;
+import org.sagebionetworks.web.test.helper.AsyncMockStubber;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
 
 
 public class SynapseTableWidgetTest {
@@ -24,6 +66,8 @@ public class SynapseTableWidgetTest {
 	PlaceChanger mockPlaceChanger;
 	AuthenticationController mockAuthenticationController;
 	GlobalApplicationState mockGlobalApplicationState;
+	GWTWrapper mockGWTWrapper;
+	TableDataCache tableDataCache;
 	
 	SimpleTableWidget tableWidget;
 	TableEntity table;
@@ -35,10 +79,12 @@ public class SynapseTableWidgetTest {
 		mockGlobalApplicationState = mock(GlobalApplicationState.class);
 		mockPlaceChanger = mock(PlaceChanger.class);
 		mockAuthenticationController = mock(AuthenticationController.class);
+		mockGWTWrapper = mock(GWTWrapper.class);
 				
 		when(mockGlobalApplicationState.getPlaceChanger()).thenReturn(mockPlaceChanger);
 		
-		tableWidget = new SimpleTableWidget(mockView, mockSynapseClient, adapterFactory, mockAuthenticationController, mockGlobalApplicationState);
+		tableDataCache = new TableDataCacheImpl(mockAuthenticationController);
+		tableWidget = new SimpleTableWidget(mockView, mockSynapseClient, adapterFactory, mockAuthenticationController, mockGlobalApplicationState, mockGWTWrapper, tableDataCache);
 		
 		table = new TableEntity();
 	}
@@ -48,4 +94,263 @@ public class SynapseTableWidgetTest {
 		tableWidget.configure(table, false);		
 	}
 
+	private void configureTable() throws Exception {
+		configureTable(ColumnType.STRING);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void configureTable(ColumnType columnType) throws Exception {
+		table.setId("syn123");
+		table.setEtag("tableEtag");
+		ColumnModel col = new ColumnModel();
+		col.setId("1");
+		col.setName("col");
+		col.setColumnType(columnType);
+		AsyncMockStubber.callSuccessWith(Arrays.asList(col.writeToJSONObject(adapterFactory.createNew()).toJSONString())).when(mockSynapseClient).getColumnModelsForTableEntity(anyString(), anyString(), any(AsyncCallback.class));
+		RowSet rowset = new RowSet();
+		rowset.setEtag("etag");
+		rowset.setHeaders(Arrays.asList("1"));
+		rowset.setRows(new ArrayList<Row>());
+		QueryResult queryResult = new QueryResult(rowset.writeToJSONObject(adapterFactory.createNew()).toJSONString(), "select * from syn123", new QueryDetails(0L, 50L, null, null), 0);
+		AsyncMockStubber.callSuccessWith(queryResult).when(mockSynapseClient).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+		tableWidget.configure(table, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSaveChanges() throws Exception {
+		configureTable();
+		TableModel added = new TableModel();
+		added.put("1", "new");
+		TableModel edited = new TableModel("5", "1");
+		edited.put("1", "edited");
+		AsyncCallback<RowReferenceSet> rowCallback = mock(AsyncCallback.class);
+		tableWidget.updateRow(added, rowCallback);
+		tableWidget.updateRow(edited, rowCallback);
+		// nothing is sent until saved
+		verify(rowCallback, times(2)).onSuccess(null);
+		verify(mockSynapseClient, never()).sendRowsToTable(anyString(), any(AsyncCallback.class));
+		verify(mockView).setPendingChangeCount(2);
+		tableWidget.deleteRows(Arrays.asList(new TableModel("7", "1")));
+		verify(mockView).setPendingChangeCount(3);
+		verify(mockView).refreshCurrentPage();
+
+		TableChangeResult result = new TableChangeResult(2);
+		result.setEtag("etag2");
+		result.setSaved(0, 10L, 1L);
+		result.setSaved(1, 5L, 2L);
+		result.setDeletedCount(1);
+		AsyncMockStubber.callSuccessWith(result).when(mockSynapseClient).applyTableChanges(anyString(), anyString(), any(AsyncCallback.class));
+		tableWidget.saveChanges();
+
+		ArgumentCaptor<String> rowSetJson = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> toDeleteJson = ArgumentCaptor.forClass(String.class);
+		verify(mockSynapseClient).applyTableChanges(rowSetJson.capture(), toDeleteJson.capture(), any(AsyncCallback.class));
+		RowSet sent = new RowSet(adapterFactory.createNew(rowSetJson.getValue()));
+		assertEquals("etag", sent.getEtag());
+		assertEquals(2, sent.getRows().size());
+		assertNull(sent.getRows().get(0).getRowId());
+		assertEquals(new Long(5), sent.getRows().get(1).getRowId());
+		RowSelection toDelete = new RowSelection(adapterFactory.createNew(toDeleteJson.getValue()));
+		assertEquals(Arrays.asList(7L), toDelete.getRowIds());
+		// the added row has its id
+		assertEquals("10", added.getId());
+		assertEquals("2", edited.getVersionNumber());
+		// once when configured, once when saved
+		verify(mockView, times(2)).setPendingChangeCount(0);
+		// and the query is run again
+		verify(mockSynapseClient, times(2)).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSaveChangesConflict() throws Exception {
+		configureTable();
+		TableModel edited1 = new TableModel("5", "1");
+		TableModel edited2 = new TableModel("6", "1");
+		AsyncCallback<RowReferenceSet> rowCallback = mock(AsyncCallback.class);
+		tableWidget.updateRow(edited1, rowCallback);
+		tableWidget.updateRow(edited2, rowCallback);
+
+		TableChangeResult result = new TableChangeResult(2);
+		result.setSaved(0, 5L, 2L);
+		result.setRowError(1, "conflict");
+		AsyncMockStubber.callSuccessWith(result).when(mockSynapseClient).applyTableChanges(anyString(), anyString(), any(AsyncCallback.class));
+		tableWidget.saveChanges();
+		verify(mockView).showErrorMessage(contains("conflict"));
+		// the conflicting row is still pending (the first call is from the first edit)
+		verify(mockView, times(2)).setPendingChangeCount(1);
+		verify(mockSynapseClient, times(1)).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testImportCsv() throws Exception {
+		configureTable();
+		table.setParentId("syn1");
+		AsyncMockStubber.callSuccessWith("syn99").when(mockSynapseClient).setFileEntityFileHandle(anyString(), anyString(), anyString(), anyBoolean(), any(AsyncCallback.class));
+		AsyncMockStubber.callSuccessWith("job1").when(mockSynapseClient).startTableImport(anyString(), anyString(), any(AsyncCallback.class));
+		AsyncMockStubber.callSuccessWith(new TableImportStatus("job1", State.PROCESSING, 1000, 50, 100L, null)).when(mockSynapseClient).getTableImportStatus(anyString(), any(AsyncCallback.class));
+		tableWidget.importCsv("fileHandle1");
+		verify(mockSynapseClient).setFileEntityFileHandle(eq("fileHandle1"), anyString(), eq("syn1"), eq(false), any(AsyncCallback.class));
+		verify(mockSynapseClient).startTableImport(eq("syn123"), eq("syn99"), any(AsyncCallback.class));
+		verify(mockView).setImportProgress(contains("(50%)"));
+		// poll again
+		ArgumentCaptor<Callback> poll = ArgumentCaptor.forClass(Callback.class);
+		verify(mockGWTWrapper).scheduleExecution(poll.capture(), anyInt());
+		AsyncMockStubber.callSuccessWith(new TableImportStatus("job1", State.COMPLETED, 2000, 100, 100L, null)).when(mockSynapseClient).getTableImportStatus(anyString(), any(AsyncCallback.class));
+		poll.getValue().invoke();
+		verify(mockView).setImportProgress(null);
+		verify(mockView).showInfo(anyString(), contains("2000"));
+		// shows the imported rows
+		verify(mockSynapseClient, times(2)).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testImportCsvFailure() throws Exception {
+		configureTable();
+		AsyncMockStubber.callSuccessWith("syn99").when(mockSynapseClient).setFileEntityFileHandle(anyString(), anyString(), anyString(), anyBoolean(), any(AsyncCallback.class));
+		AsyncMockStubber.callSuccessWith("job1").when(mockSynapseClient).startTableImport(anyString(), anyString(), any(AsyncCallback.class));
+		AsyncMockStubber.callSuccessWith(new TableImportStatus("job1", State.FAILED, 0, 10, 100L, "bad header")).when(mockSynapseClient).getTableImportStatus(anyString(), any(AsyncCallback.class));
+		tableWidget.importCsv("fileHandle1");
+		verify(mockView).setImportProgress(null);
+		verify(mockView).showErrorMessage(contains("bad header"));
+		verify(mockGWTWrapper, never()).scheduleExecution(any(Callback.class), anyInt());
+		// nothing was imported, the query is not run again
+		verify(mockSynapseClient, times(1)).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testQueryRange() throws Exception {
+		RowSet rowset = new RowSet();
+		rowset.setEtag("etag");
+		rowset.setHeaders(Arrays.asList("1", "2"));
+		Row row = new Row();
+		row.setRowId(7L);
+		row.setVersionNumber(1L);
+		row.setValues(Arrays.asList("a", "b"));
+		rowset.setRows(Arrays.asList(row));
+		QueryResult queryResult = new QueryResult();
+		queryResult.setCompactRowSet(CompactRowSet.create(rowset));
+		AsyncMockStubber.callSuccessWith(queryResult).when(mockSynapseClient).executeCompactTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+		AsyncCallback<List<TableModel>> mockCallback = mock(AsyncCallback.class);
+		QueryDetails range = new QueryDetails(100L, 100L, null, null);
+		tableWidget.queryRange(range, mockCallback);
+		// no total row count for a range
+		verify(mockSynapseClient).executeCompactTableQuery(anyString(), eq(range), eq(false), any(AsyncCallback.class));
+		ArgumentCaptor<List> rows = ArgumentCaptor.forClass(List.class);
+		verify(mockCallback).onSuccess(rows.capture());
+		assertEquals(1, rows.getValue().size());
+		TableModel model = (TableModel) rows.getValue().get(0);
+		assertEquals("7", model.getId());
+		assertEquals("b", model.get("2"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testQueryRangeFailure() throws Exception {
+		Exception ex = new Exception("failed");
+		AsyncCallback<List<TableModel>> mockCallback = mock(AsyncCallback.class);
+		AsyncMockStubber.callFailureWith(ex).when(mockSynapseClient).executeCompactTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+		tableWidget.queryRange(new QueryDetails(0L, 100L, null, null), mockCallback);
+		verify(mockCallback).onFailure(ex);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testColumnsCached() throws Exception {
+		configureTable();
+		tableWidget.configure(table, true);
+		verify(mockSynapseClient, times(1)).getColumnModelsForTableEntity(eq("syn123"), eq("tableEtag"), any(AsyncCallback.class));
+		verify(mockSynapseClient, times(2)).executeTableQuery(anyString(), any(QueryDetails.class), anyBoolean(), any(AsyncCallback.class));
+		// a changed table has a new etag
+		table.setEtag("tableEtag2");
+		tableWidget.configure(table, true);
+		verify(mockSynapseClient).getColumnModelsForTableEntity(eq("syn123"), eq("tableEtag2"), any(AsyncCallback.class));
+	}
+
+	private TableModel createFileRow(String rowId, String fileHandleId) {
+		TableModel row = new TableModel(rowId, "1");
+		row.put("1", fileHandleId);
+		return row;
+	}
+
+	private FileHandle createFileHandle(String id) {
+		S3FileHandle fileHandle = new S3FileHandle();
+		fileHandle.setId(id);
+		fileHandle.setFileName("file" + id + ".png");
+		return fileHandle;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testResolveFileHandles() throws Exception {
+		configureTable(ColumnType.FILEHANDLEID);
+		TableFileHandleResults results = new TableFileHandleResults();
+		List<FileHandleResults> resultRows = new ArrayList<FileHandleResults>();
+		for (String id : new String[] {"10", "11"}) {
+			FileHandleResults resultRow = new FileHandleResults();
+			resultRow.setList(Arrays.asList(createFileHandle(id)));
+			resultRows.add(resultRow);
+		}
+		results.setRows(resultRows);
+		AsyncMockStubber.callSuccessWith(results.writeToJSONObject(adapterFactory.createNew()).toJSONString()).when(mockSynapseClient).getTableFileHandle(anyString(), any(AsyncCallback.class));
+		List<TableModel> rows = Arrays.asList(createFileRow("1", "10"), createFileRow("2", "11"), createFileRow("3", null), new TableModel());
+		Callback mockResolved = mock(Callback.class);
+		tableWidget.resolveFileHandles(rows, mockResolved);
+		// one request for the page
+		ArgumentCaptor<String> request = ArgumentCaptor.forClass(String.class);
+		verify(mockSynapseClient).getTableFileHandle(request.capture(), any(AsyncCallback.class));
+		RowReferenceSet sent = new RowReferenceSet(adapterFactory.createNew(request.getValue()));
+		assertEquals(Arrays.asList("1"), sent.getHeaders());
+		assertEquals(2, sent.getRows().size());
+		assertEquals("etag", sent.getEtag());
+		verify(mockResolved).invoke();
+		assertEquals("file11.png", tableDataCache.getFileHandle("11").getFileName());
+		// cached, not requested again
+		tableWidget.resolveFileHandles(rows, mockResolved);
+		verify(mockSynapseClient, times(1)).getTableFileHandle(anyString(), any(AsyncCallback.class));
+		verify(mockResolved, times(1)).invoke();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testResolveFileHandlesMissing() throws Exception {
+		configureTable(ColumnType.FILEHANDLEID);
+		TableFileHandleResults results = new TableFileHandleResults();
+		FileHandleResults resultRow = new FileHandleResults();
+		resultRow.setList(Arrays.asList(createFileHandle("10")));
+		results.setRows(Arrays.asList(resultRow));
+		AsyncMockStubber.callSuccessWith(results.writeToJSONObject(adapterFactory.createNew()).toJSONString()).when(mockSynapseClient).getTableFileHandle(anyString(), any(AsyncCallback.class));
+		List<TableModel> rows = Arrays.asList(createFileRow("1", "10"), createFileRow("2", "11"));
+		tableWidget.resolveFileHandles(rows, mock(Callback.class));
+		assertNull(tableDataCache.getFileHandle("11"));
+		// the file handle that was not returned is not requested again
+		tableWidget.resolveFileHandles(rows, mock(Callback.class));
+		verify(mockSynapseClient, times(1)).getTableFileHandle(anyString(), any(AsyncCallback.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testResolveFileHandlesUnreadable() throws Exception {
+		configureTable(ColumnType.FILEHANDLEID);
+		AsyncMockStubber.callSuccessWith("not json").when(mockSynapseClient).getTableFileHandle(anyString(), any(AsyncCallback.class));
+		Callback mockResolved = mock(Callback.class);
+		tableWidget.resolveFileHandles(Arrays.asList(createFileRow("1", "10")), mockResolved);
+		verify(mockView).showErrorMessage(DisplayConstants.ERROR_INCOMPATIBLE_CLIENT_VERSION);
+		verify(mockResolved, never()).invoke();
+		// not pending any more, so it can be requested again
+		assertFalse(tableDataCache.isFileHandleKnown("10"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testResolveFileHandlesNoFileColumns() throws Exception {
+		configureTable();
+		tableWidget.resolveFileHandles(Arrays.asList(createFileRow("1", "10")), mock(Callback.class));
+		verify(mockSynapseClient, never()).getTableFileHandle(anyString(), any(AsyncCallback.class));
+	}
+
 }
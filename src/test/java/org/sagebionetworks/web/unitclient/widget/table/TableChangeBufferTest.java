@@ -0,0 +1,92 @@
+package org.sagebionetworks.web.unitclient.widget.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.web.client.widget.table.TableChangeBuffer;
+import org.sagebionetworks.web.client.widget.table.TableModel;
+
+public class TableChangeBufferTest {
+
+	TableChangeBuffer buffer;
+	List<TableModel> page;
+
+	@Before
+	public void before() {
+		buffer = new TableChangeBuffer();
+		page = new ArrayList<TableModel>();
+		for (int i = 0; i < 3; i++) {
+			TableModel row = new TableModel(String.valueOf(i), "1");
+			row.put("1", "value" + i);
+			page.add(row);
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		assertTrue(buffer.isEmpty());
+		TableModel edited = new TableModel("1", "1");
+		edited.put("1", "edited");
+		buffer.update(edited);
+		// editing the same row again does not add a change
+		buffer.update(edited);
+		assertEquals(1, buffer.size());
+		assertEquals(Arrays.asList(edited), buffer.getChangedRows());
+	}
+
+	@Test
+	public void testDelete() {
+		TableModel added = new TableModel();
+		buffer.update(added);
+		buffer.update(page.get(0));
+		buffer.delete(Arrays.asList(added, page.get(0), page.get(1)));
+		// the added row is just dropped, and the edit is replaced by the delete
+		assertTrue(buffer.getChangedRows().isEmpty());
+		assertEquals(2, buffer.getDeletedRowIds().size());
+		assertTrue(buffer.getDeletedRowIds().contains("0"));
+	}
+
+	@Test
+	public void testApplyTo() {
+		TableModel added = new TableModel();
+		buffer.update(added);
+		TableModel edited = new TableModel("2", "1");
+		edited.put("1", "edited");
+		buffer.update(edited);
+		buffer.delete(Arrays.asList(page.get(0)));
+
+		List<TableModel> shown = buffer.applyTo(page, true);
+		assertEquals(3, shown.size());
+		assertSame(added, shown.get(0));
+		assertSame(page.get(1), shown.get(1));
+		assertSame(edited, shown.get(2));
+
+		// added rows are only shown on the first page
+		shown = buffer.applyTo(page, false);
+		assertEquals(2, shown.size());
+		assertSame(edited, shown.get(1));
+	}
+
+	@Test
+	public void testSaved() {
+		TableModel added = new TableModel();
+		buffer.update(added);
+		buffer.update(page.get(1));
+		buffer.delete(Arrays.asList(page.get(0)));
+		buffer.rowSaved(added);
+		added.setId("10");
+		buffer.deletesSaved();
+		assertEquals(Arrays.asList(page.get(1)), buffer.getChangedRows());
+		assertEquals(1, buffer.size());
+		buffer.clear();
+		assertTrue(buffer.isEmpty());
+		assertSame(page, buffer.applyTo(page, true));
+	}
+}
@@ -0,0 +1,102 @@
+package org.sagebionetworks.web.unitclient.widget.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.web.client.widget.table.TableModel;
+import org.sagebionetworks.web.client.widget.table.TableRowBuffer;
+
+public class TableRowBufferTest {
+
+	private static final int PAGE_SIZE = 10;
+	private static final int MAX_PAGES = 3;
+
+	TableRowBuffer buffer;
+
+	@Before
+	public void before() {
+		buffer = new TableRowBuffer(PAGE_SIZE, MAX_PAGES);
+		buffer.reset(95);
+	}
+
+	private List<TableModel> createPage(int page) {
+		List<TableModel> rows = new ArrayList<TableModel>();
+		for (int i = page * PAGE_SIZE; i < Math.min(buffer.getTotalRowCount(), (page + 1) * PAGE_SIZE); i++) {
+			rows.add(new TableModel(String.valueOf(i), "1"));
+		}
+		return rows;
+	}
+
+	@Test
+	public void testRequestPages() {
+		assertEquals(Arrays.asList(0, 1), buffer.requestPages(-5, 15));
+		// already requested
+		assertTrue(buffer.requestPages(0, 20).isEmpty());
+		// clamped to the row count
+		assertEquals(Arrays.asList(8, 9), buffer.requestPages(85, 200));
+		assertTrue(buffer.requestPages(95, 200).isEmpty());
+	}
+
+	@Test
+	public void testSetPage() {
+		int generation = buffer.getGeneration();
+		buffer.requestPages(0, 20);
+		assertNull(buffer.getRow(5));
+		assertTrue(buffer.setPage(generation, 0, createPage(0), 0));
+		assertEquals("5", buffer.getRow(5).getId());
+		assertNull(buffer.getRow(15));
+		// page 1 is still requested, page 0 is loaded
+		assertTrue(buffer.requestPages(0, 20).isEmpty());
+
+		// the last page is short
+		buffer.setPage(generation, 9, createPage(9), 90);
+		assertEquals("94", buffer.getRow(94).getId());
+		assertNull(buffer.getRow(95));
+	}
+
+	@Test
+	public void testStaleGeneration() {
+		int generation = buffer.getGeneration();
+		buffer.requestPages(0, 10);
+		buffer.reset(95);
+		assertFalse(buffer.setPage(generation, 0, createPage(0), 0));
+		assertNull(buffer.getRow(0));
+		// requested pages are forgotten on reset
+		assertEquals(Arrays.asList(0), buffer.requestPages(0, 10));
+	}
+
+	@Test
+	public void testPageFailed() {
+		int generation = buffer.getGeneration();
+		buffer.requestPages(0, 10);
+		buffer.pageFailed(generation, 0);
+		assertEquals(Arrays.asList(0), buffer.requestPages(0, 10));
+	}
+
+	@Test
+	public void testEviction() {
+		int generation = buffer.getGeneration();
+		// scroll down through all pages
+		for (int page = 0; page < 10; page++) {
+			buffer.requestPages(page * PAGE_SIZE, (page + 1) * PAGE_SIZE);
+			buffer.setPage(generation, page, createPage(page), page * PAGE_SIZE);
+			assertTrue(buffer.getBufferedRowCount() <= MAX_PAGES * PAGE_SIZE);
+		}
+		// the pages farthest from the viewed rows were dropped
+		assertNull(buffer.getRow(0));
+		assertNull(buffer.getRow(65));
+		assertNotNull(buffer.getRow(75));
+		assertNotNull(buffer.getRow(94));
+		// and can be loaded again
+		assertEquals(Arrays.asList(0), buffer.requestPages(0, 10));
+	}
+}
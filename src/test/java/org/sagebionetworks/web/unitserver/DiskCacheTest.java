@@ -0,0 +1,161 @@
+package org.sagebionetworks.web.unitserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.web.server.DiskCache;
+
+public class DiskCacheTest {
+
+	File directory;
+	DiskCache cache;
+	// compactions that have been scheduled, but not run
+	List<Runnable> compactions;
+	Executor compactionExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			compactions.add(command);
+		}
+	};
+
+	@Before
+	public void before() throws Exception {
+		directory = File.createTempFile("diskCache", "");
+		directory.delete();
+		compactions = new ArrayList<Runnable>();
+		cache = createCache();
+	}
+
+	private DiskCache createCache() {
+		DiskCache cache = new DiskCache(directory, 1000);
+		cache.setCompactionExecutor(compactionExecutor);
+		return cache;
+	}
+
+	@After
+	public void after() throws Exception {
+		cache.close();
+		FileUtils.deleteDirectory(directory);
+	}
+
+	private String createValue(char c, int length) {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			value.append(c);
+		}
+		return value.toString();
+	}
+
+	@Test
+	public void testNotLoaded() {
+		cache.put("a", "value");
+		assertNull(cache.get("a"));
+		assertFalse(cache.isLoaded());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		cache.load();
+		assertTrue(cache.isLoaded());
+		cache.put("a", "value \u00e9");
+		cache.put("b", "other");
+		assertEquals("value \u00e9", cache.get("a"));
+		cache.put("a", "changed");
+		assertEquals("changed", cache.get("a"));
+		assertNull(cache.get("c"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testSurvivesRestart() {
+		cache.load();
+		cache.put("a", "value");
+		cache.put("b", "other");
+		cache.put("a", "changed");
+		cache.close();
+
+		cache = createCache();
+		cache.load();
+		assertEquals("changed", cache.get("a"));
+		assertEquals("other", cache.get("b"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testIncompleteRecordDropped() throws Exception {
+		cache.load();
+		cache.put("a", "value");
+		long length = cache.getFileBytes();
+		cache.put("b", "other");
+		cache.close();
+		// a crash while writing b
+		RandomAccessFile file = new RandomAccessFile(new File(directory, DiskCache.SEGMENT_FILE_NAME), "rw");
+		file.setLength(length + 5);
+		file.close();
+
+		cache = createCache();
+		cache.load();
+		assertEquals("value", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(length, cache.getFileBytes());
+		// and writes continue after the last complete record
+		cache.put("b", "again");
+		assertEquals("again", cache.get("b"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		cache.load();
+		// 8 header bytes + 1 key byte + 300 value bytes each
+		cache.put("a", createValue('a', 300));
+		cache.put("b", createValue('b', 300));
+		cache.put("c", createValue('c', 300));
+		// a is used, so b is the least recently used
+		cache.get("a");
+		cache.put("d", createValue('d', 300));
+		assertNull(cache.get("b"));
+		assertEquals(createValue('a', 300), cache.get("a"));
+		assertEquals(createValue('d', 300), cache.get("d"));
+		assertTrue(cache.getLiveBytes() <= 1000);
+		// a value larger than the cache is not kept
+		cache.put("e", createValue('e', 1000));
+		assertNull(cache.get("e"));
+	}
+
+	@Test
+	public void testCompaction() {
+		cache.load();
+		for (int i = 0; i < 20; i++) {
+			cache.put("a", createValue('a', 100));
+		}
+		// compaction is left to the background, and scheduled once
+		assertEquals(1, compactions.size());
+		assertTrue(cache.getFileBytes() > DiskCache.COMPACT_RATIO * cache.getLiveBytes());
+		// entries written before it runs are kept
+		cache.put("b", createValue('b', 100));
+		compactions.get(0).run();
+		// the replaced values were dropped from the file
+		assertTrue(cache.getFileBytes() <= DiskCache.COMPACT_RATIO * cache.getLiveBytes());
+		assertEquals(createValue('a', 100), cache.get("a"));
+		assertEquals(createValue('b', 100), cache.get("b"));
+		cache.close();
+
+		cache = createCache();
+		cache.load();
+		assertEquals(createValue('a', 100), cache.get("a"));
+		assertEquals(createValue('b', 100), cache.get("b"));
+		assertEquals(2, cache.size());
+	}
+}
@@ -1,11 +1,14 @@
 package org.sagebionetworks.web.unitserver;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.sagebionetworks.web.server.DiskCache;
 import org.sagebionetworks.web.server.servlet.CacheProvider;
 import org.sagebionetworks.web.server.servlet.RssServiceImpl;
 
@@ -47,4 +50,22 @@ public class RssServiceImplTest {
 		Assert.assertEquals("Unexpected cached value", testCacheProvider1Value, cachedValue);
 	}
 	
+	@Test
+	public void testFromDiskCache() throws Exception {
+		File directory = File.createTempFile("diskCache", "");
+		directory.delete();
+		DiskCache diskCache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		try {
+			diskCache.load();
+			//content saved before a restart
+			diskCache.put("rss/otherProvider", "Saved content");
+			service.setDiskCache(diskCache);
+			Assert.assertEquals("Saved content", service.getCachedContent("otherProvider"));
+			Assert.assertEquals(testCacheProvider1Value, service.getCachedContent(testCacheProvider1Id));
+		} finally {
+			diskCache.close();
+			FileUtils.deleteDirectory(directory);
+		}
+	}
+	
 }
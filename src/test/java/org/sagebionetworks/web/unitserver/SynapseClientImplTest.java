@@ -5,12 +5,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.endsWith;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
@@ -29,21 +31,29 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.sagebionetworks.client.SynapseClient;
 import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.client.exceptions.SynapseForbiddenException;
 import org.sagebionetworks.client.exceptions.SynapseNotFoundException;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
 import org.sagebionetworks.evaluation.model.Evaluation;
 import org.sagebionetworks.evaluation.model.EvaluationStatus;
 import org.sagebionetworks.evaluation.model.Participant;
@@ -60,7 +70,10 @@ import org.sagebionetworks.repo.model.EntityHeader;
 import org.sagebionetworks.repo.model.EntityId;
 import org.sagebionetworks.repo.model.EntityIdList;
 import org.sagebionetworks.repo.model.EntityPath;
+import org.sagebionetworks.repo.model.EntityType;
 import org.sagebionetworks.repo.model.ExampleEntity;
+import org.sagebionetworks.repo.model.Reference;
+import org.sagebionetworks.repo.model.request.ReferenceList;
 import org.sagebionetworks.repo.model.FileEntity;
 import org.sagebionetworks.repo.model.LayerTypeNames;
 import org.sagebionetworks.repo.model.LocationData;
@@ -103,6 +116,14 @@ import org.sagebionetworks.repo.model.principal.AddEmailInfo;
 import org.sagebionetworks.repo.model.quiz.PassingRecord;
 import org.sagebionetworks.repo.model.quiz.Quiz;
 import org.sagebionetworks.repo.model.quiz.QuizResponse;
+import org.sagebionetworks.repo.model.search.SearchResults;
+import org.sagebionetworks.repo.model.search.query.SearchQuery;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowReference;
+import org.sagebionetworks.repo.model.table.RowReferenceSet;
+import org.sagebionetworks.repo.model.table.RowSelection;
+import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHeader;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiHistorySnapshot;
 import org.sagebionetworks.repo.model.v2.wiki.V2WikiPage;
@@ -118,18 +139,28 @@ import org.sagebionetworks.web.client.transform.JSONEntityFactory;
 import org.sagebionetworks.web.client.transform.JSONEntityFactoryImpl;
 import org.sagebionetworks.web.client.transform.NodeModelCreator;
 import org.sagebionetworks.web.client.transform.NodeModelCreatorImpl;
+import org.sagebionetworks.web.server.servlet.EntitySuggestionIndex;
 import org.sagebionetworks.web.server.servlet.MarkdownCacheRequest;
 import org.sagebionetworks.web.server.servlet.ServiceUrlProvider;
 import org.sagebionetworks.web.server.servlet.SynapseClientImpl;
 import org.sagebionetworks.web.server.servlet.SynapseProvider;
 import org.sagebionetworks.web.server.servlet.TokenProvider;
+import org.sagebionetworks.web.shared.ClientLogEntry;
 import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.EntityChildrenPage;
+import org.sagebionetworks.web.shared.EntityListRowBundle;
 import org.sagebionetworks.web.shared.EntityWrapper;
 import org.sagebionetworks.web.shared.MembershipInvitationBundle;
 import org.sagebionetworks.web.shared.TeamBundle;
 import org.sagebionetworks.web.shared.WikiPageKey;
+import org.sagebionetworks.web.shared.exceptions.BadRequestException;
 import org.sagebionetworks.web.shared.exceptions.NotFoundException;
 import org.sagebionetworks.web.shared.exceptions.RestServiceException;
+import org.sagebionetworks.web.shared.exceptions.UnknownErrorException;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
+import org.sagebionetworks.web.shared.table.QueryResult;
+import org.sagebionetworks.web.shared.table.TableChangeResult;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
 import org.sagebionetworks.web.shared.users.AclUtils;
 import org.sagebionetworks.web.shared.users.PermissionLevel;
 
@@ -426,6 +457,34 @@ public class SynapseClientImplTest {
 		assertNull(bundle.getUnmetAccessRequirementsJson());
 	}
 	
+	@Test
+	public void testGetEntityBundlePassThrough() throws Exception {
+		int mask = ENTITY | ANNOTATIONS | PERMISSIONS | ENTITY_PATH | HAS_CHILDREN
+		| ACCESS_REQUIREMENTS | UNMET_ACCESS_REQUIREMENTS;
+		EntityBundle bundle = new EntityBundle();
+		bundle.setEntity(entity);
+		bundle.setAnnotations(annos);
+		bundle.setPermissions(eup);
+		bundle.setPath(path);
+		bundle.setHasChildren(false);
+		bundle.setAccessRequirements(new ArrayList<AccessRequirement>());
+		bundle.setUnmetAccessRequirements(new ArrayList<AccessRequirement>());
+		String bundleJson = bundle.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+		when(mockSynapse.getEntity("/entity/" + entityId + "/bundle?mask=" + mask)).thenReturn(new JSONObject(bundleJson));
+		synapseClient.setEntityBundlePassThrough(true);
+		
+		EntityBundleTransport transport = synapseClient.getEntityBundle(entityId, mask);
+		// the model round trip is never used
+		verify(mockSynapse, Mockito.never()).getEntityBundle(anyString(), anyInt());
+		assertEquals(entity, nodeModelCreator.createEntity(new EntityWrapper(transport.getEntityJson(), ExampleEntity.class.getName())));
+		assertNotNull(transport.getAnnotationsJson());
+		assertNotNull(transport.getEntityPathJson());
+		assertNotNull(transport.getPermissionsJson());
+		assertFalse(transport.getHasChildren());
+		assertEquals("[]", transport.getAccessRequirementsJson());
+		assertEquals("[]", transport.getUnmetAccessRequirementsJson());
+	}
+	
 	@Test (expected=IllegalArgumentException.class)
 	public void testParseEntityFromJsonNoType() throws JSONObjectAdapterException{
 		ExampleEntity example = new ExampleEntity();
@@ -526,6 +585,23 @@ public class SynapseClientImplTest {
 		assertEquals(acl, clone);
 	}
 	
+	@Test
+	public void testGetNodeAclCached() throws Exception {
+		synapseClient.getNodeAcl("syn101");
+		synapseClient.getNodeAcl("syn102");
+		// both inherit from the same benefactor
+		verify(mockSynapse, Mockito.times(1)).getACL("syn999");
+		
+		EntityWrapper in = new EntityWrapper();
+		AccessControlList benefactorAcl = new AccessControlList();
+		benefactorAcl.setId("syn999");
+		in.setEntityJson(EntityFactory.createJSONObjectForEntity(benefactorAcl).toString());
+		when(mockSynapse.updateACL(any(AccessControlList.class), eq(false))).thenReturn(benefactorAcl);
+		synapseClient.updateAcl(in);
+		synapseClient.getNodeAcl("syn101");
+		verify(mockSynapse, Mockito.times(2)).getACL("syn999");
+	}
+	
 	@Test
 	public void testCreateAcl() throws Exception {
 		EntityWrapper in = new EntityWrapper();
@@ -694,6 +770,61 @@ public class SynapseClientImplTest {
 	    verify(mockSynapse).getWikiHeaderTree(anyString(), any(ObjectType.class));
 	}
 	
+	@Test
+	public void testAnonymousReadsShared() throws Exception {
+		int mask = ENTITY | ANNOTATIONS | PERMISSIONS | ENTITY_PATH | HAS_CHILDREN
+		| ACCESS_REQUIREMENTS | UNMET_ACCESS_REQUIREMENTS;
+		EntityBundleTransport bundle = synapseClient.getEntityBundle(entityId, mask);
+		assertEquals(bundle, synapseClient.getEntityBundle(entityId, mask));
+		verify(mockSynapse, Mockito.times(1)).getEntityBundle(entityId, mask);
+		synapseClient.getEntityHeaderBatch(Arrays.asList("syn1"));
+		synapseClient.getEntityHeaderBatch(Arrays.asList("syn1"));
+		verify(mockSynapse, Mockito.times(1)).getEntityHeaderBatch(anyList());
+		assertEquals(4, synapseClient.getAnonymousReadStats().getRequestCount());
+		assertEquals(2, synapseClient.getAnonymousReadStats().getLoadCount());
+		assertEquals(0.5, synapseClient.getAnonymousReadStats().getHitRatio(), 0.001);
+		
+		//signed in callers are not served from the shared cache
+		when(mockTokenProvider.getSessionToken()).thenReturn("session");
+		synapseClient.getEntityBundle(entityId, mask);
+		verify(mockSynapse, Mockito.times(2)).getEntityBundle(entityId, mask);
+		assertEquals(4, synapseClient.getAnonymousReadStats().getRequestCount());
+	}
+	
+	@Test
+	public void testAnonymousReadSingleFlight() throws Exception {
+		final PaginatedResults<WikiHeader> headerTreeResults = new PaginatedResults<WikiHeader>();
+		when(mockSynapse.getWikiHeaderTree(anyString(), any(ObjectType.class))).thenAnswer(new Answer<PaginatedResults<WikiHeader>>() {
+			@Override
+			public PaginatedResults<WikiHeader> answer(InvocationOnMock invocation) throws Throwable {
+				//a slow repository call
+				Thread.sleep(300);
+				return headerTreeResults;
+			}
+		});
+		List<Thread> threads = new ArrayList<Thread>();
+		final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+		for (int i = 0; i < 5; i++) {
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						results.add(synapseClient.getWikiHeaderTree("syn123", ObjectType.ENTITY.toString()));
+					} catch (RestServiceException e) {
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(5, results.size());
+		//the concurrent misses waited for one repository call
+		verify(mockSynapse, Mockito.times(1)).getWikiHeaderTree(anyString(), any(ObjectType.class));
+	}
+	
 	@Test
 	public void testGetWikiPage() throws Exception {
 		Mockito.when(mockSynapse.getWikiPage(any(org.sagebionetworks.repo.model.dao.WikiPageKey.class))).thenReturn(page);
@@ -767,6 +898,44 @@ public class SynapseClientImplTest {
          verify(mockSynapse).getV2WikiHeaderTree(anyString(), any(ObjectType.class));
      }
      
+     @Test
+     public void testGetV2WikiHeaderTreeCached() throws Exception {
+         PaginatedResults<V2WikiHeader> headerTreeResults = new PaginatedResults<V2WikiHeader>();
+         when(mockSynapse.getV2WikiHeaderTree(anyString(), any(ObjectType.class))).thenReturn(headerTreeResults);
+         when(mockTokenProvider.getSessionToken()).thenReturn("token1");
+         synapseClient.getV2WikiHeaderTree("syn123", ObjectType.ENTITY.toString());
+         synapseClient.getV2WikiHeaderTree("syn123", ObjectType.ENTITY.toString());
+         verify(mockSynapse, Mockito.times(1)).getV2WikiHeaderTree(anyString(), any(ObjectType.class));
+         
+         //not shared with other sessions
+         when(mockTokenProvider.getSessionToken()).thenReturn("token2");
+         synapseClient.getV2WikiHeaderTree("syn123", ObjectType.ENTITY.toString());
+         verify(mockSynapse, Mockito.times(2)).getV2WikiHeaderTree(anyString(), any(ObjectType.class));
+         
+         //a wiki change invalidates the tree for every session
+         String wikiPageJson = EntityFactory.createJSONStringForEntity(v2Page);
+         Mockito.when(mockSynapse.updateV2WikiPage(anyString(), any(ObjectType.class), any(V2WikiPage.class))).thenReturn(v2Page);
+         synapseClient.updateV2WikiPage("syn123", ObjectType.ENTITY.toString(), wikiPageJson);
+         synapseClient.getV2WikiHeaderTree("syn123", ObjectType.ENTITY.toString());
+         verify(mockSynapse, Mockito.times(3)).getV2WikiHeaderTree(anyString(), any(ObjectType.class));
+     }
+     
+     @Test
+     public void testGetV2RootWikiIdCached() throws Exception {
+         FileHandleResults testResults = new FileHandleResults();
+         Mockito.when(mockSynapse.getV2RootWikiPage(anyString(), any(ObjectType.class))).thenReturn(v2Page);
+         Mockito.when(mockSynapse.getV2WikiAttachmentHandles(any(org.sagebionetworks.repo.model.dao.WikiPageKey.class))).thenReturn(testResults);
+         synapseClient.getV2WikiAttachmentHandles(new WikiPageKey("syn123", ObjectType.ENTITY.toString(), null));
+         synapseClient.getV2WikiAttachmentHandles(new WikiPageKey("syn123", ObjectType.ENTITY.toString(), null));
+         verify(mockSynapse, Mockito.times(1)).getV2RootWikiPage("syn123", ObjectType.ENTITY);
+         verify(mockSynapse, Mockito.times(2)).getV2WikiAttachmentHandles(any(org.sagebionetworks.repo.model.dao.WikiPageKey.class));
+         
+         //deleting a page of the wiki invalidates the root id
+         synapseClient.deleteV2WikiPage(new WikiPageKey("syn123", ObjectType.ENTITY.toString(), "v2TestId"));
+         synapseClient.getV2WikiAttachmentHandles(new WikiPageKey("syn123", ObjectType.ENTITY.toString(), null));
+         verify(mockSynapse, Mockito.times(2)).getV2RootWikiPage("syn123", ObjectType.ENTITY);
+     }
+     
      @Test
      public void testGetV2WikiHistory() throws Exception {
          PaginatedResults<V2WikiHistorySnapshot> historyResults = new PaginatedResults<V2WikiHistorySnapshot>();
@@ -965,6 +1134,22 @@ public class SynapseClientImplTest {
 		verify(mockSynapse).getCompleteUploadDaemonStatus(anyString());
 	}
 	
+	@Test
+	public void testGetUploadDaemonStatusFollowed() throws JSONObjectAdapterException, SynapseException, RestServiceException {
+		when(mockTokenProvider.getSessionToken()).thenReturn("session");
+		UploadDaemonStatus started = new UploadDaemonStatus();
+		started.setDaemonId("daemonId");
+		started.setState(State.PROCESSING);
+		started.setPercentComplete(10d);
+		when(mockSynapse.startUploadDeamon(any(CompleteAllChunksRequest.class))).thenReturn(started);
+		synapseClient.combineChunkedFileUpload(getTestChunkRequestJson());
+		// answered from the monitor until its next poll
+		String statusJson = synapseClient.getUploadDaemonStatus("daemonId");
+		UploadDaemonStatus status = EntityFactory.createEntityFromJSONString(statusJson, UploadDaemonStatus.class);
+		assertEquals(State.PROCESSING, status.getState());
+		verify(mockSynapse, Mockito.never()).getCompleteUploadDaemonStatus(anyString());
+	}
+	
 	/**
 	 * Direct upload tests.  Most of the methods are simple pass-throughs to the Java Synapse client, but completeUpload has
 	 * additional logic
@@ -1378,6 +1563,437 @@ public class SynapseClientImplTest {
 		assertEquals(testMemberCount, bundle.getTotalMemberCount());
 	}
 	
+	@Test
+	public void testGetTeamBundleNotLoggedIn() throws SynapseException, RestServiceException, JSONObjectAdapterException {
+		PaginatedResults<TeamMember> allMembers = new PaginatedResults<TeamMember>();
+		allMembers.setTotalNumberOfResults(3L);
+		when(mockSynapse.getTeamMembers(anyString(), anyString(), anyLong(), anyLong())).thenReturn(allMembers);
+		Team team = new Team();
+		team.setId("myTeamId");
+		when(mockSynapse.getTeam(anyString())).thenReturn(team);
+		
+		TeamBundle bundle = synapseClient.getTeamBundle(null, "myTeamId", false);
+		
+		assertNull(bundle.getTeamMembershipStatusJson());
+		assertFalse(bundle.isUserAdmin());
+		assertEquals(new Long(3), bundle.getTotalMemberCount());
+		verify(mockSynapse, Mockito.never()).getTeamMembershipStatus(anyString(), anyString());
+		verify(mockSynapse, Mockito.never()).getTeamMember(anyString(), anyString());
+	}
+	
+	@Test
+	public void testSearchCached() throws Exception {
+		SearchResults results = new SearchResults();
+		results.setFound(2L);
+		when(mockSynapse.search(any(SearchQuery.class))).thenReturn(results);
+		SearchQuery query = new SearchQuery();
+		query.setQueryTerm(Arrays.asList("cancer"));
+		String queryJson = query.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+		
+		EntityWrapper wrapper = synapseClient.search(queryJson);
+		assertEquals(results.writeToJSONObject(adapterFactory.createNew()).toJSONString(), wrapper.getEntityJson());
+		//the same query with different formatting is served from the cache
+		synapseClient.search(" " + queryJson);
+		verify(mockSynapse, Mockito.times(1)).search(any(SearchQuery.class));
+		
+		//a different user searches again
+		when(mockTokenProvider.getSessionToken()).thenReturn("another session");
+		synapseClient.search(queryJson);
+		verify(mockSynapse, Mockito.times(2)).search(any(SearchQuery.class));
+	}
+	
+	@Test
+	public void testGetEntitySuggestions() throws Exception {
+		EntityHeader favorite = new EntityHeader();
+		favorite.setId("syn1");
+		favorite.setName("My Cancer Project");
+		EntityHeader otherFavorite = new EntityHeader();
+		otherFavorite.setId("syn2");
+		otherFavorite.setName("Something Else");
+		PaginatedResults<EntityHeader> favorites = new PaginatedResults<EntityHeader>();
+		favorites.setResults(Arrays.asList(favorite, otherFavorite));
+		when(mockSynapse.getFavorites(anyInt(), anyInt())).thenReturn(favorites);
+		when(mockTokenProvider.getSessionToken()).thenReturn("session");
+		
+		EntityHeader project = new EntityHeader();
+		project.setId("syn3");
+		project.setName("Cancer Challenge");
+		EntitySuggestionIndex mockIndex = Mockito.mock(EntitySuggestionIndex.class);
+		//the favorite is public too
+		when(mockIndex.suggest(anyString(), anyInt())).thenReturn(Arrays.asList(favorite, project));
+		synapseClient.setSuggestionIndex(mockIndex);
+		
+		List<String> suggestions = synapseClient.getEntitySuggestions(" CANC", 10);
+		assertEquals(2, suggestions.size());
+		assertEquals(EntityFactory.createJSONStringForEntity(favorite), suggestions.get(0));
+		assertEquals(EntityFactory.createJSONStringForEntity(project), suggestions.get(1));
+		verify(mockIndex).suggest("canc", 10);
+		
+		//favorites are cached
+		synapseClient.getEntitySuggestions("canc", 10);
+		verify(mockSynapse, Mockito.times(1)).getFavorites(anyInt(), anyInt());
+		
+		assertEquals(0, synapseClient.getEntitySuggestions("", 10).size());
+	}
+	
+	@Test
+	public void testGetEntitySuggestionsLimitClamped() throws Exception {
+		EntitySuggestionIndex mockIndex = Mockito.mock(EntitySuggestionIndex.class);
+		when(mockIndex.suggest(anyString(), anyInt())).thenReturn(new ArrayList<EntityHeader>());
+		synapseClient.setSuggestionIndex(mockIndex);
+		
+		synapseClient.getEntitySuggestions("canc", Integer.MAX_VALUE);
+		verify(mockIndex).suggest("canc", SynapseClientImpl.MAX_SUGGESTIONS);
+		
+		assertEquals(0, synapseClient.getEntitySuggestions("canc", -1).size());
+		verify(mockIndex, Mockito.times(1)).suggest(anyString(), anyInt());
+	}
+	
+	private JSONObject createChildrenQueryResult(long total, String... names) throws Exception {
+		JSONArray rows = new JSONArray();
+		for (int i = 0; i < names.length; i++) {
+			JSONObject row = new JSONObject();
+			row.put(SynapseClientImpl.QUERY_ENTITY_ID, "syn" + i);
+			row.put(SynapseClientImpl.QUERY_ENTITY_NAME, names[i]);
+			row.put(SynapseClientImpl.QUERY_ENTITY_NODE_TYPE, EntityType.values()[0].getId());
+			rows.put(row);
+		}
+		JSONObject result = new JSONObject();
+		result.put(EntitySuggestionIndex.QUERY_TOTAL_NUMBER_OF_RESULTS, total);
+		result.put(EntitySuggestionIndex.QUERY_RESULTS, rows);
+		return result;
+	}
+	
+	private String[] createChildNames(int count) {
+		String[] names = new String[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = String.format("child %04d", i);
+		}
+		return names;
+	}
+	
+	@Test
+	public void testGetChildrenHeaders() throws Exception {
+		String parentId = "syn123";
+		int pageSize = SynapseClientImpl.CHILDREN_PAGE_SIZE;
+		int total = pageSize + 1;
+		when(mockSynapse.query(endsWith("offset 1"))).thenReturn(createChildrenQueryResult(total, createChildNames(pageSize)));
+		when(mockSynapse.query(endsWith("offset " + (pageSize + 1)))).thenReturn(createChildrenQueryResult(total, "last"));
+		
+		EntityChildrenPage page = synapseClient.getChildrenHeaders(parentId, true, null);
+		assertEquals(pageSize, page.getChildrenJson().size());
+		assertEquals(total, page.getTotalNumberOfChildren());
+		assertEquals(Integer.toString(pageSize), page.getNextPageToken());
+		EntityHeader header = new EntityHeader(adapterFactory.createNew(page.getChildrenJson().get(0)));
+		assertEquals("syn0", header.getId());
+		assertEquals(EntityType.values()[0].getMetadata().getName(), header.getType());
+		//one query for the page
+		ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+		verify(mockSynapse).query(query.capture());
+		assertTrue(query.getValue().contains("parentId == \"" + parentId + "\""));
+		assertTrue(query.getValue().contains("order by name asc"));
+		assertTrue(query.getValue().endsWith("limit " + pageSize + " offset 1"));
+		//the parent is not looked up
+		verify(mockSynapse, Mockito.never()).getEntityById(anyString());
+		
+		//the next page is queried on its own
+		EntityChildrenPage lastPage = synapseClient.getChildrenHeaders(parentId, true, page.getNextPageToken());
+		assertEquals(1, lastPage.getChildrenJson().size());
+		assertNull(lastPage.getNextPageToken());
+		verify(mockSynapse, Mockito.times(2)).query(anyString());
+		
+		//and both pages are cached
+		synapseClient.getChildrenHeaders(parentId, true, null);
+		synapseClient.getChildrenHeaders(parentId, true, page.getNextPageToken());
+		verify(mockSynapse, Mockito.times(2)).query(anyString());
+	}
+	
+	@Test
+	public void testGetChildrenHeadersInvalidatedOnUpdate() throws Exception {
+		when(mockSynapse.query(anyString())).thenReturn(createChildrenQueryResult(1, "a"));
+		ExampleEntity moved = new ExampleEntity();
+		moved.setId("syn0");
+		moved.setParentId("syn456");
+		moved.setEntityType(ExampleEntity.class.getName());
+		when(mockSynapse.putEntity(any(ExampleEntity.class))).thenReturn(moved);
+		synapseClient.getChildrenHeaders("syn123", true, null);
+		synapseClient.getChildrenHeaders("syn456", true, null);
+		
+		synapseClient.updateEntity(EntityFactory.createJSONStringForEntity(moved));
+		//the new parent is listed again, the previous one expires on its own
+		synapseClient.getChildrenHeaders("syn123", true, null);
+		synapseClient.getChildrenHeaders("syn456", true, null);
+		verify(mockSynapse, Mockito.times(3)).query(anyString());
+		//the update does not look up the entity
+		verify(mockSynapse, Mockito.never()).getEntityById(anyString());
+	}
+	
+	@Test
+	public void testDeleteDoesNotLookUpTheParent() throws Exception {
+		synapseClient.deleteEntityById("syn0");
+		synapseClient.deleteEntityById("syn0", true);
+		verify(mockSynapse, Mockito.never()).getEntityById(anyString());
+	}
+	
+	@Test(expected=BadRequestException.class)
+	public void testGetChildrenHeadersInvalidToken() throws Exception {
+		synapseClient.getChildrenHeaders("syn123", true, "not a token");
+	}
+	
+	@Test(expected=BadRequestException.class)
+	public void testGetChildrenHeadersInvalidParentId() throws Exception {
+		synapseClient.getChildrenHeaders("syn123\" or parentId == \"syn1", true, null);
+	}
+	
+	private long nextRowId = 100;
+	
+	/**
+	 * Appends rows, failing with a conflict if any row has the given value
+	 */
+	private Answer<RowReferenceSet> appendRowsAnswer(final String conflictValue) {
+		return new Answer<RowReferenceSet>() {
+			@Override
+			public RowReferenceSet answer(InvocationOnMock invocation) throws Throwable {
+				RowSet rowSet = (RowSet) invocation.getArguments()[0];
+				List<RowReference> refs = new ArrayList<RowReference>();
+				for (Row row : rowSet.getRows()) {
+					if (conflictValue != null && row.getValues().contains(conflictValue))
+						throw new SynapseServerException(409, "Row has been changed");
+					RowReference ref = new RowReference();
+					ref.setRowId(row.getRowId() == null ? nextRowId++ : row.getRowId());
+					ref.setVersionNumber(2L);
+					refs.add(ref);
+				}
+				RowReferenceSet refSet = new RowReferenceSet();
+				refSet.setEtag("etag" + nextRowId);
+				refSet.setRows(refs);
+				return refSet;
+			}
+		};
+	}
+	
+	private String createRowSetJson(List<String> values) throws JSONObjectAdapterException {
+		RowSet rowSet = new RowSet();
+		rowSet.setTableId(entityId);
+		rowSet.setEtag("etag");
+		rowSet.setHeaders(Arrays.asList("1"));
+		List<Row> rows = new ArrayList<Row>();
+		for (String value : values) {
+			Row row = new Row();
+			row.setValues(Arrays.asList(value));
+			rows.add(row);
+		}
+		rowSet.setRows(rows);
+		return rowSet.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+	}
+	
+	@Test
+	public void testApplyTableChangesSplitsLargeChangesets() throws Exception {
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenAnswer(appendRowsAnswer(null));
+		List<String> values = new ArrayList<String>();
+		int rowCount = 2 * SynapseClientImpl.MAX_ROWS_PER_APPEND + 1;
+		for (int i = 0; i < rowCount; i++) {
+			values.add("value" + i);
+		}
+		RowSelection toDelete = new RowSelection();
+		toDelete.setTableId(entityId);
+		toDelete.setRowIds(Arrays.asList(1L, 2L));
+		RowReferenceSet deleted = new RowReferenceSet();
+		deleted.setEtag("deletedEtag");
+		deleted.setRows(new ArrayList<RowReference>(Arrays.asList(new RowReference(), new RowReference())));
+		when(mockSynapse.deleteRowsFromTable(any(RowSelection.class))).thenReturn(deleted);
+		
+		TableChangeResult result = synapseClient.applyTableChanges(createRowSetJson(values), toDelete.writeToJSONObject(adapterFactory.createNew()).toJSONString());
+		verify(mockSynapse).deleteRowsFromTable(any(RowSelection.class));
+		ArgumentCaptor<RowSet> chunks = ArgumentCaptor.forClass(RowSet.class);
+		verify(mockSynapse, Mockito.times(3)).appendRowsToTable(chunks.capture());
+		assertEquals(SynapseClientImpl.MAX_ROWS_PER_APPEND, chunks.getAllValues().get(0).getRows().size());
+		assertEquals(1, chunks.getAllValues().get(2).getRows().size());
+		// each chunk is sent with the etag of the previous change
+		assertEquals("deletedEtag", chunks.getAllValues().get(0).getEtag());
+		assertEquals("etag" + (100 + 2 * SynapseClientImpl.MAX_ROWS_PER_APPEND), chunks.getAllValues().get(2).getEtag());
+		assertEquals(2, result.getDeletedCount());
+		assertEquals(rowCount, result.getRowCount());
+		assertEquals(0, result.getErrorCount());
+		assertEquals(new Long(100), result.getRowId(0));
+		assertEquals(new Long(100 + rowCount - 1), result.getRowId(rowCount - 1));
+		assertEquals("etag" + nextRowId, result.getEtag());
+	}
+	
+	@Test
+	public void testApplyTableChangesConflict() throws Exception {
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenAnswer(appendRowsAnswer("changed"));
+		TableChangeResult result = synapseClient.applyTableChanges(createRowSetJson(Arrays.asList("a", "changed", "b")), null);
+		// the chunk, its halves [a] and [changed, b], then [changed] and [b]
+		verify(mockSynapse, Mockito.times(5)).appendRowsToTable(any(RowSet.class));
+		verify(mockSynapse, Mockito.never()).deleteRowsFromTable(any(RowSelection.class));
+		assertNotNull(result.getRowId(0));
+		assertNull(result.getRowId(1));
+		assertEquals("Row has been changed", result.getRowError(1));
+		assertNotNull(result.getRowId(2));
+		assertEquals(1, result.getErrorCount());
+	}
+	
+	@Test
+	public void testApplyTableChangesConflictSplitIsBounded() throws Exception {
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenAnswer(appendRowsAnswer("changed"));
+		List<String> values = new ArrayList<String>();
+		for (int i = 0; i < SynapseClientImpl.MAX_ROWS_PER_APPEND; i++) {
+			values.add("changed");
+		}
+		TableChangeResult result = synapseClient.applyTableChanges(createRowSetJson(values), null);
+		// 1 + 2 + 4 + ... chunks, not a call per row
+		int calls = (1 << (SynapseClientImpl.MAX_CONFLICT_SPLIT_DEPTH + 1)) - 1;
+		verify(mockSynapse, Mockito.times(calls)).appendRowsToTable(any(RowSet.class));
+		assertEquals(values.size(), result.getErrorCount());
+		assertEquals("Row has been changed", result.getRowError(values.size() - 1));
+	}
+	
+	@Test
+	public void testApplyTableChangesFailure() throws Exception {
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenThrow(new SynapseServerException(500, "failed"));
+		TableChangeResult result = synapseClient.applyTableChanges(createRowSetJson(Arrays.asList("a", "b")), null);
+		// only conflicts are retried row by row
+		verify(mockSynapse).appendRowsToTable(any(RowSet.class));
+		assertEquals(2, result.getErrorCount());
+		assertEquals("failed", result.getRowError(0));
+	}
+	
+	@Test
+	public void testGetColumnModelsCached() throws Exception {
+		ColumnModel column = new ColumnModel();
+		column.setId("1");
+		column.setName("col");
+		when(mockSynapse.getColumnModelsForTableEntity(anyString())).thenReturn(Arrays.asList(column));
+		List<String> columns = synapseClient.getColumnModelsForTableEntity("syn123", "etag1");
+		assertEquals(1, columns.size());
+		assertEquals(column, new ColumnModel(adapterFactory.createNew(columns.get(0))));
+		
+		//the same table version is served from the cache
+		assertEquals(columns, synapseClient.getColumnModelsForTableEntity("syn123", "etag1"));
+		verify(mockSynapse, Mockito.times(1)).getColumnModelsForTableEntity("syn123");
+		
+		//a changed table is looked up again
+		synapseClient.getColumnModelsForTableEntity("syn123", "etag2");
+		verify(mockSynapse, Mockito.times(2)).getColumnModelsForTableEntity("syn123");
+	}
+	
+	@Test
+	public void testTableImportStatus() throws Exception {
+		when(mockTokenProvider.getSessionToken()).thenReturn("session");
+		String jobId = synapseClient.startTableImport("syn123", "syn99");
+		verify(mockSynapse).getColumnModelsForTableEntity("syn123");
+		TableImportStatus status = synapseClient.getTableImportStatus(jobId);
+		assertEquals(jobId, status.getJobId());
+		
+		// another user can't follow the import
+		when(mockTokenProvider.getSessionToken()).thenReturn("another session");
+		try {
+			synapseClient.getTableImportStatus(jobId);
+			fail("expected NotFoundException");
+		} catch (NotFoundException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testExecuteCompactTableQuery() throws Exception {
+		RowSet rowSet = new RowSet();
+		rowSet.setEtag("etag");
+		rowSet.setHeaders(Arrays.asList("1"));
+		Row row = new Row();
+		row.setRowId(1L);
+		row.setValues(Arrays.asList("a"));
+		rowSet.setRows(Arrays.asList(row));
+		when(mockSynapse.queryTableEntity(anyString())).thenReturn(rowSet);
+		QueryResult result = synapseClient.executeCompactTableQuery("select * from syn123", null, false);
+		assertNull(result.getRowSetJson());
+		assertEquals(CompactRowSet.create(rowSet), result.getCompactRowSet());
+		
+		result = synapseClient.executeTableQuery("select * from syn123", null, false);
+		assertNull(result.getCompactRowSet());
+		assertEquals(rowSet, new RowSet(adapterFactory.createNew(result.getRowSetJson())));
+	}
+	
+	@Test
+	public void testTableImportLimitedPerUser() throws Exception {
+		when(mockTokenProvider.getSessionToken()).thenReturn("session");
+		final CountDownLatch release = new CountDownLatch(1);
+		when(mockSynapse.getFileEntityTemporaryUrlForCurrentVersion(anyString())).thenAnswer(new Answer<URL>() {
+			@Override
+			public URL answer(InvocationOnMock invocation) throws Throwable {
+				release.await(5, TimeUnit.SECONDS);
+				throw new SynapseNotFoundException();
+			}
+		});
+		try {
+			for (int i = 0; i < SynapseClientImpl.MAX_TABLE_IMPORTS_PER_USER; i++) {
+				synapseClient.startTableImport("syn123", "syn99");
+			}
+			try {
+				synapseClient.startTableImport("syn123", "syn99");
+				fail("expected UnknownErrorException");
+			} catch (UnknownErrorException e) {
+				// expected
+			}
+		} finally {
+			release.countDown();
+		}
+	}
+	
+	@Test (expected=NotFoundException.class)
+	public void testTableImportStatusUnknownJob() throws Exception {
+		synapseClient.getTableImportStatus("unknown");
+	}
+	
+	@Test
+	public void testGetTeamCached() throws SynapseException, RestServiceException, JSONObjectAdapterException {
+		Team team = new Team();
+		team.setId("myTeamId");
+		team.setEtag("etag1");
+		when(mockSynapse.getTeam(anyString())).thenReturn(team);
+		when(mockSynapse.updateTeam(any(Team.class))).thenReturn(team);
+		String teamJson = team.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+		
+		assertEquals(teamJson, synapseClient.getTeam("myTeamId"));
+		synapseClient.getTeam("myTeamId");
+		verify(mockSynapse, Mockito.times(1)).getTeam("myTeamId");
+		
+		//updating the team invalidates it
+		synapseClient.updateTeam(teamJson);
+		synapseClient.getTeam("myTeamId");
+		verify(mockSynapse, Mockito.times(2)).getTeam("myTeamId");
+		
+		//a team list with a new etag invalidates it
+		Team changedTeam = new Team();
+		changedTeam.setId("myTeamId");
+		changedTeam.setEtag("etag2");
+		PaginatedResults<Team> teams = new PaginatedResults<Team>();
+		teams.setResults(Collections.singletonList(changedTeam));
+		when(mockSynapse.getTeamsForUser(anyString(), anyLong(), anyLong())).thenReturn(teams);
+		synapseClient.getTeamsForUser("myUserId");
+		synapseClient.getTeam("myTeamId");
+		verify(mockSynapse, Mockito.times(3)).getTeam("myTeamId");
+	}
+	
+	@Test
+	public void testGetTeamMemberCountCached() throws SynapseException, RestServiceException {
+		PaginatedResults<TeamMember> allMembers = new PaginatedResults<TeamMember>();
+		allMembers.setTotalNumberOfResults(3L);
+		when(mockSynapse.getTeamMembers(anyString(), anyString(), anyLong(), anyLong())).thenReturn(allMembers);
+		when(mockSynapse.getTeam(anyString())).thenReturn(new Team());
+		
+		synapseClient.getTeamBundle(null, "myTeamId", false);
+		synapseClient.getTeamBundle(null, "myTeamId", false);
+		verify(mockSynapse, Mockito.times(1)).getTeamMembers(eq("myTeamId"), anyString(), anyLong(), anyLong());
+		verify(mockSynapse, Mockito.times(1)).getTeam("myTeamId");
+		
+		//removing a member invalidates the count
+		synapseClient.deleteTeamMember("myUserId", "targetUserId", "myTeamId");
+		synapseClient.getTeamBundle(null, "myTeamId", false);
+		verify(mockSynapse, Mockito.times(2)).getTeamMembers(eq("myTeamId"), anyString(), anyLong(), anyLong());
+	}
+	
 	@Test
 	public void testGetEntityHeaderBatch() throws SynapseException, RestServiceException, MalformedURLException, JSONObjectAdapterException {
 		List<String> headers = synapseClient.getEntityHeaderBatch(new ArrayList());
@@ -1388,6 +2004,67 @@ public class SynapseClientImplTest {
 		}
 	}
 	
+	@Test
+	public void testGetEntityListRows() throws Exception {
+		FileEntity file = new FileEntity();
+		file.setId("syn789");
+		file.setEntityType(FileEntity.class.getName());
+		when(mockSynapse.getEntityByIdForVersion("syn789", 2L)).thenReturn(file);
+		when(mockSynapse.getV2RootWikiPage("syn789", ObjectType.ENTITY)).thenReturn(v2Page);
+		when(mockSynapse.downloadV2WikiMarkdown(any(org.sagebionetworks.repo.model.dao.WikiPageKey.class))).thenReturn("a **described** file");
+		when(mockSynapse.getEntityById("syn404")).thenThrow(new SynapseNotFoundException());
+		
+		List<Reference> refs = new ArrayList<Reference>();
+		Reference ref = new Reference();
+		ref.setTargetId("syn789");
+		ref.setTargetVersionNumber(2L);
+		refs.add(ref);
+		ref = new Reference();
+		ref.setTargetId("syn404");
+		refs.add(ref);
+		ReferenceList list = new ReferenceList();
+		list.setReferences(refs);
+		List<EntityListRowBundle> rows = synapseClient.getEntityListRows(EntityFactory.createJSONStringForEntity(list));
+		
+		assertEquals(2, rows.size());
+		//in order, with the plain text wiki description
+		EntityListRowBundle row = rows.get(0);
+		assertNull(row.getException());
+		assertEquals(FileEntity.class.getName(), row.getEntityWrapper().getEntityClassName());
+		assertEquals(file, EntityFactory.createEntityFromJSONString(row.getEntityWrapper().getEntityJson(), FileEntity.class));
+		assertTrue(row.getDescription().contains("described"));
+		assertFalse(row.getDescription().contains("<"));
+		//a missing entity does not fail the list
+		row = rows.get(1);
+		assertNull(row.getEntityWrapper());
+		assertTrue(row.getException() instanceof NotFoundException);
+	}
+	
+	@Test
+	public void testGetEntityListRowsUnexpectedFailure() throws Exception {
+		when(mockSynapse.getEntityById(anyString())).thenThrow(new SynapseNotFoundException());
+		when(mockSynapse.getEntityById("syn3")).thenThrow(new IllegalStateException("unexpected"));
+		List<Reference> refs = new ArrayList<Reference>();
+		int rowCount = SynapseClientImpl.MAX_REPO_CALLS_PER_REQUEST * 3;
+		for (int i = 0; i < rowCount; i++) {
+			Reference ref = new Reference();
+			ref.setTargetId("syn" + i);
+			refs.add(ref);
+		}
+		ReferenceList list = new ReferenceList();
+		list.setReferences(refs);
+		List<EntityListRowBundle> rows = synapseClient.getEntityListRows(EntityFactory.createJSONStringForEntity(list));
+		
+		//the failure is reported in its own row, and every row is loaded
+		assertEquals(rowCount, rows.size());
+		assertTrue(rows.get(3).getException() instanceof UnknownErrorException);
+		for (int i = 0; i < rowCount; i++) {
+			if (i != 3)
+				assertTrue(rows.get(i).getException() instanceof NotFoundException);
+		}
+		verify(mockSynapse, Mockito.times(rowCount)).getEntityById(anyString());
+	}
+	
 	@Test
 	public void testSendMessage() throws SynapseException, RestServiceException, JSONObjectAdapterException {
 		//essentially a pass through to sendStringMessage
@@ -1543,4 +2220,35 @@ public class SynapseClientImplTest {
 		synapseClient.setNotificationEmail(emailAddress);
 		verify(mockSynapse).setNotificationEmail(eq(emailAddress));
 	}
+	
+	@Test
+	public void testLogBatch() throws Exception {
+		ExecutorService mockExecutor = Mockito.mock(ExecutorService.class);
+		synapseClient.setClientLogExecutor(mockExecutor);
+		List<ClientLogEntry> entries = new ArrayList<ClientLogEntry>();
+		for (int i = 0; i < SynapseClientImpl.MAX_CLIENT_LOG_BATCH_ENTRIES + 1; i++) {
+			entries.add(new ClientLogEntry(ClientLogEntry.Level.ERROR, "message " + i));
+		}
+		synapseClient.logBatch(entries);
+		// written on the log thread, not the request thread
+		ArgumentCaptor<Runnable> arg = ArgumentCaptor.forClass(Runnable.class);
+		verify(mockExecutor).execute(arg.capture());
+		arg.getValue().run();
+		
+		// nothing to write
+		synapseClient.logBatch(new ArrayList<ClientLogEntry>());
+		verify(mockExecutor).execute(any(Runnable.class));
+	}
+	
+	@Test
+	public void testFormatClientLogMessage() throws Exception {
+		ClientLogEntry entry = new ClientLogEntry(ClientLogEntry.Level.INFO, "message");
+		assertEquals("message", SynapseClientImpl.formatClientLogMessage(entry));
+		entry.incrementCount();
+		assertEquals("message (repeated 2 times)", SynapseClientImpl.formatClientLogMessage(entry));
+		char[] longMessage = new char[SynapseClientImpl.MAX_CLIENT_LOG_MESSAGE_LENGTH + 10];
+		Arrays.fill(longMessage, 'a');
+		entry = new ClientLogEntry(ClientLogEntry.Level.INFO, new String(longMessage));
+		assertEquals(SynapseClientImpl.MAX_CLIENT_LOG_MESSAGE_LENGTH + 3, SynapseClientImpl.formatClientLogMessage(entry).length());
+	}
 }
@@ -0,0 +1,275 @@
+package org.sagebionetworks.web.unitserver.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sagebionetworks.web.client.cookie.CookieKeys;
+import org.sagebionetworks.web.server.servlet.RequestTrace;
+import org.sagebionetworks.web.server.servlet.filter.AccessLog;
+import org.sagebionetworks.web.server.servlet.filter.RequestIdGenerator;
+import org.sagebionetworks.web.server.servlet.filter.TimingFilter;
+import org.sagebionetworks.web.test.helper.Benchmarks;
+
+public class AccessLogTest {
+
+	private static final int BENCHMARK_THREADS = 8;
+	private static final int BENCHMARK_REQUESTS = 20000;
+
+	/**
+	 * Keeps the lines instead of logging them
+	 */
+	static class CapturingAccessLog extends AccessLog {
+		List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+		CapturingAccessLog(int capacity) {
+			super(capacity);
+		}
+		@Override
+		protected void write(String line) {
+			lines.add(line);
+		}
+	}
+
+	CapturingAccessLog accessLog;
+
+	@Before
+	public void before() {
+		accessLog = new CapturingAccessLog(4);
+	}
+
+	private AccessLog.Entry createEntry(String requestId) {
+		return new AccessLog.Entry(0, requestId, "POST", "/Portal/synapse", 200, 5, 100, 200, null, null);
+	}
+
+	@Test
+	public void testFormat() throws Exception {
+		RequestTrace trace = new RequestTrace("request1", "/Portal/synapse", 0);
+		trace.setRpcMethod("getEntity");
+		trace.recordCall("getEntityById", 1, 3, RequestTrace.OUTCOME_OK);
+		assertTrue(accessLog.record(new AccessLog.Entry(1000, "request1", "POST", "/Portal/synapse", 404, 5, 100, 200, "secret-token", trace)));
+		assertEquals(1, accessLog.drain());
+		String line = accessLog.lines.get(0);
+		assertTrue(line.startsWith("{"));
+		assertTrue(line.contains("\"requestId\":\"request1\""));
+		assertTrue(line.contains("\"method\":\"POST\""));
+		assertTrue(line.contains("\"status\":404"));
+		assertTrue(line.contains("\"latencyMillis\":5"));
+		assertTrue(line.contains("\"bytesIn\":100"));
+		assertTrue(line.contains("\"bytesOut\":200"));
+		assertTrue(line.contains("\"rpc\":\"getEntity\""));
+		assertTrue(line.contains("\"repoCalls\":1"));
+		assertTrue(line.contains("\"user\":\""));
+		assertFalse(line.contains("secret-token"));
+	}
+
+	@Test
+	public void testFullRingDrops() {
+		for (int i = 0; i < 4; i++) {
+			assertTrue(accessLog.record(createEntry("request" + i)));
+		}
+		// never waits for the writer
+		assertFalse(accessLog.record(createEntry("request4")));
+		assertEquals(1, accessLog.getDroppedCount());
+		assertEquals(4, accessLog.drain());
+		// the drop is written too
+		assertEquals(5, accessLog.lines.size());
+		assertEquals("{\"dropped\":1}", accessLog.lines.get(4));
+		// room again, and the ring wraps around
+		for (int i = 5; i < 8; i++) {
+			assertTrue(accessLog.record(createEntry("request" + i)));
+		}
+		assertEquals(3, accessLog.drain());
+		assertTrue(accessLog.lines.get(7).contains("\"requestId\":\"request7\""));
+	}
+
+	@Test
+	public void testWriterThread() throws Exception {
+		accessLog.start();
+		try {
+			for (int i = 0; i < 3; i++) {
+				accessLog.record(createEntry("request" + i));
+			}
+		} finally {
+			// writes what is left
+			accessLog.shutdown();
+		}
+		assertEquals(3, accessLog.lines.size());
+	}
+
+	@Test
+	public void testRequestIdsUnique() throws Exception {
+		final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						ids.add(RequestIdGenerator.next());
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(4000, ids.size());
+	}
+
+	@Test
+	public void testTimingFilter() throws Exception {
+		CapturingAccessLog filterLog = new CapturingAccessLog(16) {
+			@Override
+			public synchronized void start() {
+				// drained by the test
+			}
+		};
+		TimingFilter filter = new TimingFilter();
+		filter.setAccessLog(filterLog);
+		filter.init(null);
+		HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+		when(mockRequest.getMethod()).thenReturn("GET");
+		when(mockRequest.getServletPath()).thenReturn("/Portal/filehandle");
+		when(mockRequest.getContentLength()).thenReturn(-1);
+		when(mockRequest.getCookies()).thenReturn(new Cookie[] { new Cookie(CookieKeys.USER_LOGIN_TOKEN, "token") });
+		HttpServletResponse mockResponse = mock(HttpServletResponse.class);
+		when(mockResponse.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+		FilterChain mockChain = mock(FilterChain.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				HttpServletResponse response = (HttpServletResponse) invocation.getArguments()[1];
+				response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+				response.getOutputStream().write(new byte[10], 0, 10);
+				return null;
+			}
+		}).when(mockChain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+
+		verify(mockResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+		assertEquals(1, filterLog.drain());
+		String line = filterLog.lines.get(0);
+		assertTrue(line.contains("\"method\":\"GET\""));
+		assertTrue(line.contains("\"status\":404"));
+		assertTrue(line.contains("\"bytesIn\":0"));
+		assertTrue(line.contains("\"bytesOut\":10"));
+		assertTrue(line.contains("\"user\":\""));
+	}
+
+	/**
+	 * Not a pass/fail test. Compares the per request cost, on concurrent
+	 * request threads, of a UUID request id against the generated one, and
+	 * the cost of handing an access log entry to the writer. See
+	 * {@link Benchmarks} to run it.
+	 */
+	@Ignore
+	@Test
+	public void testConcurrentOverheadBenchmark() throws Exception {
+		AccessLog benchmarkLog = new AccessLog(AccessLog.CAPACITY) {
+			@Override
+			protected void write(String line) {
+				// formatted, but not logged
+			}
+		};
+		benchmarkLog.start();
+		try {
+			// warm up
+			runConcurrently(new UuidRequest());
+			runConcurrently(new GeneratedIdRequest(benchmarkLog));
+			long uuidNs = runConcurrently(new UuidRequest());
+			long generatedNs = runConcurrently(new GeneratedIdRequest(benchmarkLog));
+			System.out.println("Request id and access log overhead (" + BENCHMARK_THREADS + " threads, " + BENCHMARK_REQUESTS + " requests each)");
+			System.out.println("  UUID.randomUUID():           " + uuidNs / ((long) BENCHMARK_THREADS * BENCHMARK_REQUESTS) + " ns/request");
+			System.out.println("  generated id + access log:   " + generatedNs / ((long) BENCHMARK_THREADS * BENCHMARK_REQUESTS) + " ns/request");
+			System.out.println("  access log entries dropped:  " + benchmarkLog.getDroppedCount());
+		} finally {
+			benchmarkLog.shutdown();
+		}
+	}
+
+	private static class UuidRequest implements Runnable {
+		@Override
+		public void run() {
+			UUID.randomUUID().toString();
+		}
+	}
+
+	private static class GeneratedIdRequest implements Runnable {
+		private final AccessLog accessLog;
+		GeneratedIdRequest(AccessLog accessLog) {
+			this.accessLog = accessLog;
+		}
+		@Override
+		public void run() {
+			String requestId = RequestIdGenerator.next();
+			accessLog.record(new AccessLog.Entry(0, requestId, "POST", "/Portal/synapse", 200, 5, 100, 200, "token", null));
+		}
+	}
+
+	/**
+	 * @return the summed time the threads spent running the requests
+	 */
+	private long runConcurrently(final Runnable request) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] elapsed = new long[BENCHMARK_THREADS];
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < BENCHMARK_THREADS; t++) {
+			final int index = t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					long begin = System.nanoTime();
+					for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+						request.run();
+					}
+					elapsed[index] = System.nanoTime() - begin;
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		long total = 0;
+		for (int t = 0; t < BENCHMARK_THREADS; t++) {
+			threads.get(t).join();
+			total += elapsed[t];
+		}
+		return total;
+	}
+}
@@ -0,0 +1,70 @@
+package org.sagebionetworks.web.unitserver.filter;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.web.server.servlet.filter.AdminFilter;
+
+public class AdminFilterTest {
+
+	AdminFilter filter;
+	HttpServletRequest mockRequest;
+	HttpServletResponse mockResponse;
+	FilterChain mockChain;
+
+	@Before
+	public void before() {
+		filter = new AdminFilter();
+		mockRequest = mock(HttpServletRequest.class);
+		when(mockRequest.getServletPath()).thenReturn("/Portal/admin/trace");
+		when(mockRequest.getRemoteAddr()).thenReturn("10.0.0.1");
+		mockResponse = mock(HttpServletResponse.class);
+		mockChain = mock(FilterChain.class);
+	}
+
+	@Test
+	public void testOffWithoutKey() throws Exception {
+		when(mockRequest.getHeader(AdminFilter.HEADER_ADMIN_KEY)).thenReturn("");
+		filter.setAdminKey("");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		verify(mockResponse).sendError(HttpServletResponse.SC_NOT_FOUND);
+		verify(mockChain, never()).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+	}
+
+	@Test
+	public void testKeyRequired() throws Exception {
+		filter.setAdminKey("secret");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		when(mockRequest.getHeader(AdminFilter.HEADER_ADMIN_KEY)).thenReturn("guess");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		verify(mockChain, never()).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+		when(mockRequest.getHeader(AdminFilter.HEADER_ADMIN_KEY)).thenReturn("secret");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		verify(mockChain).doFilter(mockRequest, mockResponse);
+	}
+
+	@Test
+	public void testAllowedAddresses() throws Exception {
+		filter.setAdminKey("secret");
+		filter.setAllowedAddresses("10.0.0.2, 10.0.0.3");
+		when(mockRequest.getHeader(AdminFilter.HEADER_ADMIN_KEY)).thenReturn("secret");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		verify(mockResponse).sendError(HttpServletResponse.SC_FORBIDDEN);
+
+		when(mockRequest.getRemoteAddr()).thenReturn("10.0.0.3");
+		filter.doFilter(mockRequest, mockResponse, mockChain);
+		verify(mockChain).doFilter(mockRequest, mockResponse);
+	}
+}
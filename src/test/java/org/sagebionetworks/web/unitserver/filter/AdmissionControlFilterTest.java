@@ -0,0 +1,255 @@
+package org.sagebionetworks.web.unitserver.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.web.client.cookie.CookieKeys;
+import org.sagebionetworks.web.server.servlet.ValidatedSessionTokens;
+import org.sagebionetworks.web.server.servlet.filter.AdmissionControlFilter;
+import org.sagebionetworks.web.server.servlet.filter.TokenBucket;
+import org.sagebionetworks.web.server.servlet.filter.TokenBucketStore;
+
+public class AdmissionControlFilterTest {
+
+	private static final String SEARCH_PAYLOAD = "7|0|5|http://localhost/Portal/|0123ABCD|org.sagebionetworks.web.client.SynapseClient|search|java.lang.String/2004016611|1|2|3|4|1|5|6|";
+	private static final String ENTITY_PAYLOAD = "7|0|5|http://localhost/Portal/|0123ABCD|org.sagebionetworks.web.client.SynapseClient|getEntity|java.lang.String/2004016611|1|2|3|4|1|5|6|";
+
+	AdmissionControlFilter filter;
+	ValidatedSessionTokens validatedSessionTokens;
+	HttpServletResponse mockResponse;
+	FilterChain mockChain;
+
+	@Before
+	public void before() {
+		filter = new AdmissionControlFilter();
+		validatedSessionTokens = new ValidatedSessionTokens();
+		filter.setValidatedSessionTokens(validatedSessionTokens);
+		filter.setBurst(3);
+		filter.setRequestsPerSecond(0.001);
+		filter.setExpensiveBurst(1);
+		filter.setExpensiveRequestsPerSecond(0.001);
+		mockResponse = mock(HttpServletResponse.class);
+		mockChain = mock(FilterChain.class);
+	}
+
+	private HttpServletRequest createRpcRequest(String remoteAddress, final String payload) throws IOException {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRemoteAddr()).thenReturn(remoteAddress);
+		when(request.getMethod()).thenReturn("POST");
+		when(request.getContentType()).thenReturn("text/x-gwt-rpc; charset=utf-8");
+		when(request.getCharacterEncoding()).thenReturn("UTF-8");
+		when(request.getContentLength()).thenReturn(payload.length());
+		when(request.getServletPath()).thenReturn("/Portal/synapse");
+		final ByteArrayInputStream in = new ByteArrayInputStream(payload.getBytes("UTF-8"));
+		when(request.getInputStream()).thenReturn(new ServletInputStream() {
+			@Override
+			public int read() throws IOException {
+				return in.read();
+			}
+		});
+		return request;
+	}
+
+	@Test
+	public void testGetRpcMethodName() {
+		assertEquals("search", AdmissionControlFilter.getRpcMethodName(SEARCH_PAYLOAD));
+		assertEquals("getEntity", AdmissionControlFilter.getRpcMethodName(ENTITY_PAYLOAD));
+		assertNull(AdmissionControlFilter.getRpcMethodName("not an rpc"));
+		assertNull(AdmissionControlFilter.getRpcMethodName("7|0|2|a|b"));
+		assertNull(AdmissionControlFilter.getRpcMethodName(null));
+	}
+
+	@Test
+	public void testGetClientKey() {
+		Set<String> trustedProxies = AdmissionControlFilter.parseAddresses("10.0.0.1");
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+		assertEquals("ip:10.0.0.1", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000));
+		when(request.getHeader(AdmissionControlFilter.HEADER_X_FORWARDED_FOR)).thenReturn("1.2.3.4, 5.6.7.8");
+		assertEquals("ip:5.6.7.8", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000));
+		// a token the repository has not accepted counts as anonymous
+		when(request.getCookies()).thenReturn(new Cookie[] { new Cookie(CookieKeys.USER_LOGIN_TOKEN, "token") });
+		assertEquals("ip:5.6.7.8", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000));
+		validatedSessionTokens.validated("token", 1000);
+		assertEquals("token:token", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000));
+		assertEquals("ip:5.6.7.8", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000 + ValidatedSessionTokens.VALIDITY_MS));
+		validatedSessionTokens.invalidated("token");
+		assertEquals("ip:5.6.7.8", AdmissionControlFilter.getClientKey(request, validatedSessionTokens, trustedProxies, 1000));
+	}
+
+	@Test
+	public void testForwardedForOnlyFromTrustedProxies() {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+		when(request.getHeader(AdmissionControlFilter.HEADER_X_FORWARDED_FOR)).thenReturn("5.6.7.8");
+		Set<String> none = Collections.emptySet();
+		assertEquals("10.0.0.1", AdmissionControlFilter.getClientAddress(request, none));
+		assertEquals("10.0.0.1", AdmissionControlFilter.getClientAddress(request, AdmissionControlFilter.parseAddresses("10.0.0.2")));
+		assertEquals("5.6.7.8", AdmissionControlFilter.getClientAddress(request, AdmissionControlFilter.parseAddresses(" 10.0.0.2, 10.0.0.1")));
+		assertEquals("5.6.7.8", AdmissionControlFilter.getClientAddress(request, AdmissionControlFilter.parseAddresses(AdmissionControlFilter.ANY_ADDRESS)));
+	}
+
+	@Test
+	public void testValidatedSessionTokensBounded() {
+		ValidatedSessionTokens tokens = new ValidatedSessionTokens(100);
+		for (int i = 0; i < 1000; i++) {
+			tokens.validated("token" + i, 1000);
+		}
+		assertTrue(tokens.size() <= 100);
+		tokens.validated("same", 1000);
+		assertTrue(tokens.isValidated("same", 1000));
+	}
+
+	@Test
+	public void testMadeUpTokensShareTheAddressBucket() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			HttpServletRequest request = createRpcRequest("10.0.0.1", ENTITY_PAYLOAD);
+			when(request.getCookies()).thenReturn(new Cookie[] { new Cookie(CookieKeys.USER_LOGIN_TOKEN, "random" + i) });
+			filter.doFilter(request, mockResponse, mockChain);
+		}
+		verify(mockChain, times(3)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		assertEquals(1, filter.getBucketCount());
+	}
+
+	@Test
+	public void testSignedInUsersChargedToTheirAddress() throws Exception {
+		filter.setAddressBurst(4);
+		filter.setAddressRequestsPerSecond(0.001);
+		for (int i = 0; i < 5; i++) {
+			validatedSessionTokens.validated("user" + i, System.currentTimeMillis());
+			HttpServletRequest request = createRpcRequest("10.0.0.1", ENTITY_PAYLOAD);
+			when(request.getCookies()).thenReturn(new Cookie[] { new Cookie(CookieKeys.USER_LOGIN_TOKEN, "user" + i) });
+			filter.doFilter(request, mockResponse, mockChain);
+		}
+		verify(mockChain, times(4)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		assertEquals(new Long(1), filter.getThrottledCounts().get(AdmissionControlFilter.ADDRESS_BUDGET));
+	}
+
+	@Test
+	public void testGeneralBudget() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			filter.doFilter(createRpcRequest("10.0.0.1", ENTITY_PAYLOAD), mockResponse, mockChain);
+		}
+		verify(mockChain, times(3)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		filter.doFilter(createRpcRequest("10.0.0.1", ENTITY_PAYLOAD), mockResponse, mockChain);
+		verify(mockChain, times(3)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		verify(mockResponse).sendError(AdmissionControlFilter.SC_TOO_MANY_REQUESTS, "Too many requests, please try again later");
+		verify(mockResponse).setHeader(AdmissionControlFilter.HEADER_RETRY_AFTER, "1000");
+		assertEquals(new Long(1), filter.getThrottledCounts().get(AdmissionControlFilter.GENERAL_BUDGET));
+		// another client has its own bucket
+		filter.doFilter(createRpcRequest("10.0.0.2", ENTITY_PAYLOAD), mockResponse, mockChain);
+		verify(mockChain, times(4)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		assertEquals(4, filter.getAdmittedCount());
+	}
+
+	@Test
+	public void testExpensiveBudget() throws Exception {
+		filter.doFilter(createRpcRequest("10.0.0.1", SEARCH_PAYLOAD), mockResponse, mockChain);
+		filter.doFilter(createRpcRequest("10.0.0.1", SEARCH_PAYLOAD), mockResponse, mockChain);
+		verify(mockChain, times(1)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		assertEquals(new Long(1), filter.getThrottledCounts().get(AdmissionControlFilter.SEARCH_BUDGET));
+		// other calls are still admitted
+		filter.doFilter(createRpcRequest("10.0.0.1", ENTITY_PAYLOAD), mockResponse, mockChain);
+		verify(mockChain, times(2)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+	}
+
+	@Test
+	public void testBodyReadAgain() throws Exception {
+		filter.doFilter(createRpcRequest("10.0.0.1", SEARCH_PAYLOAD), mockResponse, mockChain);
+		ArgumentCaptor<ServletRequest> captor = ArgumentCaptor.forClass(ServletRequest.class);
+		verify(mockChain).doFilter(captor.capture(), any(ServletResponse.class));
+		ServletInputStream in = captor.getValue().getInputStream();
+		byte[] body = new byte[SEARCH_PAYLOAD.length()];
+		assertEquals(body.length, in.read(body, 0, body.length));
+		assertEquals(SEARCH_PAYLOAD, new String(body, "UTF-8"));
+		verify(mockResponse, never()).sendError(anyInt(), anyString());
+	}
+
+	@Test
+	public void testLargeBodyReadAgain() throws Exception {
+		// a body longer than the prefix read to find the method name
+		StringBuilder payload = new StringBuilder(SEARCH_PAYLOAD);
+		while (payload.length() < AdmissionControlFilter.MAX_RPC_PREFIX_BYTES * 3) {
+			payload.append("0123456789|");
+		}
+		filter.doFilter(createRpcRequest("10.0.0.1", payload.toString()), mockResponse, mockChain);
+		filter.doFilter(createRpcRequest("10.0.0.1", payload.toString()), mockResponse, mockChain);
+		// still charged to the search budget
+		assertEquals(new Long(1), filter.getThrottledCounts().get(AdmissionControlFilter.SEARCH_BUDGET));
+		ArgumentCaptor<ServletRequest> captor = ArgumentCaptor.forClass(ServletRequest.class);
+		verify(mockChain).doFilter(captor.capture(), any(ServletResponse.class));
+		ServletInputStream in = captor.getValue().getInputStream();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int read;
+		while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+			body.write(buffer, 0, read);
+		}
+		assertEquals(payload.toString(), new String(body.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testMethodNameBeyondPrefix() throws Exception {
+		// the string table is too long to find the method name in the prefix
+		StringBuilder payload = new StringBuilder("7|0|2|");
+		while (payload.length() < AdmissionControlFilter.MAX_RPC_PREFIX_BYTES * 2) {
+			payload.append('a');
+		}
+		payload.append("|search|1|1|1|2|");
+		filter.doFilter(createRpcRequest("10.0.0.1", payload.toString()), mockResponse, mockChain);
+		filter.doFilter(createRpcRequest("10.0.0.1", payload.toString()), mockResponse, mockChain);
+		// only charged to the general budget
+		verify(mockChain, times(2)).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+	}
+
+	@Test
+	public void testTokenBucket() {
+		TokenBucket bucket = new TokenBucket(2, 10, 1000);
+		assertEquals(0, bucket.tryConsume(1000));
+		assertEquals(0, bucket.tryConsume(1000));
+		assertFalse(bucket.isFull(1000));
+		// 10 per second, so one token each 100 ms
+		assertEquals(100, bucket.tryConsume(1000));
+		assertEquals(50, bucket.tryConsume(1050));
+		assertEquals(0, bucket.tryConsume(1100));
+		assertTrue(bucket.isFull(1400));
+	}
+
+	@Test
+	public void testTokenBucketStoreBounded() {
+		TokenBucketStore store = new TokenBucketStore(100);
+		for (int i = 0; i < 1000; i++) {
+			store.get("key" + i, 1, 1, 1000).tryConsume(1000);
+		}
+		assertTrue(store.size() <= 100);
+		TokenBucket bucket = store.get("same", 1, 1, 1000);
+		assertEquals(bucket, store.get("same", 1, 1, 1000));
+	}
+}
@@ -0,0 +1,73 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.sagebionetworks.web.server.servlet.CsvRecordReader;
+
+public class CsvRecordReaderTest {
+
+	@Test
+	public void testSimple() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a,b,c\n1,2,3\n"));
+		assertEquals(Arrays.asList("a", "b", "c"), reader.readRecord());
+		assertEquals(Arrays.asList("1", "2", "3"), reader.readRecord());
+		assertNull(reader.readRecord());
+		assertEquals(2, reader.getRecordNumber());
+	}
+
+	@Test
+	public void testLineEndings() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a,b\r\n1,2\r3,4"));
+		assertEquals(Arrays.asList("a", "b"), reader.readRecord());
+		assertEquals(Arrays.asList("1", "2"), reader.readRecord());
+		assertEquals(Arrays.asList("3", "4"), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+
+	@Test
+	public void testEmptyFields() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader(",x,\n\n"));
+		assertEquals(Arrays.asList("", "x", ""), reader.readRecord());
+		assertEquals(Arrays.asList(""), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+
+	@Test
+	public void testQuotedFields() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\"\nnext"));
+		assertEquals(Arrays.asList("a,b", "say \"hi\"", "line1\nline2"), reader.readRecord());
+		assertEquals(Arrays.asList("next"), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+
+	@Test (expected=IOException.class)
+	public void testFieldTooLong() throws Exception {
+		// a stray quote does not read the rest of the input into one field
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"b\n1,2\n3,4\n5,6\n"), 5, 100);
+		reader.readRecord();
+	}
+
+	@Test (expected=IOException.class)
+	public void testRecordTooLong() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("abcd,efgh,ijkl\n"), 5, 10);
+		reader.readRecord();
+	}
+
+	@Test
+	public void testWithinLimits() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("abcde,fghij\n"), 5, 10);
+		assertEquals(Arrays.asList("abcde", "fghij"), reader.readRecord());
+	}
+
+	@Test (expected=IOException.class)
+	public void testUnterminatedQuote() throws Exception {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"b\n"));
+		reader.readRecord();
+	}
+}
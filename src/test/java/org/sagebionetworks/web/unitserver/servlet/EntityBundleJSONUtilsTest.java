@@ -0,0 +1,196 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.AccessRequirement;
+import org.sagebionetworks.repo.model.Annotations;
+import org.sagebionetworks.repo.model.EntityBundle;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.repo.model.EntityPath;
+import org.sagebionetworks.repo.model.ExampleEntity;
+import org.sagebionetworks.repo.model.TermsOfUseAccessRequirement;
+import org.sagebionetworks.repo.model.auth.UserEntityPermissions;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
+import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.client.transform.JSONEntityFactory;
+import org.sagebionetworks.web.client.transform.JSONEntityFactoryImpl;
+import org.sagebionetworks.web.client.transform.NodeModelCreator;
+import org.sagebionetworks.web.client.transform.NodeModelCreatorImpl;
+import org.sagebionetworks.web.server.servlet.EntityBundleJSONUtils;
+import org.sagebionetworks.web.server.servlet.SynapseClientImpl;
+import org.sagebionetworks.web.shared.EntityBundleTransport;
+import org.sagebionetworks.web.shared.PaginatedResults;
+import org.sagebionetworks.web.test.helper.Benchmarks;
+
+public class EntityBundleJSONUtilsTest {
+
+	private static final int BENCHMARK_ITERATIONS = 200;
+	private static final int BENCHMARK_ACCESS_REQUIREMENT_COUNT = 100;
+
+	private static final int MASK = EntityBundleTransport.ENTITY | EntityBundleTransport.ANNOTATIONS
+			| EntityBundleTransport.PERMISSIONS | EntityBundleTransport.ENTITY_PATH
+			| EntityBundleTransport.HAS_CHILDREN | EntityBundleTransport.ACCESS_REQUIREMENTS
+			| EntityBundleTransport.UNMET_ACCESS_REQUIREMENTS;
+
+	NodeModelCreator nodeModelCreator;
+	ExampleEntity entity;
+	Annotations annos;
+	UserEntityPermissions eup;
+	EntityPath path;
+
+	@Before
+	public void before() {
+		AdapterFactory adapterFactory = new AdapterFactoryImpl();
+		JSONEntityFactory jsonEntityFactory = new JSONEntityFactoryImpl(adapterFactory);
+		nodeModelCreator = new NodeModelCreatorImpl(jsonEntityFactory, adapterFactory.createNew());
+
+		entity = new ExampleEntity();
+		entity.setId("syn123");
+		entity.setName("bundled");
+		entity.setEntityType(ExampleEntity.class.getName());
+		annos = new Annotations();
+		annos.setId(entity.getId());
+		annos.addAnnotation("string", "a string value");
+		eup = new UserEntityPermissions();
+		eup.setCanDelete(true);
+		eup.setCanView(false);
+		path = new EntityPath();
+		path.setPath(new ArrayList<EntityHeader>());
+		EntityHeader header = new EntityHeader();
+		header.setId(entity.getId());
+		header.setName(entity.getName());
+		path.getPath().add(header);
+	}
+
+	private EntityBundle createBundle(int accessRequirementCount) {
+		List<AccessRequirement> ars = new ArrayList<AccessRequirement>();
+		for (int i = 0; i < accessRequirementCount; i++) {
+			TermsOfUseAccessRequirement ar = new TermsOfUseAccessRequirement();
+			ar.setEntityType(TermsOfUseAccessRequirement.class.getName());
+			ar.setId(new Long(i));
+			ar.setTermsOfUse("terms of use number " + i);
+			ars.add(ar);
+		}
+		EntityBundle bundle = new EntityBundle();
+		bundle.setEntity(entity);
+		bundle.setAnnotations(annos);
+		bundle.setPermissions(eup);
+		bundle.setPath(path);
+		bundle.setHasChildren(true);
+		bundle.setAccessRequirements(ars);
+		bundle.setUnmetAccessRequirements(ars);
+		return bundle;
+	}
+
+	private String toJSON(EntityBundle bundle) throws Exception {
+		return bundle.writeToJSONObject(new JSONObjectAdapterImpl()).toJSONString();
+	}
+
+	@Test
+	public void testGetEntityBundleUri() {
+		assertEquals("/entity/syn123/bundle?mask=3", EntityBundleJSONUtils.getEntityBundleUri("syn123", null, 3));
+		assertEquals("/entity/syn123/version/2/bundle?mask=3", EntityBundleJSONUtils.getEntityBundleUri("syn123", 2L, 3));
+	}
+
+	@Test
+	public void testCreateTransportRoundTrip() throws Exception {
+		EntityBundle bundle = createBundle(2);
+		EntityBundleTransport ebt = EntityBundleJSONUtils.createTransport(new JSONObject(toJSON(bundle)), MASK);
+		org.sagebionetworks.web.client.model.EntityBundle clientBundle = nodeModelCreator.createEntityBundle(ebt);
+		assertEquals(entity, clientBundle.getEntity());
+		assertEquals(annos, clientBundle.getAnnotations());
+		assertEquals(eup, clientBundle.getPermissions());
+		assertEquals(path, clientBundle.getPath());
+		assertTrue(clientBundle.getHasChildren());
+		assertEquals(bundle.getAccessRequirements(), clientBundle.getAccessRequirements());
+		assertEquals(bundle.getUnmetAccessRequirements(), clientBundle.getUnmetAccessRequirements());
+		// not requested
+		assertNull(ebt.getAclJson());
+		assertNull(ebt.getFileHandlesJson());
+		assertNull(ebt.getEntityReferencedByJson());
+	}
+
+	@Test
+	public void testCreateTransportEmptyMask() throws Exception {
+		EntityBundleTransport ebt = EntityBundleJSONUtils.createTransport(new JSONObject(toJSON(createBundle(1))), 0);
+		assertEquals(new EntityBundleTransport(), ebt);
+	}
+
+	@Test
+	public void testCreatePaginatedResultsJSON() throws Exception {
+		JSONArray headers = new JSONArray();
+		EntityHeader header = new EntityHeader();
+		header.setId("syn99");
+		header.setName("referrer");
+		headers.put(new JSONObject(EntityFactory.createJSONStringForEntity(header)));
+		String json = EntityBundleJSONUtils.createPaginatedResultsJSON(headers);
+		PaginatedResults<EntityHeader> results = nodeModelCreator.createPaginatedResults(json, EntityHeader.class);
+		assertEquals(1, results.getTotalNumberOfResults());
+		assertEquals(header, results.getResults().get(0));
+
+		json = EntityBundleJSONUtils.createPaginatedResultsJSON(null);
+		results = nodeModelCreator.createPaginatedResults(json, EntityHeader.class);
+		assertEquals(0, results.getResults().size());
+	}
+
+	/**
+	 * Not a pass/fail test. Compares the server side cost per bundle of the
+	 * model round trip (parse into repository model objects, re-serialize each
+	 * part) against forwarding the raw JSON parts. See {@link Benchmarks} to
+	 * run it.
+	 */
+	@Ignore
+	@Test
+	public void testPassThroughBenchmark() throws Exception {
+		String json = toJSON(createBundle(BENCHMARK_ACCESS_REQUIREMENT_COUNT));
+		// warm up
+		runModelRoundTrip(json);
+		runPassThrough(json);
+
+		long[] model = runModelRoundTrip(json);
+		long[] passThrough = runPassThrough(json);
+		System.out.println("Entity bundle conversion (" + BENCHMARK_ACCESS_REQUIREMENT_COUNT + " access requirements, " + BENCHMARK_ITERATIONS + " iterations)");
+		System.out.println("  model round trip: " + Benchmarks.formatResult(model[0], model[1], BENCHMARK_ITERATIONS, "bundle"));
+		System.out.println("  pass-through:     " + Benchmarks.formatResult(passThrough[0], passThrough[1], BENCHMARK_ITERATIONS, "bundle"));
+	}
+
+	private long[] runModelRoundTrip(String json) throws Exception {
+		long startBytes = Benchmarks.getAllocatedBytes();
+		long startCpu = Benchmarks.getCpuTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			EntityBundle eb = new EntityBundle();
+			eb.initializeFromJSONObject(new JSONObjectAdapterImpl(json));
+			EntityBundleTransport ebt = new EntityBundleTransport();
+			ebt.setEntityJson(EntityFactory.createJSONStringForEntity(eb.getEntity()));
+			ebt.setAnnotationsJson(EntityFactory.createJSONStringForEntity(eb.getAnnotations()));
+			ebt.setPermissionsJson(EntityFactory.createJSONStringForEntity(eb.getPermissions()));
+			ebt.setEntityPathJson(EntityFactory.createJSONStringForEntity(eb.getPath()));
+			ebt.setHashChildren(eb.getHasChildren());
+			ebt.setAccessRequirementsJson(SynapseClientImpl.createJSONStringFromArray(eb.getAccessRequirements()));
+			ebt.setUnmetAccessRequirementsJson(SynapseClientImpl.createJSONStringFromArray(eb.getUnmetAccessRequirements()));
+		}
+		return new long[] {Benchmarks.getCpuTime() - startCpu, Benchmarks.getAllocatedBytesSince(startBytes)};
+	}
+
+	private long[] runPassThrough(String json) throws Exception {
+		long startBytes = Benchmarks.getAllocatedBytes();
+		long startCpu = Benchmarks.getCpuTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			EntityBundleJSONUtils.createTransport(new JSONObject(json), MASK);
+		}
+		return new long[] {Benchmarks.getCpuTime() - startCpu, Benchmarks.getAllocatedBytesSince(startBytes)};
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.repo.model.EntityHeader;
+import org.sagebionetworks.web.server.servlet.EntitySuggestionIndex;
+
+public class EntitySuggestionIndexTest {
+	
+	EntitySuggestionIndex index;
+	SynapseClient mockSynapse;
+	
+	@Before
+	public void setup() throws Exception {
+		mockSynapse = mock(SynapseClient.class);
+		index = new EntitySuggestionIndex();
+		when(mockSynapse.query(anyString())).thenReturn(createQueryResults(
+				"syn1", "Breast Cancer Challenge",
+				"syn2", "Cancer Genomics",
+				"syn3", "Alzheimer's Disease"));
+		index.refresh(mockSynapse);
+	}
+	
+	private JSONObject createQueryResults(String... idNamePairs) throws Exception {
+		JSONArray results = new JSONArray();
+		for (int i = 0; i < idNamePairs.length; i+=2) {
+			JSONObject row = new JSONObject();
+			row.put(EntitySuggestionIndex.QUERY_PROJECT_ID, idNamePairs[i]);
+			row.put(EntitySuggestionIndex.QUERY_PROJECT_NAME, idNamePairs[i+1]);
+			results.put(row);
+		}
+		JSONObject page = new JSONObject();
+		page.put(EntitySuggestionIndex.QUERY_TOTAL_NUMBER_OF_RESULTS, results.length());
+		page.put(EntitySuggestionIndex.QUERY_RESULTS, results);
+		return page;
+	}
+	
+	private String getIds(List<EntityHeader> headers) {
+		StringBuilder ids = new StringBuilder();
+		for (EntityHeader header : headers) {
+			ids.append(header.getId()).append(" ");
+		}
+		return ids.toString().trim();
+	}
+
+	@Test
+	public void testSuggest() {
+		assertEquals(3, index.size());
+		//matches the start of any word, ignoring case
+		assertEquals("syn1 syn2", getIds(index.suggest("CAN", 10)));
+		assertEquals("syn1", getIds(index.suggest("breast c", 10)));
+		assertEquals("syn3", getIds(index.suggest("alz", 10)));
+		assertEquals("", getIds(index.suggest("ancer", 10)));
+		assertEquals("", getIds(index.suggest(" ", 10)));
+		assertEquals(1, index.suggest("can", 1).size());
+		assertEquals("Cancer Genomics", index.suggest("genom", 10).get(0).getName());
+	}
+	
+	@Test
+	public void testIncrementalRefresh() throws Exception {
+		when(mockSynapse.query(contains("modifiedOn"))).thenReturn(createQueryResults(
+				"syn2", "Renamed Project",
+				"syn4", "Cancer Imaging"));
+		index.refresh(mockSynapse);
+		assertEquals(4, index.size());
+		assertEquals("syn1 syn4", getIds(index.suggest("cancer", 10)));
+		assertEquals("syn2", getIds(index.suggest("renamed", 10)));
+	}
+	
+	@Test
+	public void testMatches() {
+		assertTrue(EntitySuggestionIndex.matches("Breast Cancer", "canc"));
+		assertTrue(EntitySuggestionIndex.matches("breast-cancer", "canc"));
+		assertFalse(EntitySuggestionIndex.matches("Breast Cancer", "anc"));
+	}
+}
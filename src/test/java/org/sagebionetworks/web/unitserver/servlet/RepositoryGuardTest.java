@@ -0,0 +1,209 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseNotFoundException;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.repo.model.Entity;
+import org.sagebionetworks.repo.model.Project;
+import org.sagebionetworks.schema.adapter.org.json.JSONObjectAdapterImpl;
+import org.sagebionetworks.web.server.servlet.CircuitBreaker;
+import org.sagebionetworks.web.server.servlet.RepositoryCallCategory;
+import org.sagebionetworks.web.server.servlet.RepositoryGuard;
+
+public class RepositoryGuardTest {
+
+	// shared with the breakers, which are created before the test sets them up
+	static long now;
+
+	SynapseClient mockSynapse;
+	SynapseClient guarded;
+	RepositoryGuard guard;
+
+	@Before
+	public void before() {
+		now = 1000;
+		guard = new RepositoryGuard() {
+			@Override
+			protected CircuitBreaker createCircuitBreaker(int windowSize, int minimumCalls, int failurePercent, long slowCallMillis, long openMillis) {
+				return new CircuitBreaker(windowSize, minimumCalls, failurePercent, slowCallMillis, openMillis) {
+					@Override
+					protected long currentTimeMillis() {
+						return now;
+					}
+				};
+			}
+		};
+		guard.setBulkheadWaitMillis(10);
+		mockSynapse = mock(SynapseClient.class);
+		guarded = guard.wrap(mockSynapse);
+	}
+
+	@Test
+	public void testForMethod() {
+		assertEquals(RepositoryCallCategory.READ, RepositoryCallCategory.forMethod("getEntityBundle"));
+		assertEquals(RepositoryCallCategory.WRITE, RepositoryCallCategory.forMethod("putEntity"));
+		assertEquals(RepositoryCallCategory.WRITE, RepositoryCallCategory.forMethod("appendRowsToTable"));
+		assertEquals(RepositoryCallCategory.SEARCH, RepositoryCallCategory.forMethod("search"));
+		assertEquals(RepositoryCallCategory.TABLE_QUERY, RepositoryCallCategory.forMethod("queryTableEntity"));
+		assertEquals(RepositoryCallCategory.TABLE_QUERY, RepositoryCallCategory.forMethod("getFileHandlesFromTable"));
+		assertEquals(RepositoryCallCategory.UPLOAD, RepositoryCallCategory.forMethod("createChunkedFileUploadToken"));
+		assertEquals(RepositoryCallCategory.UPLOAD, RepositoryCallCategory.forMethod("createExternalFileHandle"));
+		assertEquals(RepositoryCallCategory.UPLOAD, RepositoryCallCategory.forMethod("getCompleteUploadDaemonStatus"));
+		// methods that are not listed are reads, whatever their name
+		assertEquals(RepositoryCallCategory.READ, RepositoryCallCategory.forMethod("login"));
+		assertEquals(RepositoryCallCategory.READ, RepositoryCallCategory.forMethod("createSomethingNew"));
+	}
+
+	@Test
+	public void testIsFailure() {
+		assertFalse(RepositoryGuard.isFailure(new SynapseNotFoundException()));
+		assertFalse(RepositoryGuard.isFailure(new SynapseServerException(409, "conflict")));
+		assertFalse(RepositoryGuard.isFailure(new SynapseServerException(503, "Synapse is in READ_ONLY mode")));
+		assertTrue(RepositoryGuard.isFailure(new SynapseServerException(500, "failed")));
+		assertTrue(RepositoryGuard.isFailure(new IllegalStateException()));
+	}
+
+	@Test
+	public void testPassThrough() throws Exception {
+		Entity project = new Project();
+		when(mockSynapse.getEntityById("syn123")).thenReturn(project);
+		assertEquals(project, guarded.getEntityById("syn123"));
+		guarded.setSessionToken("token");
+		verify(mockSynapse).setSessionToken("token");
+		assertEquals(1, guard.getCircuitBreaker(RepositoryCallCategory.READ).getCallCount());
+		assertEquals(0, guard.getBulkhead(RepositoryCallCategory.READ).getActiveCount());
+	}
+
+	@Test
+	public void testErrorsPassedUnchanged() throws Exception {
+		SynapseNotFoundException notFound = new SynapseNotFoundException();
+		when(mockSynapse.getEntityById("syn123")).thenThrow(notFound);
+		try {
+			guarded.getEntityById("syn123");
+			fail("expected an exception");
+		} catch (SynapseNotFoundException e) {
+			assertEquals(notFound, e);
+		}
+		assertEquals(0, guard.getCircuitBreaker(RepositoryCallCategory.READ).getFailureCount());
+	}
+
+	@Test
+	public void testBreakerOpensAndRecovers() throws Exception {
+		when(mockSynapse.getEntityById("syn123")).thenThrow(new SynapseServerException(500, "failed"));
+		for (int i = 0; i < RepositoryGuard.DEFAULT_MINIMUM_CALLS; i++) {
+			try {
+				guarded.getEntityById("syn123");
+				fail("expected an exception");
+			} catch (SynapseServerException e) {
+				assertEquals(500, e.getStatusCode());
+			}
+		}
+		CircuitBreaker breaker = guard.getCircuitBreaker(RepositoryCallCategory.READ);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		// fails fast without calling the repository
+		try {
+			guarded.getEntityById("syn123");
+			fail("expected an exception");
+		} catch (SynapseServerException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		verify(mockSynapse, times(RepositoryGuard.DEFAULT_MINIMUM_CALLS)).getEntityById("syn123");
+		assertEquals(1, breaker.getRejectedCount());
+		// other categories are not affected
+		guarded.putEntity(new Project());
+		assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitBreaker(RepositoryCallCategory.WRITE).getState());
+
+		// after the open time, a good trial call closes the breaker
+		now += RepositoryGuard.DEFAULT_OPEN_MS;
+		when(mockSynapse.getEntityById("syn456")).thenReturn(new Project());
+		guarded.getEntityById("syn456");
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void testHalfOpenAllowsOneTrial() {
+		CircuitBreaker breaker = new CircuitBreaker(4, 2, 50, 1000, 100) {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+		assertTrue(breaker.allowCall());
+		breaker.recordResult(false, 10);
+		assertTrue(breaker.allowCall());
+		// slow calls count against the breaker
+		breaker.recordResult(false, 2000);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowCall());
+		now += 100;
+		assertTrue(breaker.allowCall());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.allowCall());
+		breaker.recordResult(true, 10);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(2, breaker.getOpenCount());
+	}
+
+	@Test
+	public void testBulkheadFull() throws Exception {
+		guard.setBulkheadLimits("READ:1");
+		final CountDownLatch inCall = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(mockSynapse.getEntityById("syn123")).thenAnswer(new Answer<Entity>() {
+			@Override
+			public Entity answer(InvocationOnMock invocation) throws Throwable {
+				inCall.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return new Project();
+			}
+		});
+		Thread slowCall = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					guarded.getEntityById("syn123");
+				} catch (Exception e) {
+				}
+			}
+		});
+		slowCall.start();
+		assertTrue(inCall.await(5, TimeUnit.SECONDS));
+		try {
+			guarded.getEntityById("syn456");
+			fail("expected an exception");
+		} catch (SynapseServerException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		verify(mockSynapse, never()).getEntityById("syn456");
+		assertEquals(1, guard.getBulkhead(RepositoryCallCategory.READ).getRejectedCount());
+		release.countDown();
+		slowCall.join(5000);
+		assertEquals(0, guard.getBulkhead(RepositoryCallCategory.READ).getActiveCount());
+	}
+
+	@Test
+	public void testStatusJson() throws Exception {
+		guarded.getEntityById("syn123");
+		JSONObjectAdapterImpl status = new JSONObjectAdapterImpl(guard.getStatusJson());
+		assertEquals("CLOSED", status.getJSONObject("READ").getString("state"));
+		assertEquals(1L, status.getJSONObject("READ").getLong("calls"));
+		assertEquals((long) RepositoryCallCategory.UPLOAD.getDefaultLimit(), status.getJSONObject("UPLOAD").getLong("limit"));
+	}
+}
@@ -0,0 +1,94 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.repo.model.Project;
+import org.sagebionetworks.web.server.servlet.RepositoryCallTracer;
+import org.sagebionetworks.web.server.servlet.RequestTrace;
+import org.sagebionetworks.web.server.servlet.RequestTraceStore;
+
+public class RequestTraceTest {
+
+	@After
+	public void after() {
+		RequestTrace.end();
+	}
+
+	@Test
+	public void testNoTrace() {
+		SynapseClient mockSynapse = mock(SynapseClient.class);
+		assertSame(mockSynapse, RepositoryCallTracer.wrap(mockSynapse));
+	}
+
+	@Test
+	public void testCallsRecorded() throws Exception {
+		RequestTrace trace = RequestTrace.start("request1", "/Portal/synapse");
+		trace.setRpcMethod("getEntityBundle");
+		SynapseClient mockSynapse = mock(SynapseClient.class);
+		when(mockSynapse.getEntityById("syn123")).thenReturn(new Project());
+		when(mockSynapse.getEntityById("syn456")).thenThrow(new SynapseServerException(500, "failed"));
+		SynapseClient traced = RepositoryCallTracer.wrap(mockSynapse);
+		verify(mockSynapse).appendUserAgent(" " + RequestTrace.USER_AGENT_REQUEST_ID_PREFIX + "request1");
+
+		traced.setSessionToken("token");
+		traced.getEntityById("syn123");
+		try {
+			traced.getEntityById("syn456");
+			fail("expected an exception");
+		} catch (SynapseServerException e) {
+		}
+
+		assertSame(trace, RequestTrace.end());
+		assertNull(RequestTrace.current());
+		List<RequestTrace.Call> calls = trace.getCalls();
+		// setters are not repository calls
+		assertEquals(2, calls.size());
+		assertEquals("getEntityById", calls.get(0).getMethod());
+		assertEquals(RequestTrace.OUTCOME_OK, calls.get(0).getOutcome());
+		assertEquals("500", calls.get(1).getOutcome());
+		assertTrue(trace.getElapsedMillis() >= 0);
+		assertEquals("getEntityBundle", trace.getRpcMethod());
+		assertEquals("/Portal/synapse", trace.getPath());
+	}
+
+	@Test
+	public void testCallsBounded() throws Exception {
+		RequestTrace trace = new RequestTrace("request1", "/Portal/synapse", 0);
+		for (int i = 0; i < RequestTrace.MAX_CALLS + 5; i++) {
+			trace.recordCall("getEntityById", i, 1, RequestTrace.OUTCOME_OK);
+		}
+		assertEquals(RequestTrace.MAX_CALLS, trace.getCalls().size());
+		assertEquals(5, trace.writeToJSONObject().getLong("droppedCalls"));
+	}
+
+	@Test
+	public void testStoreKeepsSlowRequests() {
+		RequestTraceStore store = new RequestTraceStore();
+		store.setSlowRequestMillis(0);
+		RequestTrace fast = new RequestTrace("fast", "/Portal/synapse", 0);
+		// still running
+		assertFalse(store.add(fast));
+		for (int i = 0; i < RequestTraceStore.CAPACITY + 1; i++) {
+			RequestTrace.start("request" + i, "/Portal/synapse");
+			assertTrue(store.add(RequestTrace.end()));
+		}
+		assertEquals(RequestTraceStore.CAPACITY, store.getRecent().size());
+		assertEquals("request" + RequestTraceStore.CAPACITY, store.getRecent().get(0).getRequestId());
+		assertNull(store.get("request0"));
+		assertEquals("request1", store.get("request1").getRequestId());
+	}
+}
@@ -0,0 +1,105 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.web.server.servlet.RequestTrace;
+import org.sagebionetworks.web.server.servlet.SlowRpcSampler;
+
+public class SlowRpcSamplerTest {
+
+	SlowRpcSampler sampler;
+
+	@Before
+	public void before() {
+		sampler = new SlowRpcSampler();
+	}
+
+	@Test
+	public void testFastCallNotKept() {
+		SlowRpcSampler.Call call = sampler.begin("SynapseClientImpl");
+		call.setMethod("getEntity", new Object[] { "syn123" });
+		assertNull(sampler.end(call, 100, null));
+		assertTrue(sampler.getSamples().isEmpty());
+	}
+
+	@Test
+	public void testSlowCallKept() throws Exception {
+		sampler.setThresholdMillis(0);
+		RequestTrace trace = new RequestTrace("request1", "/Portal/synapse", 0);
+		trace.recordCall("getEntityById", 10, 5, RequestTrace.OUTCOME_OK);
+		SlowRpcSampler.Call call = sampler.begin("SynapseClientImpl");
+		call.setRequestBytes(42);
+		call.setMethod("getEntity", new Object[] { "syn123" });
+		SlowRpcSampler.Sample sample = sampler.end(call, 100, trace);
+		assertNotNull(sample);
+		assertEquals("getEntity", sample.getMethod());
+		assertEquals("String(6 characters)", sample.getArguments().get(0));
+		assertEquals(1, sample.getRepositoryCalls().size());
+		assertEquals("getEntityById", sample.getRepositoryCalls().get(0).getMethod());
+		String json = sampler.getSamplesJson();
+		assertTrue(json.contains("\"requestId\":\"request1\""));
+		assertTrue(json.contains("\"requestBytes\":42"));
+	}
+
+	@Test
+	public void testMethodThresholds() {
+		sampler.setThresholdMillis(0);
+		sampler.setMethodThresholds("executeTableQuery:60000, bad, getEntity:x");
+		assertEquals(60000, sampler.getThresholdMillis("executeTableQuery"));
+		assertEquals(0, sampler.getThresholdMillis("getEntity"));
+		SlowRpcSampler.Call call = sampler.begin("SynapseClientImpl");
+		call.setMethod("executeTableQuery", new Object[] { "select * from syn123" });
+		assertNull(sampler.end(call, 100, null));
+	}
+
+	@Test
+	public void testSamplesBounded() {
+		sampler.setThresholdMillis(0);
+		for (int i = 0; i < SlowRpcSampler.CAPACITY + 3; i++) {
+			SlowRpcSampler.Call call = sampler.begin("SynapseClientImpl");
+			call.setMethod("getEntity" + i, new Object[] { "syn" + i });
+			sampler.end(call, 0, null);
+		}
+		List<SlowRpcSampler.Sample> samples = sampler.getSamples();
+		assertEquals(SlowRpcSampler.CAPACITY, samples.size());
+		// most recent first
+		assertEquals("getEntity" + (SlowRpcSampler.CAPACITY + 2), samples.get(0).getMethod());
+	}
+
+	@Test
+	public void testStackCaptured() {
+		sampler.setThresholdMillis(0);
+		sampler.setStackMillis(0);
+		SlowRpcSampler.Call call = sampler.begin("SynapseClientImpl");
+		assertNull(call.getStack());
+		sampler.captureStacks(System.currentTimeMillis());
+		assertNotNull(call.getStack());
+		assertNotNull(sampler.end(call, 0, null).getStack());
+	}
+
+	@Test
+	public void testArgumentValuesNotKept() throws Exception {
+		List<String> arguments = SlowRpcSampler.describeArguments(new Object[] {
+				"my message", Arrays.asList("a", "b"), new String[3], Boolean.TRUE, null });
+		assertEquals("String(10 characters)", arguments.get(0));
+		assertEquals(Arrays.asList("a", "b").getClass().getSimpleName() + "(2 items)", arguments.get(1));
+		assertEquals("String[](3 items)", arguments.get(2));
+		assertEquals("Boolean", arguments.get(3));
+		assertEquals("null", arguments.get(4));
+
+		sampler.setThresholdMillis(0);
+		SlowRpcSampler.Call call = sampler.begin("UserAccountServiceImpl");
+		call.setMethod("sendPasswordResetEmail", new Object[] { "someone@example.com" });
+		sampler.end(call, 0, null);
+		assertFalse(sampler.getSamplesJson().contains("someone@example.com"));
+	}
+}
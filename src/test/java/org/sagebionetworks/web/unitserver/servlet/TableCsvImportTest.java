@@ -0,0 +1,144 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.RowReferenceSet;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.web.server.servlet.TableCsvImport;
+import org.sagebionetworks.web.server.servlet.UploadDaemonMonitor;
+import org.sagebionetworks.web.shared.table.TableImportStatus;
+import org.sagebionetworks.web.shared.table.TableImportStatus.State;
+
+public class TableCsvImportTest {
+
+	SynapseClient mockSynapse;
+	UploadDaemonMonitor.ClientFactory mockClientFactory;
+	TableCsvImport tableImport;
+	File csvFile;
+
+	@Before
+	public void before() throws Exception {
+		mockSynapse = mock(SynapseClient.class);
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenReturn(new RowReferenceSet());
+		mockClientFactory = mock(UploadDaemonMonitor.ClientFactory.class);
+		when(mockClientFactory.createClient("token")).thenReturn(mockSynapse);
+		tableImport = new TableCsvImport("job1", "token", "syn123", "syn99",
+				Arrays.asList(createColumn("1", "Name"), createColumn("2", "Age")), mockClientFactory);
+	}
+
+	@After
+	public void after() {
+		if (csvFile != null)
+			csvFile.delete();
+	}
+
+	private ColumnModel createColumn(String id, String name) {
+		ColumnModel column = new ColumnModel();
+		column.setId(id);
+		column.setName(name);
+		return column;
+	}
+
+	private String createCsv(int rowCount) {
+		StringBuilder csv = new StringBuilder("age,unknown,name\n");
+		for (int i = 0; i < rowCount; i++) {
+			csv.append(i).append(",x,\"name ").append(i).append("\"\n");
+		}
+		return csv.toString();
+	}
+
+	@Test
+	public void testImportRowsInBatches() throws Exception {
+		tableImport.setBatchSize(2);
+		tableImport.importRows(new StringReader(createCsv(5)), mockSynapse);
+		ArgumentCaptor<RowSet> rowSets = ArgumentCaptor.forClass(RowSet.class);
+		verify(mockSynapse, times(3)).appendRowsToTable(rowSets.capture());
+		List<RowSet> batches = rowSets.getAllValues();
+		assertEquals(2, batches.get(0).getRows().size());
+		assertEquals(1, batches.get(2).getRows().size());
+		// headers matched by name, the unknown column is skipped
+		RowSet first = batches.get(0);
+		assertEquals("syn123", first.getTableId());
+		assertEquals(Arrays.asList("2", "1"), first.getHeaders());
+		assertEquals(Arrays.asList("0", "name 0"), first.getRows().get(0).getValues());
+		assertEquals(5, tableImport.getStatus().getRowsImported());
+	}
+
+	@Test
+	public void testEmptyValues() throws Exception {
+		tableImport.importRows(new StringReader("name,age\nbob\n\n,3\n"), mockSynapse);
+		ArgumentCaptor<RowSet> rowSet = ArgumentCaptor.forClass(RowSet.class);
+		verify(mockSynapse).appendRowsToTable(rowSet.capture());
+		assertEquals(2, rowSet.getValue().getRows().size());
+		assertEquals(Arrays.asList("bob", null), rowSet.getValue().getRows().get(0).getValues());
+		assertEquals(Arrays.asList(null, "3"), rowSet.getValue().getRows().get(1).getValues());
+	}
+
+	@Test (expected=IllegalArgumentException.class)
+	public void testNoMatchingHeaders() throws Exception {
+		tableImport.importRows(new StringReader("foo,bar\n1,2\n"), mockSynapse);
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		csvFile = File.createTempFile("import", ".csv");
+		String csv = createCsv(3);
+		FileUtils.writeStringToFile(csvFile, csv, TableCsvImport.CHARSET);
+		when(mockSynapse.getFileEntityTemporaryUrlForCurrentVersion("syn99")).thenReturn(csvFile.toURI().toURL());
+		assertEquals(State.PROCESSING, tableImport.getStatus().getState());
+		tableImport.run();
+		TableImportStatus status = tableImport.getStatus();
+		assertEquals(State.COMPLETED, status.getState());
+		assertEquals(3, status.getRowsImported());
+		assertEquals(csv.length(), status.getBytesRead());
+		assertEquals(new Long(csv.length()), status.getTotalBytes());
+		assertEquals(new Integer(100), status.getPercentComplete());
+		assertNull(status.getErrorMessage());
+		assertTrue(tableImport.getFinishedOn() > 0);
+		// the client is created by the import, for the user who started it
+		verify(mockClientFactory).createClient("token");
+	}
+
+	@Test
+	public void testRunFailure() throws Exception {
+		csvFile = File.createTempFile("import", ".csv");
+		FileUtils.writeStringToFile(csvFile, createCsv(3), TableCsvImport.CHARSET);
+		when(mockSynapse.getFileEntityTemporaryUrlForCurrentVersion(anyString())).thenReturn(csvFile.toURI().toURL());
+		when(mockSynapse.appendRowsToTable(any(RowSet.class))).thenThrow(new SynapseServerException(500, "unavailable"));
+		tableImport.run();
+		TableImportStatus status = tableImport.getStatus();
+		assertEquals(State.FAILED, status.getState());
+		assertTrue(status.getErrorMessage().contains("unavailable"));
+		assertEquals(0, status.getRowsImported());
+	}
+
+	@Test
+	public void testRunMissingFile() throws Exception {
+		when(mockSynapse.getFileEntityTemporaryUrlForCurrentVersion(anyString())).thenThrow(new SynapseServerException(404, "not found"));
+		tableImport.run();
+		assertEquals(State.FAILED, tableImport.getStatus().getState());
+		verify(mockSynapse, never()).appendRowsToTable(any(RowSet.class));
+	}
+}
@@ -0,0 +1,113 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.markdown.constants.WidgetConstants;
+import org.sagebionetworks.web.server.servlet.TelemetryAggregator;
+
+public class TelemetryAggregatorTest {
+
+	private static final String IMAGE_METRIC = "widget." + WidgetConstants.IMAGE_CONTENT_TYPE + ".configure.ms";
+
+	TelemetryAggregator aggregator;
+
+	@Before
+	public void before() {
+		aggregator = new TelemetryAggregator();
+	}
+
+	@Test
+	public void testPercentiles() {
+		for (int i = 1; i <= 1000; i++) {
+			aggregator.record("place.Synapse.ms", i);
+		}
+		TelemetryAggregator.Histogram histogram = aggregator.getHistogram("place.Synapse.ms");
+		assertEquals(1000, histogram.getCount());
+		// within the 20% bucket width
+		assertWithin(500, histogram.getPercentile(0.5));
+		assertWithin(900, histogram.getPercentile(0.9));
+		assertWithin(990, histogram.getPercentile(0.99));
+		assertEquals(1000, histogram.getPercentile(1));
+	}
+
+	private void assertWithin(long expected, long actual) {
+		assertTrue("expected about " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.2);
+	}
+
+	@Test
+	public void testSmallValuesExact() {
+		aggregator.record(IMAGE_METRIC, 0);
+		aggregator.record(IMAGE_METRIC, 3);
+		aggregator.record(IMAGE_METRIC, 3);
+		assertEquals(3, aggregator.getHistogram(IMAGE_METRIC).getPercentile(0.5));
+	}
+
+	@Test
+	public void testAddBatch() throws Exception {
+		aggregator.addBatch("{\"values\":{\"rpc.getEntityBundle.ms\":[100,200],\"rpc.notAMethod.ms\":[1],\"place.Home.ms\":[1500]},\"dropped\":3}");
+		assertEquals(2, aggregator.getHistogram("rpc.getEntityBundle.ms").getCount());
+		assertEquals(1, aggregator.getHistogram("place.Home.ms").getCount());
+		JSONObject summary = new JSONObject(aggregator.getSummaryJson());
+		assertEquals(1, summary.getLong("batches"));
+		assertEquals(4, summary.getLong("dropped"));
+		JSONObject rpc = summary.getJSONObject("metrics").getJSONObject("rpc.getEntityBundle.ms");
+		assertEquals(2, rpc.getLong("count"));
+		assertEquals(150, rpc.getLong("mean"));
+		assertEquals(200, rpc.getLong("max"));
+		assertTrue(rpc.has("p99"));
+	}
+
+	@Test
+	public void testBadBatch() {
+		try {
+			aggregator.addBatch("not json");
+			fail("expected an exception");
+		} catch (JSONException e) {
+		}
+	}
+
+	@Test
+	public void testBadValuesDropped() {
+		assertFalse(aggregator.record("bad name\"", 1));
+		assertFalse(aggregator.record("place.Junk.ms", 1));
+		assertFalse(aggregator.record("rpc.getEntityBundle.ms", -1));
+		assertFalse(aggregator.record("rpc.getEntityBundle.ms", TelemetryAggregator.MAX_VALUE + 1));
+		assertNull(aggregator.getHistogram("rpc.getEntityBundle.ms"));
+	}
+
+	@Test
+	public void testKnownNames() {
+		assertTrue(TelemetryAggregator.KNOWN_NAMES.contains("place.Synapse.ms"));
+		assertTrue(TelemetryAggregator.KNOWN_NAMES.contains("rpc.getEntityBundle.responseBytes"));
+		assertTrue(TelemetryAggregator.KNOWN_NAMES.contains(IMAGE_METRIC));
+	}
+
+	@Test
+	public void testBatchValuesBounded() throws Exception {
+		StringBuilder values = new StringBuilder();
+		for (int i = 0; i < TelemetryAggregator.MAX_VALUES_PER_NAME + 5; i++) {
+			values.append(i == 0 ? "" : ",").append(i);
+		}
+		aggregator.addBatch("{\"values\":{\"rpc.getEntityBundle.ms\":[" + values + "]},\"dropped\":0}");
+		assertEquals(TelemetryAggregator.MAX_VALUES_PER_NAME, aggregator.getHistogram("rpc.getEntityBundle.ms").getCount());
+		assertEquals(5, new JSONObject(aggregator.getSummaryJson()).getLong("dropped"));
+	}
+
+	@Test
+	public void testWindow() {
+		aggregator.setWindowMillis(1000);
+		aggregator.record("place.Synapse.ms", 10);
+		aggregator.rollWindow(System.currentTimeMillis());
+		assertEquals(1, aggregator.getHistogram("place.Synapse.ms").getCount());
+		aggregator.rollWindow(System.currentTimeMillis() + 1000);
+		assertNull(aggregator.getHistogram("place.Synapse.ms"));
+	}
+}
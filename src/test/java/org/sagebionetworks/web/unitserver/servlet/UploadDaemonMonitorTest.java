@@ -0,0 +1,98 @@
+package org.sagebionetworks.web.unitserver.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.client.SynapseClient;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.repo.model.file.State;
+import org.sagebionetworks.repo.model.file.UploadDaemonStatus;
+import org.sagebionetworks.web.server.servlet.UploadDaemonMonitor;
+
+public class UploadDaemonMonitorTest {
+
+	SynapseClient mockSynapse;
+	UploadDaemonMonitor.ClientFactory clientFactory;
+	UploadDaemonMonitor monitor;
+	long now;
+
+	@Before
+	public void before() {
+		now = 1000;
+		mockSynapse = mock(SynapseClient.class);
+		clientFactory = mock(UploadDaemonMonitor.ClientFactory.class);
+		when(clientFactory.createClient("token")).thenReturn(mockSynapse);
+		monitor = new UploadDaemonMonitor() {
+			@Override
+			protected long currentTimeMillis() {
+				return now;
+			}
+		};
+	}
+
+	private UploadDaemonStatus createStatus(State state, double percentComplete) {
+		UploadDaemonStatus status = new UploadDaemonStatus();
+		status.setDaemonId("daemon1");
+		status.setState(state);
+		status.setPercentComplete(percentComplete);
+		return status;
+	}
+
+	@Test
+	public void testPolledOnceForAllCallers() throws Exception {
+		monitor.watch(createStatus(State.PROCESSING, 0), "token");
+		when(mockSynapse.getCompleteUploadDaemonStatus("daemon1")).thenReturn(createStatus(State.PROCESSING, 50));
+		monitor.poll(clientFactory);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(new Double(50), monitor.getStatus("daemon1", "token").getPercentComplete());
+		}
+		verify(mockSynapse, times(1)).getCompleteUploadDaemonStatus("daemon1");
+
+		when(mockSynapse.getCompleteUploadDaemonStatus("daemon1")).thenReturn(createStatus(State.COMPLETED, 100));
+		monitor.poll(clientFactory);
+		assertEquals(State.COMPLETED, monitor.getStatus("daemon1", "token").getState());
+		// a finished daemon is not asked about again
+		monitor.poll(clientFactory);
+		verify(mockSynapse, times(2)).getCompleteUploadDaemonStatus("daemon1");
+		// with a client of the poll thread, created once for the user that started the daemon
+		verify(clientFactory, times(1)).createClient("token");
+	}
+
+	@Test
+	public void testOtherUser() throws Exception {
+		monitor.watch(createStatus(State.PROCESSING, 0), "token");
+		assertNull(monitor.getStatus("daemon1", "another token"));
+		assertNull(monitor.getStatus("daemon2", "token"));
+	}
+
+	@Test
+	public void testNotFollowed() throws Exception {
+		monitor.watch(createStatus(State.COMPLETED, 100), "token");
+		monitor.watch(new UploadDaemonStatus(), "token");
+		assertEquals(0, monitor.size());
+	}
+
+	@Test
+	public void testIdleDropped() throws Exception {
+		monitor.watch(createStatus(State.PROCESSING, 0), "token");
+		now += UploadDaemonMonitor.IDLE_MS + 1;
+		monitor.poll(clientFactory);
+		assertEquals(0, monitor.size());
+		verify(mockSynapse, never()).getCompleteUploadDaemonStatus("daemon1");
+	}
+
+	@Test
+	public void testErrorDropped() throws Exception {
+		monitor.watch(createStatus(State.PROCESSING, 0), "token");
+		when(mockSynapse.getCompleteUploadDaemonStatus("daemon1")).thenThrow(new SynapseServerException(500, "failed"));
+		monitor.poll(clientFactory);
+		assertNull(monitor.getStatus("daemon1", "token"));
+	}
+}
@@ -0,0 +1,211 @@
+package org.sagebionetworks.web.unitshared.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.schema.adapter.AdapterFactory;
+import org.sagebionetworks.schema.adapter.org.json.AdapterFactoryImpl;
+import org.sagebionetworks.web.client.SynapseClient;
+import org.sagebionetworks.web.client.widget.table.CompactRowSetModels;
+import org.sagebionetworks.web.client.widget.table.TableModel;
+import org.sagebionetworks.web.client.widget.table.TableUtils;
+import org.sagebionetworks.web.shared.table.CompactRowSet;
+import org.sagebionetworks.web.shared.table.QueryDetails;
+import org.sagebionetworks.web.shared.table.QueryResult;
+
+import com.google.gwt.user.server.rpc.RPC;
+
+public class CompactRowSetTest {
+
+	private static final int BENCHMARK_COLUMNS = 100;
+	private static final int BENCHMARK_ROWS = 1000;
+	private static final int BENCHMARK_ITERATIONS = 10;
+	// rows shown in the scroll view at once
+	private static final int BENCHMARK_VISIBLE_ROWS = 40;
+
+	AdapterFactory adapterFactory = new AdapterFactoryImpl();
+
+	private Row createRow(Long rowId, String... values) {
+		Row row = new Row();
+		row.setRowId(rowId);
+		row.setVersionNumber(rowId == null ? null : 1L);
+		row.setValues(Arrays.asList(values));
+		return row;
+	}
+
+	@Test
+	public void testCreate() {
+		RowSet rowSet = new RowSet();
+		rowSet.setTableId("syn123");
+		rowSet.setEtag("etag");
+		rowSet.setHeaders(Arrays.asList("1", "2", "3"));
+		rowSet.setRows(Arrays.asList(
+				createRow(10L, "a", "x", null),
+				createRow(11L, "a", "y", "a")));
+		CompactRowSet compact = CompactRowSet.create(rowSet);
+		assertEquals("syn123", compact.getTableId());
+		assertEquals("etag", compact.getEtag());
+		assertEquals(Arrays.asList("1", "2", "3"), compact.getHeaders());
+		assertEquals(2, compact.getRowCount());
+		assertEquals(3, compact.getColumnCount());
+		// repeated values are kept once
+		assertEquals(3, compact.getDictionarySize());
+		assertEquals("a", compact.getValue(0, 0));
+		assertEquals("y", compact.getValue(1, 1));
+		assertNull(compact.getValue(0, 2));
+		assertEquals("a", compact.getValue(1, 2));
+		assertEquals(new Long(11), compact.getRowId(1));
+		assertEquals(new Long(1), compact.getVersionNumber(1));
+	}
+
+	@Test
+	public void testCreateEmpty() {
+		RowSet rowSet = new RowSet();
+		rowSet.setHeaders(Arrays.asList("1"));
+		CompactRowSet compact = CompactRowSet.create(rowSet);
+		assertEquals(0, compact.getRowCount());
+		assertEquals(1, compact.getColumnCount());
+		assertEquals(0, new CompactRowSetModels(compact).size());
+	}
+
+	@Test
+	public void testModelsDecodedWhenRead() {
+		RowSet rowSet = createSyntheticRowSet(5, 10);
+		CompactRowSetModels models = new CompactRowSetModels(CompactRowSet.create(rowSet));
+		assertEquals(10, models.size());
+		assertEquals(0, models.getDecodedCount());
+		TableModel model = models.get(3);
+		assertEquals(1, models.getDecodedCount());
+		// same model on the next read
+		assertEquals(model, models.get(3));
+		TableModel expected = TableUtils.convertRowToModel(rowSet.getHeaders(), rowSet.getRows().get(3));
+		assertEquals(expected.getId(), model.getId());
+		assertEquals(expected.getVersionNumber(), model.getVersionNumber());
+		for (String header : rowSet.getHeaders()) {
+			assertEquals(expected.get(header), model.get(header));
+		}
+	}
+
+	/**
+	 * A wide table: a few distinct values in most columns (categories, flags,
+	 * small numbers), and a unique value in a few.
+	 */
+	private RowSet createSyntheticRowSet(int columnCount, int rowCount) {
+		List<String> headers = new ArrayList<String>();
+		for (int c = 0; c < columnCount; c++) {
+			headers.add(Integer.toString(1000 + c));
+		}
+		List<Row> rows = new ArrayList<Row>();
+		for (int r = 0; r < rowCount; r++) {
+			String[] values = new String[columnCount];
+			for (int c = 0; c < columnCount; c++) {
+				switch (c % 5) {
+				case 0:
+					values[c] = "sample-" + r + "-" + c;
+					break;
+				case 1:
+					values[c] = (r + c) % 2 == 0 ? "true" : "false";
+					break;
+				case 2:
+					values[c] = r % 7 == 0 ? null : Integer.toString((r * c) % 100);
+					break;
+				default:
+					values[c] = "category " + ((r + c) % 12);
+				}
+			}
+			rows.add(createRow((long) r, values));
+		}
+		RowSet rowSet = new RowSet();
+		rowSet.setTableId("syn123");
+		rowSet.setEtag("etag");
+		rowSet.setHeaders(headers);
+		rowSet.setRows(rows);
+		return rowSet;
+	}
+
+	/**
+	 * @return the GWT RPC payload of the query result, sent as row set json or in the compact form
+	 */
+	private int getPayloadLength(RowSet rowSet, boolean compact) throws Exception {
+		QueryDetails details = new QueryDetails(0L, (long) rowSet.getRows().size(), null, null);
+		QueryResult result;
+		if (compact) {
+			result = new QueryResult(null, "select * from syn123", details, rowSet.getRows().size());
+			result.setCompactRowSet(CompactRowSet.create(rowSet));
+		} else {
+			String json = rowSet.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+			result = new QueryResult(json, "select * from syn123", details, rowSet.getRows().size());
+		}
+		Method method = SynapseClient.class.getMethod("executeTableQuery", String.class, QueryDetails.class, boolean.class);
+		return RPC.encodeResponseForSuccess(method, result).length();
+	}
+
+	@Test
+	public void testCompactPayloadSmaller() throws Exception {
+		RowSet rowSet = createSyntheticRowSet(20, 100);
+		assertTrue(getPayloadLength(rowSet, true) < getPayloadLength(rowSet, false));
+	}
+
+	/**
+	 * Not a pass/fail test. Compares the GWT RPC payload of a query result
+	 * sent as row set json against the compact form, and the client side cost
+	 * of turning it into table models, for a synthetic 100 column table.
+	 * Ignored so it stays out of the unit test run; remove the @Ignore locally
+	 * and run this test alone to see the numbers.
+	 */
+	@Ignore
+	@Test
+	public void testPayloadBenchmark() throws Exception {
+		RowSet rowSet = createSyntheticRowSet(BENCHMARK_COLUMNS, BENCHMARK_ROWS);
+		String json = rowSet.writeToJSONObject(adapterFactory.createNew()).toJSONString();
+		CompactRowSet compact = CompactRowSet.create(rowSet);
+		int jsonPayload = getPayloadLength(rowSet, false);
+		int compactPayload = getPayloadLength(rowSet, true);
+
+		// warm up
+		decodeJson(json, BENCHMARK_ROWS);
+		decodeCompact(compact, BENCHMARK_ROWS);
+		long jsonNs = decodeJson(json, BENCHMARK_ROWS);
+		long compactAllNs = decodeCompact(compact, BENCHMARK_ROWS);
+		long compactVisibleNs = decodeCompact(compact, BENCHMARK_VISIBLE_ROWS);
+
+		System.out.println("Table query result (" + BENCHMARK_COLUMNS + " columns, " + BENCHMARK_ROWS + " rows, " + compact.getDictionarySize() + " distinct values)");
+		System.out.println("  RPC payload, row set json: " + jsonPayload / 1024 + " KB");
+		System.out.println("  RPC payload, compact:      " + compactPayload / 1024 + " KB");
+		System.out.println("  decode json, all rows:     " + jsonNs / BENCHMARK_ITERATIONS / 1000 + " us");
+		System.out.println("  decode compact, all rows:  " + compactAllNs / BENCHMARK_ITERATIONS / 1000 + " us");
+		System.out.println("  decode compact, " + BENCHMARK_VISIBLE_ROWS + " rows:   " + compactVisibleNs / BENCHMARK_ITERATIONS / 1000 + " us");
+	}
+
+	private long decodeJson(String json, int rowCount) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			RowSet rowSet = new RowSet(adapterFactory.createNew(json));
+			for (int r = 0; r < rowCount; r++) {
+				TableUtils.convertRowToModel(rowSet.getHeaders(), rowSet.getRows().get(r));
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long decodeCompact(CompactRowSet compact, int rowCount) {
+		long start = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+			CompactRowSetModels models = new CompactRowSetModels(compact);
+			for (int r = 0; r < rowCount; r++) {
+				models.get(r);
+			}
+		}
+		return System.nanoTime() - start;
+	}
+}